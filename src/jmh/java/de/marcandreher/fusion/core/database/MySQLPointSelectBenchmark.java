@@ -0,0 +1,99 @@
+package de.marcandreher.fusion.core.database;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import de.marcandreher.fusionkit.core.database.Database;
+import de.marcandreher.fusionkit.core.database.MySQL;
+
+/**
+ * 10k primary key lookups on one connection lease, with the statement reused by
+ * {@link MySQL#first} against one prepared, rendered and closed per call as MySQL did before.
+ *
+ * <p>Needs a MySQL server, see the {@code benchmark} profile in the pom. The table
+ * {@code fk_bench_point} is created and filled on the first run and kept for later ones.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class MySQLPointSelectBenchmark {
+    private static final int ROWS = 10_000;
+    private static final String SELECT = "SELECT name FROM fk_bench_point WHERE id = ?";
+
+    private Database database;
+    private MySQL mysql;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = new Database(db -> {
+            db.setHost(System.getProperty("fusionkit.bench.host", "localhost"));
+            db.setPort(Integer.getInteger("fusionkit.bench.port", 3306));
+            db.setUsername(System.getProperty("fusionkit.bench.user", "root"));
+            db.setPassword(System.getProperty("fusionkit.bench.password", "password"));
+            db.setDatabase(System.getProperty("fusionkit.bench.database", "fusionkit"));
+        });
+        database.connect();
+
+        mysql = database.getConnection();
+        mysql.exec("CREATE TABLE IF NOT EXISTS fk_bench_point (id INT PRIMARY KEY, name VARCHAR(64) NOT NULL)");
+        int rows = mysql.first("SELECT COUNT(*) FROM fk_bench_point", rs -> rs.getInt(1)).orElse(0);
+        if (rows != ROWS) {
+            database.inTransaction(tx -> {
+                tx.exec("DELETE FROM fk_bench_point");
+                for (int id = 0; id < ROWS; id++) {
+                    tx.exec("INSERT INTO fk_bench_point (id, name) VALUES (?, ?)", id, "row-" + id);
+                }
+                return null;
+            });
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        mysql.close();
+        database.shutdown();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void reusedStatement(Blackhole bh) {
+        for (int id = 0; id < ROWS; id++) {
+            bh.consume(mysql.first(SELECT, rs -> rs.getString(1), id));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void statementPerCall(Blackhole bh) throws SQLException {
+        for (int id = 0; id < ROWS; id++) {
+            try (PreparedStatement stmt = mysql.getConnection().prepareStatement(SELECT)) {
+                stmt.setInt(1, id);
+                // The SQL used to be rendered for the log even with logSql off
+                bh.consume(stmt.toString());
+                try (ResultSet rs = stmt.executeQuery()) {
+                    bh.consume(rs.next() ? rs.getString(1) : null);
+                }
+            }
+        }
+    }
+}
@@ -2,9 +2,9 @@ package de.marcandreher.fusionkit.core;
 
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.Set;
 import java.util.function.Consumer;
 
 import org.slf4j.Logger;
@@ -27,6 +27,7 @@ import de.marcandreher.fusionkit.core.cmd.implementations.AppCommand;
 import de.marcandreher.fusionkit.core.config.AppConfiguration;
 import de.marcandreher.fusionkit.core.cron.FusionCron;
 import de.marcandreher.fusionkit.core.database.Database;
+import de.marcandreher.fusionkit.core.http.FusionHttp;
 import de.marcandreher.fusionkit.core.logger.JLineConsoleAppender;
 import okhttp3.OkHttpClient;
 
@@ -38,10 +39,9 @@ public class FusionKit {
     protected static final ArrayList<WebApp> webApps = new ArrayList<>();
     protected static final Gson gson = new GsonBuilder().setPrettyPrinting().create();
     protected static FusionCron cron = new FusionCron();
-    protected static OkHttpClient client = new OkHttpClient.Builder().build();
     protected static CommandService commandService;
     protected static ClassLoader classLoader;
-    protected static Set<Database> databases = new HashSet<>();
+    protected static final Map<String, Database> databases = new LinkedHashMap<>();
     public static Database database;
     
     static {
@@ -134,7 +134,7 @@ public class FusionKit {
     }
 
     public static OkHttpClient getHttpClient() {
-        return client;
+        return FusionHttp.getClient();
     }
 
     public static FusionCron getCron() {
@@ -166,14 +166,50 @@ public class FusionKit {
     public static void registerWebApplication(Consumer<WebAppConfig> appConfig) {
         WebAppConfig config = new WebAppConfig();
         appConfig.accept(config);
+        startWebApplication(config);
+    }
 
+    protected static WebApp startWebApplication(WebAppConfig config) {
         WebApp app = new WebApp(config, config.getRouter());
-        webApps.add(app);
+        synchronized (webApps) {
+            webApps.add(app);
+        }
         logger.debug("Registered web application: {}", app.getConfig().getName());
+        return app;
+    }
+
+    /**
+     * Registers a database under its name. The first one becomes {@link #database}.
+     * @return Whether it is the first database
+     * @throws IllegalArgumentException If a database with the same name is registered
+     */
+    public static boolean registerDatabase(Database db) {
+        synchronized (databases) {
+            if (databases.putIfAbsent(db.getName(), db) != null) {
+                throw new IllegalArgumentException("A database named '" + db.getName() + "' already exists");
+            }
+            if (database == null) {
+                database = db;
+                return true;
+            }
+            return false;
+        }
     }
 
     public static Database getDatabase() {
-        return databases.isEmpty() ? null : databases.iterator().next();
+        return database;
+    }
+
+    public static Database getDatabase(String name) {
+        synchronized (databases) {
+            return databases.get(name);
+        }
+    }
+
+    public static List<Database> getDatabases() {
+        synchronized (databases) {
+            return List.copyOf(databases.values());
+        }
     }
 
     public static Database getByWebApp(WebAppConfig config) {
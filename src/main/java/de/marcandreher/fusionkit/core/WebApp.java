@@ -1,8 +1,11 @@
 package de.marcandreher.fusionkit.core;
 
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 
+import org.eclipse.jetty.server.Connector;
+import org.eclipse.jetty.server.Server;
 import org.eclipse.jetty.util.thread.QueuedThreadPool;
 import org.slf4j.Logger;
 
@@ -17,6 +20,7 @@ import de.marcandreher.fusionkit.core.debug.FusionDebugCache;
 import de.marcandreher.fusionkit.core.debug.FusionDebugHandler;
 import de.marcandreher.fusionkit.core.debug.FusionDebugRequestAPIHandler;
 import de.marcandreher.fusionkit.core.error.JavalinExceptionHandler;
+import de.marcandreher.fusionkit.core.health.FusionHealth;
 import de.marcandreher.fusionkit.core.i18n.I18nHandler;
 import de.marcandreher.fusionkit.core.i18n.I18nInfoHandler;
 import de.marcandreher.fusionkit.core.i18n.I18nSetHandler;
@@ -25,19 +29,24 @@ import de.marcandreher.fusionkit.core.javalin.FusionRequestLogger;
 import de.marcandreher.fusionkit.core.javalin.ProductionLevel;
 import de.marcandreher.fusionkit.core.routes.FusionDatabaseInfoHandler;
 import de.marcandreher.fusionkit.core.routes.FusionInfoHandler;
-import freemarker.template.Configuration;
+import de.marcandreher.fusionkit.core.routes.HealthHandler;
 import io.javalin.Javalin;
 import io.javalin.config.JavalinConfig;
 import io.javalin.config.Key;
 import io.javalin.config.RoutesConfig;
+import io.javalin.http.Handler;
 import io.javalin.http.staticfiles.Location;
-import io.javalin.rendering.template.JavalinFreemarker;
 
 public class WebApp {
 
+    private static final String IN_FLIGHT = "fusionkit.inFlight";
+
     private Logger logger;
     private WebAppConfig config;
     private Javalin app;
+    private volatile Server server;
+    private volatile boolean draining;
+    private final AtomicInteger inFlight = new AtomicInteger();
 
     public WebApp(WebAppConfig config, Consumer<RoutesConfig> appRoutes) {
         this.config = config;
@@ -47,11 +56,13 @@ public class WebApp {
             app = Javalin.create(javalinConfig -> {
                 // Configure custom thread pool name for Jetty
                 javalinConfig.jetty.modifyServer(server -> {
+                    this.server = server;
 
                     if (server.getThreadPool() instanceof QueuedThreadPool queuedThreadPool) {
                         queuedThreadPool.setName("FK-WebApp-" + config.getName());
                     }
                 });
+                trackInFlightRequests(javalinConfig);
                 var myKey = new Key<Database>("database");
                 javalinConfig.appData(myKey, config.getDatabase());
 
@@ -70,6 +81,10 @@ public class WebApp {
                     setupAuth(javalinConfig);
                 }
 
+                if (config.health.isEnabled()) {
+                    setupHealth(javalinConfig);
+                }
+
                 appRoutes.accept(javalinConfig.routes);
                 
 
@@ -90,7 +105,43 @@ public class WebApp {
                 System.currentTimeMillis() - startTime);
     }
 
+    private void trackInFlightRequests(JavalinConfig javalinConfig) {
+        javalinConfig.routes.before("/*", ctx -> {
+            inFlight.incrementAndGet();
+            ctx.attribute(IN_FLIGHT, Boolean.TRUE);
+            if (draining) {
+                // Keep-alive clients reconnect to another instance for their next request
+                ctx.header("Connection", "close");
+            }
+        });
+        javalinConfig.routes.after("/*", ctx -> {
+            if (ctx.attribute(IN_FLIGHT) != null) {
+                ctx.attribute(IN_FLIGHT, null);
+                inFlight.decrementAndGet();
+            }
+        });
+    }
+
+    private void setupHealth(JavalinConfig javalinConfig) {
+        FusionHealth.start();
+        javalinConfig.routes.get(config.health.getPath() + "/live", new HealthHandler(FusionHealth.Probe.LIVENESS));
+        javalinConfig.routes.get(config.health.getPath() + "/ready", new HealthHandler(FusionHealth.Probe.READINESS));
+    }
+
+    /**
+     * Wraps a filter so health probes bypass it.
+     */
+    private Handler skipProbes(Handler handler) {
+        return ctx -> {
+            if (!config.health.isProbe(ctx.path())) {
+                handler.handle(ctx);
+            }
+        };
+    }
+
     private void setupAuth(JavalinConfig javalinConfig) {
+        config.auth.getAuthSessionStore().initialize(config);
+
         if (config.auth.getEnabledProviders() != null && !config.auth.getEnabledProviders().isEmpty()) {
             for (AuthProvider provider : config.auth.getEnabledProviders()) {
                 if (provider == null || provider == AuthProvider.NONE) {
@@ -121,7 +172,7 @@ public class WebApp {
             System.exit(1);
         }
 
-        javalinConfig.routes.before("/*", new I18nHandler(FusionKit.getClassLoader(), config));
+        javalinConfig.routes.before("/*", skipProbes(new I18nHandler(FusionKit.getClassLoader(), config)));
         javalinConfig.routes.get("/i18n/info", new I18nInfoHandler());
         javalinConfig.routes.post("/i18n/set", new I18nSetHandler());
     }
@@ -137,8 +188,8 @@ public class WebApp {
         }
 
         if (config.isDebugger()) {
-            javalinConfig.routes.before("/*", new FusionDebugCache());
-            javalinConfig.routes.after("/*", new FusionDebugHandler());
+            javalinConfig.routes.before("/*", skipProbes(new FusionDebugCache()));
+            javalinConfig.routes.after("/*", skipProbes(new FusionDebugHandler()));
             javalinConfig.routes.get("/fusion/debug/", new FusionDebugAPIHandler());
             javalinConfig.routes.get("/fusion/request/", new FusionDebugRequestAPIHandler());
         }
@@ -219,9 +270,7 @@ public class WebApp {
                 templateDir.persist();
 
                 FreemarkerConfiguration fmConfigFile = new FreemarkerConfiguration();
-                Configuration fmConfig = fmConfigFile.applyConfig(config, templateDir.getDirectory());
-
-                javalinConfig.fileRenderer(new JavalinFreemarker(fmConfig));
+                javalinConfig.fileRenderer(fmConfigFile.createRenderer(config, templateDir.getDirectory()));
             } catch (Exception e) {
                 logger.error("Error configuring Freemarker: " + e.getMessage(), e);
             }
@@ -246,6 +295,40 @@ public class WebApp {
         return app;
     }
 
+    /**
+     * Returns the number of requests that are currently being handled.
+     */
+    public int getInFlightRequests() {
+        return inFlight.get();
+    }
+
+    /**
+     * Closes the server sockets so no new connections are accepted. Requests on open
+     * connections are still handled, and answered with {@code Connection: close}.
+     */
+    public void stopAccepting() {
+        draining = true;
+        Server jetty = server;
+        if (jetty == null) {
+            return;
+        }
+        for (Connector connector : jetty.getConnectors()) {
+            connector.shutdown();
+        }
+    }
+
+    /**
+     * Waits until no request is in flight or the deadline passed.
+     * @param deadlineMillis Deadline as {@link System#currentTimeMillis()}
+     * @return The number of requests still in flight
+     */
+    public int awaitDrained(long deadlineMillis) throws InterruptedException {
+        while (inFlight.get() > 0 && System.currentTimeMillis() < deadlineMillis) {
+            Thread.sleep(25);
+        }
+        return inFlight.get();
+    }
+
     public void stop() {
         if (app != null) {
             logger.info("Stopping WebApp '{}'", config.getName());
@@ -7,6 +7,8 @@ import java.util.function.Consumer;
 
 import de.marcandreher.fusionkit.core.auth.AuthProcessor;
 import de.marcandreher.fusionkit.core.auth.AuthProvider;
+import de.marcandreher.fusionkit.core.auth.CaffeineProfileCache;
+import de.marcandreher.fusionkit.core.auth.ProfileCache;
 import de.marcandreher.fusionkit.core.auth.store.AuthSessionStore;
 import de.marcandreher.fusionkit.core.auth.store.SessionAttributeAuthSessionStore;
 import de.marcandreher.fusionkit.core.database.Database;
@@ -33,6 +35,7 @@ public class WebAppConfig {
     public final SSL ssl = new SSL();
     public final Sessions sessions = new Sessions();
     public final Server server = new Server();
+    public final Health health = new Health();
 
     @Setter 
     @Getter
@@ -82,6 +85,8 @@ public class WebAppConfig {
         private long authSessionInterval = 24 * 60 * 60 * 1000;
         private AuthProcessor authProcessor = null;
         private AuthSessionStore authSessionStore = new SessionAttributeAuthSessionStore();
+        // Set to null to always fetch profiles from the provider
+        private ProfileCache profileCache = new CaffeineProfileCache();
     }
 
     @Data
@@ -135,9 +140,31 @@ public class WebAppConfig {
         private String cookieName;
     }
 
+    @Data
+    public static class Health {
+        private boolean enabled = true;
+        // Serves <path>/live and <path>/ready
+        private String path = "/health";
+
+        /**
+         * Returns whether the request path is one of the probe endpoints. Probes skip the
+         * request logger and the before-filters of auth, i18n and the debugger.
+         */
+        public boolean isProbe(String requestPath) {
+            return enabled && requestPath != null
+                    && (requestPath.equals(path + "/live") || requestPath.equals(path + "/ready"));
+        }
+    }
+
     @Data
     public static class Server {
         private boolean showBanner = true;
         private int maxRequestSize = 1024 * 1024;
+        // How long shutdown keeps accepting connections after readiness fails, so load
+        // balancers stop routing here first. Should cover about two readiness probe periods.
+        // Only applies outside development with the health endpoints enabled.
+        private long preStopDelay = 10_000;
+        // How long shutdown waits for in-flight requests before stopping the server
+        private long drainTimeout = 30_000;
     }
 }
\ No newline at end of file
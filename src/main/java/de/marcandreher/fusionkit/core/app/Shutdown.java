@@ -1,55 +1,167 @@
 package de.marcandreher.fusionkit.core.app;
 
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+
 import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import ch.qos.logback.classic.LoggerContext;
 import de.marcandreher.fusionkit.core.FusionKit;
 import de.marcandreher.fusionkit.core.WebApp;
+import de.marcandreher.fusionkit.core.auth.store.AuthSessionStore;
+import de.marcandreher.fusionkit.core.config.ConfigService;
+import de.marcandreher.fusionkit.core.database.Database;
+import de.marcandreher.fusionkit.core.externals.DiscordWebhookDispatcher;
+import de.marcandreher.fusionkit.core.health.FusionHealth;
+import de.marcandreher.fusionkit.core.http.FusionHttp;
+import de.marcandreher.fusionkit.core.javalin.ProductionLevel;
 
+/**
+ * Shuts FusionKit down in phases, so requests in flight during a rolling deploy still succeed:
+ * <ol>
+ * <li>Report not ready and keep serving for {@code WebAppConfig.server.preStopDelay}, so load
+ * balancers stop routing new requests here. Skipped for apps without health endpoints</li>
+ * <li>Stop accepting connections</li>
+ * <li>Drain in-flight requests, up to {@code WebAppConfig.server.drainTimeout}</li>
+ * <li>Let running cron tasks finish, up to {@link #CRON_TIMEOUT_MILLIS}, then run their shutdown hooks</li>
+ * <li>Flush queued webhooks</li>
+ * <li>Close pools, clients and auth session stores</li>
+ * </ol>
+ * A failing phase is logged and the next one still runs.
+ */
 public class Shutdown extends FusionKit {
 
     private static final Logger logger = FusionKit.getLogger(Shutdown.class);
 
+    public static final long CRON_TIMEOUT_MILLIS = 30_000;
+    public static final long WEBHOOK_TIMEOUT_MILLIS = 5_000;
+
+    private static volatile boolean shuttingDown;
+
+    /**
+     * Returns whether the shutdown started. Readiness checks fail from then on.
+     */
+    public static boolean isShuttingDown() {
+        return shuttingDown;
+    }
+
     public Thread getShutdownHook() {
         return new Thread(() -> {
             long startTime = System.currentTimeMillis();
             log("Shutting down FusionKit...");
-            
-            try {
-                // Shutdown cron tasks
-                if (FusionKit.cron != null) {
-                    log("Shutting down cron scheduler...");
-                    FusionKit.cron.shutdown();
+
+            List<WebApp> apps;
+            synchronized (FusionKit.webApps) {
+                apps = new ArrayList<>(FusionKit.webApps);
+            }
+
+            shuttingDown = true;
+            long preStopDelay = 0;
+            for (WebApp app : apps) {
+                // Only load balancers watching /health/ready need the delay, none do in development
+                if (app.getConfig().health.isEnabled()
+                        && !ProductionLevel.isInDevelopment(app.getConfig().getProductionLevel())) {
+                    preStopDelay = Math.max(preStopDelay, app.getConfig().server.getPreStopDelay());
+                }
+            }
+            if (preStopDelay > 0) {
+                long delay = preStopDelay;
+                phase("Reporting not ready for " + delay + " ms", () -> Thread.sleep(delay));
+            }
+
+            phase("Stopping new connections", () -> {
+                for (WebApp app : apps) {
+                    app.stopAccepting();
+                }
+            });
+
+            long drainStart = System.currentTimeMillis();
+            phase("Draining " + apps.size() + " web applications", () -> {
+                for (WebApp app : apps) {
+                    long deadline = drainStart + app.getConfig().server.getDrainTimeout();
+                    int remaining = app.awaitDrained(deadline);
+                    if (remaining > 0) {
+                        logger.warn("Stopping web application '{}' with {} requests still in flight",
+                                app.getConfig().getName(), remaining);
+                    }
+                    app.stop();
+                    log("Web application '" + app.getConfig().getName() + "' stopped.");
                 }
-                
-                // Shutdown web applications
-                if (FusionKit.webApps != null && !FusionKit.webApps.isEmpty()) {
-                    log("Shutting down " + FusionKit.webApps.size() + " web applications...");
-                    for (WebApp app : FusionKit.webApps) {
-                        app.stop();
-                        log("Web application '" + app.getConfig().getName() + "' stopped.");
+            });
+
+            if (FusionKit.cron != null) {
+                phase("Waiting for cron tasks", () -> {
+                    FusionKit.cron.shutdown();
+                    if (!FusionKit.cron.awaitTermination(CRON_TIMEOUT_MILLIS)) {
+                        logger.warn("Cron tasks still running after {} ms", CRON_TIMEOUT_MILLIS);
                     }
+                    FusionKit.cron.runShutdownHooks();
+                });
+            }
+
+            phase("Flushing queued Discord webhooks", () -> DiscordWebhookDispatcher.closeDefault(WEBHOOK_TIMEOUT_MILLIS));
+
+            phase("Closing pools", () -> {
+                FusionHealth.stop();
+                ConfigService.shutdown();
+                FusionHttp.shutdown();
+                for (Database db : FusionKit.getDatabases()) {
+                    db.shutdown();
                 }
-                
-                // Close database connection if exists
-                if (FusionKit.database != null) {
-                    log("Closing database connections...");
-                    FusionKit.database.shutdown();
+                List<AuthSessionStore> closed = new ArrayList<>();
+                for (WebApp app : apps) {
+                    AuthSessionStore store = app.getConfig().auth.getAuthSessionStore();
+                    // Apps may share one store
+                    if (store instanceof Closeable && !closed.contains(store)) {
+                        closed.add(store);
+                        closeAuthSessionStore(app.getConfig().getName(), (Closeable) store);
+                    }
                 }
-                if(FusionKit.commandService != null) {
-                    log("Shutting down command service...");
+                if (FusionKit.commandService != null) {
                     FusionKit.commandService.interrupt();
                 }
+            });
+
+            log("FusionKit shutdown complete. in <" + (System.currentTimeMillis() - startTime) + " ms>");
 
-                log("FusionKit shutdown complete. in <" + (System.currentTimeMillis() - startTime) + " ms>");
-                
-            } catch (Exception e) {
-                logger.error("Error during shutdown", e);
+            // Flushes and closes the file appenders, nothing is logged after this
+            if (LoggerFactory.getILoggerFactory() instanceof LoggerContext loggerContext) {
+                loggerContext.stop();
             }
         }, "FK-Shutdown-Hook");
     }
 
+    private void closeAuthSessionStore(String appName, Closeable store) {
+        try {
+            store.close();
+        } catch (Exception e) {
+            logger.error("Failed to close auth session store of '{}'", appName, e);
+        }
+    }
+
+    private void phase(String name, Phase phase) {
+        long started = System.currentTimeMillis();
+        log(name + "...");
+        try {
+            phase.run();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn("{} interrupted", name);
+        } catch (Exception e) {
+            logger.error("Error during shutdown phase: {}", name, e);
+        }
+        log(name + " done in <" + (System.currentTimeMillis() - started) + " ms>");
+    }
+
+    @FunctionalInterface
+    private interface Phase {
+        void run() throws Exception;
+    }
+
     public void log(String message) {
         logger.info("{}", message);
     }
-    
+
 }
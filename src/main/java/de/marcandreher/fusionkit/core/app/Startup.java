@@ -0,0 +1,279 @@
+package de.marcandreher.fusionkit.core.app;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+
+import de.marcandreher.fusionkit.core.FusionKit;
+import de.marcandreher.fusionkit.core.WebAppConfig;
+import de.marcandreher.fusionkit.core.auth.AuthProvider;
+import de.marcandreher.fusionkit.core.auth.config.DiscordConfig;
+import de.marcandreher.fusionkit.core.auth.config.GitHubConfig;
+import de.marcandreher.fusionkit.core.auth.config.SteamConfig;
+import de.marcandreher.fusionkit.core.config.FreemarkerConfiguration;
+import de.marcandreher.fusionkit.core.database.Database;
+
+/**
+ * Initializes subsystems concurrently on virtual threads, each phase as soon as the phases it
+ * depends on are done, and logs how long every phase took.
+ * <pre>
+ * new Startup()
+ *     .database(db)
+ *     .phase("cache-warmup", Cache::warmup, Startup.DATABASE)
+ *     .webApplication(config -&gt; { ... })
+ *     .webApplication(config -&gt; { ... })
+ *     .run();
+ * </pre>
+ * Web applications depend on the database and config phases, so they only accept requests once
+ * those are ready. Independent web applications start in parallel. In training mode
+ * ({@link Training}) the JVM exits after all phases finished.
+ */
+public class Startup extends FusionKit {
+
+    private static final Logger logger = FusionKit.getLogger(Startup.class);
+
+    public static final String DATABASE = "database";
+    public static final String CONFIG = "config";
+    public static final String WEB_APP_PREFIX = "webapp:";
+
+    private final Map<String, Phase> phases = new LinkedHashMap<>();
+    private final List<WebAppConfig> webAppConfigs = new ArrayList<>();
+
+    /**
+     * Adds a phase.
+     * @param name Unique name of the phase
+     * @param task The initialization to run
+     * @param dependsOn Names of the phases that must finish first
+     * @return This startup instance
+     */
+    public Startup phase(String name, Runnable task, String... dependsOn) {
+        if (phases.containsKey(name)) {
+            throw new IllegalArgumentException("Duplicate startup phase: " + name);
+        }
+        phases.put(name, new Phase(name, task, List.of(dependsOn)));
+        return this;
+    }
+
+    /**
+     * Connects the database in the {@value #DATABASE} phase.
+     * @return This startup instance
+     */
+    public Startup database(Database database) {
+        return phase(DATABASE, database::connect);
+    }
+
+    /**
+     * Starts a web application in its own phase, after the database and config phases.
+     * @return This startup instance
+     */
+    public Startup webApplication(Consumer<WebAppConfig> appConfig) {
+        WebAppConfig config = new WebAppConfig();
+        appConfig.accept(config);
+        webAppConfigs.add(config);
+        return this;
+    }
+
+    /**
+     * Runs all phases and waits for them.
+     * @return The timing of each phase
+     * @throws IllegalArgumentException If a dependency is unknown or the phases form a cycle
+     * @throws IllegalStateException If a phase failed; phases depending on it are not run
+     */
+    public Report run() {
+        addBuiltInPhases();
+        List<Phase> order = sort();
+
+        long start = System.nanoTime();
+        Map<String, CompletableFuture<Void>> futures = new HashMap<>();
+        try (ExecutorService executor = Executors.newThreadPerTaskExecutor(
+                Thread.ofVirtual().name("FK-Startup-", 1).factory())) {
+            for (Phase phase : order) {
+                CompletableFuture<?>[] dependencies = phase.dependsOn().stream()
+                        .map(futures::get)
+                        .toArray(CompletableFuture[]::new);
+                futures.put(phase.name(), CompletableFuture.allOf(dependencies)
+                        .thenRunAsync(() -> phase.execute(start), executor));
+            }
+            CompletableFuture.allOf(futures.values().toArray(CompletableFuture[]::new))
+                    .exceptionally(e -> null)
+                    .join();
+        }
+
+        Report report = new Report(order.stream().filter(Phase::finished).map(Phase::timing).toList(),
+                (System.nanoTime() - start) / 1_000_000);
+        logger.info("{}", report);
+
+        for (Phase phase : order) {
+            try {
+                futures.get(phase.name()).join();
+            } catch (CompletionException e) {
+                throw new IllegalStateException("Startup phase '" + phase.name() + "' failed", e.getCause());
+            }
+        }
+
+        Training.runIfEnabled();
+        return report;
+    }
+
+    private void addBuiltInPhases() {
+        if (webAppConfigs.isEmpty()) {
+            return;
+        }
+        if (!phases.containsKey(CONFIG)) {
+            List<WebAppConfig> configs = List.copyOf(webAppConfigs);
+            phase(CONFIG, () -> preloadConfig(configs));
+        }
+        for (WebAppConfig config : webAppConfigs) {
+            List<String> dependsOn = new ArrayList<>(List.of(CONFIG));
+            if (phases.containsKey(DATABASE)) {
+                dependsOn.add(DATABASE);
+            }
+            phase(WEB_APP_PREFIX + config.getName(), () -> startWebApplication(config), dependsOn.toArray(String[]::new));
+        }
+        webAppConfigs.clear();
+    }
+
+    /**
+     * Reads the config files the web applications need, so starting them only does in-memory work.
+     */
+    private static void preloadConfig(List<WebAppConfig> configs) {
+        Set<AuthProvider> providers = new LinkedHashSet<>();
+        boolean freemarker = false;
+        for (WebAppConfig config : configs) {
+            freemarker |= config.freemarker.isEnabled();
+            if (config.auth.isEnabled()) {
+                if (config.auth.getEnabledProviders() != null) {
+                    providers.addAll(config.auth.getEnabledProviders());
+                }
+                providers.add(config.auth.getAuthProvider());
+            }
+        }
+
+        if (freemarker) {
+            new FreemarkerConfiguration();
+        }
+        for (AuthProvider provider : providers) {
+            switch (provider) {
+                case DISCORD -> DiscordConfig.loadConfig();
+                case GITHUB -> GitHubConfig.loadConfig();
+                case STEAM -> SteamConfig.loadConfig();
+                case null, default -> { }
+            }
+        }
+    }
+
+    /**
+     * Orders the phases so that every phase comes after its dependencies.
+     */
+    private List<Phase> sort() {
+        List<Phase> order = new ArrayList<>();
+        Set<String> visited = new LinkedHashSet<>();
+        Set<String> visiting = new LinkedHashSet<>();
+        for (Phase phase : phases.values()) {
+            visit(phase, visiting, visited, order);
+        }
+        return order;
+    }
+
+    private void visit(Phase phase, Set<String> visiting, Set<String> visited, List<Phase> order) {
+        if (visited.contains(phase.name())) {
+            return;
+        }
+        if (!visiting.add(phase.name())) {
+            throw new IllegalArgumentException("Startup phases form a cycle: " + String.join(" -> ", visiting) + " -> " + phase.name());
+        }
+        for (String dependency : phase.dependsOn()) {
+            Phase required = phases.get(dependency);
+            if (required == null) {
+                throw new IllegalArgumentException("Startup phase '" + phase.name() + "' depends on unknown phase '" + dependency + "'");
+            }
+            visit(required, visiting, visited, order);
+        }
+        visiting.remove(phase.name());
+        visited.add(phase.name());
+        order.add(phase);
+    }
+
+    private static final class Phase {
+        private final String name;
+        private final Runnable task;
+        private final List<String> dependsOn;
+        private volatile Timing timing;
+
+        private Phase(String name, Runnable task, List<String> dependsOn) {
+            this.name = name;
+            this.task = task;
+            this.dependsOn = dependsOn;
+        }
+
+        private String name() {
+            return name;
+        }
+
+        private List<String> dependsOn() {
+            return dependsOn;
+        }
+
+        private boolean finished() {
+            return timing != null;
+        }
+
+        private Timing timing() {
+            return timing;
+        }
+
+        private void execute(long startupStart) {
+            long started = System.nanoTime();
+            boolean failed = true;
+            try {
+                task.run();
+                failed = false;
+            } finally {
+                long ended = System.nanoTime();
+                timing = new Timing(name, (started - startupStart) / 1_000_000, (ended - started) / 1_000_000, failed);
+            }
+        }
+    }
+
+    /**
+     * @param offsetMillis When the phase started, relative to the start of {@link #run()}
+     */
+    public record Timing(String name, long offsetMillis, long durationMillis, boolean failed) { }
+
+    /**
+     * @param totalMillis Wall-clock time of the whole startup
+     */
+    public record Report(List<Timing> timings, long totalMillis) {
+
+        /**
+         * Returns how long the phases would have taken one after another.
+         */
+        public long sequentialMillis() {
+            return timings.stream().mapToLong(Timing::durationMillis).sum();
+        }
+
+        @Override
+        public String toString() {
+            int width = timings.stream().mapToInt(timing -> timing.name().length()).max().orElse(0);
+            StringBuilder out = new StringBuilder();
+            out.append("Startup finished in <").append(totalMillis).append("ms> (")
+                    .append(sequentialMillis()).append("ms sequential)");
+            for (Timing timing : timings) {
+                out.append(System.lineSeparator()).append(String.format("  ├─ %-" + width + "s  +%5dms  %5dms%s",
+                        timing.name(), timing.offsetMillis(), timing.durationMillis(), timing.failed() ? "  FAILED" : ""));
+            }
+            return out.toString();
+        }
+    }
+}
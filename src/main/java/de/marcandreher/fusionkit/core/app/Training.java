@@ -0,0 +1,165 @@
+package de.marcandreher.fusionkit.core.app;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+
+import de.marcandreher.fusionkit.core.FusionKit;
+import de.marcandreher.fusionkit.core.WebApp;
+import de.marcandreher.fusionkit.core.config.FreemarkerConfiguration;
+import de.marcandreher.fusionkit.core.database.MySQL;
+import freemarker.template.Configuration;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Training run for a JDK AOT cache (JEP 483/514/515).
+ *
+ * <p>With {@code -Dfusionkit.train=true} the application starts as usual, then requests its
+ * routes, parses all templates and runs a few queries so the classes and method profiles of the
+ * hot paths end up in the cache, and exits. Started with {@code -XX:AOTCacheOutput=app.aot} the
+ * JVM writes the cache on exit; later runs use it with {@code -XX:AOTCache=app.aot}. The
+ * {@code aot-cache} profile does the training run; applications copy it from the README.
+ *
+ * <p>{@link Startup#run()} trains automatically. Applications that register their web
+ * applications directly call {@link #runIfEnabled()} once everything is registered.
+ *
+ * <ul>
+ * <li>{@code fusionkit.train.paths}: Comma separated paths to request, default {@code /}</li>
+ * <li>{@code fusionkit.train.iterations}: Requests per path, default 500</li>
+ * </ul>
+ */
+public class Training extends FusionKit {
+
+    private static final Logger logger = FusionKit.getLogger(Training.class);
+
+    public static final String PROPERTY = "fusionkit.train";
+
+    private static boolean firstRequestLogged;
+
+    private Training() { }
+
+    public static boolean isEnabled() {
+        return Boolean.getBoolean(PROPERTY);
+    }
+
+    /**
+     * Runs the training and exits the JVM if training mode is enabled, otherwise does nothing.
+     */
+    public static void runIfEnabled() {
+        if (!isEnabled()) {
+            return;
+        }
+        int status = 0;
+        try {
+            train();
+        } catch (Exception e) {
+            logger.error("Training run failed", e);
+            status = 1;
+        }
+        System.exit(status);
+    }
+
+    private static void train() throws IOException {
+        long start = System.currentTimeMillis();
+        List<String> paths = Arrays.stream(System.getProperty(PROPERTY + ".paths", "/").split(","))
+                .map(String::trim)
+                .filter(path -> !path.isEmpty())
+                .toList();
+        int iterations = Integer.getInteger(PROPERTY + ".iterations", 500);
+
+        touchDatabase();
+        List<WebApp> apps;
+        synchronized (webApps) {
+            apps = new ArrayList<>(webApps);
+        }
+        for (WebApp app : apps) {
+            loadTemplates(app);
+            requestRoutes(app, paths, iterations);
+        }
+
+        logger.info("Training finished in <{}ms>, exiting", System.currentTimeMillis() - start);
+    }
+
+    private static void touchDatabase() {
+        if (database == null || database.getDataSource() == null) {
+            return;
+        }
+        try (MySQL mysql = database.getConnection()) {
+            try (Stream<Integer> rows = mysql.stream("SELECT 1", rs -> rs.getInt(1))) {
+                rows.count();
+            }
+            mysql.tableExists("fusion_cron_runs");
+        }
+        logger.info("Training: touched the database layer");
+    }
+
+    private static void loadTemplates(WebApp app) throws IOException {
+        if (!app.getConfig().freemarker.isEnabled()) {
+            return;
+        }
+        File templateDir = new FileStructureManager(FileStructureManager.DirectoryType.TEMPLATES).getDirectory();
+        if (!templateDir.isDirectory()) {
+            return;
+        }
+        Configuration configuration = new FreemarkerConfiguration().applyConfig(app.getConfig(), templateDir);
+        Path root = templateDir.toPath();
+        int loaded = 0;
+        try (Stream<Path> files = Files.walk(root)) {
+            for (Path file : files.filter(path -> path.toString().endsWith(".ftl")).toList()) {
+                String name = root.relativize(file).toString().replace(File.separatorChar, '/');
+                try {
+                    configuration.getTemplate(name);
+                    loaded++;
+                } catch (IOException e) {
+                    logger.warn("Training: failed to load template {}: {}", name, e.getMessage());
+                }
+            }
+        }
+        logger.info("Training: loaded {} templates for '{}'", loaded, app.getConfig().getName());
+    }
+
+    private static void requestRoutes(WebApp app, List<String> paths, int iterations) {
+        OkHttpClient client = FusionKit.getHttpClient();
+        String baseUrl = "http://localhost:" + app.getConfig().getPort();
+
+        for (String path : paths) {
+            long[] latencies = new long[iterations];
+            int failed = 0;
+            for (int i = 0; i < iterations; i++) {
+                long started = System.nanoTime();
+                try (Response response = client.newCall(new Request.Builder().url(baseUrl + path).build()).execute()) {
+                    response.body().bytes();
+                    if (!firstRequestLogged) {
+                        firstRequestLogged = true;
+                        logger.info("Training: first request answered <{}ms> after JVM start",
+                                ManagementFactory.getRuntimeMXBean().getUptime());
+                    }
+                } catch (IOException e) {
+                    failed++;
+                }
+                latencies[i] = System.nanoTime() - started;
+            }
+            long first = iterations > 0 ? latencies[0] / 1000 : 0;
+            Arrays.sort(latencies);
+            logger.info("Training: {}{} x{} first={}us p50={}us p99={}us failed={}", app.getConfig().getName(), path,
+                    iterations, first, percentile(latencies, 0.5), percentile(latencies, 0.99), failed);
+        }
+    }
+
+    private static long percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[Math.min(sorted.length - 1, (int) (sorted.length * quantile))] / 1000;
+    }
+}
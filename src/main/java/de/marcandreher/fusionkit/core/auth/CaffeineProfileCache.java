@@ -0,0 +1,67 @@
+package de.marcandreher.fusionkit.core.auth;
+
+import java.util.concurrent.TimeUnit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * In-memory {@link ProfileCache}. Only id, username, avatar and email are cached, not {@link User#getData()}.
+ */
+public class CaffeineProfileCache implements ProfileCache {
+    private static final long DEFAULT_TTL_MILLIS = 60 * 60 * 1000;
+    private static final long DEFAULT_MAXIMUM_SIZE = 10_000;
+
+    private final Cache<String, User> cache;
+
+    public CaffeineProfileCache() {
+        this(DEFAULT_TTL_MILLIS, DEFAULT_MAXIMUM_SIZE);
+    }
+
+    /**
+     * @param ttlMillis How long a profile is used before it is fetched again
+     * @param maximumSize Maximum number of cached profiles
+     */
+    public CaffeineProfileCache(long ttlMillis, long maximumSize) {
+        this.cache = Caffeine.newBuilder()
+                .expireAfterWrite(ttlMillis, TimeUnit.MILLISECONDS)
+                .maximumSize(maximumSize)
+                .build();
+    }
+
+    @Override
+    public User get(String provider, String id) {
+        User user = cache.getIfPresent(key(provider, id));
+        return user == null ? null : copy(user);
+    }
+
+    @Override
+    public void put(String provider, User user) {
+        if (user == null || user.getId() == null) {
+            return;
+        }
+        cache.put(key(provider, user.getId()), copy(user));
+    }
+
+    @Override
+    public void invalidate(String provider, String id) {
+        cache.invalidate(key(provider, id));
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    private static String key(String provider, String id) {
+        return provider + ":" + id;
+    }
+
+    private static User copy(User user) {
+        User copy = new User();
+        copy.setId(user.getId());
+        copy.setUsername(user.getUsername());
+        copy.setAvatar(user.getAvatar());
+        copy.setEmail(user.getEmail());
+        return copy;
+    }
+}
@@ -1,12 +1,22 @@
 package de.marcandreher.fusionkit.core.auth;
 
-import de.marcandreher.fusionkit.core.FusionKit;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+import de.marcandreher.fusionkit.core.http.FusionHttp;
 import io.javalin.config.JavalinConfig;
 import okhttp3.OkHttpClient;
 
 public interface LoginHandler {
     
-    public static final OkHttpClient httpClient = FusionKit.getHttpClient();
+    public static final OkHttpClient httpClient = FusionHttp.getClient(FusionHttp.AUTH);
+
+    /**
+     * Runs the end of async callbacks (auth processor, session store), which may block,
+     * so they don't occupy HTTP dispatcher threads.
+     */
+    public static final Executor callbackExecutor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("FK-Auth-Callback-", 1).factory());
 
     public void registerRoutes(JavalinConfig javalinConfig);
 
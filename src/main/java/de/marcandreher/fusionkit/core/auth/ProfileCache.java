@@ -0,0 +1,24 @@
+package de.marcandreher.fusionkit.core.auth;
+
+/**
+ * Caches user profiles fetched from login providers, so repeated logins of the same user
+ * don't repeat lookups like Steam's player summary or GitHub's email list.
+ *
+ * <p>Implementations must hand out copies, callers may modify the returned users.
+ */
+public interface ProfileCache {
+
+    /**
+     * @param provider Provider ID, e.g. {@code steam}
+     * @param id The user's ID at the provider
+     * @return A copy of the cached profile, or null
+     */
+    User get(String provider, String id);
+
+    /**
+     * Stores a copy of the user's profile under {@link User#getId()}.
+     */
+    void put(String provider, User user);
+
+    void invalidate(String provider, String id);
+}
@@ -1,15 +1,12 @@
 package de.marcandreher.fusionkit.core.auth.config;
 
-import java.io.File;
-import java.io.IOException;
 import java.util.function.Supplier;
 
 import org.slf4j.Logger;
 
-import com.moandjiezana.toml.Toml;
-import com.moandjiezana.toml.TomlWriter;
-
 import de.marcandreher.fusionkit.core.FusionKit;
+import de.marcandreher.fusionkit.core.config.ConfigFile;
+import de.marcandreher.fusionkit.core.config.ConfigService;
 
 public final class AuthConfigLoader {
 
@@ -18,36 +15,15 @@ public final class AuthConfigLoader {
 
     public static <T> T loadTomlConfig(Class<?> logClass, String fileName, Class<T> type, Supplier<T> defaultSupplier) {
         final Logger logger = FusionKit.getLogger(logClass);
-        try {
-            logger.debug("Loading auth config: {}", fileName);
-
-            File configDir = new File(".config/auth");
-            if (!configDir.exists()) {
-                logger.debug("Config directory does not exist. Attempting to create: {}", configDir.getAbsolutePath());
-                if (!configDir.mkdirs()) {
-                    throw new IOException("Failed to create config directory: " + configDir.getAbsolutePath());
-                }
-            }
-
-            File configFile = new File(configDir, fileName);
-            if (configFile.exists()) {
-                logger.debug("Config file found. Reading: {}", configFile.getAbsolutePath());
-                Toml toml = new Toml().read(configFile);
-                T config = toml.to(type);
-                return config != null ? config : defaultSupplier.get();
-            }
-
-            logger.debug("Config file not found. Creating default config: {}", configFile.getAbsolutePath());
-            T defaultConfig = defaultSupplier.get();
-            TomlWriter writer = new TomlWriter();
-            writer.write(defaultConfig, configFile);
-            return defaultConfig;
-        } catch (IOException e) {
-            logger.error("IO error while loading auth config", e);
-        } catch (Exception e) {
-            logger.error("Unexpected error while loading auth config", e);
-        }
+        logger.debug("Loading auth config: {}", fileName);
+        T config = watchTomlConfig(fileName, type, defaultSupplier).get();
+        return config != null ? config : defaultSupplier.get();
+    }
 
-        return defaultSupplier.get();
+    /**
+     * Returns the live {@code .config/auth/<fileName>}, created with the defaults if missing.
+     */
+    public static <T> ConfigFile<T> watchTomlConfig(String fileName, Class<T> type, Supplier<T> defaultSupplier) {
+        return ConfigService.file("auth/" + fileName, type, defaultSupplier);
     }
 }
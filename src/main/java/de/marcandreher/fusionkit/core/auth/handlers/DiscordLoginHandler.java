@@ -1,8 +1,7 @@
 package de.marcandreher.fusionkit.core.auth.handlers;
 
-import com.google.gson.JsonObject;
+import java.util.Map;
 
-import de.marcandreher.fusionkit.core.FusionKit;
 import de.marcandreher.fusionkit.core.WebApp;
 import de.marcandreher.fusionkit.core.auth.AuthHandler;
 import de.marcandreher.fusionkit.core.auth.AuthProvider;
@@ -10,7 +9,7 @@ import de.marcandreher.fusionkit.core.auth.User;
 import de.marcandreher.fusionkit.core.auth.config.DiscordConfig;
 
 @AuthHandler(AuthProvider.DISCORD)
-public class DiscordLoginHandler extends OAuth2LoginHandler {
+public class DiscordLoginHandler extends OAuth2FieldsLoginHandler {
 
     private static final String DISCORD_API = "https://discord.com/api";
 
@@ -44,7 +43,17 @@ public class DiscordLoginHandler extends OAuth2LoginHandler {
     }
 
     @Override
-    protected User mapUser(JsonObject userJson) {
-        return FusionKit.getGson().fromJson(userJson, User.class);
+    protected String[] getUserFields() {
+        return new String[] { "id", "username", "avatar", "email" };
+    }
+
+    @Override
+    protected User mapUser(Map<String, String> userFields) {
+        User user = new User();
+        user.setId(userFields.get("id"));
+        user.setUsername(userFields.get("username"));
+        user.setAvatar(userFields.get("avatar"));
+        user.setEmail(userFields.get("email"));
+        return user;
     }
 }
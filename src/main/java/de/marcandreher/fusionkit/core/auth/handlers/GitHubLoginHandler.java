@@ -1,22 +1,22 @@
 package de.marcandreher.fusionkit.core.auth.handlers;
 
-import java.io.IOException;
-
-import com.google.gson.JsonArray;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonObject;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import de.marcandreher.fusionkit.core.WebApp;
 import de.marcandreher.fusionkit.core.auth.AuthHandler;
 import de.marcandreher.fusionkit.core.auth.AuthProvider;
+import de.marcandreher.fusionkit.core.auth.ProfileCache;
 import de.marcandreher.fusionkit.core.auth.User;
 import de.marcandreher.fusionkit.core.auth.config.GitHubConfig;
+import de.marcandreher.fusionkit.core.http.FusionHttp;
+import de.marcandreher.fusionkit.core.http.JsonFields;
 import okhttp3.Request;
-import okhttp3.Response;
 import okhttp3.ResponseBody;
 
 @AuthHandler(AuthProvider.GITHUB)
-public class GitHubLoginHandler extends OAuth2LoginHandler {
+public class GitHubLoginHandler extends OAuth2FieldsLoginHandler {
 
     private static final String GITHUB_API = "https://api.github.com";
 
@@ -60,38 +60,52 @@ public class GitHubLoginHandler extends OAuth2LoginHandler {
     }
 
     @Override
-    protected User mapUser(JsonObject userJson) {
+    protected String[] getUserFields() {
+        return new String[] { "id", "login", "avatar_url", "email" };
+    }
+
+    @Override
+    protected User mapUser(Map<String, String> userFields) {
         User user = new User();
-        user.setId(getString(userJson, "id"));
-        user.setUsername(getString(userJson, "login"));
-        user.setAvatar(getString(userJson, "avatar_url"));
-        user.setEmail(getString(userJson, "email"));
+        user.setId(userFields.get("id"));
+        user.setUsername(userFields.get("login"));
+        user.setAvatar(userFields.get("avatar_url"));
+        user.setEmail(userFields.get("email"));
         return user;
     }
 
     @Override
-    protected User fetchUser(String accessToken) throws IOException {
-        User user = super.fetchUser(accessToken);
-        if (user == null || user.getEmail() != null && !user.getEmail().isBlank()) {
-            return user;
-        }
+    protected CompletableFuture<User> fetchUser(String accessToken) {
+        return super.fetchUser(accessToken).thenCompose(user -> {
+            if (user == null || user.getEmail() != null && !user.getEmail().isBlank()) {
+                return CompletableFuture.completedFuture(user);
+            }
 
-        String email = fetchPrimaryEmail(accessToken);
-        if (email != null && !email.isBlank()) {
-            user.setEmail(email);
-        }
+            // The email list rarely changes, reuse it from an earlier login
+            ProfileCache profileCache = getProfileCache();
+            User cached = profileCache == null ? null : profileCache.get(getProviderId(), user.getId());
+            if (cached != null && cached.getEmail() != null) {
+                user.setEmail(cached.getEmail());
+                return CompletableFuture.completedFuture(user);
+            }
 
-        return user;
+            return fetchPrimaryEmail(accessToken).thenApply(email -> {
+                if (email != null && !email.isBlank()) {
+                    user.setEmail(email);
+                }
+                return user;
+            });
+        });
     }
 
-    private String fetchPrimaryEmail(String accessToken) throws IOException {
+    private CompletableFuture<String> fetchPrimaryEmail(String accessToken) {
         Request request = new Request.Builder()
                 .url(GITHUB_API + "/user/emails")
                 .header("Authorization", "Bearer " + accessToken)
                 .header("Accept", "application/vnd.github+json")
                 .build();
 
-        try (Response response = httpClient.newCall(request).execute()) {
+        return FusionHttp.enqueue(httpClient, request, response -> {
             if (!response.isSuccessful()) {
                 return null;
             }
@@ -99,31 +113,23 @@ public class GitHubLoginHandler extends OAuth2LoginHandler {
             if (body == null) {
                 return null;
             }
-            JsonArray emails = com.google.gson.JsonParser.parseString(body.string()).getAsJsonArray();
+            List<Map<String, String>> emails = JsonFields.extractEach(body, "", "email", "primary", "verified");
             String fallback = null;
-            for (JsonElement element : emails) {
-                JsonObject email = element.getAsJsonObject();
-                String value = getString(email, "email");
+            for (Map<String, String> email : emails) {
+                String value = email.get("email");
                 if (value == null) {
                     continue;
                 }
                 if (fallback == null) {
                     fallback = value;
                 }
-                boolean primary = email.has("primary") && email.get("primary").getAsBoolean();
-                boolean verified = email.has("verified") && email.get("verified").getAsBoolean();
+                boolean primary = "true".equals(email.get("primary"));
+                boolean verified = "true".equals(email.get("verified"));
                 if (primary && verified) {
                     return value;
                 }
             }
             return fallback;
-        }
-    }
-
-    private static String getString(JsonObject object, String key) {
-        if (object == null || !object.has(key) || object.get(key).isJsonNull()) {
-            return null;
-        }
-        return object.get(key).getAsString();
+        });
     }
 }
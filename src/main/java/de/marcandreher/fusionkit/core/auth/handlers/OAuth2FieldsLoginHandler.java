@@ -0,0 +1,49 @@
+package de.marcandreher.fusionkit.core.auth.handlers;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import com.google.gson.JsonObject;
+
+import de.marcandreher.fusionkit.core.WebApp;
+import de.marcandreher.fusionkit.core.auth.User;
+import de.marcandreher.fusionkit.core.auth.config.OAuth2ProviderConfig;
+import de.marcandreher.fusionkit.core.http.JsonFields;
+
+/**
+ * OAuth2 handler that streams only the user fields it needs instead of parsing the whole user response.
+ */
+public abstract class OAuth2FieldsLoginHandler extends OAuth2LoginHandler {
+
+    protected OAuth2FieldsLoginHandler(WebApp app, OAuth2ProviderConfig providerConfig, String providerId) {
+        super(app, providerConfig, providerId);
+    }
+
+    /**
+     * Returns the {@link JsonFields} paths {@link #mapUser(Map)} needs from the user response.
+     */
+    protected abstract String[] getUserFields();
+
+    /**
+     * Maps the fields listed by {@link #getUserFields()} to a user.
+     */
+    protected abstract User mapUser(Map<String, String> userFields);
+
+    @Override
+    protected User mapUser(JsonObject userJson) {
+        try {
+            return mapUser(JsonFields.extract(new StringReader(userJson.toString()), getUserFields()));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    protected CompletableFuture<User> fetchUser(String accessToken) {
+        return fetchUserFields(accessToken, getUserFields())
+                .thenApply(userFields -> userFields == null ? null : mapUser(userFields));
+    }
+}
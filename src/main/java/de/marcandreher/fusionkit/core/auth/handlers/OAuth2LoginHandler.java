@@ -5,6 +5,8 @@ import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
@@ -14,15 +16,18 @@ import de.marcandreher.fusionkit.core.WebApp;
 import de.marcandreher.fusionkit.core.WebAppConfig;
 import de.marcandreher.fusionkit.core.auth.AuthRouteRegistrar;
 import de.marcandreher.fusionkit.core.auth.LoginHandler;
+import de.marcandreher.fusionkit.core.auth.ProfileCache;
 import de.marcandreher.fusionkit.core.auth.User;
 import de.marcandreher.fusionkit.core.auth.config.OAuth2ProviderConfig;
 import de.marcandreher.fusionkit.core.auth.store.AuthSessionStore;
+import de.marcandreher.fusionkit.core.http.FusionHttp;
+import de.marcandreher.fusionkit.core.http.JsonFields;
 import de.marcandreher.fusionkit.core.javalin.ProductionLevel;
 import io.javalin.config.JavalinConfig;
+import io.javalin.http.Context;
 import okhttp3.FormBody;
 import okhttp3.Request;
 import okhttp3.RequestBody;
-import okhttp3.Response;
 import okhttp3.ResponseBody;
 
 public abstract class OAuth2LoginHandler implements LoginHandler {
@@ -74,6 +79,9 @@ public abstract class OAuth2LoginHandler implements LoginHandler {
     public void registerRoutes(JavalinConfig javalinConfig) {
         FusionKit.getLogger(getClass()).info("Registering {} OAuth2 login handler", getProviderName());
         javalinConfig.routes.before("/*", ctx -> {
+            if (config.health.isProbe(ctx.path())) {
+                return;
+            }
             ctx.attribute("user", sessionStore.getUser(ctx));
             Map<String, String> authUrls = ctx.attribute("authUrls");
             if (authUrls == null) {
@@ -92,33 +100,60 @@ public abstract class OAuth2LoginHandler implements LoginHandler {
                 return;
             }
 
-            try {
-                String accessToken = exchangeCodeForToken(code);
-                if (accessToken == null) {
-                    ctx.result("Failed to get access token");
-                    return;
-                }
-
-                User user = fetchUser(accessToken);
-                if (user == null) {
-                    ctx.result("Failed to fetch user");
-                    return;
-                }
-
-                if (config.auth.getAuthProcessor() != null) {
-                    config.auth.getAuthProcessor().handle(user, ctx);
-                }
-
-                sessionStore.setUser(ctx, user);
-                ctx.redirect("/");
-            } catch (IOException e) {
-                FusionKit.getLogger(getClass()).error("OAuth2 callback failed", e);
-                ctx.result("OAuth2 callback failed");
-            }
+            // The request thread is released while the provider calls are in flight
+            ctx.future(() -> exchangeCodeForToken(code)
+                    .thenCompose(accessToken -> {
+                        if (accessToken == null) {
+                            ctx.result("Failed to get access token");
+                            return CompletableFuture.<Void>completedFuture(null);
+                        }
+                        return fetchUser(accessToken)
+                                .thenApply(this::cacheProfile)
+                                .thenAcceptAsync(user -> completeLogin(ctx, user), callbackExecutor);
+                    })
+                    .exceptionally(e -> {
+                        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                        if (!(cause instanceof IOException)) {
+                            // Let Javalin's exception handlers see everything else, e.g. from the AuthProcessor
+                            throw e instanceof CompletionException completion ? completion : new CompletionException(e);
+                        }
+                        FusionKit.getLogger(getClass()).error("OAuth2 callback failed", cause);
+                        ctx.result("OAuth2 callback failed");
+                        return null;
+                    }));
         });
         AuthRouteRegistrar.registerLogout(javalinConfig, sessionStore);
     }
 
+    /**
+     * Returns the cache for profiles of this provider, or null if caching is disabled.
+     */
+    protected ProfileCache getProfileCache() {
+        return config.auth.getProfileCache();
+    }
+
+    private User cacheProfile(User user) {
+        ProfileCache profileCache = getProfileCache();
+        if (profileCache != null && user != null) {
+            profileCache.put(getProviderId(), user);
+        }
+        return user;
+    }
+
+    private void completeLogin(Context ctx, User user) {
+        if (user == null) {
+            ctx.result("Failed to fetch user");
+            return;
+        }
+
+        if (config.auth.getAuthProcessor() != null) {
+            config.auth.getAuthProcessor().handle(user, ctx);
+        }
+
+        sessionStore.setUser(ctx, user);
+        ctx.redirect("/");
+    }
+
     @Override
     public String getLoginUrl(String redirectUri, String state) {
         String encodedRedirectUri = URLEncoder.encode(redirectUri, StandardCharsets.UTF_8);
@@ -139,22 +174,33 @@ public abstract class OAuth2LoginHandler implements LoginHandler {
         return url.toString();
     }
 
-    protected User fetchUser(String accessToken) throws IOException {
-        JsonObject userJson = fetchUserJson(accessToken);
-        if (userJson == null) {
-            return null;
-        }
-
-        return mapUser(userJson);
+    /**
+     * Fetches and maps the user without blocking the calling thread.
+     * @return The user, or null if the provider rejected the request
+     */
+    protected CompletableFuture<User> fetchUser(String accessToken) {
+        return fetchUserJson(accessToken)
+                .thenApply(userJson -> userJson == null ? null : mapUser(userJson));
     }
 
-    protected JsonObject fetchUserJson(String accessToken) throws IOException {
-        Request.Builder requestBuilder = new Request.Builder()
-                .url(getUserUrl())
-                .header("Authorization", "Bearer " + accessToken);
-        addUserRequestHeaders(requestBuilder);
+    /**
+     * Streams the user response and returns only the given fields.
+     */
+    protected CompletableFuture<Map<String, String>> fetchUserFields(String accessToken, String... fields) {
+        return FusionHttp.enqueue(httpClient, buildUserRequest(accessToken), response -> {
+            if (!response.isSuccessful()) {
+                return null;
+            }
+            ResponseBody body = response.body();
+            if (body == null) {
+                return null;
+            }
+            return JsonFields.extract(body, fields);
+        });
+    }
 
-        try (Response response = httpClient.newCall(requestBuilder.build()).execute()) {
+    protected CompletableFuture<JsonObject> fetchUserJson(String accessToken) {
+        return FusionHttp.enqueue(httpClient, buildUserRequest(accessToken), response -> {
             if (!response.isSuccessful()) {
                 return null;
             }
@@ -163,10 +209,18 @@ public abstract class OAuth2LoginHandler implements LoginHandler {
                 return null;
             }
             return JsonParser.parseString(body.string()).getAsJsonObject();
-        }
+        });
     }
 
-    private String exchangeCodeForToken(String code) throws IOException {
+    private Request buildUserRequest(String accessToken) {
+        Request.Builder requestBuilder = new Request.Builder()
+                .url(getUserUrl())
+                .header("Authorization", "Bearer " + accessToken);
+        addUserRequestHeaders(requestBuilder);
+        return requestBuilder.build();
+    }
+
+    private CompletableFuture<String> exchangeCodeForToken(String code) {
         RequestBody form = new FormBody.Builder()
                 .add("client_id", providerConfig.getClientId())
                 .add("client_secret", providerConfig.getClientSecret())
@@ -181,7 +235,7 @@ public abstract class OAuth2LoginHandler implements LoginHandler {
                 .header("Content-Type", "application/x-www-form-urlencoded");
         addTokenRequestHeaders(requestBuilder);
 
-        try (Response response = httpClient.newCall(requestBuilder.build()).execute()) {
+        return FusionHttp.enqueue(httpClient, requestBuilder.build(), response -> {
             if (!response.isSuccessful()) {
                 return null;
             }
@@ -189,12 +243,8 @@ public abstract class OAuth2LoginHandler implements LoginHandler {
             if (body == null) {
                 return null;
             }
-            JsonObject json = JsonParser.parseString(body.string()).getAsJsonObject();
-            if (!json.has("access_token")) {
-                return null;
-            }
-            return json.get("access_token").getAsString();
-        }
+            return JsonFields.extract(body, "access_token").get("access_token");
+        });
     }
 
     private String getCallbackPath() {
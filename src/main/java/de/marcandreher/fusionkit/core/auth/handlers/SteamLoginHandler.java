@@ -1,15 +1,11 @@
 package de.marcandreher.fusionkit.core.auth.handlers;
 
-import java.io.IOException;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-
-import com.google.gson.JsonArray;
-import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
+import java.util.concurrent.CompletableFuture;
 
 import de.marcandreher.fusionkit.core.FusionKit;
 import de.marcandreher.fusionkit.core.WebApp;
@@ -21,32 +17,40 @@ import de.marcandreher.fusionkit.core.auth.LoginHandler;
 import de.marcandreher.fusionkit.core.auth.User;
 import de.marcandreher.fusionkit.core.auth.config.SteamConfig;
 import de.marcandreher.fusionkit.core.auth.store.AuthSessionStore;
+import de.marcandreher.fusionkit.core.http.FusionHttp;
 import de.marcandreher.fusionkit.core.javalin.ProductionLevel;
 import io.javalin.config.JavalinConfig;
 import io.javalin.http.Context;
 import okhttp3.FormBody;
-import okhttp3.HttpUrl;
 import okhttp3.Request;
 import okhttp3.RequestBody;
-import okhttp3.Response;
 import okhttp3.ResponseBody;
 
 @AuthHandler(AuthProvider.STEAM)
 public class SteamLoginHandler implements LoginHandler {
 
-    private static final String STEAM_OPENID = "https://steamcommunity.com/openid/login";
-    private static final String STEAM_API = "https://api.steampowered.com";
+    public static final String DEFAULT_OPENID_URL = "https://steamcommunity.com/openid/login";
 
-    private final SteamConfig steamConfig;
+    private final String openIdUrl;
+    private final SteamProfiles profiles;
     private final WebAppConfig config;
     private final AuthSessionStore sessionStore;
     private final String redirectUri;
     private final String realm;
 
     public SteamLoginHandler(WebApp app, SteamConfig steamConfig) {
+        this(app, steamConfig, DEFAULT_OPENID_URL, SteamProfiles.DEFAULT_API_URL);
+    }
+
+    /**
+     * @param openIdUrl Steam's OpenID endpoint
+     * @param apiUrl Base URL of the Steam Web API
+     */
+    public SteamLoginHandler(WebApp app, SteamConfig steamConfig, String openIdUrl, String apiUrl) {
         this.config = app.getConfig();
         this.sessionStore = config.auth.getAuthSessionStore();
-        this.steamConfig = steamConfig;
+        this.openIdUrl = openIdUrl;
+        this.profiles = new SteamProfiles(steamConfig, config.auth.getProfileCache(), apiUrl);
         this.realm = buildRealm(config);
         this.redirectUri = this.realm + "/auth/steam/callback";
     }
@@ -55,6 +59,9 @@ public class SteamLoginHandler implements LoginHandler {
     public void registerRoutes(JavalinConfig javalinConfig) {
         FusionKit.getLogger(SteamLoginHandler.class).info("Registering Steam OpenID login handler");
         javalinConfig.routes.before("/*", ctx -> {
+            if (config.health.isProbe(ctx.path())) {
+                return;
+            }
             ctx.attribute("user", sessionStore.getUser(ctx));
             Map<String, String> authUrls = ctx.attribute("authUrls");
             if (authUrls == null) {
@@ -67,11 +74,6 @@ public class SteamLoginHandler implements LoginHandler {
             }
         });
         javalinConfig.routes.get("/auth/steam/callback", ctx -> {
-            if (!verifyOpenId(ctx)) {
-                ctx.result("Steam OpenID verification failed");
-                return;
-            }
-
             String claimedId = ctx.queryParam("openid.claimed_id");
             if (claimedId == null) {
                 ctx.result("Missing Steam OpenID claimed_id");
@@ -84,28 +86,45 @@ public class SteamLoginHandler implements LoginHandler {
                 return;
             }
 
-            User user = fetchSteamUser(steamId);
-            if (user == null) {
-                ctx.result("Failed to fetch Steam user");
-                return;
-            }
-
-            if (config.auth.getAuthProcessor() != null) {
-                config.auth.getAuthProcessor().handle(user, ctx);
-            }
-
-            sessionStore.setUser(ctx, user);
-            ctx.redirect("/");
+            // An uncached player summary is fetched while the assertion is verified, but only
+            // cached once verification passed, so forged callbacks cannot fill the cache
+            CompletableFuture<Boolean> verified = verifyOpenId(ctx);
+            User cached = profiles.getCached(steamId);
+            CompletableFuture<User> fetched = cached != null ? CompletableFuture.completedFuture(cached) : profiles.fetch(steamId);
+            ctx.future(() -> verified.thenCompose(valid -> {
+                if (!valid) {
+                    ctx.result("Steam OpenID verification failed");
+                    return CompletableFuture.<Void>completedFuture(null);
+                }
+                return fetched.thenApply(user -> {
+                    if (user == null) {
+                        return SteamProfiles.fallback(steamId);
+                    }
+                    if (cached == null) {
+                        profiles.cache(user);
+                    }
+                    return user;
+                }).thenAcceptAsync(user -> completeLogin(ctx, user), callbackExecutor);
+            }));
         });
         AuthRouteRegistrar.registerLogout(javalinConfig, sessionStore);
     }
 
+    private void completeLogin(Context ctx, User user) {
+        if (config.auth.getAuthProcessor() != null) {
+            config.auth.getAuthProcessor().handle(user, ctx);
+        }
+
+        sessionStore.setUser(ctx, user);
+        ctx.redirect("/");
+    }
+
     @Override
     public String getLoginUrl(String redirectUri, String state) {
         String encodedRedirectUri = URLEncoder.encode(redirectUri, StandardCharsets.UTF_8);
         String encodedRealm = URLEncoder.encode(realm, StandardCharsets.UTF_8);
 
-        return STEAM_OPENID
+        return openIdUrl
                 + "?openid.ns=" + URLEncoder.encode("http://specs.openid.net/auth/2.0", StandardCharsets.UTF_8)
                 + "&openid.mode=checkid_setup"
                 + "&openid.return_to=" + encodedRedirectUri
@@ -114,7 +133,7 @@ public class SteamLoginHandler implements LoginHandler {
                 + "&openid.claimed_id=" + URLEncoder.encode("http://specs.openid.net/auth/2.0/identifier_select", StandardCharsets.UTF_8);
     }
 
-    private boolean verifyOpenId(Context ctx) throws IOException {
+    private CompletableFuture<Boolean> verifyOpenId(Context ctx) {
         Map<String, List<String>> queryParams = ctx.queryParamMap();
         FormBody.Builder formBuilder = new FormBody.Builder();
         for (Map.Entry<String, List<String>> entry : queryParams.entrySet()) {
@@ -129,11 +148,11 @@ public class SteamLoginHandler implements LoginHandler {
 
         RequestBody form = formBuilder.build();
         Request request = new Request.Builder()
-                .url(STEAM_OPENID)
+                .url(openIdUrl)
                 .post(form)
                 .build();
 
-        try (Response response = httpClient.newCall(request).execute()) {
+        return FusionHttp.enqueue(httpClient, request, response -> {
             if (!response.isSuccessful()) {
                 return false;
             }
@@ -143,49 +162,7 @@ public class SteamLoginHandler implements LoginHandler {
             }
             String result = body.string();
             return result.contains("is_valid:true");
-        }
-    }
-
-    private User fetchSteamUser(String steamId) throws IOException {
-        User user = new User();
-        user.setId(steamId);
-
-        if (steamConfig.getApiKey() == null || steamConfig.getApiKey().isBlank() || "empty".equals(steamConfig.getApiKey())) {
-            return user;
-        }
-
-        HttpUrl url = HttpUrl.parse(STEAM_API + "/ISteamUser/GetPlayerSummaries/v2/")
-                .newBuilder()
-                .addQueryParameter("key", steamConfig.getApiKey())
-                .addQueryParameter("steamids", steamId)
-                .build();
-
-        Request request = new Request.Builder()
-                .url(url)
-                .build();
-
-        try (Response response = httpClient.newCall(request).execute()) {
-            if (!response.isSuccessful()) {
-                return user;
-            }
-            ResponseBody body = response.body();
-            if (body == null) {
-                return user;
-            }
-            JsonObject root = JsonParser.parseString(body.string()).getAsJsonObject();
-            JsonArray players = root.getAsJsonObject("response").getAsJsonArray("players");
-            if (players == null || players.isEmpty()) {
-                return user;
-            }
-            JsonObject player = players.get(0).getAsJsonObject();
-            if (player.has("personaname")) {
-                user.setUsername(player.get("personaname").getAsString());
-            }
-            if (player.has("avatarfull")) {
-                user.setAvatar(player.get("avatarfull").getAsString());
-            }
-            return user;
-        }
+        });
     }
 
     private static String extractSteamId(String claimedId) {
@@ -0,0 +1,194 @@
+package de.marcandreher.fusionkit.core.auth.handlers;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import org.slf4j.Logger;
+
+import de.marcandreher.fusionkit.core.FusionKit;
+import de.marcandreher.fusionkit.core.auth.LoginHandler;
+import de.marcandreher.fusionkit.core.auth.ProfileCache;
+import de.marcandreher.fusionkit.core.auth.User;
+import de.marcandreher.fusionkit.core.auth.config.SteamConfig;
+import de.marcandreher.fusionkit.core.http.FusionHttp;
+import de.marcandreher.fusionkit.core.http.JsonFields;
+import okhttp3.HttpUrl;
+import okhttp3.Request;
+import okhttp3.ResponseBody;
+
+/**
+ * Steam profile lookups through {@code GetPlayerSummaries}, backed by a {@link ProfileCache}.
+ *
+ * <p>{@link #fetchAll(Collection)} asks for up to 100 Steam IDs per call, so a cron task can
+ * refresh the names and avatars of many users cheaply:
+ * <pre>
+ * SteamProfiles profiles = new SteamProfiles(SteamConfig.loadConfig(), app.getConfig().auth.getProfileCache());
+ * profiles.fetchAll(steamIdsOfActiveUsers).join();
+ * </pre>
+ */
+public class SteamProfiles {
+    private static final Logger logger = FusionKit.getLogger(SteamProfiles.class);
+
+    public static final String PROVIDER = "steam";
+    public static final int MAX_IDS_PER_CALL = 100;
+    public static final String DEFAULT_API_URL = "https://api.steampowered.com";
+
+    private final String apiKey;
+    private final ProfileCache profileCache;
+    private final String playerSummariesUrl;
+
+    /**
+     * @param profileCache Cache for fetched profiles, or null to not cache
+     */
+    public SteamProfiles(SteamConfig steamConfig, ProfileCache profileCache) {
+        this(steamConfig, profileCache, DEFAULT_API_URL);
+    }
+
+    /**
+     * @param profileCache Cache for fetched profiles, or null to not cache
+     * @param apiUrl Base URL of the Steam Web API
+     */
+    public SteamProfiles(SteamConfig steamConfig, ProfileCache profileCache, String apiUrl) {
+        this.apiKey = steamConfig.getApiKey();
+        this.profileCache = profileCache;
+        this.playerSummariesUrl = apiUrl + "/ISteamUser/GetPlayerSummaries/v2/";
+    }
+
+    /**
+     * Returns whether an API key is configured. Without one, profiles only carry the Steam ID.
+     */
+    public boolean isEnabled() {
+        return apiKey != null && !apiKey.isBlank() && !"empty".equals(apiKey);
+    }
+
+    /**
+     * Returns the profile of a user, from the cache if possible. If the lookup fails the user
+     * only carries the Steam ID.
+     */
+    public CompletableFuture<User> get(String steamId) {
+        User cached = getCached(steamId);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+
+        return fetch(steamId).thenApply(user -> {
+            if (user == null) {
+                return fallback(steamId);
+            }
+            cache(user);
+            return user;
+        });
+    }
+
+    /**
+     * Returns the cached profile of a user, or null if it is not cached.
+     */
+    public User getCached(String steamId) {
+        return profileCache != null ? profileCache.get(PROVIDER, steamId) : null;
+    }
+
+    /**
+     * Fetches the profile of a user without reading or writing the cache.
+     * @return The profile, or null if Steam does not know the user, no API key is configured or the lookup failed
+     */
+    public CompletableFuture<User> fetch(String steamId) {
+        if (!isEnabled()) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        return fetchBatches(List.of(steamId))
+                .thenApply(users -> users.get(steamId))
+                .exceptionally(e -> {
+                    logger.warn("Failed to fetch Steam player summary for {}: {}", steamId, e.getMessage());
+                    return null;
+                });
+    }
+
+    /**
+     * Stores a profile in the cache, if caching is enabled.
+     */
+    public void cache(User user) {
+        if (profileCache != null) {
+            profileCache.put(PROVIDER, user);
+        }
+    }
+
+    /**
+     * Fetches the profiles of all given users, bypassing and refreshing the cache.
+     * @return The profiles by Steam ID; IDs unknown to Steam are missing
+     */
+    public CompletableFuture<Map<String, User>> fetchAll(Collection<String> steamIds) {
+        return fetchBatches(steamIds).thenApply(users -> {
+            users.values().forEach(this::cache);
+            return users;
+        });
+    }
+
+    /**
+     * Returns a profile that only carries the Steam ID, used when the summary is unavailable.
+     */
+    static User fallback(String steamId) {
+        User user = new User();
+        user.setId(steamId);
+        return user;
+    }
+
+    private CompletableFuture<Map<String, User>> fetchBatches(Collection<String> steamIds) {
+        if (!isEnabled()) {
+            return CompletableFuture.failedFuture(new IllegalStateException("No Steam API key configured"));
+        }
+
+        List<String> ids = new ArrayList<>(new LinkedHashSet<>(steamIds));
+        List<CompletableFuture<List<User>>> batches = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += MAX_IDS_PER_CALL) {
+            batches.add(fetchBatch(ids.subList(from, Math.min(from + MAX_IDS_PER_CALL, ids.size()))));
+        }
+
+        return CompletableFuture.allOf(batches.toArray(CompletableFuture[]::new)).thenApply(done -> {
+            Map<String, User> users = new LinkedHashMap<>();
+            for (CompletableFuture<List<User>> batch : batches) {
+                for (User user : batch.join()) {
+                    users.put(user.getId(), user);
+                }
+            }
+            return users;
+        });
+    }
+
+    private CompletableFuture<List<User>> fetchBatch(List<String> steamIds) {
+        HttpUrl url = HttpUrl.parse(playerSummariesUrl)
+                .newBuilder()
+                .addQueryParameter("key", apiKey)
+                .addQueryParameter("steamids", String.join(",", steamIds))
+                .build();
+
+        Request request = new Request.Builder()
+                .url(url)
+                .build();
+
+        return FusionHttp.enqueue(LoginHandler.httpClient, request, response -> {
+            if (!response.isSuccessful()) {
+                throw new IOException("Steam responded with " + response.code());
+            }
+            ResponseBody body = response.body();
+            List<User> users = new ArrayList<>();
+            for (Map<String, String> player : JsonFields.extractEach(body, "response.players", "steamid", "personaname", "avatarfull")) {
+                if (player.get("steamid") == null) {
+                    continue;
+                }
+                User user = new User();
+                user.setId(player.get("steamid"));
+                user.setUsername(player.get("personaname"));
+                user.setAvatar(player.get("avatarfull"));
+                users.add(user);
+            }
+            return users;
+        });
+    }
+}
@@ -1,10 +1,16 @@
 package de.marcandreher.fusionkit.core.auth.store;
 
+import de.marcandreher.fusionkit.core.WebAppConfig;
 import de.marcandreher.fusionkit.core.auth.User;
 import io.javalin.http.Context;
 
 public interface AuthSessionStore {
 
+    /**
+     * Called once when the owning {@link de.marcandreher.fusionkit.core.WebApp} sets up auth.
+     */
+    default void initialize(WebAppConfig config) { }
+
     User getUser(Context ctx);
 
     void setUser(Context ctx, User user);
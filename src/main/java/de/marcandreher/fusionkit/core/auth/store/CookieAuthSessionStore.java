@@ -0,0 +1,496 @@
+package de.marcandreher.fusionkit.core.auth.store;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.crypto.Cipher;
+import javax.crypto.Mac;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.marcandreher.fusionkit.core.WebAppConfig;
+import de.marcandreher.fusionkit.core.auth.User;
+import de.marcandreher.fusionkit.core.javalin.ProductionLevel;
+import io.javalin.http.Context;
+import io.javalin.http.Cookie;
+import io.javalin.http.SameSite;
+
+/**
+ * Stateless auth session store that keeps the {@link User} in a signed (and optionally
+ * encrypted) cookie, so any node can serve any user without a server-side lookup.
+ *
+ * <p>Token layout before Base64url encoding:
+ * {@code [version][keyId][flags][issuedAt:long][payload or iv+ciphertext][hmac:32]}.
+ * The payload is a compact binary encoding of the user; only {@code String},
+ * {@code Boolean}, {@code Integer}, {@code Long} and {@code Double} values of
+ * {@link User#getData()} are kept.
+ *
+ * <p>The first key added to the {@link Builder} signs new cookies, all other keys are
+ * still accepted for verification, which allows rotating keys without logging users out.
+ */
+public class CookieAuthSessionStore implements AuthSessionStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(CookieAuthSessionStore.class);
+
+    private static final byte VERSION = 1;
+    private static final byte FLAG_ENCRYPTED = 1;
+    private static final int HEADER_SIZE = 1 + 1 + 1 + 8;
+    private static final int MAC_SIZE = 32;
+    private static final int IV_SIZE = 12;
+    private static final int GCM_TAG_BITS = 128;
+    private static final int MAX_COOKIE_SIZE = 4000;
+    private static final String REQUEST_ATTRIBUTE = "fusionkit.cookieAuthUser";
+    private static final long DEFAULT_AUTH_SESSION_INTERVAL = 24 * 60 * 60 * 1000;
+
+    private static final byte TYPE_NULL = 0;
+    private static final byte TYPE_STRING = 1;
+    private static final byte TYPE_BOOLEAN = 2;
+    private static final byte TYPE_INT = 3;
+    private static final byte TYPE_LONG = 4;
+    private static final byte TYPE_DOUBLE = 5;
+
+    private static final ThreadLocal<Mac> MAC = ThreadLocal.withInitial(() -> {
+        try {
+            return Mac.getInstance("HmacSHA256");
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 is not available", e);
+        }
+    });
+
+    private final SecureRandom random = new SecureRandom();
+    private final SigningKey[] keys;
+    private final boolean encrypt;
+    private final String cookieName;
+    private final int maxDataEntries;
+    private final boolean secureFromBuilder;
+    private final boolean intervalFromBuilder;
+    private volatile boolean secure;
+    private volatile long authSessionInterval;
+
+    private CookieAuthSessionStore(Builder builder) {
+        if (builder.keys.isEmpty()) {
+            throw new IllegalArgumentException("At least one signing key is required");
+        }
+        this.keys = builder.keys.toArray(new SigningKey[0]);
+        this.encrypt = builder.encrypt;
+        this.cookieName = builder.cookieName;
+        this.maxDataEntries = builder.maxDataEntries;
+        this.secureFromBuilder = builder.secure != null;
+        this.secure = builder.secure != null ? builder.secure : true;
+        this.intervalFromBuilder = builder.authSessionInterval != null;
+        this.authSessionInterval = builder.authSessionInterval != null ? builder.authSessionInterval
+                : DEFAULT_AUTH_SESSION_INTERVAL;
+    }
+
+    @Override
+    public void initialize(WebAppConfig config) {
+        // Values set on the builder win over the app defaults
+        if (!secureFromBuilder) {
+            this.secure = !ProductionLevel.isInDevelopment(config.getProductionLevel());
+        }
+        if (!intervalFromBuilder) {
+            this.authSessionInterval = config.auth.getAuthSessionInterval();
+        }
+    }
+
+    @Override
+    public User getUser(Context ctx) {
+        // Several before-filters ask for the user per request, decode once
+        Object cached = ctx.attribute(REQUEST_ATTRIBUTE);
+        if (cached != null) {
+            return cached instanceof User user ? user : null;
+        }
+
+        String token = ctx.cookie(cookieName);
+        User user = token != null ? decode(token) : null;
+        ctx.attribute(REQUEST_ATTRIBUTE, user != null ? user : Boolean.FALSE);
+        return user;
+    }
+
+    @Override
+    public void setUser(Context ctx, User user) {
+        if (user == null) {
+            clear(ctx);
+            return;
+        }
+
+        String token = encode(user);
+        if (token.length() > MAX_COOKIE_SIZE) {
+            logger.warn("Auth cookie for user {} is {} bytes and may be rejected by browsers", user.getId(), token.length());
+        }
+
+        Cookie cookie = new Cookie(cookieName, token);
+        cookie.setPath("/");
+        cookie.setMaxAge((int) Math.min(Integer.MAX_VALUE, authSessionInterval / 1000));
+        cookie.setHttpOnly(true);
+        cookie.setSecure(secure);
+        cookie.setSameSite(SameSite.LAX);
+        ctx.cookie(cookie);
+        ctx.attribute(REQUEST_ATTRIBUTE, user);
+    }
+
+    @Override
+    public void clear(Context ctx) {
+        ctx.removeCookie(cookieName, "/");
+        ctx.attribute(REQUEST_ATTRIBUTE, Boolean.FALSE);
+    }
+
+    /**
+     * Encodes the user into a cookie value signed with the active key.
+     */
+    public String encode(User user) {
+        return encode(user, System.currentTimeMillis());
+    }
+
+    /**
+     * Encodes the user into a cookie value as if it was issued at {@code issuedAt}.
+     */
+    public String encode(User user, long issuedAt) {
+        SigningKey key = keys[0];
+        try {
+            byte[] payload = writeUser(user);
+            byte flags = 0;
+            if (encrypt) {
+                payload = encrypt(key, payload);
+                flags |= FLAG_ENCRYPTED;
+            }
+
+            ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + payload.length + MAC_SIZE);
+            buffer.put(VERSION);
+            buffer.put(key.id);
+            buffer.put(flags);
+            buffer.putLong(issuedAt);
+            buffer.put(payload);
+
+            Mac mac = mac(key);
+            mac.update(buffer.array(), 0, buffer.position());
+            buffer.put(mac.doFinal());
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+        } catch (IOException | GeneralSecurityException e) {
+            throw new IllegalStateException("Failed to encode auth cookie", e);
+        }
+    }
+
+    /**
+     * Verifies and decodes a cookie value. Returns {@code null} if the value was tampered
+     * with, signed by an unknown key or is older than the auth session interval.
+     */
+    public User decode(String token) {
+        byte[] raw;
+        try {
+            raw = Base64.getUrlDecoder().decode(token);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        if (raw.length < HEADER_SIZE + MAC_SIZE || raw[0] != VERSION) {
+            return null;
+        }
+
+        SigningKey key = findKey(raw[1]);
+        if (key == null) {
+            logger.debug("Rejecting auth cookie signed with unknown key {}", raw[1]);
+            return null;
+        }
+
+        int macOffset = raw.length - MAC_SIZE;
+        Mac mac = mac(key);
+        mac.update(raw, 0, macOffset);
+        byte[] expected = mac.doFinal();
+        byte[] actual = new byte[MAC_SIZE];
+        System.arraycopy(raw, macOffset, actual, 0, MAC_SIZE);
+        if (!MessageDigest.isEqual(expected, actual)) {
+            return null;
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(raw, 3, 8);
+        long issuedAt = buffer.getLong();
+        if (issuedAt + authSessionInterval < System.currentTimeMillis()) {
+            return null;
+        }
+
+        byte[] payload = new byte[macOffset - HEADER_SIZE];
+        System.arraycopy(raw, HEADER_SIZE, payload, 0, payload.length);
+        try {
+            if ((raw[2] & FLAG_ENCRYPTED) != 0) {
+                payload = decrypt(key, payload);
+            }
+            return readUser(payload);
+        } catch (IOException | GeneralSecurityException e) {
+            logger.debug("Failed to decode auth cookie: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private SigningKey findKey(byte id) {
+        for (SigningKey key : keys) {
+            if (key.id == id) {
+                return key;
+            }
+        }
+        return null;
+    }
+
+    private byte[] encrypt(SigningKey key, byte[] plain) throws GeneralSecurityException {
+        byte[] iv = new byte[IV_SIZE];
+        random.nextBytes(iv);
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(Cipher.ENCRYPT_MODE, key.encryptionKey, new GCMParameterSpec(GCM_TAG_BITS, iv));
+        byte[] encrypted = cipher.doFinal(plain);
+
+        byte[] out = new byte[IV_SIZE + encrypted.length];
+        System.arraycopy(iv, 0, out, 0, IV_SIZE);
+        System.arraycopy(encrypted, 0, out, IV_SIZE, encrypted.length);
+        return out;
+    }
+
+    private byte[] decrypt(SigningKey key, byte[] data) throws GeneralSecurityException {
+        if (data.length < IV_SIZE) {
+            throw new GeneralSecurityException("Encrypted payload too short");
+        }
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(Cipher.DECRYPT_MODE, key.encryptionKey, new GCMParameterSpec(GCM_TAG_BITS, data, 0, IV_SIZE));
+        return cipher.doFinal(data, IV_SIZE, data.length - IV_SIZE);
+    }
+
+    private byte[] writeUser(User user) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        DataOutputStream out = new DataOutputStream(bytes);
+        writeString(out, user.getId());
+        writeString(out, user.getUsername());
+        writeString(out, user.getAvatar());
+        writeString(out, user.getEmail());
+
+        Map<String, Object> data = user.getData();
+        List<Map.Entry<String, Object>> entries = new ArrayList<>();
+        if (data != null) {
+            for (Map.Entry<String, Object> entry : data.entrySet()) {
+                if (entries.size() >= maxDataEntries) {
+                    logger.warn("Dropping user data beyond {} entries from auth cookie", maxDataEntries);
+                    break;
+                }
+                if (isSupported(entry.getValue())) {
+                    entries.add(entry);
+                } else {
+                    logger.debug("Skipping user data '{}' of unsupported type {}", entry.getKey(),
+                            entry.getValue().getClass().getName());
+                }
+            }
+        }
+
+        out.writeShort(entries.size());
+        for (Map.Entry<String, Object> entry : entries) {
+            out.writeUTF(entry.getKey());
+            writeValue(out, entry.getValue());
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private User readUser(byte[] payload) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        User user = new User();
+        user.setId(readString(in));
+        user.setUsername(readString(in));
+        user.setAvatar(readString(in));
+        user.setEmail(readString(in));
+
+        int count = in.readUnsignedShort();
+        for (int i = 0; i < count; i++) {
+            String name = in.readUTF();
+            Object value = readValue(in);
+            if (value != null) {
+                user.getData().put(name, value);
+            }
+        }
+        return user;
+    }
+
+    private static boolean isSupported(Object value) {
+        return value == null || value instanceof String || value instanceof Boolean || value instanceof Integer
+                || value instanceof Long || value instanceof Double;
+    }
+
+    private static void writeValue(DataOutputStream out, Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(TYPE_NULL);
+        } else if (value instanceof String s) {
+            out.writeByte(TYPE_STRING);
+            out.writeUTF(s);
+        } else if (value instanceof Boolean b) {
+            out.writeByte(TYPE_BOOLEAN);
+            out.writeBoolean(b);
+        } else if (value instanceof Integer i) {
+            out.writeByte(TYPE_INT);
+            out.writeInt(i);
+        } else if (value instanceof Long l) {
+            out.writeByte(TYPE_LONG);
+            out.writeLong(l);
+        } else if (value instanceof Double d) {
+            out.writeByte(TYPE_DOUBLE);
+            out.writeDouble(d);
+        }
+    }
+
+    private static Object readValue(DataInputStream in) throws IOException {
+        byte type = in.readByte();
+        return switch (type) {
+            case TYPE_NULL -> null;
+            case TYPE_STRING -> in.readUTF();
+            case TYPE_BOOLEAN -> in.readBoolean();
+            case TYPE_INT -> in.readInt();
+            case TYPE_LONG -> in.readLong();
+            case TYPE_DOUBLE -> in.readDouble();
+            default -> throw new IOException("Unknown value type " + type);
+        };
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static Mac mac(SigningKey key) {
+        Mac mac = MAC.get();
+        try {
+            mac.init(key.macKey);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Invalid auth cookie signing key", e);
+        }
+        return mac;
+    }
+
+    private static final class SigningKey {
+        private final byte id;
+        private final SecretKeySpec macKey;
+        private final SecretKeySpec encryptionKey;
+
+        private SigningKey(byte id, byte[] secret) {
+            this.id = id;
+            this.macKey = new SecretKeySpec(derive(secret, "fusionkit-auth-mac"), "HmacSHA256");
+            this.encryptionKey = new SecretKeySpec(derive(secret, "fusionkit-auth-enc"), "AES");
+        }
+
+        private static byte[] derive(byte[] secret, String label) {
+            try {
+                Mac mac = Mac.getInstance("HmacSHA256");
+                mac.init(new SecretKeySpec(secret, "HmacSHA256"));
+                return mac.doFinal(label.getBytes(StandardCharsets.UTF_8));
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("Failed to derive auth cookie key", e);
+            }
+        }
+    }
+
+    /**
+     * Builder class for creating cookie session stores.
+     */
+    public static class Builder {
+        private final List<SigningKey> keys = new ArrayList<>();
+        private final Set<Integer> usedIds = new HashSet<>();
+        private boolean encrypt = false;
+        private String cookieName = "fk_auth";
+        private Boolean secure;
+        private int maxDataEntries = 16;
+        private Long authSessionInterval;
+
+        /**
+         * Adds a key. The first key added signs new cookies, later keys are only used
+         * to verify cookies issued before a rotation.
+         * @param id A unique key id between 0 and 255
+         * @param secret The secret (at least 32 bytes)
+         * @return This builder instance
+         */
+        public Builder addKey(int id, byte[] secret) {
+            if (id < 0 || id > 255) {
+                throw new IllegalArgumentException("Key id must be between 0 and 255");
+            }
+            if (secret == null || secret.length < 32) {
+                throw new IllegalArgumentException("Secret must be at least 32 bytes");
+            }
+            if (!usedIds.add(id)) {
+                throw new IllegalArgumentException("Duplicate key id " + id);
+            }
+            keys.add(new SigningKey((byte) id, secret));
+            return this;
+        }
+
+        /**
+         * Adds a key from a string secret, see {@link #addKey(int, byte[])}.
+         */
+        public Builder addKey(int id, String secret) {
+            return addKey(id, secret == null ? null : secret.getBytes(StandardCharsets.UTF_8));
+        }
+
+        /**
+         * Encrypts the payload with AES-GCM in addition to signing it.
+         * @param encrypt Whether to encrypt
+         * @return This builder instance
+         */
+        public Builder setEncrypt(boolean encrypt) {
+            this.encrypt = encrypt;
+            return this;
+        }
+
+        public Builder setCookieName(String cookieName) {
+            this.cookieName = cookieName;
+            return this;
+        }
+
+        /**
+         * Sets the {@code Secure} cookie flag. Defaults to true, except in development once the
+         * store is attached to a WebApp.
+         * @param secure Whether the cookie is only sent over HTTPS
+         * @return This builder instance
+         */
+        public Builder setSecure(boolean secure) {
+            this.secure = secure;
+            return this;
+        }
+
+        /**
+         * Limits how many {@link User#getData()} entries are stored in the cookie.
+         */
+        public Builder setMaxDataEntries(int maxDataEntries) {
+            this.maxDataEntries = maxDataEntries;
+            return this;
+        }
+
+        /**
+         * Sets the session lifetime. Defaults to {@link WebAppConfig.Auth#getAuthSessionInterval()}
+         * of the WebApp the store is attached to.
+         * @param authSessionInterval The lifetime in milliseconds
+         * @return This builder instance
+         */
+        public Builder setAuthSessionInterval(long authSessionInterval) {
+            this.authSessionInterval = authSessionInterval;
+            return this;
+        }
+
+        public CookieAuthSessionStore build() {
+            return new CookieAuthSessionStore(this);
+        }
+    }
+}
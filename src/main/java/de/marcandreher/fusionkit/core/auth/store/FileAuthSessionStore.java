@@ -1,73 +1,520 @@
 package de.marcandreher.fusionkit.core.auth.store;
 
+import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.gson.Gson;
 import com.moandjiezana.toml.Toml;
-import com.moandjiezana.toml.TomlWriter;
 
+import de.marcandreher.fusionkit.core.WebAppConfig;
 import de.marcandreher.fusionkit.core.app.FileStructureManager;
 import de.marcandreher.fusionkit.core.auth.User;
 import io.javalin.http.Context;
+import jakarta.servlet.http.HttpSession;
 
-public class FileAuthSessionStore implements AuthSessionStore {
+/**
+ * Persistent auth session store backed by an append-only log.
+ *
+ * <p>Every {@link #setUser} / {@link #clear} appends one record to {@code sessions.log}.
+ * On startup the log is memory-mapped and replayed into an in-memory index, so
+ * {@link #getUser} never touches the disk. Once the log is mostly made up of
+ * overwritten or deleted records it is compacted into a fresh file on a background thread.
+ *
+ * <p>Sessions expire {@code authSessionInterval} after they were last written. Expired
+ * sessions are dropped when read and during compaction, and at most {@code maxSessions}
+ * are kept; beyond that the sessions closest to expiry are evicted.
+ *
+ * <p>Record layout: {@code [int crc][byte op][int keyLen][int valueLen][key][value]},
+ * where the value is {@code [long expiresAt][User as JSON]}. A truncated or corrupt tail
+ * (e.g. after a crash mid-write) is dropped on the next start.
+ */
+public class FileAuthSessionStore implements AuthSessionStore, Closeable {
 
     private static final Logger logger = LoggerFactory.getLogger(FileAuthSessionStore.class);
 
+    private static final String LOG_FILE = "sessions.log";
+    private static final String COMPACT_FILE = "sessions.log.compact";
+    private static final byte OP_PUT = 1;
+    private static final byte OP_DELETE = 2;
+    private static final int HEADER_SIZE = 4 + 1 + 4 + 4;
+    private static final long MIN_COMPACTION_SIZE = 1024 * 1024; // 1 MB
+    private static final double COMPACTION_RATIO = 0.5;
+    private static final int DEFAULT_MAX_SESSIONS = 100_000;
+    private static final double EVICTION_RATIO = 0.1;
+
+    private final Gson gson = new Gson();
     private final File sessionDirectory;
-    private final TomlWriter writer = new TomlWriter();
+    private final Path logPath;
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+    private final Map<String, Integer> recordSizes = new ConcurrentHashMap<>();
+    private final int maxSessions;
+
+    private volatile long authSessionInterval = 24 * 60 * 60 * 1000;
+    private FileChannel channel;
+    private long logSize;
+    private long liveBytes;
+    private boolean compacting;
+    // Records appended while a compaction runs, carried over into the compacted log
+    private List<ByteBuffer> pendingRecords;
 
     public FileAuthSessionStore(File sessionDirectory) {
+        this(sessionDirectory, DEFAULT_MAX_SESSIONS);
+    }
+
+    /**
+     * @param maxSessions The maximum number of sessions kept, the ones closest to expiry are evicted first
+     */
+    public FileAuthSessionStore(File sessionDirectory, int maxSessions) {
+        if (maxSessions <= 0) {
+            throw new IllegalArgumentException("maxSessions must be positive");
+        }
         this.sessionDirectory = new File(FileStructureManager.DirectoryType.DATA.getDirectoryName(), sessionDirectory.getName());
+        this.logPath = new File(this.sessionDirectory, LOG_FILE).toPath();
+        this.maxSessions = maxSessions;
+        ensureDirectory();
+        open();
+    }
+
+    @Override
+    public void initialize(WebAppConfig config) {
+        this.authSessionInterval = config.auth.getAuthSessionInterval();
     }
 
     @Override
     public User getUser(Context ctx) {
-        File sessionFile = getSessionFile(ctx);
-        if (!sessionFile.exists()) {
-            return null;
+        String sessionId = getSessionId(ctx, false);
+        return sessionId != null ? getUser(sessionId) : null;
+    }
+
+    @Override
+    public void setUser(Context ctx, User user) {
+        if (user == null) {
+            clear(ctx);
+            return;
         }
+        setUser(getSessionId(ctx, true), user);
+    }
 
-        try {
-            Toml toml = new Toml().read(sessionFile);
-            return toml.to(User.class);
-        } catch (Exception e) {
-            logger.error("Failed to read auth session file: {}", sessionFile.getAbsolutePath(), e);
+    @Override
+    public void clear(Context ctx) {
+        String sessionId = getSessionId(ctx, false);
+        if (sessionId != null) {
+            clear(sessionId);
+        }
+    }
+
+    /**
+     * Looks up a session by id, null if it is unknown or expired.
+     */
+    public User getUser(String sessionId) {
+        Session session = sessions.get(sessionId);
+        if (session == null) {
+            return null;
+        }
+        if (session.isExpired(System.currentTimeMillis())) {
+            expire(sessionId, session);
             return null;
         }
+        return session.user();
+    }
+
+    /**
+     * Stores a session, evicting others if the store is full.
+     */
+    public void setUser(String sessionId, User user) {
+        Session session = new Session(user, System.currentTimeMillis() + authSessionInterval);
+        byte[] value = encodeValue(session);
+        synchronized (this) {
+            sessions.put(sessionId, session);
+            append(OP_PUT, sessionId, value);
+            if (sessions.size() > maxSessions) {
+                evict();
+            }
+        }
     }
 
+    /**
+     * Removes a session.
+     */
+    public void clear(String sessionId) {
+        synchronized (this) {
+            if (sessions.remove(sessionId) != null) {
+                append(OP_DELETE, sessionId, new byte[0]);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of sessions currently held in memory.
+     */
+    public int size() {
+        return sessions.size();
+    }
+
+    /**
+     * Rewrites the log so that it only contains the live, unexpired sessions. Changes made
+     * meanwhile still go to the old log and are carried over. Does nothing after {@link #close()}
+     * or while a compaction is running.
+     */
+    public void compact() {
+        synchronized (this) {
+            if (channel == null || compacting) {
+                return;
+            }
+            compacting = true;
+        }
+        runCompaction();
+    }
+
+    private void runCompaction() {
+        Path compactPath = new File(sessionDirectory, COMPACT_FILE).toPath();
+        long startTime = System.currentTimeMillis();
+        List<ByteBuffer> records = new ArrayList<>();
+        long before;
+        synchronized (this) {
+            if (channel == null) {
+                compacting = false;
+                return;
+            }
+            before = logSize;
+            removeExpired(System.currentTimeMillis());
+            sessions.forEach((sessionId, session) -> records.add(encode(OP_PUT, sessionId, encodeValue(session))));
+            pendingRecords = new ArrayList<>();
+        }
+
+        try (FileChannel out = FileChannel.open(compactPath, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            long written = write(out, records);
+            synchronized (this) {
+                if (channel == null) {
+                    Files.deleteIfExists(compactPath);
+                    return;
+                }
+                written += write(out, pendingRecords);
+                out.force(true);
+
+                channel.close();
+                Files.move(compactPath, logPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                channel = FileChannel.open(logPath, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+                logSize = written;
+                liveBytes = recordSizes.values().stream().mapToLong(Integer::longValue).sum();
+            }
+            logger.debug("Compacted auth session log from {} to {} bytes in <{}ms>", before, written,
+                    System.currentTimeMillis() - startTime);
+        } catch (IOException e) {
+            logger.error("Failed to compact auth session log: {}", logPath.toAbsolutePath(), e);
+            synchronized (this) {
+                if (channel != null) {
+                    reopenAfterFailure();
+                }
+            }
+        } finally {
+            synchronized (this) {
+                compacting = false;
+                pendingRecords = null;
+            }
+        }
+    }
+
+    /**
+     * Closes the underlying log file. The store must not be used afterwards.
+     */
     @Override
-    public void setUser(Context ctx, User user) {
-        if (user == null) {
-            clear(ctx);
+    public synchronized void close() {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.force(true);
+            channel.close();
+        } catch (IOException e) {
+            logger.warn("Failed to close auth session log: {}", logPath.toAbsolutePath(), e);
+        }
+        channel = null;
+    }
+
+    private synchronized void append(byte op, String sessionId, byte[] value) {
+        if (channel == null) {
+            logger.warn("Auth session log is closed, session change for {} is not persisted", sessionId);
+            return;
+        }
+
+        ByteBuffer record = encode(op, sessionId, value);
+        int size = record.remaining();
+        try {
+            while (record.hasRemaining()) {
+                channel.write(record);
+            }
+        } catch (IOException e) {
+            logger.error("Failed to append to auth session log: {}", logPath.toAbsolutePath(), e);
             return;
         }
 
-        File sessionFile = getSessionFile(ctx);
+        logSize += size;
+        if (pendingRecords != null) {
+            pendingRecords.add(record.rewind());
+        }
+        Integer previous = op == OP_DELETE ? recordSizes.remove(sessionId) : recordSizes.put(sessionId, size);
+        if (previous != null) {
+            liveBytes -= previous;
+        }
+        if (op != OP_DELETE) {
+            liveBytes += size;
+        }
+
+        if (!compacting && logSize >= MIN_COMPACTION_SIZE && liveBytes < logSize * COMPACTION_RATIO) {
+            compacting = true;
+            Thread.ofVirtual().name("FK-Session-Compaction").start(this::runCompaction);
+        }
+    }
+
+    private synchronized void expire(String sessionId, Session session) {
+        if (sessions.remove(sessionId, session)) {
+            append(OP_DELETE, sessionId, new byte[0]);
+        }
+    }
+
+    /**
+     * Drops expired sessions and, if that is not enough, the ones closest to expiry.
+     * Evicts a batch below the limit so that a full store does not sort on every login.
+     */
+    private void evict() {
+        long now = System.currentTimeMillis();
+        List<String> removed = new ArrayList<>();
+        sessions.forEach((sessionId, session) -> {
+            if (session.isExpired(now)) {
+                removed.add(sessionId);
+            }
+        });
+        removed.forEach(sessions::remove);
+
+        int target = maxSessions - (int) (maxSessions * EVICTION_RATIO);
+        if (sessions.size() > target) {
+            List<Map.Entry<String, Session>> entries = new ArrayList<>(sessions.entrySet());
+            entries.sort(Comparator.comparingLong(entry -> entry.getValue().expiresAt()));
+            for (int i = 0; i < entries.size() - target; i++) {
+                String sessionId = entries.get(i).getKey();
+                sessions.remove(sessionId);
+                removed.add(sessionId);
+            }
+        }
+
+        for (String sessionId : removed) {
+            append(OP_DELETE, sessionId, new byte[0]);
+        }
+        logger.debug("Evicted {} auth sessions, {} remain", removed.size(), sessions.size());
+    }
+
+    private void removeExpired(long now) {
+        sessions.entrySet().removeIf(entry -> {
+            if (!entry.getValue().isExpired(now)) {
+                return false;
+            }
+            Integer size = recordSizes.remove(entry.getKey());
+            if (size != null) {
+                liveBytes -= size;
+            }
+            return true;
+        });
+    }
+
+    private void open() {
         try {
-            ensureDirectory();
-            writer.write(user, sessionFile);
+            if (Files.exists(logPath)) {
+                replay();
+            }
+            channel = FileChannel.open(logPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND);
+            removeExpired(System.currentTimeMillis());
+            migrateLegacySessions();
+            logger.debug("Loaded {} auth sessions from {}", sessions.size(), logPath.toAbsolutePath());
         } catch (IOException e) {
-            logger.error("Failed to write auth session file: {}", sessionFile.getAbsolutePath(), e);
+            logger.error("Failed to open auth session log: {}", logPath.toAbsolutePath(), e);
         }
     }
 
-    @Override
-    public void clear(Context ctx) {
-        File sessionFile = getSessionFile(ctx);
-        if (sessionFile.exists() && !sessionFile.delete()) {
-            logger.warn("Failed to delete auth session file: {}", sessionFile.getAbsolutePath());
+    private void replay() throws IOException {
+        try (FileChannel in = FileChannel.open(logPath, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = in.size();
+            long validSize = 0;
+            if (size > 0) {
+                MappedByteBuffer buffer = in.map(FileChannel.MapMode.READ_ONLY, 0, size);
+                validSize = replay(buffer);
+            }
+
+            if (validSize < size) {
+                logger.warn("Dropping {} bytes of corrupt data at the end of {}", size - validSize,
+                        logPath.toAbsolutePath());
+                in.truncate(validSize);
+            }
+            logSize = validSize;
         }
     }
 
-    private File getSessionFile(Context ctx) {
-        ensureDirectory();
-        String sessionId = ctx.req().getSession(true).getId();
-        return new File(sessionDirectory, sessionId + ".toml");
+    private long replay(MappedByteBuffer buffer) {
+        CRC32 crc = new CRC32();
+        while (buffer.remaining() >= HEADER_SIZE) {
+            int start = buffer.position();
+            int checksum = buffer.getInt();
+            byte op = buffer.get();
+            int keyLength = buffer.getInt();
+            int valueLength = buffer.getInt();
+            if (keyLength < 0 || valueLength < 0 || buffer.remaining() < (long) keyLength + valueLength) {
+                return start;
+            }
+
+            byte[] key = new byte[keyLength];
+            byte[] value = new byte[valueLength];
+            buffer.get(key);
+            buffer.get(value);
+
+            crc.reset();
+            crc.update(op);
+            crc.update(key);
+            crc.update(value);
+            if ((int) crc.getValue() != checksum) {
+                return start;
+            }
+
+            String sessionId = new String(key, StandardCharsets.UTF_8);
+            int recordSize = buffer.position() - start;
+            Integer previous = recordSizes.remove(sessionId);
+            if (previous != null) {
+                liveBytes -= previous;
+            }
+
+            if (op == OP_PUT) {
+                try {
+                    Session session = decodeValue(value);
+                    sessions.put(sessionId, session);
+                    recordSizes.put(sessionId, recordSize);
+                    liveBytes += recordSize;
+                } catch (Exception e) {
+                    sessions.remove(sessionId);
+                    logger.warn("Skipping unreadable auth session record for {}", sessionId, e);
+                }
+            } else if (op == OP_DELETE) {
+                sessions.remove(sessionId);
+            } else {
+                return start;
+            }
+        }
+        return buffer.position();
+    }
+
+    /**
+     * Imports sessions written by the old one-TOML-file-per-session layout and removes the files.
+     */
+    private void migrateLegacySessions() {
+        File[] legacyFiles = sessionDirectory.listFiles((dir, name) -> name.endsWith(".toml"));
+        if (legacyFiles == null || legacyFiles.length == 0) {
+            return;
+        }
+
+        int migrated = 0;
+        for (File legacyFile : legacyFiles) {
+            String sessionId = legacyFile.getName().substring(0, legacyFile.getName().length() - ".toml".length());
+            try {
+                User user = new Toml().read(legacyFile).to(User.class);
+                if (user != null && !sessions.containsKey(sessionId)) {
+                    Session session = new Session(user, System.currentTimeMillis() + authSessionInterval);
+                    synchronized (this) {
+                        sessions.put(sessionId, session);
+                        append(OP_PUT, sessionId, encodeValue(session));
+                    }
+                    migrated++;
+                }
+            } catch (Exception e) {
+                logger.warn("Failed to migrate auth session file: {}", legacyFile.getAbsolutePath(), e);
+                continue;
+            }
+            if (!legacyFile.delete()) {
+                logger.warn("Failed to delete auth session file: {}", legacyFile.getAbsolutePath());
+            }
+        }
+        logger.info("Migrated {} of {} auth session files into {}", migrated, legacyFiles.length,
+                logPath.toAbsolutePath());
+    }
+
+    private void reopenAfterFailure() {
+        try {
+            if (channel == null || !channel.isOpen()) {
+                channel = FileChannel.open(logPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                        StandardOpenOption.APPEND);
+            }
+        } catch (IOException e) {
+            logger.error("Failed to reopen auth session log: {}", logPath.toAbsolutePath(), e);
+            channel = null;
+        }
+    }
+
+    private byte[] encodeValue(Session session) {
+        byte[] json = gson.toJson(session.user()).getBytes(StandardCharsets.UTF_8);
+        return ByteBuffer.allocate(Long.BYTES + json.length)
+                .putLong(session.expiresAt())
+                .put(json)
+                .array();
+    }
+
+    private Session decodeValue(byte[] value) {
+        if (value.length < Long.BYTES) {
+            throw new IllegalArgumentException("Session record is too short");
+        }
+        long expiresAt = ByteBuffer.wrap(value).getLong();
+        String json = new String(value, Long.BYTES, value.length - Long.BYTES, StandardCharsets.UTF_8);
+        return new Session(gson.fromJson(json, User.class), expiresAt);
+    }
+
+    private static long write(FileChannel out, List<ByteBuffer> records) throws IOException {
+        long written = 0;
+        for (ByteBuffer record : records) {
+            written += record.remaining();
+            while (record.hasRemaining()) {
+                out.write(record);
+            }
+        }
+        return written;
+    }
+
+    private static ByteBuffer encode(byte op, String sessionId, byte[] value) {
+        byte[] key = sessionId.getBytes(StandardCharsets.UTF_8);
+        CRC32 crc = new CRC32();
+        crc.update(op);
+        crc.update(key);
+        crc.update(value);
+
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + key.length + value.length);
+        buffer.putInt((int) crc.getValue());
+        buffer.put(op);
+        buffer.putInt(key.length);
+        buffer.putInt(value.length);
+        buffer.put(key);
+        buffer.put(value);
+        buffer.flip();
+        return buffer;
+    }
+
+    private static String getSessionId(Context ctx, boolean create) {
+        HttpSession session = ctx.req().getSession(create);
+        return session != null ? session.getId() : null;
     }
 
     private void ensureDirectory() {
@@ -75,4 +522,11 @@ public class FileAuthSessionStore implements AuthSessionStore {
             logger.warn("Failed to create auth session directory: {}", sessionDirectory.getAbsolutePath());
         }
     }
+
+    private record Session(User user, long expiresAt) {
+
+        boolean isExpired(long now) {
+            return expiresAt <= now;
+        }
+    }
 }
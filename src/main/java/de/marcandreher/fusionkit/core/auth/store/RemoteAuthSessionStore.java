@@ -0,0 +1,309 @@
+package de.marcandreher.fusionkit.core.auth.store;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.google.gson.Gson;
+
+import de.marcandreher.fusionkit.core.WebAppConfig;
+import de.marcandreher.fusionkit.core.auth.User;
+import de.marcandreher.fusionkit.core.javalin.ProductionLevel;
+import io.javalin.http.Context;
+import io.javalin.http.Cookie;
+import io.javalin.http.SameSite;
+
+/**
+ * Auth session store backed by a Redis-compatible server, shared by all nodes of an app.
+ *
+ * <p>Sessions are identified by a random id in their own cookie (servlet sessions are
+ * local to one node) and stored as JSON under {@code keyPrefix + id} with a TTL of
+ * {@code authSessionInterval}. Hot sessions are served from a local Caffeine near-cache;
+ * every write or logout is published on {@code invalidationChannel} so other nodes drop
+ * their cached copy.
+ */
+public class RemoteAuthSessionStore implements AuthSessionStore, Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(RemoteAuthSessionStore.class);
+    private static final long DEFAULT_AUTH_SESSION_INTERVAL = 24 * 60 * 60 * 1000;
+
+    private final Gson gson = new Gson();
+    private final SecureRandom random = new SecureRandom();
+    private final String nodeId = newId().substring(0, 8);
+    private final RespClient client;
+    private final Cache<String, User> nearCache;
+    private final String keyPrefix;
+    private final String invalidationChannel;
+    private final String cookieName;
+    private final boolean secureFromBuilder;
+    private final boolean intervalFromBuilder;
+    private final RespClient.Subscription subscription;
+    private volatile boolean secure;
+    private volatile long authSessionInterval;
+
+    private RemoteAuthSessionStore(Builder builder) {
+        this.client = new RespClient(builder.host, builder.port, builder.password, builder.database,
+                builder.poolSize, builder.timeoutMillis);
+        this.nearCache = Caffeine.newBuilder()
+                .maximumSize(builder.nearCacheSize)
+                .expireAfterWrite(builder.nearCacheTtlSeconds, TimeUnit.SECONDS)
+                .build();
+        this.keyPrefix = builder.keyPrefix;
+        this.invalidationChannel = builder.invalidationChannel;
+        this.cookieName = builder.cookieName;
+        this.secureFromBuilder = builder.secure != null;
+        this.secure = builder.secure != null ? builder.secure : true;
+        this.intervalFromBuilder = builder.authSessionInterval != null;
+        this.authSessionInterval = builder.authSessionInterval != null ? builder.authSessionInterval
+                : DEFAULT_AUTH_SESSION_INTERVAL;
+
+        // Connects in the background; until then the near-cache TTL bounds how long a stale session is served
+        this.subscription = client.subscribe(invalidationChannel, this::onInvalidation);
+    }
+
+    @Override
+    public void initialize(WebAppConfig config) {
+        // Values set on the builder win over the app defaults
+        if (!secureFromBuilder) {
+            this.secure = !ProductionLevel.isInDevelopment(config.getProductionLevel());
+        }
+        if (!intervalFromBuilder) {
+            this.authSessionInterval = config.auth.getAuthSessionInterval();
+        }
+    }
+
+    @Override
+    public User getUser(Context ctx) {
+        String sessionId = ctx.cookie(cookieName);
+        if (sessionId == null || sessionId.isEmpty()) {
+            return null;
+        }
+        return getUser(sessionId);
+    }
+
+    @Override
+    public void setUser(Context ctx, User user) {
+        if (user == null) {
+            clear(ctx);
+            return;
+        }
+
+        // Issue a fresh id on every login to rule out session fixation
+        String previous = ctx.cookie(cookieName);
+        if (previous != null && !previous.isEmpty()) {
+            clear(previous);
+        }
+
+        String sessionId = newId();
+        setUser(sessionId, user);
+
+        Cookie cookie = new Cookie(cookieName, sessionId);
+        cookie.setPath("/");
+        cookie.setMaxAge((int) Math.min(Integer.MAX_VALUE, authSessionInterval / 1000));
+        cookie.setHttpOnly(true);
+        cookie.setSecure(secure);
+        cookie.setSameSite(SameSite.LAX);
+        ctx.cookie(cookie);
+    }
+
+    @Override
+    public void clear(Context ctx) {
+        String sessionId = ctx.cookie(cookieName);
+        if (sessionId != null && !sessionId.isEmpty()) {
+            clear(sessionId);
+        }
+        ctx.removeCookie(cookieName, "/");
+    }
+
+    /**
+     * Looks up a session by id, from the near-cache if possible.
+     */
+    public User getUser(String sessionId) {
+        User cached = nearCache.getIfPresent(sessionId);
+        if (cached != null) {
+            return cached;
+        }
+
+        try {
+            Object reply = client.execute("GET", keyPrefix + sessionId);
+            if (!(reply instanceof String json)) {
+                return null;
+            }
+            User user = gson.fromJson(json, User.class);
+            nearCache.put(sessionId, user);
+            return user;
+        } catch (IOException e) {
+            logger.error("Failed to load auth session {}: {}", sessionId, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Stores a session and tells the other nodes to drop their cached copy.
+     */
+    public void setUser(String sessionId, User user) {
+        nearCache.put(sessionId, user);
+        try {
+            client.pipeline(List.of(
+                    new String[] { "SET", keyPrefix + sessionId, gson.toJson(user), "PX", String.valueOf(authSessionInterval) },
+                    new String[] { "PUBLISH", invalidationChannel, nodeId + ":" + sessionId }));
+        } catch (IOException e) {
+            logger.error("Failed to store auth session {}: {}", sessionId, e.getMessage());
+        }
+    }
+
+    /**
+     * Removes a session on all nodes.
+     */
+    public void clear(String sessionId) {
+        nearCache.invalidate(sessionId);
+        try {
+            client.pipeline(List.of(
+                    new String[] { "DEL", keyPrefix + sessionId },
+                    new String[] { "PUBLISH", invalidationChannel, nodeId + ":" + sessionId }));
+        } catch (IOException e) {
+            logger.error("Failed to delete auth session {}: {}", sessionId, e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the number of sessions currently held in the near-cache.
+     */
+    public long getNearCacheSize() {
+        return nearCache.estimatedSize();
+    }
+
+    /**
+     * Returns whether invalidations from other nodes are currently being received.
+     */
+    public boolean isSubscribed() {
+        return subscription.isConnected();
+    }
+
+    @Override
+    public void close() {
+        subscription.close();
+        client.close();
+    }
+
+    private void onInvalidation(String message) {
+        int separator = message.indexOf(':');
+        if (separator < 0 || message.substring(0, separator).equals(nodeId)) {
+            return;
+        }
+        nearCache.invalidate(message.substring(separator + 1));
+    }
+
+    private String newId() {
+        byte[] bytes = new byte[24];
+        random.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    /**
+     * Builder class for creating remote session stores.
+     */
+    public static class Builder {
+        private String host = "localhost";
+        private int port = 6379;
+        private String password;
+        private int database = 0;
+        private int poolSize = 8;
+        private int timeoutMillis = 2000;
+        private String keyPrefix = "fk:session:";
+        private String invalidationChannel = "fk:session:invalidate";
+        private String cookieName = "fk_sid";
+        private Boolean secure;
+        private long nearCacheSize = 10_000;
+        private long nearCacheTtlSeconds = 60;
+        private Long authSessionInterval;
+
+        public Builder setHost(String host) {
+            this.host = host;
+            return this;
+        }
+
+        public Builder setPort(int port) {
+            this.port = port;
+            return this;
+        }
+
+        public Builder setPassword(String password) {
+            this.password = password;
+            return this;
+        }
+
+        public Builder setDatabase(int database) {
+            this.database = database;
+            return this;
+        }
+
+        public Builder setPoolSize(int poolSize) {
+            this.poolSize = poolSize;
+            return this;
+        }
+
+        public Builder setTimeoutMillis(int timeoutMillis) {
+            this.timeoutMillis = timeoutMillis;
+            return this;
+        }
+
+        public Builder setKeyPrefix(String keyPrefix) {
+            this.keyPrefix = keyPrefix;
+            return this;
+        }
+
+        public Builder setInvalidationChannel(String invalidationChannel) {
+            this.invalidationChannel = invalidationChannel;
+            return this;
+        }
+
+        public Builder setCookieName(String cookieName) {
+            this.cookieName = cookieName;
+            return this;
+        }
+
+        /**
+         * Sets the {@code Secure} cookie flag. Defaults to true, except in development once the
+         * store is attached to a WebApp.
+         */
+        public Builder setSecure(boolean secure) {
+            this.secure = secure;
+            return this;
+        }
+
+        public Builder setNearCacheSize(long nearCacheSize) {
+            this.nearCacheSize = nearCacheSize;
+            return this;
+        }
+
+        /**
+         * Upper bound for how long a node may serve a session it missed an invalidation for.
+         */
+        public Builder setNearCacheTtlSeconds(long nearCacheTtlSeconds) {
+            this.nearCacheTtlSeconds = nearCacheTtlSeconds;
+            return this;
+        }
+
+        /**
+         * Session lifetime in milliseconds. Defaults to {@link WebAppConfig.Auth#getAuthSessionInterval()}
+         * of the WebApp the store is attached to.
+         */
+        public Builder setAuthSessionInterval(long authSessionInterval) {
+            this.authSessionInterval = authSessionInterval;
+            return this;
+        }
+
+        public RemoteAuthSessionStore build() {
+            return new RemoteAuthSessionStore(this);
+        }
+    }
+}
@@ -0,0 +1,454 @@
+package de.marcandreher.fusionkit.core.auth.store;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Minimal client for the Redis serialization protocol (RESP2), used by
+ * {@link RemoteAuthSessionStore}. Works against Redis, Valkey, KeyDB and other
+ * RESP-compatible servers.
+ *
+ * <p>Connections are non-blocking {@link SocketChannel}s kept in a fixed-size pool.
+ * {@link #pipeline(List)} writes all commands before reading the replies, so a batch
+ * costs a single round trip.
+ */
+public class RespClient implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(RespClient.class);
+    private static final byte[] CRLF = { '\r', '\n' };
+
+    private final String host;
+    private final int port;
+    private final String password;
+    private final int database;
+    private final int timeoutMillis;
+    private final int poolSize;
+    private final BlockingQueue<Connection> idle;
+    private final AtomicInteger openConnections = new AtomicInteger();
+    private final List<Subscription> subscriptions = Collections.synchronizedList(new ArrayList<>());
+    private volatile boolean closed = false;
+
+    public RespClient(String host, int port, String password, int database, int poolSize, int timeoutMillis) {
+        this.host = host;
+        this.port = port;
+        this.password = password;
+        this.database = database;
+        this.poolSize = poolSize;
+        this.timeoutMillis = timeoutMillis;
+        this.idle = new ArrayBlockingQueue<>(poolSize);
+    }
+
+    /**
+     * Sends a single command and returns its reply.
+     * @throws RespException if the server answered with an error
+     */
+    public Object execute(String... command) throws IOException {
+        return pipeline(Collections.singletonList(command)).get(0);
+    }
+
+    /**
+     * Sends all commands in one write and reads their replies in order.
+     * @throws RespException if any command was answered with an error
+     */
+    public List<Object> pipeline(List<String[]> commands) throws IOException {
+        Connection connection = borrow();
+        boolean healthy = false;
+        try {
+            connection.write(commands);
+            List<Object> replies = new ArrayList<>(commands.size());
+            for (int i = 0; i < commands.size(); i++) {
+                replies.add(connection.read());
+            }
+            healthy = true;
+
+            for (Object reply : replies) {
+                if (reply instanceof RespException error) {
+                    throw error;
+                }
+            }
+            return replies;
+        } finally {
+            release(connection, healthy);
+        }
+    }
+
+    /**
+     * Subscribes to a pub/sub channel on a dedicated connection. The listener is called
+     * on the subscriber thread for every message. The subscriber thread connects in the
+     * background and reconnects with backoff whenever the server is unreachable or the
+     * connection drops.
+     */
+    public Subscription subscribe(String channel, Consumer<String> listener) {
+        Subscription subscription = new Subscription(channel, listener);
+        subscriptions.add(subscription);
+        Thread thread = new Thread(subscription, "FK-Resp-Subscriber-" + channel);
+        thread.setDaemon(true);
+        thread.start();
+        return subscription;
+    }
+
+    /**
+     * Returns the number of pooled connections currently open.
+     */
+    public int getOpenConnections() {
+        return openConnections.get();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        synchronized (subscriptions) {
+            for (Subscription subscription : subscriptions) {
+                subscription.close();
+            }
+            subscriptions.clear();
+        }
+        Connection connection;
+        while ((connection = idle.poll()) != null) {
+            connection.close();
+            openConnections.decrementAndGet();
+        }
+    }
+
+    private Connection borrow() throws IOException {
+        if (closed) {
+            throw new IOException("RESP client is closed");
+        }
+
+        Connection connection = idle.poll();
+        if (connection != null) {
+            return connection;
+        }
+
+        if (openConnections.incrementAndGet() <= poolSize) {
+            try {
+                return open();
+            } catch (IOException e) {
+                openConnections.decrementAndGet();
+                throw e;
+            }
+        }
+        openConnections.decrementAndGet();
+
+        try {
+            connection = idle.poll(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for a RESP connection", e);
+        }
+        if (connection == null) {
+            throw new SocketTimeoutException("Timed out waiting for a RESP connection from the pool");
+        }
+        return connection;
+    }
+
+    private void release(Connection connection, boolean healthy) {
+        if (healthy && !closed && idle.offer(connection)) {
+            return;
+        }
+        connection.close();
+        openConnections.decrementAndGet();
+    }
+
+    private Connection open() throws IOException {
+        Connection connection = new Connection(timeoutMillis);
+        try {
+            List<String[]> handshake = new ArrayList<>();
+            if (password != null && !password.isEmpty()) {
+                handshake.add(new String[] { "AUTH", password });
+            }
+            if (database != 0) {
+                handshake.add(new String[] { "SELECT", String.valueOf(database) });
+            }
+            if (!handshake.isEmpty()) {
+                connection.write(handshake);
+                for (int i = 0; i < handshake.size(); i++) {
+                    Object reply = connection.read();
+                    if (reply instanceof RespException error) {
+                        throw error;
+                    }
+                }
+            }
+            return connection;
+        } catch (IOException e) {
+            connection.close();
+            throw e;
+        }
+    }
+
+    /**
+     * An error reply ({@code -ERR ...}) sent by the server.
+     */
+    public static class RespException extends IOException {
+        public RespException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * A pub/sub subscription running on its own connection.
+     */
+    public class Subscription implements Runnable, Closeable {
+        private final String channel;
+        private final Consumer<String> listener;
+        private volatile Connection connection;
+        private volatile boolean active = true;
+
+        private Subscription(String channel, Consumer<String> listener) {
+            this.channel = channel;
+            this.listener = listener;
+        }
+
+        private void connect() throws IOException {
+            Connection newConnection = open();
+            try {
+                newConnection.write(Collections.singletonList(new String[] { "SUBSCRIBE", channel }));
+                Object reply = newConnection.read();
+                if (reply instanceof RespException error) {
+                    throw error;
+                }
+            } catch (IOException e) {
+                newConnection.close();
+                throw e;
+            }
+            connection = newConnection;
+        }
+
+        @Override
+        public void run() {
+            long backoff = 100;
+            while (active) {
+                try {
+                    if (connection == null) {
+                        connect();
+                        if (!active) {
+                            connection.close();
+                            return;
+                        }
+                        backoff = 100;
+                        logger.debug("Subscribed to RESP channel {}", channel);
+                    }
+                    if (!connection.awaitReply()) {
+                        // Idle channel, keep waiting
+                        continue;
+                    }
+                    // A timeout from here on leaves half a frame behind, so it reconnects below
+                    Object reply = connection.read();
+                    if (reply instanceof List<?> message && message.size() == 3 && "message".equals(message.get(0))) {
+                        listener.accept((String) message.get(2));
+                    }
+                } catch (Exception e) {
+                    if (!active) {
+                        return;
+                    }
+                    logger.warn("RESP subscription to {} failed, reconnecting in {}ms: {}", channel, backoff, e.getMessage());
+                    if (connection != null) {
+                        connection.close();
+                        connection = null;
+                    }
+                    try {
+                        Thread.sleep(backoff);
+                    } catch (InterruptedException ie) {
+                        return;
+                    }
+                    backoff = Math.min(backoff * 2, 10_000);
+                }
+            }
+        }
+
+        /**
+         * Returns whether the subscription is currently connected and receiving messages.
+         */
+        public boolean isConnected() {
+            return connection != null;
+        }
+
+        @Override
+        public void close() {
+            active = false;
+            if (connection != null) {
+                connection.close();
+            }
+        }
+    }
+
+    private final class Connection implements Closeable {
+        private final SocketChannel channel;
+        private final Selector selector;
+        private final SelectionKey key;
+        private final int timeoutMillis;
+        private final ByteBuffer in = ByteBuffer.allocate(16 * 1024);
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+
+        private Connection(int timeoutMillis) throws IOException {
+            this.timeoutMillis = timeoutMillis;
+            this.channel = SocketChannel.open();
+            try {
+                channel.socket().connect(new InetSocketAddress(host, port), timeoutMillis);
+                channel.socket().setTcpNoDelay(true);
+                channel.configureBlocking(false);
+                this.selector = Selector.open();
+                this.key = channel.register(selector, 0);
+            } catch (IOException e) {
+                channel.close();
+                throw e;
+            }
+            in.flip();
+        }
+
+        private void write(List<String[]> commands) throws IOException {
+            out.reset();
+            for (String[] command : commands) {
+                out.write('*');
+                out.write(Integer.toString(command.length).getBytes(StandardCharsets.US_ASCII));
+                out.write(CRLF);
+                for (String argument : command) {
+                    byte[] bytes = argument.getBytes(StandardCharsets.UTF_8);
+                    out.write('$');
+                    out.write(Integer.toString(bytes.length).getBytes(StandardCharsets.US_ASCII));
+                    out.write(CRLF);
+                    out.write(bytes);
+                    out.write(CRLF);
+                }
+            }
+
+            ByteBuffer buffer = ByteBuffer.wrap(out.toByteArray());
+            while (buffer.hasRemaining()) {
+                if (channel.write(buffer) == 0) {
+                    await(SelectionKey.OP_WRITE);
+                }
+            }
+        }
+
+        private Object read() throws IOException {
+            byte type = readByte();
+            String line = readLine();
+            switch (type) {
+                case '+':
+                    return line;
+                case '-':
+                    return new RespException(line);
+                case ':':
+                    return Long.parseLong(line);
+                case '$': {
+                    int length = Integer.parseInt(line);
+                    if (length < 0) {
+                        return null;
+                    }
+                    byte[] bytes = new byte[length];
+                    for (int i = 0; i < length; i++) {
+                        bytes[i] = readByte();
+                    }
+                    readByte();
+                    readByte();
+                    return new String(bytes, StandardCharsets.UTF_8);
+                }
+                case '*': {
+                    int count = Integer.parseInt(line);
+                    if (count < 0) {
+                        return null;
+                    }
+                    List<Object> values = new ArrayList<>(count);
+                    for (int i = 0; i < count; i++) {
+                        values.add(read());
+                    }
+                    return values;
+                }
+                default:
+                    throw new IOException("Unexpected RESP type: " + (char) type);
+            }
+        }
+
+        /**
+         * Waits up to the timeout for the next reply to start, without consuming any of it.
+         * @return Whether data is ready to be read
+         */
+        private boolean awaitReply() throws IOException {
+            if (in.hasRemaining()) {
+                return true;
+            }
+            try {
+                fill();
+                return true;
+            } catch (SocketTimeoutException e) {
+                return false;
+            }
+        }
+
+        private String readLine() throws IOException {
+            StringBuilder line = new StringBuilder();
+            while (true) {
+                byte b = readByte();
+                if (b == '\r') {
+                    readByte();
+                    return line.toString();
+                }
+                line.append((char) b);
+            }
+        }
+
+        private byte readByte() throws IOException {
+            if (!in.hasRemaining()) {
+                fill();
+            }
+            return in.get();
+        }
+
+        private void fill() throws IOException {
+            in.clear();
+            try {
+                int read;
+                while ((read = channel.read(in)) == 0) {
+                    await(SelectionKey.OP_READ);
+                }
+                if (read < 0) {
+                    throw new EOFException("RESP server closed the connection");
+                }
+            } finally {
+                in.flip();
+            }
+        }
+
+        private void await(int ops) throws IOException {
+            key.interestOps(ops);
+            try {
+                if (selector.select(timeoutMillis) == 0) {
+                    throw new SocketTimeoutException("RESP server did not respond within " + timeoutMillis + "ms");
+                }
+                selector.selectedKeys().clear();
+            } finally {
+                key.interestOps(0);
+            }
+        }
+
+        @Override
+        public void close() {
+            try {
+                selector.close();
+                channel.close();
+            } catch (IOException e) {
+                logger.debug("Failed to close RESP connection: {}", e.getMessage());
+            }
+        }
+    }
+}
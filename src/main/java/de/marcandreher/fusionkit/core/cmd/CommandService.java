@@ -13,7 +13,9 @@ import org.jline.terminal.TerminalBuilder;
 import org.slf4j.Logger;
 
 import de.marcandreher.fusionkit.core.FusionKit;
+import de.marcandreher.fusionkit.core.cmd.implementations.CronCommand;
 import de.marcandreher.fusionkit.core.cmd.implementations.HelpCommand;
+import de.marcandreher.fusionkit.core.cmd.implementations.HttpCommand;
 import de.marcandreher.fusionkit.core.cmd.implementations.JVMCommand;
 import de.marcandreher.fusionkit.core.logger.JLineConsoleAppender;
 
@@ -66,6 +68,8 @@ public class CommandService extends Thread {
 
         registerCommand(new HelpCommand(this));
         registerCommand(new JVMCommand());
+        registerCommand(new HttpCommand());
+        registerCommand(new CronCommand());
 
         while (true) {
             try {
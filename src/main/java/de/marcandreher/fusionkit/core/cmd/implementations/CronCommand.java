@@ -0,0 +1,66 @@
+package de.marcandreher.fusionkit.core.cmd.implementations;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+import de.marcandreher.fusionkit.core.FusionKit;
+import de.marcandreher.fusionkit.core.cmd.Command;
+import de.marcandreher.fusionkit.core.cmd.CommandInfo;
+import de.marcandreher.fusionkit.core.cron.CronLeaseManager;
+import de.marcandreher.fusionkit.core.cron.CronTaskMeta;
+import de.marcandreher.fusionkit.core.cron.CronTaskStats;
+
+/**
+ * Displays every scheduled cron task with its schedule, policies and runtime statistics.
+ */
+@CommandInfo(name = "cron", description = "Displays scheduled cron tasks and their execution statistics")
+public class CronCommand implements Command {
+
+    private static final String SEPARATOR = "─".repeat(80);
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")
+            .withZone(ZoneId.systemDefault());
+
+    @Override
+    public void execute(String[] args) {
+        List<CronTaskMeta> metas = FusionKit.getCron().getTaskMetas();
+        CronLeaseManager leaseManager = FusionKit.getCron().getLeaseManager();
+
+        getLogger().info("[*] Cron Tasks (" + metas.size() + ")");
+        if (leaseManager != null) {
+            getLogger().info("(i) Cluster leases enabled, this node is " + leaseManager.getNodeId());
+        }
+        getLogger().info(SEPARATOR);
+        if (metas.isEmpty()) {
+            getLogger().info("  └─ No tasks registered");
+        }
+
+        for (CronTaskMeta meta : metas) {
+            CronTaskStats stats = meta.getStats();
+            getLogger().info(String.format("[T] %s%s", meta.getName(), stats.getRunning() > 0 ? " (running)" : ""));
+            getLogger().info(String.format("  ├─ Schedule:              %s", meta.getScheduleDescription()));
+            getLogger().info(String.format("  ├─ Policies:              %s, misfire %s, timeout %s%s",
+                    meta.getConcurrencyPolicy(), meta.getMisfirePolicy(),
+                    meta.getTimeoutMillis() > 0 ? meta.getTimeoutMillis() + "ms" : "none",
+                    leaseManager != null && meta.isClusterExclusive() ? ", cluster lease" : ""));
+            getLogger().info(String.format("  ├─ Next Fire:             %s", formatTime(stats.getNextFireMillis())));
+            getLogger().info(String.format("  ├─ Last Start:            %s", formatTime(stats.getLastStartMillis())));
+            getLogger().info(String.format("  ├─ Last Duration:         %s", formatMillis(stats.getLastDurationMillis())));
+            getLogger().info(String.format("  ├─ Duration p50 / p99:    %s / %s",
+                    formatMillis(stats.getP50Millis()), formatMillis(stats.getP99Millis())));
+            getLogger().info(String.format("  └─ Runs:                  %d (%d failed, %d timed out, %d skipped)",
+                    stats.getRuns(), stats.getFailures(), stats.getTimeouts(), stats.getSkipped()));
+        }
+
+        getLogger().info(SEPARATOR);
+    }
+
+    private String formatTime(long epochMillis) {
+        return epochMillis < 0 ? "-" : TIME_FORMAT.format(Instant.ofEpochMilli(epochMillis));
+    }
+
+    private String formatMillis(long millis) {
+        return millis < 0 ? "-" : millis + "ms";
+    }
+}
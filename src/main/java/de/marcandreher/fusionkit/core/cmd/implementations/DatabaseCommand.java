@@ -11,6 +11,7 @@ import com.zaxxer.hikari.HikariPoolMXBean;
 import de.marcandreher.fusionkit.core.FusionKit;
 import de.marcandreher.fusionkit.core.cmd.Command;
 import de.marcandreher.fusionkit.core.cmd.CommandInfo;
+import de.marcandreher.fusionkit.core.database.TransactionMetrics;
 
 /**
  * Database command that displays comprehensive database connection pool statistics
@@ -49,6 +50,7 @@ public class DatabaseCommand implements Command {
 
         try {
             showConnectionPoolStats(dataSource);
+            showTransactionStats(FusionKit.database.getTransactionMetrics());
             showDatabaseInfo(dataSource);
             
             if (showDetailed) {
@@ -102,6 +104,17 @@ public class DatabaseCommand implements Command {
         }
     }
 
+    private void showTransactionStats(TransactionMetrics metrics) {
+        getLogger().info("");
+        getLogger().info("[T] Transactions:");
+        getLogger().info(String.format("  ├─ Committed:              %d", metrics.getCommitted()));
+        getLogger().info(String.format("  ├─ Rolled Back:            %d", metrics.getRolledBack()));
+        getLogger().info(String.format("  ├─ Deadlocks:              %d", metrics.getDeadlocks()));
+        getLogger().info(String.format("  ├─ Lock Wait Timeouts:     %d", metrics.getLockWaitTimeouts()));
+        getLogger().info(String.format("  ├─ Retries:                %d", metrics.getRetries()));
+        getLogger().info(String.format("  └─ Gave Up After Retries:  %d", metrics.getExhausted()));
+    }
+
     private void showDatabaseInfo(HikariDataSource dataSource) {
         try (Connection connection = dataSource.getConnection()) {
             DatabaseMetaData metaData = connection.getMetaData();
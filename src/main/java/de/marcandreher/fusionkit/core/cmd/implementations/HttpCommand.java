@@ -0,0 +1,58 @@
+package de.marcandreher.fusionkit.core.cmd.implementations;
+
+import java.text.DecimalFormat;
+import java.util.Map;
+
+import de.marcandreher.fusionkit.core.cmd.Command;
+import de.marcandreher.fusionkit.core.cmd.CommandInfo;
+import de.marcandreher.fusionkit.core.http.FusionHttp;
+import de.marcandreher.fusionkit.core.http.HostMetrics;
+import de.marcandreher.fusionkit.core.http.HttpClientProfile;
+import okhttp3.ConnectionPool;
+
+/**
+ * Displays the shared outbound HTTP connection pool, client profiles and per-host metrics.
+ */
+@CommandInfo(name = "http", description = "Displays outbound HTTP connection pool and per-host statistics")
+public class HttpCommand implements Command {
+
+    private static final DecimalFormat DECIMAL_FORMAT = new DecimalFormat("#,##0.00");
+    private static final String SEPARATOR = "─".repeat(80);
+
+    @Override
+    public void execute(String[] args) {
+        getLogger().info("[*] Outbound HTTP Report");
+        getLogger().info(SEPARATOR);
+
+        ConnectionPool pool = FusionHttp.getConnectionPool();
+        getLogger().info("[P] Connection Pool:");
+        getLogger().info(String.format("  ├─ Connections:           %d", pool.connectionCount()));
+        getLogger().info(String.format("  ├─ Idle Connections:      %d", pool.idleConnectionCount()));
+        getLogger().info(String.format("  ├─ Running Calls:         %d", FusionHttp.getRunningCalls()));
+        getLogger().info(String.format("  └─ Queued Calls:          %d", FusionHttp.getQueuedCalls()));
+
+        getLogger().info("[C] Client Profiles:");
+        for (HttpClientProfile profile : FusionHttp.getProfiles().values()) {
+            getLogger().info(String.format("  ├─ %-22s connect %dms, read %dms, write %dms, call %dms, http2 %s",
+                    profile.getName() + ":", profile.getConnectTimeoutMillis(), profile.getReadTimeoutMillis(),
+                    profile.getWriteTimeoutMillis(), profile.getCallTimeoutMillis(), profile.isHttp2()));
+        }
+
+        Map<String, HostMetrics> hosts = FusionHttp.getHostMetrics();
+        getLogger().info("[H] Hosts:");
+        if (hosts.isEmpty()) {
+            getLogger().info("  └─ No outbound calls yet");
+        }
+        for (HostMetrics metrics : hosts.values()) {
+            getLogger().info(String.format("  ├─ %s", metrics.getHost()));
+            getLogger().info(String.format("  │  ├─ Calls:              %d (%d failed, %d in flight)",
+                    metrics.getCalls(), metrics.getFailures(), metrics.getInFlight()));
+            getLogger().info(String.format("  │  ├─ Connections:        %d in use, %d opened, %d reused",
+                    metrics.getConnectionsInUse(), metrics.getConnectionsOpened(), metrics.getConnectionsReused()));
+            getLogger().info(String.format("  │  └─ Avg Call Time:      %sms",
+                    DECIMAL_FORMAT.format(metrics.getAverageCallMillis())));
+        }
+
+        getLogger().info(SEPARATOR);
+    }
+}
@@ -1,41 +1,39 @@
 package de.marcandreher.fusionkit.core.config;
 
-import java.io.File;
-import java.io.IOException;
-
 import org.slf4j.Logger;
 
-import com.moandjiezana.toml.Toml;
-import com.moandjiezana.toml.TomlWriter;
-
-import de.marcandreher.fusionkit.core.app.FileStructureManager;
-
 public class AppConfiguration {
 
-    private Object config;
-
-    public AppConfiguration(String file, Object config, Logger logger) {
-        FileStructureManager configDirectory = new FileStructureManager(FileStructureManager.DirectoryType.CONFIG);
-        configDirectory.persist();
-
-        File configFile = new File(configDirectory.getDirectory(), file);
-        if (!configFile.exists()) {
-            TomlWriter writer = new TomlWriter();
-            try {
-                writer.write(config, configFile);
-            } catch (IOException e) {
-                logger.error("Failed to write config file", e);
-            }
-        }
+    private final ConfigFile<?> file;
 
-        Toml toml = new Toml().read(configFile);
-        this.config = toml.to(config.getClass());
-        logger.info("Loaded configuration from /.config/{}", configFile.getName());
+    @SuppressWarnings("unchecked")
+    public <T> AppConfiguration(String file, T config, Logger logger) {
+        Class<T> type = (Class<T>) config.getClass();
+        this.file = ConfigService.file(file, type, () -> config);
+        logger.info("Loaded configuration from /.config/{}", file);
     }
 
+    /**
+     * Returns the current snapshot of the configuration. The snapshot is swapped when the file
+     * changes, so hold on to it only as long as the values must stay consistent.
+     */
     public <T> T getModel(Class<T> clazz) {
-        return clazz.cast(config);
+        return clazz.cast(file.get());
     }
 
+    /**
+     * Registers a listener that is called after the file was changed and reloaded.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> void onChange(Class<T> clazz, ConfigListener<T> listener) {
+        if (!clazz.isAssignableFrom(file.getType())) {
+            throw new IllegalArgumentException(file.getPath().getFileName() + " is loaded as " + file.getType().getName());
+        }
+        ((ConfigFile<T>) file).onChange(listener);
+    }
+
+    public ConfigFile<?> getFile() {
+        return file;
+    }
 
 }
@@ -0,0 +1,132 @@
+package de.marcandreher.fusionkit.core.config;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+
+import com.moandjiezana.toml.Toml;
+import com.moandjiezana.toml.TomlWriter;
+
+import de.marcandreher.fusionkit.core.FusionKit;
+
+/**
+ * A TOML file in {@code .config/} parsed into a snapshot of its model class.
+ *
+ * <p>Each reload parses into a new model instance and publishes it through a {@code volatile}
+ * field, so {@link #get()} is a plain read and callers always see one consistent version of the
+ * file. Snapshots are shared between threads and must not be modified.
+ *
+ * <p>Instances are obtained from {@link ConfigService#file(String, Class, Supplier)}.
+ */
+public final class ConfigFile<T> {
+    private static final Logger logger = FusionKit.getLogger(ConfigFile.class);
+
+    private final Path path;
+    private final Class<T> type;
+    private final Supplier<T> defaults;
+    private final List<ConfigListener<T>> listeners = new CopyOnWriteArrayList<>();
+
+    private volatile T snapshot;
+    // Raw text of the current snapshot, only touched while holding the monitor
+    private String source;
+
+    ConfigFile(Path path, Class<T> type, Supplier<T> defaults) {
+        this.path = path;
+        this.type = type;
+        this.defaults = defaults;
+    }
+
+    /**
+     * Returns the current snapshot.
+     */
+    public T get() {
+        return snapshot;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public Class<T> getType() {
+        return type;
+    }
+
+    /**
+     * Registers a listener for future changes of this file.
+     * @return This config file
+     */
+    public ConfigFile<T> onChange(ConfigListener<T> listener) {
+        listeners.add(listener);
+        return this;
+    }
+
+    public void removeListener(ConfigListener<T> listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Reads the file for the first time, writing the defaults if it does not exist yet.
+     */
+    synchronized void load() {
+        try {
+            if (!Files.exists(path)) {
+                Files.createDirectories(path.getParent());
+                T defaultConfig = defaults.get();
+                new TomlWriter().write(defaultConfig, path.toFile());
+                logger.debug("Created default config {}", path);
+            }
+            source = Files.readString(path, StandardCharsets.UTF_8);
+            T parsed = new Toml().read(source).to(type);
+            snapshot = parsed != null ? parsed : defaults.get();
+        } catch (Exception e) {
+            logger.error("Failed to load config {}, using defaults", path, e);
+            snapshot = defaults.get();
+        }
+    }
+
+    /**
+     * Re-reads the file and swaps the snapshot if its content changed. If the file cannot be
+     * parsed, the current snapshot stays active.
+     * @return Whether a new snapshot was published
+     */
+    public synchronized boolean reload() {
+        String text;
+        T parsed;
+        try {
+            text = Files.readString(path, StandardCharsets.UTF_8);
+            if (text.equals(source)) {
+                return false;
+            }
+            parsed = new Toml().read(text).to(type);
+        } catch (IOException e) {
+            logger.warn("Failed to read config {}, keeping the current values: {}", path, e.getMessage());
+            return false;
+        } catch (RuntimeException e) {
+            logger.warn("Invalid config {}, keeping the current values: {}", path, e.getMessage());
+            return false;
+        }
+        if (parsed == null) {
+            parsed = defaults.get();
+        }
+
+        T previous = snapshot;
+        source = text;
+        snapshot = parsed;
+        logger.info("Reloaded configuration from {}", path);
+
+        for (ConfigListener<T> listener : listeners) {
+            try {
+                listener.onChange(previous, parsed);
+            } catch (RuntimeException e) {
+                logger.error("Config listener for {} failed", path, e);
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,15 @@
+package de.marcandreher.fusionkit.core.config;
+
+/**
+ * Called on the config watcher thread after a changed config file was parsed successfully.
+ * @param <T> The config model
+ */
+@FunctionalInterface
+public interface ConfigListener<T> {
+
+    /**
+     * @param previous The snapshot that was active until now
+     * @param current The snapshot that replaced it
+     */
+    void onChange(T previous, T current);
+}
@@ -0,0 +1,157 @@
+package de.marcandreher.fusionkit.core.config;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+
+import de.marcandreher.fusionkit.core.FusionKit;
+import de.marcandreher.fusionkit.core.app.FileStructureManager.DirectoryType;
+
+/**
+ * Loads the TOML files in {@code .config/} and reloads them when they change.
+ *
+ * <p>All files share one daemon thread ({@code FK-Config-Watcher}) that watches the directories
+ * of the registered files. Editors tend to write a file in several steps, so events are collected
+ * until the directory has been quiet for {@value #SETTLE_MILLIS} ms before the files are re-read.
+ * <pre>
+ * ConfigFile&lt;MyConfig&gt; file = ConfigService.file("app.toml", MyConfig.class, MyConfig::new);
+ * file.onChange((old, current) -&gt; FusionKit.setLogLevel(current.getLogLevel()));
+ * </pre>
+ */
+public final class ConfigService {
+    private static final Logger logger = FusionKit.getLogger(ConfigService.class);
+
+    static final long SETTLE_MILLIS = 200;
+
+    private static final Path CONFIG_DIRECTORY = Path.of(DirectoryType.CONFIG.getDirectoryName());
+    private static final Map<Path, ConfigFile<?>> files = new ConcurrentHashMap<>();
+    private static final Map<WatchKey, Path> watchedDirectories = new ConcurrentHashMap<>();
+
+    private static WatchService watchService;
+    private static Thread watcher;
+
+    private ConfigService() { }
+
+    /**
+     * Returns the config file at the given path below {@code .config/}, loading it on first use.
+     * If the file does not exist it is created from {@code defaults}.
+     * @param fileName Path relative to {@code .config/}, e.g. {@code "auth/steam.toml"}
+     * @throws IllegalArgumentException If the file was already registered with another model class
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> ConfigFile<T> file(String fileName, Class<T> type, Supplier<T> defaults) {
+        Path path = CONFIG_DIRECTORY.resolve(fileName).toAbsolutePath().normalize();
+        ConfigFile<?> file = files.computeIfAbsent(path, p -> {
+            ConfigFile<T> created = new ConfigFile<>(p, type, defaults);
+            created.load();
+            watch(p.getParent());
+            return created;
+        });
+        if (file.getType() != type) {
+            throw new IllegalArgumentException(fileName + " is already loaded as " + file.getType().getName());
+        }
+        return (ConfigFile<T>) file;
+    }
+
+    /**
+     * Re-reads all loaded files, e.g. from a command after editing them on a file system
+     * that does not report changes.
+     */
+    public static void reloadAll() {
+        for (ConfigFile<?> file : files.values()) {
+            file.reload();
+        }
+    }
+
+    /**
+     * Stops watching for changes. Loaded snapshots stay available.
+     */
+    public static synchronized void shutdown() {
+        if (watchService == null) {
+            return;
+        }
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            logger.debug("Failed to close config watch service: {}", e.getMessage());
+        }
+        watcher.interrupt();
+        watchService = null;
+        watcher = null;
+        watchedDirectories.clear();
+    }
+
+    private static synchronized void watch(Path directory) {
+        if (watchedDirectories.containsValue(directory)) {
+            return;
+        }
+        try {
+            if (watchService == null) {
+                watchService = FileSystems.getDefault().newWatchService();
+                WatchService service = watchService;
+                watcher = Thread.ofPlatform().daemon().name("FK-Config-Watcher").start(() -> run(service));
+            }
+            WatchKey key = directory.register(watchService, ENTRY_CREATE, ENTRY_MODIFY);
+            watchedDirectories.put(key, directory);
+            logger.debug("Watching {} for config changes", directory);
+        } catch (IOException e) {
+            logger.warn("Cannot watch {} for config changes, changes need a restart: {}", directory, e.getMessage());
+        }
+    }
+
+    private static void run(WatchService service) {
+        try {
+            while (true) {
+                Set<Path> changed = new LinkedHashSet<>();
+                WatchKey key = service.take();
+                while (key != null) {
+                    collect(key, changed);
+                    key = service.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS);
+                }
+                for (Path path : changed) {
+                    ConfigFile<?> file = files.get(path);
+                    if (file != null) {
+                        file.reload();
+                    }
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            logger.debug("Config watcher stopped");
+        }
+    }
+
+    private static void collect(WatchKey key, Set<Path> changed) {
+        Path directory = watchedDirectories.get(key);
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (directory == null) {
+                continue;
+            }
+            if (event.kind() == OVERFLOW) {
+                for (Path path : files.keySet()) {
+                    if (path.getParent().equals(directory)) {
+                        changed.add(path);
+                    }
+                }
+            } else if (event.context() instanceof Path name) {
+                changed.add(directory.resolve(name));
+            }
+        }
+        key.reset();
+    }
+}
@@ -1,8 +1,9 @@
 package de.marcandreher.fusionkit.core.config;
 
-import java.io.File;
+import java.util.concurrent.ThreadLocalRandom;
 
 import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariConfigMXBean;
 
 import lombok.Data;
 
@@ -31,21 +32,37 @@ public class DatabaseConfiguration {
     private boolean allowPoolSuspension = false;
     private boolean autoCommit = true;
 
+    // Database.inTransaction retries deadlocks and lock wait timeouts with a jittered backoff
+    private int transactionMaxAttempts = 5;
+    private long transactionRetryDelay = 20; // doubled per attempt
+    private long transactionMaxRetryDelay = 1000;
+
+    /**
+     * Returns the live {@code .config/database.toml}, created with the defaults if missing.
+     */
+    public static ConfigFile<DatabaseConfiguration> file() {
+        return ConfigService.file("database.toml", DatabaseConfiguration.class, DatabaseConfiguration::new);
+    }
+
+    /**
+     * Returns the current snapshot of {@code .config/database.toml}.
+     */
     public static DatabaseConfiguration load() {
-        File configFile = new File(".config/database.toml");
-        if (configFile.exists()) {
-            DatabaseConfiguration loadedConfig = new com.moandjiezana.toml.Toml().read(configFile)
-                    .to(DatabaseConfiguration.class);
-            return loadedConfig;
-        }else {
-            DatabaseConfiguration defaultConfig = new DatabaseConfiguration();
-            try {
-                new com.moandjiezana.toml.TomlWriter().write(defaultConfig, configFile);
-            } catch (Exception e) {
-                e.printStackTrace();
-            }
-            return defaultConfig;
-        }
+        return file().get();
+    }
+
+    /**
+     * Returns how long to wait before retrying a transaction, a random delay up to
+     * {@code transactionRetryDelay} doubled per attempt and capped at {@code transactionMaxRetryDelay}.
+     * @param attempt The attempt that failed, starting at 1
+     */
+    public long retryDelay(int attempt) {
+        int shift = Math.min(Math.max(attempt - 1, 0), 20);
+        long max = transactionRetryDelay <= transactionMaxRetryDelay >> shift
+                ? transactionRetryDelay << shift
+                : transactionMaxRetryDelay;
+        // Full jitter, so transactions that deadlocked on each other do not collide again
+        return ThreadLocalRandom.current().nextLong(Math.max(1, max) + 1);
     }
 
     public void apply(HikariConfig config) {
@@ -72,4 +89,19 @@ public class DatabaseConfiguration {
         config.addDataSourceProperty("requireSSL", requireSSL);
         config.addDataSourceProperty("characterEncoding", characterEncoding);
     }
+
+    /**
+     * Applies the settings a running pool can pick up. Data source properties only affect
+     * new pools.
+     */
+    public void apply(HikariConfigMXBean pool) {
+        // No minimum idle is configured, so Hikari keeps the pool at its maximum size
+        pool.setMinimumIdle(maximumPoolSize);
+        pool.setMaximumPoolSize(maximumPoolSize);
+        pool.setConnectionTimeout(connectionTimeout);
+        pool.setIdleTimeout(idleTimeout);
+        pool.setMaxLifetime(maxLifetime);
+        pool.setValidationTimeout(validationTimeout);
+        pool.setLeakDetectionThreshold(leakDetectionThreshold);
+    }
 }
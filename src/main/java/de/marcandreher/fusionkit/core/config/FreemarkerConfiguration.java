@@ -2,43 +2,52 @@ package de.marcandreher.fusionkit.core.config;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.concurrent.atomic.AtomicReference;
 
-import com.moandjiezana.toml.Toml;
-import com.moandjiezana.toml.TomlWriter;
+import org.slf4j.Logger;
 
+import de.marcandreher.fusionkit.core.FusionKit;
 import de.marcandreher.fusionkit.core.WebAppConfig;
 import de.marcandreher.fusionkit.core.error.FreemarkerExceptionHandler;
 import de.marcandreher.fusionkit.core.javalin.ProductionLevel;
 import freemarker.cache.FileTemplateLoader;
 import freemarker.template.Configuration;
 import freemarker.template.Version;
+import io.javalin.rendering.FileRenderer;
+import io.javalin.rendering.template.JavalinFreemarker;
 import lombok.Data;
 
 public class FreemarkerConfiguration {
 
+    private static final Logger logger = FusionKit.getLogger(FreemarkerConfiguration.class);
     private static final String FREEMARKER_VERSION = "2.3.34";
 
-    private FreemarkerConfigModel model;
+    private final ConfigFile<FreemarkerConfigModel> file;
 
     public FreemarkerConfiguration() {
-        File configFile = new File(".config/freemarker.toml");
-        if (!configFile.exists()) {
-            FreemarkerConfigModel defaultConfig = new FreemarkerConfigModel();
-            TomlWriter writer = new TomlWriter();
+        this.file = ConfigService.file("freemarker.toml", FreemarkerConfigModel.class, FreemarkerConfigModel::new);
+    }
+
+    /**
+     * Creates a renderer that rebuilds its FreeMarker configuration when
+     * {@code .config/freemarker.toml} changes. Requests that are rendering keep the previous one.
+     */
+    public FileRenderer createRenderer(WebAppConfig webAppConfig, File templateDir) throws IOException {
+        AtomicReference<JavalinFreemarker> renderer = new AtomicReference<>(
+                new JavalinFreemarker(applyConfig(webAppConfig, templateDir)));
+        file.onChange((previous, current) -> {
             try {
-                configFile.createNewFile();
-                writer.write(defaultConfig, configFile);
-            } catch (Exception e) {
-                e.printStackTrace();
+                renderer.set(new JavalinFreemarker(applyConfig(webAppConfig, templateDir)));
+            } catch (IOException e) {
+                logger.error("Failed to apply changed Freemarker configuration: {}", e.getMessage());
             }
-            this.model = defaultConfig;
-        } else {
-            this.model = new Toml().read(configFile).to(FreemarkerConfigModel.class);
-        }
+        });
+        return (filePath, model, ctx) -> renderer.get().render(filePath, model, ctx);
     }
 
     public Configuration applyConfig(WebAppConfig webAppConfig, File templateDir) throws IOException {
         FileTemplateLoader templateLoader = new FileTemplateLoader(templateDir);
+        FreemarkerConfigModel model = file.get();
         Configuration fmConfig = new Configuration(new Version(FREEMARKER_VERSION));
         fmConfig.setTemplateLoader(templateLoader);
         fmConfig.setDirectoryForTemplateLoading(templateDir);
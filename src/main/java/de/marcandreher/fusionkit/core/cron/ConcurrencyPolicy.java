@@ -0,0 +1,13 @@
+package de.marcandreher.fusionkit.core.cron;
+
+/**
+ * What {@link FusionCron} does when a task is due while its previous run is still going.
+ */
+public enum ConcurrencyPolicy {
+    /** Drop the new fire, the running one carries on. */
+    SKIP_IF_RUNNING,
+    /** Remember at most one fire and run it as soon as the current run finished. */
+    QUEUE_ONE,
+    /** Start the new run right away, next to the running one. */
+    ALLOW_PARALLEL
+}
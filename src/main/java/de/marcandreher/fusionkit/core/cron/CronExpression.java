@@ -0,0 +1,231 @@
+package de.marcandreher.fusionkit.core.cron;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.BitSet;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * A parsed cron expression with seconds granularity.
+ *
+ * <p>Accepts six fields ({@code second minute hour day-of-month month day-of-week}) or the
+ * classic five without seconds, which then fire at second 0. Every field supports
+ * {@code *}, {@code ?}, lists ({@code 1,15}), ranges ({@code 9-17}), steps ({@code *}{@code /5},
+ * {@code 10-40/10}) and, for months and weekdays, three-letter names. The macros
+ * {@code @yearly}, {@code @monthly}, {@code @weekly}, {@code @daily}, {@code @midnight}
+ * and {@code @hourly} are supported as well.
+ *
+ * <p>As in Vixie cron, if both day-of-month and day-of-week are restricted, a day matches
+ * when either of them does.
+ *
+ * <p>Fire times are computed on the wall clock of the given zone. A time that falls into a
+ * daylight saving gap is shifted forward by the length of the gap (02:30 fires at 03:30 when
+ * the clocks skip from 02:00 to 03:00); a time that occurs twice
+ * when the clocks go back fires only once, at the earlier offset.
+ */
+public final class CronExpression {
+
+    private static final Map<String, String> MACROS = Map.of(
+            "@yearly", "0 0 0 1 1 *",
+            "@annually", "0 0 0 1 1 *",
+            "@monthly", "0 0 0 1 * *",
+            "@weekly", "0 0 0 * * 0",
+            "@daily", "0 0 0 * * *",
+            "@midnight", "0 0 0 * * *",
+            "@hourly", "0 0 * * * *");
+    private static final String[] MONTH_NAMES = { "JAN", "FEB", "MAR", "APR", "MAY", "JUN", "JUL", "AUG", "SEP", "OCT", "NOV", "DEC" };
+    private static final String[] DAY_NAMES = { "SUN", "MON", "TUE", "WED", "THU", "FRI", "SAT" };
+    private static final int MAX_YEARS_AHEAD = 5;
+
+    private final String expression;
+    private final BitSet seconds;
+    private final BitSet minutes;
+    private final BitSet hours;
+    private final BitSet daysOfMonth;
+    private final BitSet months;
+    private final BitSet daysOfWeek;
+    private final boolean daysOfMonthRestricted;
+    private final boolean daysOfWeekRestricted;
+
+    private CronExpression(String expression, String[] fields) {
+        this.expression = expression;
+        this.seconds = parseField(fields[0], 0, 59, null, "second");
+        this.minutes = parseField(fields[1], 0, 59, null, "minute");
+        this.hours = parseField(fields[2], 0, 23, null, "hour");
+        this.daysOfMonth = parseField(fields[3], 1, 31, null, "day of month");
+        this.months = parseField(fields[4], 1, 12, MONTH_NAMES, "month");
+        this.daysOfWeek = parseField(fields[5], 0, 7, DAY_NAMES, "day of week");
+        if (daysOfWeek.get(7)) {
+            daysOfWeek.set(0);
+            daysOfWeek.clear(7);
+        }
+        this.daysOfMonthRestricted = !isWildcard(fields[3]);
+        this.daysOfWeekRestricted = !isWildcard(fields[5]);
+    }
+
+    /**
+     * Parses a cron expression.
+     * @param expression Five or six space-separated fields, or a macro such as {@code @daily}
+     * @return The parsed expression
+     * @throws IllegalArgumentException if the expression is malformed
+     */
+    public static CronExpression parse(String expression) {
+        if (expression == null || expression.isBlank()) {
+            throw new IllegalArgumentException("Cron expression cannot be null or empty");
+        }
+
+        String normalized = expression.trim();
+        String macro = MACROS.get(normalized.toLowerCase(Locale.ROOT));
+        if (macro != null) {
+            normalized = macro;
+        }
+
+        String[] fields = normalized.split("\\s+");
+        if (fields.length == 5) {
+            String[] withSeconds = new String[6];
+            withSeconds[0] = "0";
+            System.arraycopy(fields, 0, withSeconds, 1, 5);
+            fields = withSeconds;
+        } else if (fields.length != 6) {
+            throw new IllegalArgumentException("Cron expression must have 5 or 6 fields: " + expression);
+        }
+        return new CronExpression(expression.trim(), fields);
+    }
+
+    /**
+     * Returns the first fire time strictly after the given time, in the zone of {@code after}.
+     * @return The next fire time, or null if the expression never matches within five years
+     */
+    public ZonedDateTime next(ZonedDateTime after) {
+        ZoneId zone = after.getZone();
+        LocalDateTime start = after.toLocalDateTime().truncatedTo(ChronoUnit.SECONDS).plusSeconds(1);
+        LocalDateTime limit = start.plusYears(MAX_YEARS_AHEAD);
+
+        LocalDateTime time = start;
+        while (time.isBefore(limit)) {
+            if (!months.get(time.getMonthValue())) {
+                time = time.withDayOfMonth(1).truncatedTo(ChronoUnit.DAYS).plusMonths(1);
+                continue;
+            }
+            if (!matchesDay(time)) {
+                time = time.truncatedTo(ChronoUnit.DAYS).plusDays(1);
+                continue;
+            }
+            if (!hours.get(time.getHour())) {
+                time = time.truncatedTo(ChronoUnit.HOURS).plusHours(1);
+                continue;
+            }
+            if (!minutes.get(time.getMinute())) {
+                time = time.truncatedTo(ChronoUnit.MINUTES).plusMinutes(1);
+                continue;
+            }
+            int second = seconds.nextSetBit(time.getSecond());
+            if (second < 0) {
+                time = time.truncatedTo(ChronoUnit.MINUTES).plusMinutes(1);
+                continue;
+            }
+
+            LocalDateTime local = time.withSecond(second);
+            ZonedDateTime candidate = ZonedDateTime.ofLocal(local, zone, after.getOffset());
+            if (!candidate.isAfter(after)) {
+                // Second pass over a repeated hour when the clocks went back, skip it
+                time = local.plusSeconds(1);
+                continue;
+            }
+            return candidate;
+        }
+        return null;
+    }
+
+    /**
+     * Returns the expression as it was given to {@link #parse(String)}.
+     */
+    public String getExpression() {
+        return expression;
+    }
+
+    @Override
+    public String toString() {
+        return expression;
+    }
+
+    private boolean matchesDay(LocalDateTime time) {
+        boolean dayOfMonth = daysOfMonth.get(time.getDayOfMonth());
+        boolean dayOfWeek = daysOfWeek.get(time.getDayOfWeek() == DayOfWeek.SUNDAY ? 0 : time.getDayOfWeek().getValue());
+        if (daysOfMonthRestricted && daysOfWeekRestricted) {
+            return dayOfMonth || dayOfWeek;
+        }
+        return dayOfMonth && dayOfWeek;
+    }
+
+    private static boolean isWildcard(String field) {
+        return field.equals("*") || field.equals("?");
+    }
+
+    private static BitSet parseField(String field, int min, int max, String[] names, String fieldName) {
+        BitSet bits = new BitSet(max + 1);
+        for (String part : field.split(",")) {
+            if (part.isEmpty()) {
+                throw new IllegalArgumentException("Empty list element in " + fieldName + " field: " + field);
+            }
+
+            int step = 1;
+            String range = part;
+            int slash = part.indexOf('/');
+            if (slash >= 0) {
+                range = part.substring(0, slash);
+                step = parseNumber(part.substring(slash + 1), fieldName);
+                if (step <= 0) {
+                    throw new IllegalArgumentException("Step must be positive in " + fieldName + " field: " + part);
+                }
+            }
+
+            int from;
+            int to;
+            if (range.equals("*") || range.equals("?")) {
+                from = min;
+                to = max;
+            } else {
+                int dash = range.indexOf('-');
+                if (dash >= 0) {
+                    from = parseValue(range.substring(0, dash), names, min, fieldName);
+                    to = parseValue(range.substring(dash + 1), names, min, fieldName);
+                } else {
+                    from = parseValue(range, names, min, fieldName);
+                    to = slash >= 0 ? max : from;
+                }
+            }
+
+            if (from < min || to > max || from > to) {
+                throw new IllegalArgumentException("Value out of range " + min + "-" + max + " in " + fieldName + " field: " + part);
+            }
+            for (int value = from; value <= to; value += step) {
+                bits.set(value);
+            }
+        }
+        return bits;
+    }
+
+    private static int parseValue(String value, String[] names, int min, String fieldName) {
+        if (names != null) {
+            for (int i = 0; i < names.length; i++) {
+                if (names[i].equalsIgnoreCase(value)) {
+                    return i + min;
+                }
+            }
+        }
+        return parseNumber(value, fieldName);
+    }
+
+    private static int parseNumber(String value, String fieldName) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid value '" + value + "' in " + fieldName + " field");
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package de.marcandreher.fusionkit.core.cron;
+
+import java.net.InetAddress;
+import java.util.UUID;
+
+import org.slf4j.Logger;
+
+import de.marcandreher.fusionkit.core.FusionKit;
+import de.marcandreher.fusionkit.core.database.Database;
+import de.marcandreher.fusionkit.core.database.MySQL;
+
+/**
+ * Makes sure every fire of a cron task runs on exactly one node of a cluster.
+ *
+ * <p>Leases live in the {@code fusion_cron_leases} table, one row per task. A node may take
+ * the lease for fire time {@code F} only if the row is expired and was last taken for an
+ * earlier fire, which is checked and set in a single {@code UPDATE} (compare-and-set). All
+ * expiry checks use the database clock, so clock skew between nodes does not matter.
+ *
+ * <p>While a run is going its node renews the lease every third of {@code leaseMillis}.
+ * If the node dies the lease runs out and the next fire is picked up by another node.
+ */
+public class CronLeaseManager {
+    private static final Logger logger = FusionKit.getLogger(CronLeaseManager.class);
+
+    public static final String TABLE = "fusion_cron_leases";
+    private static final long DEFAULT_LEASE_MILLIS = 60_000;
+
+    private final Database database;
+    private final long leaseMillis;
+    private final String nodeId;
+    private volatile boolean tableReady = false;
+
+    public CronLeaseManager(Database database) {
+        this(database, DEFAULT_LEASE_MILLIS);
+    }
+
+    /**
+     * @param database Database shared by all nodes
+     * @param leaseMillis How long a lease survives without a heartbeat
+     */
+    public CronLeaseManager(Database database, long leaseMillis) {
+        this.database = database;
+        this.leaseMillis = leaseMillis;
+        this.nodeId = createNodeId();
+    }
+
+    /**
+     * Tries to take the lease of a task for one fire.
+     * @param taskName Name of the task
+     * @param fireMillis The scheduled fire time, identical on every node for cron expressions
+     * @param minGapMillis How far apart two fires must be to count as different fires
+     * @return The lease, or null if another node owns this fire or the database is unreachable
+     */
+    public Lease tryAcquire(String taskName, long fireMillis, long minGapMillis) {
+        try (MySQL mysql = database.getConnection()) {
+            ensureTable(mysql);
+
+            int inserted = mysql.execUpdate("INSERT IGNORE INTO " + TABLE
+                    + " (task_name, owner, fire_time, expires_at, heartbeat_at)"
+                    + " VALUES (?, ?, ?, NOW(3) + INTERVAL ? MICROSECOND, NOW(3))",
+                    taskName, nodeId, fireMillis, leaseMillis * 1000);
+            if (inserted == 1) {
+                return new Lease(taskName, fireMillis);
+            }
+
+            int updated = mysql.execUpdate("UPDATE " + TABLE
+                    + " SET owner = ?, fire_time = ?, expires_at = NOW(3) + INTERVAL ? MICROSECOND, heartbeat_at = NOW(3)"
+                    + " WHERE task_name = ? AND fire_time <= ? AND expires_at < NOW(3)",
+                    nodeId, fireMillis, leaseMillis * 1000, taskName, fireMillis - minGapMillis);
+            return updated == 1 ? new Lease(taskName, fireMillis) : null;
+        } catch (Exception e) {
+            // Not running is the safe choice when we can't tell whether another node does
+            logger.error("Failed to acquire cron lease for " + taskName + ", skipping this fire: " + e.getMessage());
+            return null;
+        }
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    long getHeartbeatIntervalMillis() {
+        return Math.max(1000, leaseMillis / 3);
+    }
+
+    private void ensureTable(MySQL mysql) {
+        if (tableReady) {
+            return;
+        }
+        mysql.exec("CREATE TABLE IF NOT EXISTS " + TABLE + " ("
+                + "task_name VARCHAR(191) NOT NULL PRIMARY KEY, "
+                + "owner VARCHAR(128) NOT NULL, "
+                + "fire_time BIGINT NOT NULL, "
+                + "expires_at TIMESTAMP(3) NOT NULL, "
+                + "heartbeat_at TIMESTAMP(3) NOT NULL)");
+        // exec only logs errors, so check the table actually exists before relying on it
+        if (!mysql.tableExists(TABLE)) {
+            throw new IllegalStateException("Failed to create " + TABLE);
+        }
+        tableReady = true;
+    }
+
+    private static String createNodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "unknown";
+        }
+        return host + ":" + ProcessHandle.current().pid() + ":" + UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    /**
+     * A lease held by this node for a single fire of a task.
+     */
+    public class Lease {
+        private final String taskName;
+        private final long fireMillis;
+
+        private Lease(String taskName, long fireMillis) {
+            this.taskName = taskName;
+            this.fireMillis = fireMillis;
+        }
+
+        /**
+         * Extends the lease.
+         * @return false if the lease was lost, e.g. after a long pause let it expire
+         */
+        public boolean renew() {
+            try (MySQL mysql = database.getConnection()) {
+                return mysql.execUpdate("UPDATE " + TABLE
+                        + " SET expires_at = NOW(3) + INTERVAL ? MICROSECOND, heartbeat_at = NOW(3)"
+                        + " WHERE task_name = ? AND owner = ? AND fire_time = ?",
+                        leaseMillis * 1000, taskName, nodeId, fireMillis) == 1;
+            } catch (Exception e) {
+                logger.warn("Failed to renew cron lease for " + taskName + ": " + e.getMessage());
+                return false;
+            }
+        }
+
+        /**
+         * Ends the lease so the next fire can be taken by any node right away.
+         * The fire time stays recorded, so slower nodes won't run the same fire again.
+         */
+        public void release() {
+            try (MySQL mysql = database.getConnection()) {
+                mysql.execUpdate("UPDATE " + TABLE + " SET expires_at = NOW(3)"
+                        + " WHERE task_name = ? AND owner = ? AND fire_time = ?",
+                        taskName, nodeId, fireMillis);
+            } catch (Exception e) {
+                logger.warn("Failed to release cron lease for " + taskName + ", it expires on its own: " + e.getMessage());
+            }
+        }
+
+        public String getTaskName() {
+            return taskName;
+        }
+
+        public long getFireMillis() {
+            return fireMillis;
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package de.marcandreher.fusionkit.core.cron;
 
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
 
 @Data
 public class CronTaskMeta {
@@ -9,10 +11,33 @@ public class CronTaskMeta {
     private Long intervalMinutes =null; // For TIMED tasks
     private Integer targetHour = null; // For FIXED_TIMED tasks
     private Integer targetMinute = null; // For FIXED_TIMED tasks
+    private String cronExpression = null; // For every type except TIMED
+    private String zone = null;
+    private MisfirePolicy misfirePolicy = MisfirePolicy.FIRE_ONCE_NOW;
+    private ConcurrencyPolicy concurrencyPolicy = ConcurrencyPolicy.SKIP_IF_RUNNING;
+    private long timeoutMillis = 0;
+    private boolean clusterExclusive = true;
+
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private final CronTaskStats stats = new CronTaskStats();
+
+    /**
+     * Returns a human readable description of the schedule.
+     */
+    public String getScheduleDescription() {
+        return switch (type) {
+            case TIMED -> "every " + intervalMinutes + " min";
+            case FIXED_TIMED -> String.format("daily at %02d:%02d (%s)", targetHour, targetMinute, zone);
+            case FULL_HOUR -> "every full hour (" + zone + ")";
+            case CRON -> cronExpression + " (" + zone + ")";
+        };
+    }
 
     public static enum CronEngineTaskType {
         FIXED_TIMED,
         TIMED,
         FULL_HOUR,
+        CRON,
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,17 @@
+package de.marcandreher.fusionkit.core.cron;
+
+import java.time.ZoneId;
+
+import lombok.Data;
+
+/**
+ * Per-task scheduling options, passed to the {@code register...} methods of {@link FusionCron}.
+ */
+@Data
+public class CronTaskOptions {
+    private ZoneId zone = ZoneId.systemDefault(); // Only used by cron expressions
+    private MisfirePolicy misfirePolicy = MisfirePolicy.FIRE_ONCE_NOW;
+    private ConcurrencyPolicy concurrencyPolicy = ConcurrencyPolicy.SKIP_IF_RUNNING;
+    private long timeoutMillis = 0; // 0 = no timeout, otherwise the run is interrupted
+    private boolean clusterExclusive = true; // Only applies once FusionCron has a CronLeaseManager
+}
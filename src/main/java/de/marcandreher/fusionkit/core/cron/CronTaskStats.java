@@ -0,0 +1,109 @@
+package de.marcandreher.fusionkit.core.cron;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runtime statistics of a single cron task.
+ *
+ * <p>Run durations are kept in a {@link DurationHistogram}, so percentiles are accurate to
+ * about 12% at constant memory.
+ */
+public class CronTaskStats {
+    private final LongAdder runs = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final AtomicInteger running = new AtomicInteger();
+    private final DurationHistogram durations = new DurationHistogram();
+    private volatile long lastStartMillis = -1;
+    private volatile long lastDurationMillis = -1;
+    private volatile long nextFireMillis = -1;
+
+    void recordStart(long startMillis) {
+        running.incrementAndGet();
+        lastStartMillis = startMillis;
+    }
+
+    void recordFinish(long durationMillis, boolean failed) {
+        running.decrementAndGet();
+        runs.increment();
+        if (failed) {
+            failures.increment();
+        }
+        lastDurationMillis = durationMillis;
+        durations.record(durationMillis);
+    }
+
+    void recordSkip() {
+        skipped.increment();
+    }
+
+    void recordTimeout() {
+        timeouts.increment();
+    }
+
+    void setNextFireMillis(long nextFireMillis) {
+        this.nextFireMillis = nextFireMillis;
+    }
+
+    public long getRuns() {
+        return runs.sum();
+    }
+
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    /**
+     * Returns how many fires were dropped because of the task's {@link ConcurrencyPolicy}.
+     */
+    public long getSkipped() {
+        return skipped.sum();
+    }
+
+    public long getTimeouts() {
+        return timeouts.sum();
+    }
+
+    public int getRunning() {
+        return running.get();
+    }
+
+    /**
+     * Returns the start of the last run in epoch milliseconds, or -1 if the task never ran.
+     */
+    public long getLastStartMillis() {
+        return lastStartMillis;
+    }
+
+    /**
+     * Returns the duration of the last finished run, or -1 if no run finished yet.
+     */
+    public long getLastDurationMillis() {
+        return lastDurationMillis;
+    }
+
+    /**
+     * Returns the next fire time in epoch milliseconds, or -1 if the task is not scheduled.
+     */
+    public long getNextFireMillis() {
+        return nextFireMillis;
+    }
+
+    public long getP50Millis() {
+        return getPercentileMillis(50);
+    }
+
+    public long getP99Millis() {
+        return getPercentileMillis(99);
+    }
+
+    /**
+     * Returns the estimated run duration at the given percentile, or -1 if no run finished yet.
+     * @param percentile A value between 0 and 100
+     */
+    public long getPercentileMillis(double percentile) {
+        return durations.getPercentileMillis(percentile);
+    }
+}
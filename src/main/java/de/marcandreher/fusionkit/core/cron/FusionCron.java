@@ -1,28 +1,49 @@
 package de.marcandreher.fusionkit.core.cron;
 
-import java.time.Duration;
-import java.time.LocalDateTime;
-import java.time.temporal.ChronoUnit;
+import java.time.ZoneId;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 import org.slf4j.Logger;
 
 import de.marcandreher.fusionkit.core.FusionKit;
 
+/**
+ * Scheduler for {@link CronTask}s.
+ *
+ * <p>All schedules share one {@link TimingWheel} thread that only decides what is due and
+ * hands the actual runs to a worker executor: virtual threads by default, or a bounded pool
+ * when constructed with a thread pool size. Registering hundreds of tasks therefore costs
+ * no additional threads.
+ *
+ * <p>Each task has a {@link ConcurrencyPolicy} for fires that arrive while it is still
+ * running, an optional timeout after which the run is interrupted, and {@link CronTaskStats}
+ * that are shown by the {@code cron} console command and on the {@code /fusion} page.
+ */
 public class FusionCron {
-    private final static int DEFAULT_THREAD_POOL_SIZE = 5;
+    private static final long TICK_MILLIS = 100;
+    private static final int WHEEL_SIZE = 512;
+    private static final long DEFAULT_MISFIRE_THRESHOLD_MILLIS = 5000;
+
     private final Logger logger = FusionKit.getLogger(FusionCron.class);
-    private ScheduledExecutorService scheduler;
+    private final int threadPoolSize;
+    private TimingWheel wheel;
+    private ExecutorService workers;
     private final List<CronTask> tasks = new ArrayList<>();
+    private final List<ScheduledTask> scheduledTasks = new CopyOnWriteArrayList<>();
+    private long misfireThresholdMillis = DEFAULT_MISFIRE_THRESHOLD_MILLIS;
+    private volatile CronLeaseManager leaseManager;
 
     public static final List<CronTaskMeta> taskMetas = new ArrayList<>();
-    
+
     private static class FusionKitThreadFactory implements ThreadFactory {
         private final AtomicInteger poolNumber = new AtomicInteger(1);
         private final ThreadGroup group;
@@ -43,124 +64,384 @@ public class FusionCron {
             return t;
         }
     }
-    
+
+    /**
+     * Creates a scheduler that runs every task on its own virtual thread.
+     */
     public FusionCron() {
-        this.scheduler = Executors.newScheduledThreadPool(DEFAULT_THREAD_POOL_SIZE, new FusionKitThreadFactory());
+        this(0);
     }
 
+    /**
+     * Creates a scheduler that runs tasks on a bounded pool of platform threads.
+     * @param threadPoolSize Maximum number of tasks running at the same time, 0 for virtual threads
+     */
     public FusionCron(int threadPoolSize) {
-        this.scheduler = Executors.newScheduledThreadPool(threadPoolSize, new FusionKitThreadFactory());
+        this.threadPoolSize = threadPoolSize;
     }
-    
+
     /**
      * Runs task every X minutes.
      */
     public void registerTimedTask(long intervalMinutes, CronTask task) {
-        ensureSchedulerAvailable();
-        tasks.add(task);
-        logger.debug("Registering timed task: " + task.getName() + " to run every " + intervalMinutes + " minutes");
+        registerTimedTask(intervalMinutes, task, options -> {
+        });
+    }
 
-        scheduler.scheduleAtFixedRate(() -> {
-            try {
-                logger.debug("Running task: " + task.getName());
-                task.run();
-            } catch (Exception e) {
-                logger.error("Error running task: " + task.getName(), e);
-            }
-        }, 0, intervalMinutes, TimeUnit.MINUTES);
+    /**
+     * Runs task every X minutes with custom concurrency, misfire and timeout options.
+     */
+    public void registerTimedTask(long intervalMinutes, CronTask task, Consumer<CronTaskOptions> configurer) {
+        CronTaskOptions options = new CronTaskOptions();
+        configurer.accept(options);
+        logger.debug("Registering timed task: " + task.getName() + " to run every " + intervalMinutes + " minutes");
 
         CronTaskMeta meta = new CronTaskMeta();
         meta.setName(task.getName());
         meta.setType(CronTaskMeta.CronEngineTaskType.TIMED);
         meta.setIntervalMinutes(intervalMinutes);
-        taskMetas.add(meta);
+        applyOptions(meta, options);
+
+        ScheduledTask scheduled = new ScheduledTask(task, meta, TimeUnit.MINUTES.toMillis(intervalMinutes),
+                options.getMisfirePolicy());
+        register(scheduled, System.currentTimeMillis());
     }
 
     /**
-     * Runs task every day at specified hour:minute.
+     * Runs task every day at specified hour:minute in the system time zone.
      */
     public void registerFixedRateTask(int targetHour, int targetMinute, CronTask task) {
-        ensureSchedulerAvailable();
-        tasks.add(task);
         logger.debug("Registering fixed rate task: " + task.getName() + " to run every day at " + targetHour + ":"
                 + targetMinute);
 
-        long initialDelay = computeInitialDelay(targetHour, targetMinute);
-        long oneDay = TimeUnit.DAYS.toSeconds(1);
-
-        scheduler.scheduleAtFixedRate(() -> {
-            try {
-                logger.debug("Running task: " + task.getName());
-                task.run();
-            } catch (Exception e) {
-                logger.error("Error running task: " + task.getName(), e);
-            }
-        }, initialDelay, oneDay, TimeUnit.SECONDS);
-
         CronTaskMeta meta = new CronTaskMeta();
-        meta.setName(task.getName());
         meta.setType(CronTaskMeta.CronEngineTaskType.FIXED_TIMED);
         meta.setTargetHour(targetHour);
         meta.setTargetMinute(targetMinute);
-        taskMetas.add(meta);
+        registerExpression("0 " + targetMinute + " " + targetHour + " * * *", new CronTaskOptions(), task, meta);
     }
 
     public void registerTaskEachFullHour(CronTask task) {
-        ensureSchedulerAvailable();
         logger.debug("Registering task: " + task.getName() + " to run every full hour");
 
-        long initialDelay = fullHourDelay();
-        long oneHour = TimeUnit.HOURS.toSeconds(1);
-        
-        scheduler.scheduleAtFixedRate(() -> {
-            try {
-                logger.debug("Running task: " + task.getName());
-                task.run();
-            }
-            catch (Exception e) {
-                logger.error("Error running task: " + task.getName(), e);
-            }
-        }, initialDelay, oneHour, TimeUnit.SECONDS);
-
         CronTaskMeta meta = new CronTaskMeta();
-        meta.setName(task.getName());
         meta.setType(CronTaskMeta.CronEngineTaskType.FULL_HOUR);
-        taskMetas.add(meta);
+        registerExpression("0 0 * * * *", new CronTaskOptions(), task, meta);
+    }
+
+    /**
+     * Runs task whenever the cron expression matches in the system time zone.
+     * @see CronExpression
+     */
+    public void registerCronTask(String cronExpression, CronTask task) {
+        registerCronTask(cronExpression, task, options -> {
+        });
+    }
+
+    /**
+     * Runs task whenever the cron expression matches in the given time zone.
+     * @param cronExpression Five or six field cron expression, see {@link CronExpression}
+     * @param zone Time zone the expression is evaluated in
+     * @param misfirePolicy What to do when a fire was missed by more than the misfire threshold
+     * @throws IllegalArgumentException if the expression is malformed
+     */
+    public void registerCronTask(String cronExpression, ZoneId zone, MisfirePolicy misfirePolicy, CronTask task) {
+        registerCronTask(cronExpression, task, options -> {
+            options.setZone(zone);
+            options.setMisfirePolicy(misfirePolicy);
+        });
+    }
+
+    /**
+     * Runs task whenever the cron expression matches, with custom zone, concurrency, misfire
+     * and timeout options.
+     * @throws IllegalArgumentException if the expression is malformed
+     */
+    public void registerCronTask(String cronExpression, CronTask task, Consumer<CronTaskOptions> configurer) {
+        CronTaskOptions options = new CronTaskOptions();
+        configurer.accept(options);
+        logger.debug("Registering cron task: " + task.getName() + " with schedule '" + cronExpression + "' in "
+                + options.getZone());
+
+        CronTaskMeta meta = new CronTaskMeta();
+        meta.setType(CronTaskMeta.CronEngineTaskType.CRON);
+        registerExpression(cronExpression, options, task, meta);
+    }
+
+    /**
+     * Enables cluster-wide leases: every fire of a task that is
+     * {@link CronTaskOptions#isClusterExclusive() cluster exclusive} then runs on only one
+     * of the nodes sharing the lease manager's database. Pass null to run everything locally.
+     */
+    public void setLeaseManager(CronLeaseManager leaseManager) {
+        this.leaseManager = leaseManager;
+    }
+
+    public CronLeaseManager getLeaseManager() {
+        return leaseManager;
+    }
+
+    /**
+     * Sets how late a fire may be noticed before its {@link MisfirePolicy} applies.
+     */
+    public void setMisfireThreshold(long misfireThresholdMillis) {
+        this.misfireThresholdMillis = misfireThresholdMillis;
     }
 
     public List<CronTask> getTasks() {
         return tasks;
     }
 
-    private long fullHourDelay() {
-        LocalDateTime now = LocalDateTime.now();
-        LocalDateTime nextRun = now.truncatedTo(ChronoUnit.HOURS).plusHours(1);
-        return Duration.between(now, nextRun).getSeconds();
+    /**
+     * Returns the schedule and runtime statistics of every task registered with this scheduler.
+     */
+    public List<CronTaskMeta> getTaskMetas() {
+        List<CronTaskMeta> metas = new ArrayList<>();
+        for (ScheduledTask scheduled : scheduledTasks) {
+            metas.add(scheduled.getMeta());
+        }
+        return metas;
+    }
+
+    /**
+     * Returns whether the dispatcher thread is alive.
+     */
+    public boolean isRunning() {
+        return wheel != null && wheel.isRunning();
+    }
+
+    private void registerExpression(String cronExpression, CronTaskOptions options, CronTask task, CronTaskMeta meta) {
+        CronExpression expression = CronExpression.parse(cronExpression);
+        meta.setName(task.getName());
+        meta.setCronExpression(expression.getExpression());
+        meta.setZone(options.getZone().getId());
+        applyOptions(meta, options);
+
+        ScheduledTask scheduled = new ScheduledTask(task, meta, expression, options.getZone(), options.getMisfirePolicy());
+        long firstFire = scheduled.nextFireAfter(System.currentTimeMillis());
+        if (firstFire < 0) {
+            throw new IllegalArgumentException("Cron expression '" + cronExpression + "' never fires");
+        }
+        register(scheduled, firstFire);
+    }
+
+    private void applyOptions(CronTaskMeta meta, CronTaskOptions options) {
+        meta.setMisfirePolicy(options.getMisfirePolicy());
+        meta.setConcurrencyPolicy(options.getConcurrencyPolicy());
+        meta.setTimeoutMillis(options.getTimeoutMillis());
+        meta.setClusterExclusive(options.isClusterExclusive());
+    }
+
+    private synchronized void register(ScheduledTask scheduled, long firstFire) {
+        ensureSchedulerAvailable();
+        tasks.add(scheduled.getTask());
+        scheduledTasks.add(scheduled);
+        taskMetas.add(scheduled.getMeta());
+        arm(scheduled, firstFire);
+    }
+
+    private void arm(ScheduledTask scheduled, long fireAt) {
+        synchronized (scheduled) {
+            scheduled.arm(fireAt, wheel.schedule(fireAt, () -> fire(scheduled, fireAt)));
+        }
+    }
+
+    /**
+     * Called on the wheel thread when a fire time is reached. Applies the misfire policy,
+     * hands the run to the workers and arms the next fire.
+     */
+    private void fire(ScheduledTask scheduled, long fireAt) {
+        long now = System.currentTimeMillis();
+        long next;
+        if (now - fireAt <= misfireThresholdMillis) {
+            execute(scheduled, fireAt);
+            next = scheduled.nextFireAfter(fireAt);
+        } else {
+            MisfirePolicy policy = scheduled.getMisfirePolicy();
+            logger.warn("Task " + scheduled.getTask().getName() + " misfired by " + (now - fireAt) + "ms, applying " + policy);
+            if (policy.runsMissedFire()) {
+                execute(scheduled, fireAt);
+            }
+            next = scheduled.nextFireAfter(policy.nextFireBase(fireAt, now));
+        }
+
+        if (next < 0) {
+            logger.info("Task " + scheduled.getTask().getName() + " has no further fire times");
+            scheduled.cancel();
+            return;
+        }
+        arm(scheduled, next);
+    }
+
+    private void execute(ScheduledTask scheduled, long fireAt) {
+        scheduled.setLastFireMillis(fireAt);
+        if (!scheduled.tryStartRun()) {
+            logger.debug("Task " + scheduled.getTask().getName() + " is still running, "
+                    + (scheduled.getMeta().getConcurrencyPolicy() == ConcurrencyPolicy.QUEUE_ONE ? "queued" : "skipped")
+                    + " this fire");
+            return;
+        }
+        submit(scheduled, fireAt);
+    }
+
+    private void submit(ScheduledTask scheduled, long fireAt) {
+        try {
+            workers.execute(() -> runTask(scheduled, fireAt));
+        } catch (RejectedExecutionException e) {
+            logger.warn("Skipping task " + scheduled.getTask().getName() + ", cron workers are shut down");
+            scheduled.finishRun();
+        }
+    }
+
+    private void runTask(ScheduledTask scheduled, long fireAt) {
+        CronTask task = scheduled.getTask();
+        CronTaskStats stats = scheduled.getStats();
+
+        CronLeaseManager leases = leaseManager;
+        LeaseHeartbeat heartbeat = null;
+        if (leases != null && scheduled.getMeta().isClusterExclusive()) {
+            CronLeaseManager.Lease lease = leases.tryAcquire(task.getName(), fireAt, scheduled.getMinGapMillis());
+            if (lease == null) {
+                logger.debug("Task " + task.getName() + " is run by another node for this fire");
+                stats.recordSkip();
+                if (scheduled.finishRun()) {
+                    submit(scheduled, scheduled.getLastFireMillis());
+                }
+                return;
+            }
+            heartbeat = new LeaseHeartbeat(lease, leases.getHeartbeatIntervalMillis());
+            heartbeat.arm();
+        }
+
+        long timeoutMillis = scheduled.getMeta().getTimeoutMillis();
+        Thread worker = Thread.currentThread();
+        long startTime = System.currentTimeMillis();
+
+        TimingWheel.Entry watchdog = null;
+        if (timeoutMillis > 0) {
+            watchdog = wheel.schedule(startTime + timeoutMillis, () -> {
+                stats.recordTimeout();
+                logger.warn("Task " + task.getName() + " exceeded its timeout of " + timeoutMillis + "ms, interrupting");
+                worker.interrupt();
+            });
+        }
+
+        stats.recordStart(startTime);
+        boolean failed = false;
+        try {
+            logger.debug("Running task: " + task.getName());
+            task.run();
+        } catch (Exception e) {
+            failed = true;
+            logger.error("Error running task: " + task.getName(), e);
+        } finally {
+            if (watchdog != null) {
+                watchdog.cancel();
+            }
+            if (heartbeat != null) {
+                heartbeat.stop();
+            }
+            // Don't leak a late interrupt into the next task on a pooled thread
+            Thread.interrupted();
+            stats.recordFinish(System.currentTimeMillis() - startTime, failed);
+        }
+
+        if (scheduled.finishRun()) {
+            submit(scheduled, scheduled.getLastFireMillis());
+        }
     }
 
-    private long computeInitialDelay(int hour, int minute) {
-        LocalDateTime now = LocalDateTime.now();
-        LocalDateTime nextRun = now.withHour(hour).withMinute(minute).withSecond(0);
+    /**
+     * Renews a cron lease while its run is going. The wheel thread only triggers the renewal,
+     * the database call runs on a virtual thread of its own: queued behind long runs on the
+     * workers, renewals would come too late and let the lease expire mid-run.
+     */
+    private final class LeaseHeartbeat {
+        private final CronLeaseManager.Lease lease;
+        private final long intervalMillis;
+        private volatile boolean stopped = false;
+        private volatile TimingWheel.Entry next;
+
+        private LeaseHeartbeat(CronLeaseManager.Lease lease, long intervalMillis) {
+            this.lease = lease;
+            this.intervalMillis = intervalMillis;
+        }
 
-        if (now.isAfter(nextRun)) {
-            nextRun = nextRun.plusDays(1); // Schedule for tomorrow
+        private void arm() {
+            if (stopped) {
+                return;
+            }
+            next = wheel.schedule(System.currentTimeMillis() + intervalMillis,
+                    () -> Thread.ofVirtual().name("FK-Cron-Lease-" + lease.getTaskName()).start(this::renew));
         }
 
-        return Duration.between(now, nextRun).getSeconds();
+        private void renew() {
+            if (stopped) {
+                return;
+            }
+            if (!lease.renew()) {
+                logger.warn("Lost cron lease for " + lease.getTaskName() + ", another node may start the next fire early");
+                return;
+            }
+            arm();
+        }
+
+        private void stop() {
+            stopped = true;
+            TimingWheel.Entry current = next;
+            if (current != null) {
+                current.cancel();
+            }
+            lease.release();
+        }
     }
 
     private void ensureSchedulerAvailable() {
-        if (scheduler == null || scheduler.isShutdown()) {
-            scheduler = java.util.concurrent.Executors.newScheduledThreadPool(DEFAULT_THREAD_POOL_SIZE, new FusionKitThreadFactory());
+        if (wheel == null || !wheel.isRunning()) {
+            wheel = new TimingWheel("FK-Cron-Dispatcher", TICK_MILLIS, WHEEL_SIZE);
+        }
+        if (workers == null || workers.isShutdown()) {
+            workers = threadPoolSize > 0
+                    ? Executors.newFixedThreadPool(threadPoolSize, new FusionKitThreadFactory())
+                    : Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("FK-Cron-Worker-", 1).factory());
         }
     }
 
-    public void shutdown() {
-        for (CronTask task : tasks) {
-            task.shutdown();
+    /**
+     * Waits for task runs that were already started when {@link #shutdown()} was called.
+     * @return Whether all runs finished within the timeout
+     */
+    public boolean awaitTermination(long timeoutMillis) throws InterruptedException {
+        ExecutorService current = workers;
+        return current == null || current.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops scheduling new runs. Runs already started keep going, wait for them with
+     * {@link #awaitTermination(long)} and then call {@link #runShutdownHooks()}.
+     */
+    public synchronized void shutdown() {
+        for (ScheduledTask scheduled : scheduledTasks) {
+            scheduled.cancel();
+        }
+        if (wheel != null) {
+            wheel.stop();
+        }
+        if (workers != null && !workers.isShutdown()) {
+            workers.shutdown();
         }
-        if (scheduler != null && !scheduler.isShutdown()) {
-            scheduler.shutdown();
+    }
+
+    /**
+     * Calls {@link CronTask#shutdown()} of every task, once their current runs are over.
+     */
+    public synchronized void runShutdownHooks() {
+        for (CronTask task : tasks) {
+            try {
+                task.shutdown();
+            } catch (Exception e) {
+                logger.error("Shutdown of cron task {} failed", task.getName(), e);
+            }
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,29 @@
+package de.marcandreher.fusionkit.core.cron;
+
+/**
+ * What {@link FusionCron} does when a task is noticed too late to fire on time,
+ * e.g. after the host was suspended or the clock jumped forward.
+ */
+public enum MisfirePolicy {
+    /** Run once right away, then continue with the next regular fire time. */
+    FIRE_ONCE_NOW,
+    /** Drop the missed fires and wait for the next regular fire time. */
+    SKIP,
+    /** Run once for every missed fire time, one after another. */
+    FIRE_ALL;
+
+    /**
+     * Returns whether a missed fire still runs, late.
+     */
+    public boolean runsMissedFire() {
+        return this != SKIP;
+    }
+
+    /**
+     * Returns the time after which the fire following a missed one is looked up: the missed
+     * fire itself for {@link #FIRE_ALL}, so the other missed fires follow, otherwise now.
+     */
+    public long nextFireBase(long missedFireMillis, long nowMillis) {
+        return this == FIRE_ALL ? missedFireMillis : nowMillis;
+    }
+}
@@ -0,0 +1,383 @@
+package de.marcandreher.fusionkit.core.cron;
+
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+
+import de.marcandreher.fusionkit.core.FusionKit;
+import de.marcandreher.fusionkit.core.database.Database;
+import de.marcandreher.fusionkit.core.database.MySQL;
+
+/**
+ * Base class for cron tasks that work through a large table in parallel chunks.
+ *
+ * <p>The numeric key range of {@link #getTable()} is split into chunks of
+ * {@link #getChunkSize()} keys. Chunks run on virtual threads, but at most
+ * {@link #getMaxDbConcurrency()} of them hold a database connection at the same time.
+ *
+ * <p>Every finished chunk is checkpointed in {@code fusion_cron_chunks}. If a run is
+ * interrupted (shutdown, timeout, crash) or some chunks fail, the next run continues with
+ * the same key range and only processes the chunks that are still missing. A chunk whose
+ * checkpoint could not be written runs again, so {@link #processChunk} should be idempotent.
+ *
+ * <pre>
+ * public class AggregateScores extends PartitionedCronTask {
+ *     protected String getTable() { return "scores"; }
+ *     protected String getKeyColumn() { return "id"; }
+ *     protected long processChunk(MySQL mysql, long fromKey, long toKey) {
+ *         return mysql.execUpdate("INSERT INTO ... SELECT ... WHERE id &gt;= ? AND id &lt; ?", fromKey, toKey);
+ *     }
+ *     public String getName() { return "AggregateScores"; }
+ * }
+ * </pre>
+ */
+public abstract class PartitionedCronTask implements CronTask {
+    private static final Logger logger = FusionKit.getLogger(PartitionedCronTask.class);
+
+    public static final String RUNS_TABLE = "fusion_cron_runs";
+    public static final String CHUNKS_TABLE = "fusion_cron_chunks";
+    /** Most chunks a run may have, use a larger chunk size for wider key ranges */
+    public static final int MAX_CHUNKS = 100_000;
+
+    private volatile Progress progress = new Progress(0, 0);
+    private volatile boolean tablesReady = false;
+
+    /**
+     * Returns the table whose key range is partitioned.
+     */
+    protected abstract String getTable();
+
+    /**
+     * Returns the numeric key column the chunks are cut along, usually the primary key.
+     */
+    protected abstract String getKeyColumn();
+
+    /**
+     * Processes all rows with {@code fromKey <= key < toKey}. Runs concurrently with other
+     * chunks; the connection is only used by this chunk. A range ending at {@link Long#MAX_VALUE}
+     * ends its last chunk there too, the exclusive bound cannot go past it.
+     * @return The number of rows processed, only used for progress reporting. A negative
+     *         value, like {@link MySQL#execUpdate(String, Object...)} returns on an error,
+     *         marks the chunk as failed
+     */
+    protected abstract long processChunk(MySQL mysql, long fromKey, long toKey) throws Exception;
+
+    /**
+     * Returns the number of keys per chunk.
+     */
+    protected long getChunkSize() {
+        return 10_000;
+    }
+
+    /**
+     * Returns how many chunks may use a database connection at the same time.
+     */
+    protected int getMaxDbConcurrency() {
+        return 4;
+    }
+
+    protected Database getDatabase() {
+        return FusionKit.database;
+    }
+
+    @Override
+    public void initialize() { }
+
+    @Override
+    public void shutdown() { }
+
+    /**
+     * Returns the progress of the current or last run.
+     */
+    public Progress getProgress() {
+        return progress;
+    }
+
+    @Override
+    public final void run() {
+        Database database = getDatabase();
+        if (database == null) {
+            throw new IllegalStateException("PartitionedCronTask " + getName() + " requires a Database");
+        }
+
+        long startTime = System.currentTimeMillis();
+        RunState state;
+        try (MySQL mysql = database.getConnection()) {
+            ensureTables(mysql);
+            state = loadOrStartRun(mysql);
+        }
+        if (state == null) {
+            logger.debug("Task " + getName() + ": " + getTable() + " is empty, nothing to do");
+            return;
+        }
+
+        int totalChunks = countChunks(state);
+        Progress current = new Progress(totalChunks, state.completed.size());
+        progress = current;
+        if (!state.completed.isEmpty()) {
+            logger.info("Task " + getName() + ": resuming run, " + state.completed.size() + "/" + totalChunks + " chunks already done");
+        }
+
+        Semaphore connections = new Semaphore(Math.max(1, getMaxDbConcurrency()));
+        List<Future<?>> futures = new ArrayList<>();
+        boolean interrupted = false;
+        try (ExecutorService executor = Executors.newThreadPerTaskExecutor(
+                Thread.ofVirtual().name("FK-Cron-" + getName() + "-Chunk-", 1).factory())) {
+            for (int chunk = 0; chunk < totalChunks; chunk++) {
+                if (state.completed.contains(chunk)) {
+                    continue;
+                }
+                long fromKey = state.minKey + chunk * state.chunkSize;
+                long toKey = toKey(state, fromKey);
+                int index = chunk;
+                futures.add(executor.submit(() -> runChunk(database, connections, current, index, fromKey, toKey)));
+            }
+
+            try {
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            } catch (InterruptedException e) {
+                // Stop the chunks here, closing the executor waits for all of them
+                interrupted = true;
+                executor.shutdownNow();
+            }
+        } catch (ExecutionException e) {
+            // runChunk handles its own errors, anything else is a bug
+            throw new IllegalStateException(e.getCause());
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+            logger.warn("Task " + getName() + " interrupted after " + current.getCompletedChunks() + "/" + totalChunks
+                    + " chunks, the next run resumes from the last checkpoint");
+            return;
+        }
+
+        if (current.getFailedChunks() > 0) {
+            throw new IllegalStateException(current.getFailedChunks() + " of " + totalChunks + " chunks of " + getName()
+                    + " failed, the next run retries them");
+        }
+
+        try (MySQL mysql = database.getConnection()) {
+            mysql.execUpdate("UPDATE " + RUNS_TABLE + " SET finished_at = NOW(3) WHERE task_name = ?", getName());
+            mysql.execUpdate("DELETE FROM " + CHUNKS_TABLE + " WHERE task_name = ?", getName());
+        }
+        logger.info("Task " + getName() + ": processed " + current.getProcessedRows() + " rows in " + totalChunks
+                + " chunks in <" + (System.currentTimeMillis() - startTime) + "ms>");
+    }
+
+    private void runChunk(Database database, Semaphore connections, Progress current, int index, long fromKey, long toKey) {
+        try {
+            connections.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+
+        try (MySQL mysql = database.getConnection()) {
+            long rows = processChunk(mysql, fromKey, toKey);
+            if (rows < 0) {
+                throw new IllegalStateException("processChunk reported an error (" + rows + ")");
+            }
+            if (mysql.execUpdate("INSERT IGNORE INTO " + CHUNKS_TABLE + " (task_name, chunk_index) VALUES (?, ?)", getName(), index) < 0) {
+                throw new IllegalStateException("Failed to checkpoint the chunk, it runs again next time");
+            }
+            current.chunkCompleted(rows);
+
+            int completed = current.getCompletedChunks();
+            int step = Math.max(1, current.getTotalChunks() / 10);
+            if (completed % step == 0) {
+                logger.info("Task " + getName() + ": " + completed + "/" + current.getTotalChunks() + " chunks ("
+                        + current.getPercent() + "%)");
+            }
+        } catch (Exception e) {
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+            current.chunkFailed();
+            logger.error("Task " + getName() + ": chunk " + index + " [" + fromKey + ", " + toKey + ") failed", e);
+        } finally {
+            connections.release();
+        }
+    }
+
+    /**
+     * Continues an unfinished run with the same chunk size, or records a new one.
+     * @return The run to execute, or null if the table is empty
+     */
+    private RunState loadOrStartRun(MySQL mysql) {
+        long chunkSize = getChunkSize();
+        Optional<ResultSet> previous = mysql.queryResult("SELECT range_min, range_max, chunk_size FROM " + RUNS_TABLE
+                + " WHERE task_name = ? AND finished_at IS NULL", getName());
+        if (previous.isPresent()) {
+            try (ResultSet rs = previous.get()) {
+                if (rs.next() && rs.getLong("chunk_size") == chunkSize) {
+                    RunState state = new RunState(rs.getLong("range_min"), rs.getLong("range_max"), chunkSize);
+                    loadCompletedChunks(mysql, state.completed);
+                    return state;
+                }
+            } catch (Exception e) {
+                logger.warn("Task " + getName() + ": failed to read checkpoint, starting over", e);
+            }
+        }
+
+        Optional<ResultSet> range = mysql.queryResult("SELECT MIN(" + getKeyColumn() + "), MAX(" + getKeyColumn()
+                + ") FROM " + getTable());
+        long minKey;
+        long maxKey;
+        try (ResultSet rs = range.orElseThrow(() -> new IllegalStateException("Failed to read key range of " + getTable()))) {
+            if (!rs.next() || rs.getObject(1) == null) {
+                return null;
+            }
+            minKey = rs.getLong(1);
+            maxKey = rs.getLong(2);
+        } catch (IllegalStateException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to read key range of " + getTable(), e);
+        }
+
+        RunState state = new RunState(minKey, maxKey, chunkSize);
+        countChunks(state);
+        if (mysql.execUpdate("DELETE FROM " + CHUNKS_TABLE + " WHERE task_name = ?", getName()) < 0
+                || mysql.execUpdate("REPLACE INTO " + RUNS_TABLE + " (task_name, range_min, range_max, chunk_size, started_at, finished_at)"
+                        + " VALUES (?, ?, ?, ?, NOW(3), NULL)", getName(), minKey, maxKey, chunkSize) < 0) {
+            throw new IllegalStateException("Failed to record the run of " + getName());
+        }
+        return state;
+    }
+
+    /**
+     * Returns the exclusive end of the chunk starting at {@code fromKey}. Computed without
+     * {@code fromKey + chunkSize}, which overflows for keys near {@link Long#MAX_VALUE}.
+     */
+    private static long toKey(RunState state, long fromKey) {
+        if (state.maxKey - fromKey >= state.chunkSize) {
+            return fromKey + state.chunkSize;
+        }
+        return state.maxKey == Long.MAX_VALUE ? Long.MAX_VALUE : state.maxKey + 1;
+    }
+
+    /**
+     * @throws IllegalStateException If the key range needs more than {@link #MAX_CHUNKS} chunks
+     */
+    private int countChunks(RunState state) {
+        long chunks;
+        try {
+            chunks = Math.subtractExact(state.maxKey, state.minKey) / state.chunkSize + 1;
+        } catch (ArithmeticException e) {
+            chunks = Long.MAX_VALUE;
+        }
+        if (chunks > MAX_CHUNKS) {
+            throw new IllegalStateException("Key range [" + state.minKey + ", " + state.maxKey + "] of " + getTable()
+                    + " needs more than " + MAX_CHUNKS + " chunks of " + state.chunkSize + " keys, raise getChunkSize()");
+        }
+        return (int) chunks;
+    }
+
+    private void loadCompletedChunks(MySQL mysql, Set<Integer> completed) throws Exception {
+        Optional<ResultSet> chunks = mysql.queryResult("SELECT chunk_index FROM " + CHUNKS_TABLE + " WHERE task_name = ?", getName());
+        if (chunks.isEmpty()) {
+            return;
+        }
+        try (ResultSet rs = chunks.get()) {
+            while (rs.next()) {
+                completed.add(rs.getInt(1));
+            }
+        }
+    }
+
+    private void ensureTables(MySQL mysql) {
+        if (tablesReady) {
+            return;
+        }
+        mysql.exec("CREATE TABLE IF NOT EXISTS " + RUNS_TABLE + " ("
+                + "task_name VARCHAR(191) NOT NULL PRIMARY KEY, "
+                + "range_min BIGINT NOT NULL, "
+                + "range_max BIGINT NOT NULL, "
+                + "chunk_size BIGINT NOT NULL, "
+                + "started_at TIMESTAMP(3) NOT NULL, "
+                + "finished_at TIMESTAMP(3) NULL)");
+        mysql.exec("CREATE TABLE IF NOT EXISTS " + CHUNKS_TABLE + " ("
+                + "task_name VARCHAR(191) NOT NULL, "
+                + "chunk_index INT NOT NULL, "
+                + "PRIMARY KEY (task_name, chunk_index))");
+        // exec only logs errors, so check the tables actually exist before relying on them
+        if (!mysql.tableExists(RUNS_TABLE) || !mysql.tableExists(CHUNKS_TABLE)) {
+            throw new IllegalStateException("Failed to create " + RUNS_TABLE + " and " + CHUNKS_TABLE);
+        }
+        tablesReady = true;
+    }
+
+    private static final class RunState {
+        private final long minKey;
+        private final long maxKey;
+        private final long chunkSize;
+        private final Set<Integer> completed = new HashSet<>();
+
+        private RunState(long minKey, long maxKey, long chunkSize) {
+            this.minKey = minKey;
+            this.maxKey = maxKey;
+            this.chunkSize = chunkSize;
+        }
+    }
+
+    /**
+     * Progress of a partitioned run. Chunks finished by an earlier, interrupted run count as completed.
+     */
+    public static class Progress {
+        private final int totalChunks;
+        private final AtomicInteger completedChunks;
+        private final AtomicInteger failedChunks = new AtomicInteger();
+        private final AtomicLong processedRows = new AtomicLong();
+
+        private Progress(int totalChunks, int completedChunks) {
+            this.totalChunks = totalChunks;
+            this.completedChunks = new AtomicInteger(completedChunks);
+        }
+
+        private void chunkCompleted(long rows) {
+            processedRows.addAndGet(rows);
+            completedChunks.incrementAndGet();
+        }
+
+        private void chunkFailed() {
+            failedChunks.incrementAndGet();
+        }
+
+        public int getTotalChunks() {
+            return totalChunks;
+        }
+
+        public int getCompletedChunks() {
+            return completedChunks.get();
+        }
+
+        public int getFailedChunks() {
+            return failedChunks.get();
+        }
+
+        /**
+         * Returns the rows processed by this run, not counting resumed chunks.
+         */
+        public long getProcessedRows() {
+            return processedRows.get();
+        }
+
+        public int getPercent() {
+            return totalChunks == 0 ? 100 : (int) (completedChunks.get() * 100L / totalChunks);
+        }
+    }
+}
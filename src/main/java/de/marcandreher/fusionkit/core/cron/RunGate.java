@@ -0,0 +1,98 @@
+package de.marcandreher.fusionkit.core.cron;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Decides whether a fire of a task may start a run under its {@link ConcurrencyPolicy}.
+ * Lock-free, fires come from the dispatcher while runs finish on the workers.
+ */
+public final class RunGate {
+    private final ConcurrencyPolicy policy;
+    private final CronTaskStats stats;
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicBoolean queued = new AtomicBoolean();
+
+    /**
+     * @param stats Counts the fires that are dropped
+     */
+    public RunGate(ConcurrencyPolicy policy, CronTaskStats stats) {
+        this.policy = policy;
+        this.stats = stats;
+    }
+
+    /**
+     * Returns whether the fire may start a run. A fire that is queued instead is started by
+     * {@link #finishRun()}.
+     */
+    public boolean tryStartRun() {
+        return switch (policy) {
+            case ALLOW_PARALLEL -> {
+                running.incrementAndGet();
+                yield true;
+            }
+            case SKIP_IF_RUNNING -> {
+                if (running.compareAndSet(0, 1)) {
+                    yield true;
+                }
+                stats.recordSkip();
+                yield false;
+            }
+            case QUEUE_ONE -> {
+                if (running.compareAndSet(0, 1)) {
+                    yield true;
+                }
+                if (queued.getAndSet(true)) {
+                    stats.recordSkip();
+                    yield false;
+                }
+                // The run may have finished in between without seeing the queued fire
+                if (running.compareAndSet(0, 1)) {
+                    if (queued.getAndSet(false)) {
+                        yield true;
+                    }
+                    running.decrementAndGet();
+                }
+                yield false;
+            }
+        };
+    }
+
+    /**
+     * Marks a run as finished.
+     * @return true if a queued fire should run next, the task then stays marked as running
+     */
+    public boolean finishRun() {
+        if (policy != ConcurrencyPolicy.QUEUE_ONE) {
+            running.decrementAndGet();
+            return false;
+        }
+        if (queued.getAndSet(false)) {
+            return true;
+        }
+        running.decrementAndGet();
+        // A fire may have been queued after the check above but seen the run still going
+        // in its own retry, then nobody would start it
+        if (queued.get() && running.compareAndSet(0, 1)) {
+            if (queued.getAndSet(false)) {
+                return true;
+            }
+            running.decrementAndGet();
+        }
+        return false;
+    }
+
+    /**
+     * Returns the number of runs started and not finished yet.
+     */
+    public int getRunning() {
+        return running.get();
+    }
+
+    /**
+     * Returns whether a fire waits for the current run.
+     */
+    public boolean isQueued() {
+        return queued.get();
+    }
+}
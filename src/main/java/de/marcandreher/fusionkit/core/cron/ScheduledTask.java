@@ -0,0 +1,113 @@
+package de.marcandreher.fusionkit.core.cron;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+
+/**
+ * A task registered with {@link FusionCron} together with its schedule.
+ * Either fires on a {@link CronExpression} in a zone or at a fixed interval.
+ */
+final class ScheduledTask {
+    private final CronTask task;
+    private final CronTaskMeta meta;
+    private final CronExpression expression;
+    private final ZoneId zone;
+    private final long intervalMillis;
+    private final MisfirePolicy misfirePolicy;
+    private final RunGate gate;
+    private volatile TimingWheel.Entry entry;
+    private volatile long lastFireMillis = -1;
+
+    ScheduledTask(CronTask task, CronTaskMeta meta, CronExpression expression, ZoneId zone, MisfirePolicy misfirePolicy) {
+        this.task = task;
+        this.meta = meta;
+        this.expression = expression;
+        this.zone = zone;
+        this.intervalMillis = 0;
+        this.misfirePolicy = misfirePolicy;
+        this.gate = new RunGate(meta.getConcurrencyPolicy(), meta.getStats());
+    }
+
+    ScheduledTask(CronTask task, CronTaskMeta meta, long intervalMillis, MisfirePolicy misfirePolicy) {
+        this.task = task;
+        this.meta = meta;
+        this.expression = null;
+        this.zone = null;
+        this.intervalMillis = intervalMillis;
+        this.misfirePolicy = misfirePolicy;
+        this.gate = new RunGate(meta.getConcurrencyPolicy(), meta.getStats());
+    }
+
+    /**
+     * Returns the first fire time after the given time, or -1 if there is none.
+     */
+    long nextFireAfter(long afterMillis) {
+        if (expression == null) {
+            return afterMillis + intervalMillis;
+        }
+        ZonedDateTime next = expression.next(Instant.ofEpochMilli(afterMillis).atZone(zone));
+        return next != null ? next.toInstant().toEpochMilli() : -1;
+    }
+
+    /**
+     * Returns how far apart two fire times must be to count as different fires across nodes.
+     * Cron fire times are identical on every node, interval tasks drift by their start time.
+     */
+    long getMinGapMillis() {
+        return expression != null ? 1 : Math.max(1, intervalMillis / 2);
+    }
+
+    long getLastFireMillis() {
+        return lastFireMillis;
+    }
+
+    void setLastFireMillis(long lastFireMillis) {
+        this.lastFireMillis = lastFireMillis;
+    }
+
+    CronTask getTask() {
+        return task;
+    }
+
+    CronTaskMeta getMeta() {
+        return meta;
+    }
+
+    MisfirePolicy getMisfirePolicy() {
+        return misfirePolicy;
+    }
+
+    CronTaskStats getStats() {
+        return meta.getStats();
+    }
+
+    /**
+     * Decides whether a fire may start a run under the task's {@link ConcurrencyPolicy}.
+     * A fire that is queued instead is started by {@link #finishRun()}.
+     */
+    boolean tryStartRun() {
+        return gate.tryStartRun();
+    }
+
+    /**
+     * Marks a run as finished.
+     * @return true if a queued fire should run next, the task then stays marked as running
+     */
+    boolean finishRun() {
+        return gate.finishRun();
+    }
+
+    void arm(long fireMillis, TimingWheel.Entry entry) {
+        this.entry = entry;
+        meta.getStats().setNextFireMillis(fireMillis);
+    }
+
+    void cancel() {
+        TimingWheel.Entry current = entry;
+        if (current != null) {
+            current.cancel();
+        }
+        meta.getStats().setNextFireMillis(-1);
+    }
+}
@@ -0,0 +1,178 @@
+package de.marcandreher.fusionkit.core.cron;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+
+import de.marcandreher.fusionkit.core.FusionKit;
+
+/**
+ * Hashed timing wheel driven by a single thread.
+ *
+ * <p>Deadlines are wall-clock milliseconds. Each tick the thread looks at one bucket and
+ * fires the entries whose remaining rounds reached zero, so the cost per tick does not depend
+ * on how many entries are scheduled further out. Entries fire at most one tick late.
+ * Actions run on the wheel thread and must hand real work off to another executor.
+ */
+public final class TimingWheel {
+    private static final Logger logger = FusionKit.getLogger(TimingWheel.class);
+
+    private final long tickMillis;
+    private final List<Entry>[] buckets;
+    private final int mask;
+    private final Queue<Entry> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final Thread thread;
+    private final long startMillis;
+    private volatile boolean running = true;
+    private long tick = 0;
+
+    /**
+     * Starts the wheel thread.
+     * @param tickMillis Resolution of the wheel
+     * @param wheelSize Buckets per revolution, rounded up to a power of two; deadlines further
+     *        out than one revolution wait in their bucket for the remaining rounds
+     */
+    @SuppressWarnings("unchecked")
+    public TimingWheel(String threadName, long tickMillis, int wheelSize) {
+        int normalizedSize = Integer.highestOneBit(Math.max(wheelSize, 2) - 1) << 1;
+        this.tickMillis = tickMillis;
+        this.buckets = new List[normalizedSize];
+        for (int i = 0; i < normalizedSize; i++) {
+            buckets[i] = new ArrayList<>();
+        }
+        this.mask = normalizedSize - 1;
+        // Align ticks to whole ticks of the wall clock so second-based deadlines fire right after the second
+        this.startMillis = System.currentTimeMillis() / tickMillis * tickMillis;
+        this.thread = new Thread(this::run, threadName);
+        this.thread.start();
+    }
+
+    /**
+     * Schedules an action. Safe to call from any thread, including from a firing action.
+     */
+    public Entry schedule(long deadlineMillis, Runnable action) {
+        Entry entry = new Entry(deadlineMillis, action);
+        pending.add(entry);
+        size.incrementAndGet();
+        return entry;
+    }
+
+    /**
+     * Returns the number of entries that have not fired or been cancelled yet.
+     */
+    public int size() {
+        return size.get();
+    }
+
+    public boolean isRunning() {
+        return running && thread.isAlive();
+    }
+
+    /**
+     * Stops the wheel thread. Entries that have not fired are dropped.
+     */
+    public void stop() {
+        running = false;
+        thread.interrupt();
+    }
+
+    private void run() {
+        while (running) {
+            long tickEnd = startMillis + (tick + 1) * tickMillis;
+            long sleep = tickEnd - System.currentTimeMillis();
+            if (sleep > 0) {
+                try {
+                    // Capped so a clock change is noticed within one tick
+                    Thread.sleep(Math.min(sleep, tickMillis));
+                } catch (InterruptedException e) {
+                    if (!running) {
+                        return;
+                    }
+                }
+                continue;
+            }
+
+            transferPending();
+            expire(buckets[(int) (tick & mask)]);
+            tick++;
+        }
+    }
+
+    private void transferPending() {
+        Entry entry;
+        while ((entry = pending.poll()) != null) {
+            if (entry.done.get()) {
+                continue;
+            }
+            long calculated = Math.max(0, (entry.deadlineMillis - startMillis) / tickMillis);
+            entry.rounds = (calculated - tick) / buckets.length;
+            buckets[(int) (Math.max(calculated, tick) & mask)].add(entry);
+        }
+    }
+
+    private void expire(List<Entry> bucket) {
+        Iterator<Entry> iterator = bucket.iterator();
+        List<Entry> due = null;
+        while (iterator.hasNext()) {
+            Entry entry = iterator.next();
+            if (entry.done.get()) {
+                iterator.remove();
+            } else if (entry.rounds <= 0) {
+                iterator.remove();
+                if (due == null) {
+                    due = new ArrayList<>();
+                }
+                due.add(entry);
+            } else {
+                entry.rounds--;
+            }
+        }
+
+        if (due == null) {
+            return;
+        }
+        for (Entry entry : due) {
+            if (!entry.done.compareAndSet(false, true)) {
+                continue;
+            }
+            size.decrementAndGet();
+            try {
+                entry.action.run();
+            } catch (Exception e) {
+                logger.error("Timing wheel action failed", e);
+            }
+        }
+    }
+
+    /**
+     * A scheduled action that can be cancelled until it fired.
+     */
+    public final class Entry {
+        private final long deadlineMillis;
+        private final Runnable action;
+        private final AtomicBoolean done = new AtomicBoolean();
+        private long rounds;
+
+        private Entry(long deadlineMillis, Runnable action) {
+            this.deadlineMillis = deadlineMillis;
+            this.action = action;
+        }
+
+        public long getDeadlineMillis() {
+            return deadlineMillis;
+        }
+
+        public void cancel() {
+            if (done.compareAndSet(false, true)) {
+                size.decrementAndGet();
+            }
+        }
+    }
+}
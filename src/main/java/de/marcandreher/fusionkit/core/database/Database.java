@@ -13,31 +13,35 @@ import com.zaxxer.hikari.HikariDataSource;
 
 import de.marcandreher.fusionkit.core.FusionKit;
 import de.marcandreher.fusionkit.core.cmd.implementations.DatabaseCommand;
+import de.marcandreher.fusionkit.core.config.ConfigFile;
 import de.marcandreher.fusionkit.core.config.DatabaseConfiguration;
 
 public class Database {
-    private static final Logger logger = FusionKit.getLogger(Database.class);
+    private final Logger logger;
     public List<MySQL> runningConnections = new ArrayList<MySQL>();
     public HikariDataSource dataSource;
     public int currentConnections;
-    public DatabaseConfiguration config;
+    public volatile DatabaseConfiguration config;
 
     private DbConfig dbConfig = new DbConfig();
     private HikariConfig hikariConfig;
+    private final TransactionMetrics transactionMetrics = new TransactionMetrics();
+    private final ThreadLocal<Transaction> currentTransaction = new ThreadLocal<>();
 
     /**
-     * Constructs a new Database object with default settings.
+     * Constructs a new Database with its own connection pool. The first database becomes
+     * {@link FusionKit#database}, further ones are looked up by {@link DbConfig#getName()}.
+     *
+     * @throws IllegalArgumentException If a database with the same name exists
      */
     public Database(Consumer<DbConfig> config) {
         config.accept(dbConfig);
-        if(FusionKit.database != null) {
-            logger.warn("A Database instance already exists.");
-            return;
-        }
+        this.logger = FusionKit.getLogger(Database.class, dbConfig.getName());
         this.hikariConfig = new HikariConfig();
-        FusionKit.database = this;
-        
-        FusionKit.registerCommand(DatabaseCommand.class);
+        this.hikariConfig.setPoolName("FK-DB-" + dbConfig.getName());
+        if (FusionKit.registerDatabase(this)) {
+            FusionKit.registerCommand(DatabaseCommand.class);
+        }
     }
 
     /**
@@ -78,13 +82,17 @@ public class Database {
      * @param serverTimezone The server timezone for the MySQL connection.
      */
     public void connect() {
-        config = DatabaseConfiguration.load();
+        ConfigFile<DatabaseConfiguration> configFile = DatabaseConfiguration.file();
+        config = configFile.get();
         config.apply(hikariConfig);
-        String url = "jdbc:mysql://" + dbConfig.getHost() + ":3306/" + dbConfig.getDatabase() + "?serverTimezone=" + dbConfig.getServerTimezone() + "&allowPublicKeyRetrieval=true";
+        String url = "jdbc:mysql://" + dbConfig.getHost() + ":" + dbConfig.getPort() + "/" + dbConfig.getDatabase() + "?serverTimezone=" + dbConfig.getServerTimezone() + "&allowPublicKeyRetrieval=true";
         hikariConfig
                 .setJdbcUrl(url);
         hikariConfig.setUsername(dbConfig.getUsername());
         hikariConfig.setPassword(dbConfig.getPassword());
+        if (dbConfig.isAllowLoadLocalInfile()) {
+            hikariConfig.addDataSourceProperty("allowLoadLocalInfile", true);
+        }
 
         try {
             dataSource = new HikariDataSource(hikariConfig);
@@ -98,6 +106,27 @@ public class Database {
         } catch (SQLException e) {
             logger.error("Error while connecting to MySQL database " + e.getMessage());
         }
+
+        configFile.onChange(this::onConfigChange);
+    }
+
+    private void onConfigChange(DatabaseConfiguration previous, DatabaseConfiguration current) {
+        config = current;
+        if (dataSource == null || dataSource.isClosed()) {
+            return;
+        }
+        current.apply(dataSource.getHikariConfigMXBean());
+        if (previous.getMaximumPoolSize() != current.getMaximumPoolSize()) {
+            logger.info("Resized connection pool from {} to {} connections", previous.getMaximumPoolSize(), current.getMaximumPoolSize());
+        }
+    }
+
+    public String getName() {
+        return dbConfig.getName();
+    }
+
+    public DbConfig getDbConfig() {
+        return dbConfig;
     }
 
     public HikariConfig getConfig() {
@@ -119,6 +148,114 @@ public class Database {
         }
     }
 
+    public TransactionMetrics getTransactionMetrics() {
+        return transactionMetrics;
+    }
+
+    /**
+     * Runs {@code work} in a transaction with the default isolation level.
+     * @see #inTransaction(Isolation, TransactionWork)
+     */
+    public <T> T inTransaction(TransactionWork<T> work) {
+        return inTransaction(Isolation.DEFAULT, work);
+    }
+
+    /**
+     * Runs {@code work} in a transaction and commits it, or rolls it back if {@code work} throws.
+     * The connection is released in both cases.
+     *
+     * <p>Deadlocks and lock wait timeouts roll back and run {@code work} again, up to
+     * {@code transactionMaxAttempts} times with a jittered, growing delay in between (see
+     * {@code database.toml}). Other failures are thrown right away; checked exceptions and
+     * SQL errors as {@link DatabaseException}.
+     *
+     * <p>Called again inside {@code work} on the same thread, it runs behind a
+     * {@link Transaction#savepoint(TransactionWork) savepoint} of the running transaction.
+     *
+     * @throws DatabaseException If the transaction failed
+     * @throws IllegalStateException If a nested call asks for another isolation level
+     */
+    public <T> T inTransaction(Isolation isolation, TransactionWork<T> work) {
+        Transaction running = currentTransaction.get();
+        if (running != null) {
+            if (isolation != Isolation.DEFAULT && isolation != running.getIsolation()) {
+                throw new IllegalStateException("Cannot change the isolation of a running transaction from "
+                        + running.getIsolation() + " to " + isolation);
+            }
+            return running.savepoint(work);
+        }
+
+        DatabaseConfiguration settings = config;
+        int maxAttempts = Math.max(1, settings.getTransactionMaxAttempts());
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return runTransaction(isolation, attempt, work);
+            } catch (RuntimeException e) {
+                if (!DatabaseException.isRetryable(e)) {
+                    throw e;
+                }
+                if (attempt >= maxAttempts) {
+                    transactionMetrics.exhausted();
+                    logger.warn("Transaction failed after {} attempts: {}", attempt, e.getMessage());
+                    throw e;
+                }
+                transactionMetrics.retried();
+                long delay = settings.retryDelay(attempt);
+                logger.debug("Retrying transaction in {} ms (attempt {} of {}): {}", delay, attempt + 1, maxAttempts, e.getMessage());
+                try {
+                    Thread.sleep(delay);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw new DatabaseException("Interrupted while retrying transaction", e);
+                }
+            }
+        }
+    }
+
+    private <T> T runTransaction(Isolation isolation, int attempt, TransactionWork<T> work) {
+        try (MySQL mysql = getConnection()) {
+            Connection connection = mysql.getConnection();
+            if (connection == null) {
+                throw new DatabaseException("No connection available for transaction");
+            }
+            int previousIsolation = -1;
+            Transaction tx = new Transaction(mysql, isolation, attempt);
+            try {
+                if (isolation != Isolation.DEFAULT) {
+                    previousIsolation = connection.getTransactionIsolation();
+                    connection.setTransactionIsolation(isolation.getLevel());
+                }
+                connection.setAutoCommit(false);
+                mysql.setThrowOnError(true);
+                currentTransaction.set(tx);
+
+                T result = work.run(tx);
+                connection.commit();
+                transactionMetrics.committed();
+                return result;
+            } catch (Exception e) {
+                try {
+                    connection.rollback();
+                } catch (SQLException rollbackFailure) {
+                    e.addSuppressed(rollbackFailure);
+                }
+                transactionMetrics.rolledBack(e);
+                throw e instanceof RuntimeException runtime ? runtime : DatabaseException.wrap(e);
+            } finally {
+                currentTransaction.remove();
+                mysql.setThrowOnError(false);
+                try {
+                    connection.setAutoCommit(true);
+                    if (previousIsolation != -1) {
+                        connection.setTransactionIsolation(previousIsolation);
+                    }
+                } catch (SQLException e) {
+                    logger.warn("Failed to reset connection after transaction: {}", e.getMessage());
+                }
+            }
+        }
+    }
+
     /**
      * Get a connection to the MySQL database.
      *
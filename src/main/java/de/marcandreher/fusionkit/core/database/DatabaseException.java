@@ -0,0 +1,84 @@
+package de.marcandreher.fusionkit.core.database;
+
+import java.sql.SQLException;
+
+/**
+ * A failed statement or transaction. Thrown by {@link Database#inTransaction(Isolation, TransactionWork)}
+ * and by the {@link MySQL} methods inside a transaction, where logging the error and going on
+ * would commit half of the work.
+ */
+public class DatabaseException extends RuntimeException {
+
+    /** ER_LOCK_WAIT_TIMEOUT */
+    public static final int LOCK_WAIT_TIMEOUT = 1205;
+    /** ER_LOCK_DEADLOCK */
+    public static final int DEADLOCK = 1213;
+    /** Serialization failure, reported for deadlocks */
+    public static final String SERIALIZATION_FAILURE = "40001";
+
+    public DatabaseException(String message) {
+        super(message);
+    }
+
+    public DatabaseException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    /**
+     * Returns {@code cause} if it is a DatabaseException, otherwise wraps it.
+     */
+    public static DatabaseException wrap(Throwable cause) {
+        if (cause instanceof DatabaseException e) {
+            return e;
+        }
+        return new DatabaseException(cause.getMessage(), cause);
+    }
+
+    /**
+     * Returns the first {@link SQLException} in the cause chain, or {@code null}.
+     */
+    public SQLException getSQLException() {
+        return findSQLException(this);
+    }
+
+    public boolean isDeadlock() {
+        return isDeadlock(this);
+    }
+
+    public boolean isLockWaitTimeout() {
+        return isLockWaitTimeout(this);
+    }
+
+    /**
+     * Returns whether running the whole transaction again may succeed.
+     */
+    public boolean isRetryable() {
+        return isRetryable(this);
+    }
+
+    static boolean isDeadlock(Throwable t) {
+        SQLException e = findSQLException(t);
+        return e != null && (e.getErrorCode() == DEADLOCK || SERIALIZATION_FAILURE.equals(e.getSQLState()));
+    }
+
+    static boolean isLockWaitTimeout(Throwable t) {
+        SQLException e = findSQLException(t);
+        return e != null && e.getErrorCode() == LOCK_WAIT_TIMEOUT;
+    }
+
+    static boolean isRetryable(Throwable t) {
+        return isDeadlock(t) || isLockWaitTimeout(t);
+    }
+
+    static SQLException findSQLException(Throwable t) {
+        for (Throwable cause = t; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException e) {
+                return e;
+            }
+            if (cause.getCause() == cause) {
+                break;
+            }
+        }
+        return null;
+    }
+}
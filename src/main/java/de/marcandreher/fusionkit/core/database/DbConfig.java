@@ -5,10 +5,14 @@ import lombok.Data;
 
 @Data
 public class DbConfig {
+    // Name to look the database up with FusionKit.getDatabase(String)
+    private String name = "default";
     private String host = "localhost";
     private int port = 3306;
     private String username = "root";
     private String database = "fusionkit";
     private String password = "password";
     private ServerTimezone serverTimezone = ServerTimezone.UTC;
+    // Needed by MySQL.bulkLoad; also lets the server request local files, so only enable for trusted servers
+    private boolean allowLoadLocalInfile = false;
 }
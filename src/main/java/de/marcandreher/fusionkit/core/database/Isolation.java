@@ -0,0 +1,28 @@
+package de.marcandreher.fusionkit.core.database;
+
+import java.sql.Connection;
+
+/**
+ * Transaction isolation levels for {@link Database#inTransaction(Isolation, TransactionWork)}.
+ */
+public enum Isolation {
+    /** Keeps the level the connection has, REPEATABLE READ unless the server is configured otherwise. */
+    DEFAULT(-1),
+    READ_UNCOMMITTED(Connection.TRANSACTION_READ_UNCOMMITTED),
+    READ_COMMITTED(Connection.TRANSACTION_READ_COMMITTED),
+    REPEATABLE_READ(Connection.TRANSACTION_REPEATABLE_READ),
+    SERIALIZABLE(Connection.TRANSACTION_SERIALIZABLE);
+
+    private final int level;
+
+    Isolation(int level) {
+        this.level = level;
+    }
+
+    /**
+     * Returns the {@link Connection} constant of this level, -1 for {@link #DEFAULT}.
+     */
+    public int getLevel() {
+        return level;
+    }
+}
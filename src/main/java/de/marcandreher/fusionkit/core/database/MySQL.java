@@ -13,14 +13,25 @@ import java.sql.Types;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.mysql.cj.jdbc.JdbcStatement;
+
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.Getter;
+import lombok.ToString;
 
 @Data
 public final class MySQL implements AutoCloseable {
@@ -31,8 +42,23 @@ public final class MySQL implements AutoCloseable {
     public StackTraceElement[] caller = Thread.currentThread().getStackTrace();
     private Connection connection;
     private Database database;
+    // Set inside Database.inTransaction, where a logged error would commit half of the work
+    @Getter(AccessLevel.NONE)
+    private boolean throwOnError;
+    @Getter(AccessLevel.NONE)
+    private boolean closed;
+
+    // Statements prepared on this lease, closed when the connection goes back to the pool
+    @Getter(AccessLevel.NONE)
+    @ToString.Exclude
+    private final StatementCache statements = new StatementCache(STATEMENT_CACHE_SIZE, sql -> connection.prepareStatement(sql));
+    @Getter(AccessLevel.NONE)
+    @ToString.Exclude
+    private final StatementCache keyStatements = new StatementCache(STATEMENT_CACHE_SIZE,
+            sql -> connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS));
 
     private final int COLUMN_WIDTH = 20;
+    private static final int STATEMENT_CACHE_SIZE = 64;
 
     public MySQL(Database database) {
         this.database = database;   
@@ -54,11 +80,21 @@ public final class MySQL implements AutoCloseable {
         this.connection = currentCon;
     }
 
+    /**
+     * Returns the connection to the pool. Also releases leases that never got a connection,
+     * since {@link Database#getConnection()} counted them.
+     */
     public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        database.currentConnections--;
+        database.runningConnections.remove(this);
         try {
             if (connection != null && !connection.isClosed()) {
-                database.currentConnections--;
-                database.runningConnections.remove(this);
+                statements.closeAll();
+                keyStatements.closeAll();
                 connection.close();
             }
         } catch (Exception ex) {
@@ -142,9 +178,10 @@ public final class MySQL implements AutoCloseable {
         try {
             PreparedStatement stmt = connection.prepareStatement(sql);
             bindParameters(stmt, args);
-            logSQL(stmt.toString());
+            logSQL(stmt);
             return stmt;
         } catch (Exception ex) {
+            rethrowInTransaction(ex);
             log.error("MySQL query error: {}", ex.getMessage(), ex);
             return null;
         }
@@ -167,26 +204,276 @@ public final class MySQL implements AutoCloseable {
         try {
             PreparedStatement stmt = connection.prepareStatement(sql);
             bindParameters(stmt, args);
-            logSQL(stmt.toString());
+            logSQL(stmt);
             return Optional.of(stmt.executeQuery());
         } catch (Exception ex) {
+            rethrowInTransaction(ex);
             log.error("MySQL queryResult error: {}", ex.getMessage(), ex);
             return Optional.empty();
         }
     }
 
+    /**
+     * Executes a SELECT query and maps its first row, for lookups by key.
+     * The statement is prepared once per connection and reused by later calls
+     * with the same SQL; calls made while it is in use, e.g. from the mapper,
+     * prepare a statement of their own.
+     */
+    public <T> Optional<T> first(String sql, RowMapper<T> mapper, Object... args) {
+        requireOpen();
+        PreparedStatement stmt = null;
+        boolean healthy = false;
+        try {
+            stmt = statements.borrow(sql);
+            bindParameters(stmt, args);
+            logSQL(stmt);
+            try (ResultSet rs = stmt.executeQuery()) {
+                Optional<T> row = rs.next() ? Optional.ofNullable(mapper.map(rs)) : Optional.empty();
+                healthy = true;
+                return row;
+            }
+        } catch (Exception ex) {
+            rethrowInTransaction(ex);
+            log.error("MySQL first error: {} | called from {}", ex.getMessage(), getCaller(), ex);
+            return Optional.empty();
+        } finally {
+            statements.release(sql, stmt, healthy);
+        }
+    }
+
+    /**
+     * Executes a SELECT query and maps all rows into a list. Like
+     * {@link #first(String, RowMapper, Object...)} the statement is reused;
+     * use {@link #stream(String, RowMapper, Object...)} for large results.
+     */
+    public <T> List<T> list(String sql, RowMapper<T> mapper, Object... args) {
+        requireOpen();
+        PreparedStatement stmt = null;
+        boolean healthy = false;
+        try {
+            stmt = statements.borrow(sql);
+            bindParameters(stmt, args);
+            logSQL(stmt);
+            List<T> rows = new ArrayList<>();
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    rows.add(mapper.map(rs));
+                }
+            }
+            healthy = true;
+            return rows;
+        } catch (Exception ex) {
+            rethrowInTransaction(ex);
+            log.error("MySQL list error: {} | called from {}", ex.getMessage(), getCaller(), ex);
+            return List.of();
+        } finally {
+            statements.release(sql, stmt, healthy);
+        }
+    }
+
+    /**
+     * Like {@link #first(String, RowMapper, Object...)} with the binders and row
+     * mapping resolved when the query was declared.
+     * @throws IllegalArgumentException If {@code args} do not match the declared types
+     */
+    public <T> Optional<T> first(PreparedQuery<T> query, Object... args) {
+        requireOpen();
+        String sql = query.getSql();
+        PreparedStatement stmt = null;
+        boolean healthy = false;
+        try {
+            stmt = statements.borrow(sql);
+            query.getQuery().bind(stmt, args);
+            logSQL(stmt);
+            try (ResultSet rs = stmt.executeQuery()) {
+                Optional<T> row = rs.next() ? Optional.ofNullable(query.mapper(rs).map(rs)) : Optional.empty();
+                healthy = true;
+                return row;
+            }
+        } catch (IllegalArgumentException ex) {
+            // Arguments that don't match the declared types leave the statement usable
+            healthy = true;
+            throw ex;
+        } catch (Exception ex) {
+            rethrowInTransaction(ex);
+            log.error("MySQL first error: {} | called from {}", ex.getMessage(), getCaller(), ex);
+            return Optional.empty();
+        } finally {
+            statements.release(sql, stmt, healthy);
+        }
+    }
+
+    /**
+     * Like {@link #list(String, RowMapper, Object...)} with the binders and row
+     * mapping resolved when the query was declared.
+     * @throws IllegalArgumentException If {@code args} do not match the declared types
+     */
+    public <T> List<T> list(PreparedQuery<T> query, Object... args) {
+        requireOpen();
+        String sql = query.getSql();
+        PreparedStatement stmt = null;
+        boolean healthy = false;
+        try {
+            stmt = statements.borrow(sql);
+            query.getQuery().bind(stmt, args);
+            logSQL(stmt);
+            List<T> rows = new ArrayList<>();
+            try (ResultSet rs = stmt.executeQuery()) {
+                RowMapper<T> mapper = query.mapper(rs);
+                while (rs.next()) {
+                    rows.add(mapper.map(rs));
+                }
+            }
+            healthy = true;
+            return rows;
+        } catch (IllegalArgumentException ex) {
+            healthy = true;
+            throw ex;
+        } catch (Exception ex) {
+            rethrowInTransaction(ex);
+            log.error("MySQL list error: {} | called from {}", ex.getMessage(), getCaller(), ex);
+            return List.of();
+        } finally {
+            statements.release(sql, stmt, healthy);
+        }
+    }
+
+    /**
+     * Executes a SELECT query and streams the rows one by one instead of
+     * loading the whole result into memory, which makes it suitable for
+     * tables with millions of rows.
+     *
+     * <p>The returned {@link Stream} <strong>must</strong> be closed by the
+     * caller, preferably with try-with-resources. While it is open the
+     * connection cannot run other statements, so use a separate
+     * {@link MySQL} for writes.
+     *
+     * <pre>
+     * try (Stream&lt;String&gt; slugs = mysql.stream("SELECT slug FROM pages", rs -&gt; rs.getString(1))) {
+     *     slugs.forEach(slug -&gt; ...);
+     * }
+     * </pre>
+     */
+    public <T> Stream<T> stream(String sql, RowMapper<T> mapper, Object... args) {
+        requireOpen();
+        PreparedStatement stmt = null;
+        try {
+            stmt = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            // Connector/J only streams row by row with this fetch size
+            stmt.setFetchSize(Integer.MIN_VALUE);
+            bindParameters(stmt, args);
+            logSQL(stmt);
+            ResultSet rs = stmt.executeQuery();
+            PreparedStatement statement = stmt;
+
+            Spliterator<T> rows = new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+                @Override
+                public boolean tryAdvance(Consumer<? super T> action) {
+                    try {
+                        if (!rs.next()) {
+                            return false;
+                        }
+                        action.accept(mapper.map(rs));
+                        return true;
+                    } catch (SQLException e) {
+                        throw new IllegalStateException("MySQL stream error: " + e.getMessage(), e);
+                    }
+                }
+            };
+            return StreamSupport.stream(rows, false).onClose(() -> {
+                try {
+                    rs.close();
+                    statement.close();
+                } catch (SQLException e) {
+                    log.warn("Failed to close streamed ResultSet: {}", e.getMessage());
+                }
+            });
+        } catch (Exception ex) {
+            if (stmt != null) {
+                try {
+                    stmt.close();
+                } catch (SQLException ignored) {
+                    // the query failure is the relevant error
+                }
+            }
+            rethrowInTransaction(ex);
+            log.error("MySQL stream error: {}", ex.getMessage(), ex);
+            return Stream.empty();
+        }
+    }
+
     // -------------------------------------------------------------------------
     // Execute (DML / DDL – no return value needed)
     // -------------------------------------------------------------------------
 
     public void exec(String sql, Object... args) {
         requireOpen();
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        PreparedStatement stmt = null;
+        boolean healthy = false;
+        try {
+            stmt = statements.borrow(sql);
             bindParameters(stmt, args);
-            logSQL(stmt.toString());
+            logSQL(stmt);
             stmt.execute();
+            healthy = true;
         } catch (Exception ex) {
+            rethrowInTransaction(ex);
             log.error("MySQL exec error: {} | called from {}", ex.getMessage(), getCaller(), ex);
+        } finally {
+            statements.release(sql, stmt, healthy);
+        }
+    }
+
+    /**
+     * Executes an INSERT, UPDATE or DELETE and returns the number of affected
+     * rows, or {@code -1} on failure.
+     */
+    public int execUpdate(String sql, Object... args) {
+        requireOpen();
+        PreparedStatement stmt = null;
+        boolean healthy = false;
+        try {
+            stmt = statements.borrow(sql);
+            bindParameters(stmt, args);
+            logSQL(stmt);
+            int updated = stmt.executeUpdate();
+            healthy = true;
+            return updated;
+        } catch (Exception ex) {
+            rethrowInTransaction(ex);
+            log.error("MySQL execUpdate error: {} | called from {}", ex.getMessage(), getCaller(), ex);
+            return -1;
+        } finally {
+            statements.release(sql, stmt, healthy);
+        }
+    }
+
+    /**
+     * Like {@link #execUpdate(String, Object...)} with the binders resolved when
+     * the query was declared.
+     * @throws IllegalArgumentException If {@code args} do not match the declared types
+     */
+    public int execUpdate(Query query, Object... args) {
+        requireOpen();
+        String sql = query.getSql();
+        PreparedStatement stmt = null;
+        boolean healthy = false;
+        try {
+            stmt = statements.borrow(sql);
+            query.bind(stmt, args);
+            logSQL(stmt);
+            int updated = stmt.executeUpdate();
+            healthy = true;
+            return updated;
+        } catch (IllegalArgumentException ex) {
+            healthy = true;
+            throw ex;
+        } catch (Exception ex) {
+            rethrowInTransaction(ex);
+            log.error("MySQL execUpdate error: {} | called from {}", ex.getMessage(), getCaller(), ex);
+            return -1;
+        } finally {
+            statements.release(sql, stmt, healthy);
         }
     }
 
@@ -200,20 +487,28 @@ public final class MySQL implements AutoCloseable {
      */
     public int execKeys(String sql, Object... args) {
         requireOpen();
-        try (PreparedStatement stmt = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+        PreparedStatement stmt = null;
+        boolean healthy = false;
+        try {
+            stmt = keyStatements.borrow(sql);
             bindParameters(stmt, args);
-            logSQL(stmt.toString());
+            logSQL(stmt);
             stmt.executeUpdate();
 
+            int key = -1;
             try (ResultSet rs = stmt.getGeneratedKeys()) {
                 if (rs.next()) {
-                    return rs.getInt(1);
+                    key = rs.getInt(1);
                 }
             }
-            return -1;
+            healthy = true;
+            return key;
         } catch (Exception ex) {
+            rethrowInTransaction(ex);
             log.error("MySQL execKeys error: {}", ex.getMessage(), ex);
             return -1;
+        } finally {
+            keyStatements.release(sql, stmt, healthy);
         }
     }
 
@@ -223,20 +518,90 @@ public final class MySQL implements AutoCloseable {
      */
     public long execKeysLong(String sql, Object... args) {
         requireOpen();
-        try (PreparedStatement stmt = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+        PreparedStatement stmt = null;
+        boolean healthy = false;
+        try {
+            stmt = keyStatements.borrow(sql);
             bindParameters(stmt, args);
-            logSQL(stmt.toString());
+            logSQL(stmt);
             stmt.executeUpdate();
 
+            long key = -1L;
             try (ResultSet rs = stmt.getGeneratedKeys()) {
                 if (rs.next()) {
-                    return rs.getLong(1);
+                    key = rs.getLong(1);
                 }
             }
-            return -1L;
+            healthy = true;
+            return key;
         } catch (Exception ex) {
+            rethrowInTransaction(ex);
             log.error("MySQL execKeysLong error: {}", ex.getMessage(), ex);
             return -1L;
+        } finally {
+            keyStatements.release(sql, stmt, healthy);
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Bulk load
+    // -------------------------------------------------------------------------
+
+    /**
+     * Loads rows with {@code LOAD DATA LOCAL INFILE}, streamed to the server as
+     * tab separated text without a temporary file. Much faster than batched
+     * INSERTs for imports of many rows. The stream is consumed and closed.
+     *
+     * <p>Requires {@link DbConfig#setAllowLoadLocalInfile(boolean)} and
+     * {@code local_infile=ON} on the server. Like any LOCAL load, rows with a
+     * duplicate key are skipped and invalid values only produce warnings.
+     * Rows loaded before a failure stay unless the load runs in
+     * {@link Database#inTransaction(Isolation, TransactionWork)}.
+     * <pre>
+     * try (Stream&lt;Item&gt; items = catalog.items()) {
+     *     mysql.bulkLoad("items", new String[] {"id", "name", "price"},
+     *             items.map(item -&gt; new Object[] {item.id(), item.name(), item.price()}));
+     * }
+     * </pre>
+     *
+     * @param columns The columns of the values in each row, in order
+     * @return The number of rows loaded, or {@code -1} on failure
+     * @throws IllegalStateException If local infile is not allowed for this database
+     * @see TsvInputStream
+     */
+    public long bulkLoad(String table, String[] columns, Stream<Object[]> rows) {
+        requireOpen();
+        if (!database.getDbConfig().isAllowLoadLocalInfile()) {
+            rows.close();
+            throw new IllegalStateException("Bulk loads need allowLoadLocalInfile enabled for database '" + database.getName() + "'");
+        }
+        StringBuilder sql = new StringBuilder("LOAD DATA LOCAL INFILE 'fusionkit-bulk-load' INTO TABLE ")
+                .append(quoteIdentifier(table))
+                .append(" CHARACTER SET utf8mb4 FIELDS TERMINATED BY '\\t' ESCAPED BY '\\\\' LINES TERMINATED BY '\\n' (");
+        for (int i = 0; i < columns.length; i++) {
+            sql.append(i > 0 ? ", " : "").append(quoteIdentifier(columns[i]));
+        }
+        sql.append(')');
+
+        long started = System.nanoTime();
+        try (rows; Statement stmt = connection.createStatement()) {
+            TsvInputStream data = new TsvInputStream(rows.iterator(), columns.length);
+            stmt.unwrap(JdbcStatement.class).setLocalInfileInputStream(data);
+            if (database.config.isLogSql()) {
+                log.debug(sql.toString());
+            }
+            long loaded = stmt.executeLargeUpdate(sql.toString());
+            if (data.getFailure() != null) {
+                throw new SQLException("Bulk load into " + table + " stopped after " + data.getRowCount()
+                        + " rows: " + data.getFailure().getMessage(), data.getFailure());
+            }
+            long millis = Math.max(1, (System.nanoTime() - started) / 1_000_000);
+            log.info("Bulk loaded {} rows into {} in {} ms ({} rows/s)", loaded, table, millis, loaded * 1000 / millis);
+            return loaded;
+        } catch (Exception ex) {
+            rethrowInTransaction(ex);
+            log.error("MySQL bulkLoad error: {} | called from {}", ex.getMessage(), getCaller(), ex);
+            return -1L;
         }
     }
 
@@ -366,19 +731,54 @@ public final class MySQL implements AutoCloseable {
     // Internal helpers
     // -------------------------------------------------------------------------
 
+    /**
+     * Makes failing statements throw a {@link DatabaseException} instead of logging the error.
+     */
+    void setThrowOnError(boolean throwOnError) {
+        this.throwOnError = throwOnError;
+    }
+
+    /**
+     * Quotes a table or column name, {@code schema.table} part by part.
+     */
+    private static String quoteIdentifier(String name) {
+        StringBuilder quoted = new StringBuilder();
+        for (String part : name.split("\\.")) {
+            if (!quoted.isEmpty()) {
+                quoted.append('.');
+            }
+            quoted.append('`').append(part.replace("`", "``")).append('`');
+        }
+        return quoted.toString();
+    }
+
+    private void rethrowInTransaction(Exception ex) {
+        if (throwOnError) {
+            throw DatabaseException.wrap(ex);
+        }
+    }
+
     /**
      * Throws {@link IllegalStateException} if the connection is not open.
      * Keeps every public method from repeating the same null/closed check.
      */
     private void requireOpen() {
-        if (!isOpen()) {
+        boolean open;
+        try {
+            // The pool validated the connection when it was handed out; isValid() would ping per statement
+            open = connection != null && !connection.isClosed();
+        } catch (SQLException e) {
+            open = false;
+        }
+        if (!open) {
             throw new IllegalStateException("MySQL connection is closed or invalid – cannot execute query.");
         }
     }
 
-    private void logSQL(String message) {
-        if (database.config.isLogSql()) {
-            log.debug(message.replaceAll("[\r\n]+$", ""));
+    private void logSQL(Statement stmt) {
+        // toString() renders the SQL with all bound values, only pay for it when logged
+        if (database.config.isLogSql() && log.isDebugEnabled()) {
+            log.debug(stmt.toString().replaceAll("[\r\n]+$", ""));
         }
     }
 
@@ -388,4 +788,4 @@ public final class MySQL implements AutoCloseable {
         }
         return "unknown";
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,56 @@
+package de.marcandreher.fusionkit.core.database;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * A {@link Query} with the mapping of its rows, created by {@link Query#mapTo(Class)} or
+ * {@link Query#map(RowMapper)}. Immutable, so it can be shared as a constant.
+ * @see MySQL#first(PreparedQuery, Object...)
+ * @see MySQL#list(PreparedQuery, Object...)
+ */
+public final class PreparedQuery<T> {
+    private final Query query;
+    private final RowMappers.Factory<T> mapper;
+
+    PreparedQuery(Query query, RowMappers.Factory<T> mapper) {
+        this.query = query;
+        this.mapper = mapper;
+    }
+
+    public Query getQuery() {
+        return query;
+    }
+
+    public String getSql() {
+        return query.getSql();
+    }
+
+    /**
+     * @see MySQL#first(PreparedQuery, Object...)
+     */
+    public Optional<T> first(MySQL mysql, Object... args) {
+        return mysql.first(this, args);
+    }
+
+    /**
+     * @see MySQL#list(PreparedQuery, Object...)
+     */
+    public List<T> list(MySQL mysql, Object... args) {
+        return mysql.list(this, args);
+    }
+
+    /**
+     * Returns the mapper for the rows of {@code rs}, with the column positions looked up once.
+     */
+    RowMapper<T> mapper(ResultSet rs) throws SQLException {
+        return mapper.forResultSet(rs);
+    }
+
+    @Override
+    public String toString() {
+        return query.getSql();
+    }
+}
@@ -0,0 +1,190 @@
+package de.marcandreher.fusionkit.core.database;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * A statement declared once with its SQL and parameter types, usually as a constant. The binder
+ * of each parameter is looked up here instead of on every call, so binding is one
+ * {@code setLong}/{@code setString}/... per parameter.
+ * <pre>
+ * private static final PreparedQuery&lt;User&gt; FIND_USER =
+ *         Query.of("SELECT * FROM users WHERE id = ? AND name = ?", Long.class, String.class).mapTo(User.class);
+ * private static final Query TOUCH_USER = Query.of("UPDATE users SET seen = NOW() WHERE id = ?", Long.class);
+ *
+ * Optional&lt;User&gt; user = mysql.first(FIND_USER, 42L, "marc");
+ * mysql.execUpdate(TOUCH_USER, 42L);
+ * </pre>
+ * Supports the parameter types of {@link MySQL#query(String, Object...)}; {@code null} is bound
+ * as SQL NULL of the declared type.
+ */
+public final class Query {
+
+    @FunctionalInterface
+    private interface Binder {
+        void bind(PreparedStatement stmt, int index, Object value) throws SQLException;
+    }
+
+    private record Parameter(Class<?> type, int sqlType, Binder binder) { }
+
+    private static final Map<Class<?>, Parameter> PARAMETERS = new HashMap<>();
+
+    static {
+        register(String.class, Types.VARCHAR, (stmt, i, v) -> stmt.setString(i, (String) v));
+        register(Integer.class, Types.INTEGER, (stmt, i, v) -> stmt.setInt(i, (Integer) v));
+        register(Long.class, Types.BIGINT, (stmt, i, v) -> stmt.setLong(i, (Long) v));
+        register(Short.class, Types.SMALLINT, (stmt, i, v) -> stmt.setShort(i, (Short) v));
+        register(Byte.class, Types.TINYINT, (stmt, i, v) -> stmt.setByte(i, (Byte) v));
+        register(Double.class, Types.DOUBLE, (stmt, i, v) -> stmt.setDouble(i, (Double) v));
+        register(Float.class, Types.REAL, (stmt, i, v) -> stmt.setFloat(i, (Float) v));
+        register(BigDecimal.class, Types.DECIMAL, (stmt, i, v) -> stmt.setBigDecimal(i, (BigDecimal) v));
+        register(Boolean.class, Types.BOOLEAN, (stmt, i, v) -> stmt.setBoolean(i, (Boolean) v));
+        register(Timestamp.class, Types.TIMESTAMP, (stmt, i, v) -> stmt.setTimestamp(i, (Timestamp) v));
+        register(Date.class, Types.DATE, (stmt, i, v) -> stmt.setDate(i, (Date) v));
+        register(LocalDateTime.class, Types.TIMESTAMP, (stmt, i, v) -> stmt.setTimestamp(i, Timestamp.valueOf((LocalDateTime) v)));
+        register(LocalDate.class, Types.DATE, (stmt, i, v) -> stmt.setDate(i, Date.valueOf((LocalDate) v)));
+        register(Instant.class, Types.TIMESTAMP, (stmt, i, v) -> stmt.setTimestamp(i, Timestamp.from((Instant) v)));
+        register(UUID.class, Types.VARCHAR, (stmt, i, v) -> stmt.setString(i, ((UUID) v).toString()));
+        register(byte[].class, Types.VARBINARY, (stmt, i, v) -> stmt.setBytes(i, (byte[]) v));
+    }
+
+    private final String sql;
+    private final Parameter[] parameters;
+
+    private Query(String sql, Parameter[] parameters) {
+        this.sql = sql;
+        this.parameters = parameters;
+    }
+
+    /**
+     * Declares a statement with one type per {@code ?} placeholder, in order.
+     *
+     * @throws IllegalArgumentException If a type is not supported or the number of types does
+     *         not match the placeholders
+     */
+    public static Query of(String sql, Class<?>... parameterTypes) {
+        int placeholders = countPlaceholders(sql);
+        if (placeholders != parameterTypes.length) {
+            throw new IllegalArgumentException(String.format(
+                    "Query has %d placeholders but %d parameter types: %s", placeholders, parameterTypes.length, sql));
+        }
+        Parameter[] parameters = new Parameter[parameterTypes.length];
+        for (int i = 0; i < parameterTypes.length; i++) {
+            parameters[i] = parameter(parameterTypes[i], i + 1);
+        }
+        return new Query(sql, parameters);
+    }
+
+    /**
+     * Maps the rows to {@code type}: a class with {@link Column} fields and a no-args
+     * constructor, a record, or a single-column type such as {@code Long} or {@code String}.
+     * The mapping is resolved here, not per row.
+     */
+    public <T> PreparedQuery<T> mapTo(Class<T> type) {
+        return new PreparedQuery<>(this, RowMappers.forType(type));
+    }
+
+    /**
+     * Maps the rows with {@code mapper}.
+     */
+    public <T> PreparedQuery<T> map(RowMapper<T> mapper) {
+        return new PreparedQuery<>(this, _ -> mapper);
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    public List<Class<?>> getParameterTypes() {
+        return Arrays.stream(parameters).<Class<?>>map(Parameter::type).toList();
+    }
+
+    /**
+     * Binds {@code args} to a statement prepared from {@link #getSql()}.
+     *
+     * @throws IllegalArgumentException If the arguments do not match the declared types
+     */
+    void bind(PreparedStatement stmt, Object[] args) throws SQLException {
+        if (args.length != parameters.length) {
+            throw new IllegalArgumentException(String.format(
+                    "Expected %d parameters but got %d: %s", parameters.length, args.length, sql));
+        }
+        for (int i = 0; i < parameters.length; i++) {
+            Parameter parameter = parameters[i];
+            Object value = args[i];
+            if (value == null) {
+                stmt.setNull(i + 1, parameter.sqlType());
+                continue;
+            }
+            try {
+                parameter.binder().bind(stmt, i + 1, value);
+            } catch (ClassCastException e) {
+                throw new IllegalArgumentException(String.format("Parameter %d must be %s but was %s: %s",
+                        i + 1, parameter.type().getSimpleName(), value.getClass().getName(), sql), e);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return sql;
+    }
+
+    private static void register(Class<?> type, int sqlType, Binder binder) {
+        PARAMETERS.put(type, new Parameter(type, sqlType, binder));
+    }
+
+    private static Parameter parameter(Class<?> type, int index) {
+        Class<?> boxed = RowMappers.box(type);
+        Parameter parameter = PARAMETERS.get(boxed);
+        if (parameter != null) {
+            return boxed == type ? parameter : new Parameter(type, parameter.sqlType(), parameter.binder());
+        }
+        if (type.isEnum()) {
+            return new Parameter(type, Types.VARCHAR, (stmt, i, v) -> stmt.setString(i, ((Enum<?>) type.cast(v)).name()));
+        }
+        throw new IllegalArgumentException(
+                String.format("Unsupported parameter type at index %d: %s", index, type.getName()));
+    }
+
+    /**
+     * Counts the {@code ?} outside of quotes and comments.
+     */
+    private static int countPlaceholders(String sql) {
+        int count = 0;
+        char quote = 0;
+        for (int i = 0; i < sql.length(); i++) {
+            char c = sql.charAt(i);
+            if (quote != 0) {
+                if (c == '\\' && quote != '`') {
+                    i++;
+                } else if (c == quote) {
+                    quote = 0;
+                }
+            } else if (c == '\'' || c == '"' || c == '`') {
+                quote = c;
+            } else if (c == '-' && sql.startsWith("-- ", i) || c == '#') {
+                int end = sql.indexOf('\n', i);
+                i = end < 0 ? sql.length() : end;
+            } else if (c == '/' && sql.startsWith("/*", i)) {
+                int end = sql.indexOf("*/", i + 2);
+                i = end < 0 ? sql.length() : end + 1;
+            } else if (c == '?') {
+                count++;
+            }
+        }
+        return count;
+    }
+}
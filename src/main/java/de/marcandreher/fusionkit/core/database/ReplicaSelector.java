@@ -0,0 +1,62 @@
+package de.marcandreher.fusionkit.core.database;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+
+/**
+ * Picks the replica for the next read of a {@link ReplicatedDatabase}, skipping unhealthy ones.
+ */
+public final class ReplicaSelector<T> {
+    private final List<T> replicas;
+    private final ReplicatedDatabase.Strategy strategy;
+    private final Predicate<T> healthy;
+    private final ToIntFunction<T> activeConnections;
+    private final AtomicInteger next = new AtomicInteger();
+
+    /**
+     * @param healthy Whether a replica may get reads
+     * @param activeConnections Connections a replica has in use, for {@link ReplicatedDatabase.Strategy#LEAST_ACTIVE}
+     */
+    public ReplicaSelector(List<T> replicas, ReplicatedDatabase.Strategy strategy, Predicate<T> healthy,
+            ToIntFunction<T> activeConnections) {
+        this.replicas = List.copyOf(replicas);
+        this.strategy = strategy;
+        this.healthy = healthy;
+        this.activeConnections = activeConnections;
+    }
+
+    /**
+     * Returns the replica for the next read, or null if none is healthy.
+     */
+    public T select() {
+        int count = replicas.size();
+        if (count == 0) {
+            return null;
+        }
+        if (strategy == ReplicatedDatabase.Strategy.LEAST_ACTIVE) {
+            T best = null;
+            int bestActive = Integer.MAX_VALUE;
+            for (T replica : replicas) {
+                if (!healthy.test(replica)) {
+                    continue;
+                }
+                int active = activeConnections.applyAsInt(replica);
+                if (active < bestActive) {
+                    best = replica;
+                    bestActive = active;
+                }
+            }
+            return best;
+        }
+        int start = Math.floorMod(next.getAndIncrement(), count);
+        for (int i = 0; i < count; i++) {
+            T replica = replicas.get((start + i) % count);
+            if (healthy.test(replica)) {
+                return replica;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,353 @@
+package de.marcandreher.fusionkit.core.database;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+
+import de.marcandreher.fusionkit.core.FusionKit;
+
+/**
+ * A primary database with read replicas. Reads ({@link #queryResult}, {@link #stream},
+ * {@link #list}, {@link #getReadConnection()}) go to a replica, writes and transactions
+ * ({@link #exec}, {@link #execUpdate}, {@link #inTransaction}, {@link #getConnection()}) to the primary.
+ *
+ * <p>Replicas are checked in the background. A replica that lags behind more than
+ * {@link Builder#setMaxLagSeconds(long) the allowed lag}, has stopped replicating or cannot be
+ * reached gets no reads until a later check finds it healthy again. Without a healthy replica,
+ * reads go to the primary.
+ * <pre>
+ * Database primary = new Database(db -&gt; db.setHost("db-primary"));
+ * Database replica = new Database(db -&gt; { db.setName("replica-1"); db.setHost("db-replica-1"); });
+ * primary.connect();
+ * replica.connect();
+ *
+ * ReplicatedDatabase db = new ReplicatedDatabase.Builder(primary)
+ *         .addReplica(replica)
+ *         .setStrategy(ReplicatedDatabase.Strategy.LEAST_ACTIVE)
+ *         .build();
+ * </pre>
+ * Rows a request has just written may not be on a replica yet; read those through
+ * {@link #getConnection()}.
+ */
+public class ReplicatedDatabase implements AutoCloseable {
+    private static final Logger logger = FusionKit.getLogger(ReplicatedDatabase.class);
+
+    public enum Strategy {
+        /** Replicas take turns. */
+        ROUND_ROBIN,
+        /** The replica with the fewest connections in use. */
+        LEAST_ACTIVE
+    }
+
+    private final Database primary;
+    private final List<Replica> replicas;
+    private final ReplicaSelector<Replica> selector;
+    private final long maxLagSeconds;
+    private final ScheduledExecutorService checker;
+
+    private ReplicatedDatabase(Builder builder) {
+        this.primary = builder.primary;
+        this.replicas = builder.replicas.stream().map(Replica::new).toList();
+        this.selector = new ReplicaSelector<>(replicas, builder.strategy, replica -> replica.healthy, Replica::activeConnections);
+        this.maxLagSeconds = builder.maxLagSeconds;
+
+        if (replicas.isEmpty() || builder.checkIntervalMillis <= 0) {
+            this.checker = null;
+        } else {
+            this.checker = Executors.newSingleThreadScheduledExecutor(
+                    Thread.ofPlatform().daemon().name("FK-DB-Replica-Check-" + primary.getName()).factory());
+            checker.scheduleWithFixedDelay(this::checkReplicas, 0, builder.checkIntervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public Database getPrimary() {
+        return primary;
+    }
+
+    /**
+     * Returns a connection to the primary, for writes, transactions and reads that must see
+     * the latest writes. Must be closed by the caller.
+     */
+    public MySQL getConnection() {
+        return primary.getConnection();
+    }
+
+    /**
+     * Returns a connection to a healthy replica, or to the primary if there is none.
+     * Must be closed by the caller.
+     */
+    public MySQL getReadConnection() {
+        Replica replica = selector.select();
+        while (replica != null) {
+            MySQL mysql = replica.database.getConnection();
+            if (mysql.getConnection() != null) {
+                return mysql;
+            }
+            mysql.close();
+            markUnhealthy(replica, "no connection available");
+            replica = selector.select();
+        }
+        return primary.getConnection();
+    }
+
+    /**
+     * Runs a query on a replica. Closing the ResultSet returns the connection.
+     * @see MySQL#queryResult(String, Object...)
+     */
+    public Optional<ResultSet> queryResult(String sql, Object... args) {
+        MySQL mysql = getReadConnection();
+        Optional<ResultSet> result;
+        try {
+            result = mysql.queryResult(sql, args);
+        } catch (RuntimeException e) {
+            mysql.close();
+            throw e;
+        }
+        if (result.isEmpty()) {
+            mysql.close();
+            return result;
+        }
+        return Optional.of(closingConnection(result.get(), mysql));
+    }
+
+    /**
+     * Streams the rows of a query from a replica. Closing the stream returns the connection.
+     * @see MySQL#stream(String, RowMapper, Object...)
+     */
+    public <T> Stream<T> stream(String sql, RowMapper<T> mapper, Object... args) {
+        MySQL mysql = getReadConnection();
+        try {
+            return mysql.stream(sql, mapper, args).onClose(mysql::close);
+        } catch (RuntimeException e) {
+            mysql.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Reads all rows of a query from a replica.
+     */
+    public <T> List<T> list(String sql, RowMapper<T> mapper, Object... args) {
+        try (MySQL mysql = getReadConnection()) {
+            return mysql.list(sql, mapper, args);
+        }
+    }
+
+    /**
+     * @see MySQL#exec(String, Object...)
+     */
+    public void exec(String sql, Object... args) {
+        try (MySQL mysql = primary.getConnection()) {
+            mysql.exec(sql, args);
+        }
+    }
+
+    /**
+     * @see MySQL#execUpdate(String, Object...)
+     */
+    public int execUpdate(String sql, Object... args) {
+        try (MySQL mysql = primary.getConnection()) {
+            return mysql.execUpdate(sql, args);
+        }
+    }
+
+    /**
+     * Runs {@code work} in a transaction on the primary.
+     * @see Database#inTransaction(TransactionWork)
+     */
+    public <T> T inTransaction(TransactionWork<T> work) {
+        return primary.inTransaction(work);
+    }
+
+    /**
+     * Runs {@code work} in a transaction on the primary.
+     * @see Database#inTransaction(Isolation, TransactionWork)
+     */
+    public <T> T inTransaction(Isolation isolation, TransactionWork<T> work) {
+        return primary.inTransaction(isolation, work);
+    }
+
+    /**
+     * Returns the number of replicas that currently get reads.
+     */
+    public int getHealthyReplicaCount() {
+        int healthy = 0;
+        for (Replica replica : replicas) {
+            if (replica.healthy) {
+                healthy++;
+            }
+        }
+        return healthy;
+    }
+
+    /**
+     * Stops the replica checks. The databases themselves stay open.
+     */
+    @Override
+    public void close() {
+        if (checker != null) {
+            checker.shutdownNow();
+        }
+    }
+
+    /**
+     * Wraps a ResultSet so that closing it also closes the lease it was read from.
+     */
+    private static ResultSet closingConnection(ResultSet rs, MySQL mysql) {
+        return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[] { ResultSet.class },
+                (proxy, method, args) -> {
+                    try {
+                        return method.invoke(rs, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    } finally {
+                        if (method.getName().equals("close") && method.getParameterCount() == 0) {
+                            mysql.close();
+                        }
+                    }
+                });
+    }
+
+    private void checkReplicas() {
+        for (Replica replica : replicas) {
+            try {
+                long lag = replica.lagSeconds();
+                if (lag < 0) {
+                    markUnhealthy(replica, "replication is not running");
+                } else if (lag > maxLagSeconds) {
+                    markUnhealthy(replica, lag + "s behind the primary");
+                } else {
+                    markHealthy(replica, lag);
+                }
+            } catch (SQLException | RuntimeException e) {
+                markUnhealthy(replica, e.getMessage());
+            }
+        }
+    }
+
+    private void markUnhealthy(Replica replica, String reason) {
+        if (replica.healthy) {
+            replica.healthy = false;
+            logger.warn("Replica '{}' removed from reads: {}", replica.database.getName(), reason);
+            if (getHealthyReplicaCount() == 0) {
+                logger.warn("No healthy replica left, reads go to the primary '{}'", primary.getName());
+            }
+        }
+    }
+
+    private void markHealthy(Replica replica, long lag) {
+        if (!replica.healthy) {
+            replica.healthy = true;
+            logger.info("Replica '{}' back in reads ({}s behind the primary)", replica.database.getName(), lag);
+        }
+    }
+
+    private static final class Replica {
+        private final Database database;
+        private volatile boolean healthy = true;
+
+        private Replica(Database database) {
+            this.database = database;
+        }
+
+        private int activeConnections() {
+            HikariDataSource dataSource = database.getDataSource();
+            HikariPoolMXBean pool = dataSource != null ? dataSource.getHikariPoolMXBean() : null;
+            return pool != null ? pool.getActiveConnections() : Integer.MAX_VALUE - 1;
+        }
+
+        /**
+         * Returns how many seconds the replica is behind, 0 if the server is not a replica
+         * and -1 if replication is stopped.
+         */
+        private long lagSeconds() throws SQLException {
+            HikariDataSource dataSource = database.getDataSource();
+            if (dataSource == null || dataSource.isClosed()) {
+                throw new SQLException("pool not running");
+            }
+            try (Connection connection = dataSource.getConnection();
+                    Statement statement = connection.createStatement()) {
+                statement.setQueryTimeout(5);
+                try (ResultSet rs = statement.executeQuery("SHOW REPLICA STATUS")) {
+                    return rs.next() ? lag(rs.getObject("Seconds_Behind_Source")) : 0;
+                } catch (SQLException e) {
+                    // Servers before MySQL 8.0.22 only know the old syntax
+                    try (ResultSet rs = statement.executeQuery("SHOW SLAVE STATUS")) {
+                        return rs.next() ? lag(rs.getObject("Seconds_Behind_Master")) : 0;
+                    }
+                }
+            }
+        }
+
+        private static long lag(Object secondsBehind) {
+            return secondsBehind instanceof Number number ? number.longValue() : -1;
+        }
+    }
+
+    public static class Builder {
+        private final Database primary;
+        private final List<Database> replicas = new ArrayList<>();
+        private Strategy strategy = Strategy.ROUND_ROBIN;
+        private long maxLagSeconds = 10;
+        private long checkIntervalMillis = 5_000;
+
+        public Builder(Database primary) {
+            this.primary = primary;
+        }
+
+        /**
+         * Adds a read replica.
+         * @return This builder instance
+         */
+        public Builder addReplica(Database replica) {
+            replicas.add(replica);
+            return this;
+        }
+
+        /**
+         * Sets how reads are spread over the replicas, {@link Strategy#ROUND_ROBIN} by default.
+         * @return This builder instance
+         */
+        public Builder setStrategy(Strategy strategy) {
+            this.strategy = strategy;
+            return this;
+        }
+
+        /**
+         * Sets how far a replica may fall behind before it gets no reads, 10 seconds by default.
+         * @return This builder instance
+         */
+        public Builder setMaxLagSeconds(long maxLagSeconds) {
+            this.maxLagSeconds = maxLagSeconds;
+            return this;
+        }
+
+        /**
+         * Sets how often replica lag is checked, 5 seconds by default. 0 disables the checks.
+         * @return This builder instance
+         */
+        public Builder setCheckIntervalMillis(long checkIntervalMillis) {
+            this.checkIntervalMillis = checkIntervalMillis;
+            return this;
+        }
+
+        public ReplicatedDatabase build() {
+            return new ReplicatedDatabase(this);
+        }
+    }
+}
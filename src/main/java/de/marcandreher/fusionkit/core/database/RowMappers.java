@@ -0,0 +1,249 @@
+package de.marcandreher.fusionkit.core.database;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.RecordComponent;
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Row mappers for {@link Query#mapTo(Class)}, resolved once per type. Unlike
+ * {@link ResultSetMapper} the fields, constructor and column getters are looked up when the
+ * query is declared, and the column positions once per result.
+ */
+final class RowMappers {
+
+    /**
+     * Creates the mapper for one result, once its columns are known.
+     */
+    @FunctionalInterface
+    interface Factory<T> {
+        RowMapper<T> forResultSet(ResultSet rs) throws SQLException;
+    }
+
+    /**
+     * Reads one column, {@code null} for SQL NULL.
+     */
+    @FunctionalInterface
+    private interface ColumnReader {
+        Object read(ResultSet rs, int index) throws SQLException;
+    }
+
+    private static final Map<Class<?>, ColumnReader> READERS = new HashMap<>();
+    private static final Map<Class<?>, Class<?>> BOXES = Map.of(
+            int.class, Integer.class, long.class, Long.class, short.class, Short.class,
+            byte.class, Byte.class, double.class, Double.class, float.class, Float.class,
+            boolean.class, Boolean.class, char.class, Character.class);
+
+    static {
+        READERS.put(String.class, ResultSet::getString);
+        READERS.put(Integer.class, (rs, i) -> nullable(rs, rs.getInt(i)));
+        READERS.put(Long.class, (rs, i) -> nullable(rs, rs.getLong(i)));
+        READERS.put(Short.class, (rs, i) -> nullable(rs, rs.getShort(i)));
+        READERS.put(Byte.class, (rs, i) -> nullable(rs, rs.getByte(i)));
+        READERS.put(Double.class, (rs, i) -> nullable(rs, rs.getDouble(i)));
+        READERS.put(Float.class, (rs, i) -> nullable(rs, rs.getFloat(i)));
+        READERS.put(Boolean.class, (rs, i) -> nullable(rs, rs.getBoolean(i)));
+        READERS.put(BigDecimal.class, ResultSet::getBigDecimal);
+        READERS.put(Timestamp.class, ResultSet::getTimestamp);
+        READERS.put(Date.class, ResultSet::getDate);
+        READERS.put(LocalDateTime.class, (rs, i) -> rs.getObject(i, LocalDateTime.class));
+        READERS.put(LocalDate.class, (rs, i) -> rs.getObject(i, LocalDate.class));
+        READERS.put(Instant.class, (rs, i) -> {
+            Timestamp timestamp = rs.getTimestamp(i);
+            return timestamp == null ? null : timestamp.toInstant();
+        });
+        READERS.put(UUID.class, (rs, i) -> {
+            String uuid = rs.getString(i);
+            return uuid == null ? null : UUID.fromString(uuid);
+        });
+        READERS.put(byte[].class, ResultSet::getBytes);
+    }
+
+    private RowMappers() { }
+
+    static Class<?> box(Class<?> type) {
+        return type.isPrimitive() ? BOXES.get(type) : type;
+    }
+
+    /**
+     * @throws IllegalArgumentException If {@code type} cannot be mapped
+     */
+    @SuppressWarnings("unchecked")
+    static <T> Factory<T> forType(Class<T> type) {
+        ColumnReader scalar = reader(type);
+        if (scalar != null) {
+            RowMapper<T> mapper = rs -> (T) requireValue(scalar.read(rs, 1), type, "column 1");
+            return _ -> mapper;
+        }
+        if (type.isRecord()) {
+            return forRecord(type);
+        }
+        return forColumns(type);
+    }
+
+    private static <T> Factory<T> forRecord(Class<T> type) {
+        RecordComponent[] components = type.getRecordComponents();
+        Class<?>[] types = new Class<?>[components.length];
+        String[] columns = new String[components.length];
+        ColumnReader[] readers = new ColumnReader[components.length];
+        for (int i = 0; i < components.length; i++) {
+            types[i] = components[i].getType();
+            // @Column on a record component ends up on its field
+            Column column = declaredField(type, components[i].getName()).getAnnotation(Column.class);
+            columns[i] = column != null ? column.value() : components[i].getName();
+            readers[i] = columnReader(types[i]);
+        }
+        Constructor<T> constructor;
+        try {
+            constructor = type.getDeclaredConstructor(types);
+            constructor.setAccessible(true);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            throw new IllegalArgumentException("Cannot use the canonical constructor of " + type.getName(), e);
+        }
+
+        return rs -> {
+            int[] indexes = indexes(rs, columns, types, type);
+            return row -> {
+                Object[] values = new Object[readers.length];
+                for (int i = 0; i < readers.length; i++) {
+                    values[i] = indexes[i] == 0 ? null : requireValue(readers[i].read(row, indexes[i]), types[i], columns[i]);
+                }
+                try {
+                    return constructor.newInstance(values);
+                } catch (ReflectiveOperationException e) {
+                    throw new IllegalStateException("Failed to create " + type.getSimpleName() + ": " + e.getMessage(), e);
+                }
+            };
+        };
+    }
+
+    private static <T> Factory<T> forColumns(Class<T> type) {
+        List<Field> fields = new ArrayList<>();
+        for (Field field : type.getDeclaredFields()) {
+            if (field.getAnnotation(Column.class) != null && !Modifier.isStatic(field.getModifiers())) {
+                field.setAccessible(true);
+                fields.add(field);
+            }
+        }
+        if (fields.isEmpty()) {
+            throw new IllegalArgumentException(type.getName()
+                    + " is neither a column type nor a record and has no @Column fields");
+        }
+        Constructor<T> constructor;
+        try {
+            constructor = type.getDeclaredConstructor();
+            constructor.setAccessible(true);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            throw new IllegalArgumentException(type.getName() + " needs a no-args constructor", e);
+        }
+
+        Field[] targets = fields.toArray(Field[]::new);
+        Class<?>[] types = new Class<?>[targets.length];
+        String[] columns = new String[targets.length];
+        ColumnReader[] readers = new ColumnReader[targets.length];
+        for (int i = 0; i < targets.length; i++) {
+            types[i] = targets[i].getType();
+            columns[i] = targets[i].getAnnotation(Column.class).value();
+            readers[i] = columnReader(types[i]);
+        }
+
+        return rs -> {
+            int[] indexes = indexes(rs, columns, types, type);
+            return row -> {
+                try {
+                    T instance = constructor.newInstance();
+                    for (int i = 0; i < targets.length; i++) {
+                        if (indexes[i] != 0) {
+                            targets[i].set(instance, requireValue(readers[i].read(row, indexes[i]), types[i], columns[i]));
+                        }
+                    }
+                    return instance;
+                } catch (ReflectiveOperationException e) {
+                    throw new IllegalStateException("Failed to map row to " + type.getSimpleName() + ": " + e.getMessage(), e);
+                }
+            };
+        };
+    }
+
+    /**
+     * Looks up the position of each column in {@code rs}, 0 for columns it does not have.
+     */
+    private static int[] indexes(ResultSet rs, String[] columns, Class<?>[] types, Class<?> type) throws SQLException {
+        ResultSetMetaData metaData = rs.getMetaData();
+        Map<String, Integer> available = new HashMap<>();
+        for (int i = metaData.getColumnCount(); i >= 1; i--) {
+            available.put(metaData.getColumnLabel(i).toLowerCase(Locale.ROOT), i);
+        }
+        int[] indexes = new int[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            Integer index = available.get(columns[i].toLowerCase(Locale.ROOT));
+            if (index == null && types[i].isPrimitive()) {
+                throw new IllegalStateException(String.format(
+                        "Required column '%s' of %s (primitive type %s) not found in ResultSet. Available columns: %s",
+                        columns[i], type.getSimpleName(), types[i].getSimpleName(), available.keySet()));
+            }
+            indexes[i] = index == null ? 0 : index;
+        }
+        return indexes;
+    }
+
+    private static ColumnReader reader(Class<?> type) {
+        ColumnReader reader = READERS.get(box(type));
+        if (reader == null && type.isEnum()) {
+            return (rs, i) -> {
+                String name = rs.getString(i);
+                return name == null ? null : enumValue(type, name);
+            };
+        }
+        return reader;
+    }
+
+    private static ColumnReader columnReader(Class<?> type) {
+        ColumnReader reader = reader(type);
+        if (reader == null) {
+            // Anything else the driver converts itself
+            return (rs, i) -> rs.getObject(i, box(type));
+        }
+        return reader;
+    }
+
+    private static Object nullable(ResultSet rs, Object value) throws SQLException {
+        return rs.wasNull() ? null : value;
+    }
+
+    private static Object requireValue(Object value, Class<?> type, String column) {
+        if (value == null && type.isPrimitive()) {
+            throw new IllegalStateException(String.format(
+                    "Column '%s' is NULL but the target is primitive type %s (cannot be null)", column, type.getSimpleName()));
+        }
+        return value;
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static Object enumValue(Class<?> type, String name) {
+        return Enum.valueOf((Class<? extends Enum>) type, name);
+    }
+
+    private static Field declaredField(Class<?> type, String name) {
+        try {
+            return type.getDeclaredField(name);
+        } catch (NoSuchFieldException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+}
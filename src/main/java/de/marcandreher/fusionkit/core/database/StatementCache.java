@@ -0,0 +1,135 @@
+package de.marcandreher.fusionkit.core.database;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Least recently used statements of one {@link MySQL} lease, closed when evicted.
+ * Not thread-safe, like the lease itself.
+ *
+ * <p>A statement is busy from {@link #borrow(String)} until {@link #release(String, PreparedStatement, boolean)},
+ * e.g. while its ResultSet is read. A busy statement is never handed out again or evicted, so a
+ * row mapper may run the same SQL again: that nested call gets a statement of its own, which is
+ * closed when released.
+ */
+public final class StatementCache {
+    private static final Logger log = LoggerFactory.getLogger(StatementCache.class);
+
+    /**
+     * Prepares a new statement on the connection of the lease.
+     */
+    @FunctionalInterface
+    public interface Preparer {
+        PreparedStatement prepare(String sql) throws SQLException;
+    }
+
+    private final int maxSize;
+    private final Preparer preparer;
+    // Access ordered, so iteration starts at the least recently used statement
+    private final LinkedHashMap<String, Entry> statements = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * @param maxSize How many idle statements are kept before the least recently used one is closed
+     * @param preparer Prepares statements that are not cached yet
+     */
+    public StatementCache(int maxSize, Preparer preparer) {
+        this.maxSize = maxSize;
+        this.preparer = preparer;
+    }
+
+    /**
+     * Returns the statement for the SQL with cleared parameters and marks it busy. If the cached
+     * statement is busy, a new uncached one is prepared.
+     */
+    public PreparedStatement borrow(String sql) throws SQLException {
+        Entry entry = statements.get(sql);
+        if (entry != null) {
+            if (entry.busy) {
+                return preparer.prepare(sql);
+            }
+            entry.statement.clearParameters();
+            entry.busy = true;
+            return entry.statement;
+        }
+        PreparedStatement stmt = preparer.prepare(sql);
+        entry = new Entry(stmt);
+        entry.busy = true;
+        statements.put(sql, entry);
+        evict();
+        return stmt;
+    }
+
+    /**
+     * Gives back a borrowed statement. Uncached statements are closed.
+     * @param stmt The borrowed statement, null if borrowing failed
+     * @param healthy false to close and forget the statement of a failed call, it may be unusable
+     */
+    public void release(String sql, PreparedStatement stmt, boolean healthy) {
+        if (stmt == null) {
+            return;
+        }
+        Entry entry = statements.get(sql);
+        if (entry == null || entry.statement != stmt) {
+            closeQuietly(stmt);
+            return;
+        }
+        if (healthy) {
+            entry.busy = false;
+            evict();
+        } else {
+            statements.remove(sql);
+            closeQuietly(stmt);
+        }
+    }
+
+    /**
+     * Closes and forgets all statements, busy ones included.
+     */
+    public void closeAll() {
+        for (Entry entry : statements.values()) {
+            closeQuietly(entry.statement);
+        }
+        statements.clear();
+    }
+
+    public int size() {
+        return statements.size();
+    }
+
+    /**
+     * Closes the least recently used idle statements until the cache fits. Busy statements stay,
+     * so the cache may exceed its size while many of them are open.
+     */
+    private void evict() {
+        Iterator<Entry> entries = statements.values().iterator();
+        while (statements.size() > maxSize && entries.hasNext()) {
+            Entry entry = entries.next();
+            if (!entry.busy) {
+                entries.remove();
+                closeQuietly(entry.statement);
+            }
+        }
+    }
+
+    private static void closeQuietly(PreparedStatement stmt) {
+        try {
+            stmt.close();
+        } catch (SQLException e) {
+            log.debug("Failed to close cached statement: {}", e.getMessage());
+        }
+    }
+
+    private static final class Entry {
+        private final PreparedStatement statement;
+        private boolean busy;
+
+        private Entry(PreparedStatement statement) {
+            this.statement = statement;
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package de.marcandreher.fusionkit.core.database;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * A running transaction of {@link Database#inTransaction(Isolation, TransactionWork)}. Statements
+ * that fail throw a {@link DatabaseException} instead of being logged, so the transaction is
+ * rolled back.
+ * <pre>
+ * long orderId = database.inTransaction(Isolation.READ_COMMITTED, tx -&gt; {
+ *     long id = tx.execKeysLong("INSERT INTO orders (user_id) VALUES (?)", userId);
+ *     tx.savepoint(inner -&gt; inner.execUpdate("UPDATE stock SET amount = amount - 1 WHERE item_id = ?", itemId));
+ *     return id;
+ * });
+ * </pre>
+ */
+public final class Transaction {
+    private final MySQL mysql;
+    private final Isolation isolation;
+    private final int attempt;
+    private int savepoints;
+
+    Transaction(MySQL mysql, Isolation isolation, int attempt) {
+        this.mysql = mysql;
+        this.isolation = isolation;
+        this.attempt = attempt;
+    }
+
+    /**
+     * Returns the connection of this transaction. It is released when the transaction ends and
+     * must not be closed by the caller.
+     */
+    public MySQL getMySQL() {
+        return mysql;
+    }
+
+    public Isolation getIsolation() {
+        return isolation;
+    }
+
+    /**
+     * Returns 1 for the first attempt, higher numbers while the transaction is retried.
+     */
+    public int getAttempt() {
+        return attempt;
+    }
+
+    /**
+     * @see MySQL#exec(String, Object...)
+     */
+    public void exec(String sql, Object... args) {
+        mysql.exec(sql, args);
+    }
+
+    /**
+     * @see MySQL#execUpdate(String, Object...)
+     */
+    public int execUpdate(String sql, Object... args) {
+        return mysql.execUpdate(sql, args);
+    }
+
+    /**
+     * @see MySQL#execUpdate(Query, Object...)
+     */
+    public int execUpdate(Query query, Object... args) {
+        return mysql.execUpdate(query, args);
+    }
+
+    /**
+     * @see MySQL#execKeysLong(String, Object...)
+     */
+    public long execKeysLong(String sql, Object... args) {
+        return mysql.execKeysLong(sql, args);
+    }
+
+    /**
+     * @see MySQL#bulkLoad(String, String[], Stream)
+     */
+    public long bulkLoad(String table, String[] columns, Stream<Object[]> rows) {
+        return mysql.bulkLoad(table, columns, rows);
+    }
+
+    /**
+     * @see MySQL#stream(String, RowMapper, Object...)
+     */
+    public <T> Stream<T> stream(String sql, RowMapper<T> mapper, Object... args) {
+        return mysql.stream(sql, mapper, args);
+    }
+
+    /**
+     * @see MySQL#first(String, RowMapper, Object...)
+     */
+    public <T> Optional<T> first(String sql, RowMapper<T> mapper, Object... args) {
+        return mysql.first(sql, mapper, args);
+    }
+
+    /**
+     * @see MySQL#list(String, RowMapper, Object...)
+     */
+    public <T> List<T> list(String sql, RowMapper<T> mapper, Object... args) {
+        return mysql.list(sql, mapper, args);
+    }
+
+    /**
+     * @see MySQL#first(PreparedQuery, Object...)
+     */
+    public <T> Optional<T> first(PreparedQuery<T> query, Object... args) {
+        return mysql.first(query, args);
+    }
+
+    /**
+     * @see MySQL#list(PreparedQuery, Object...)
+     */
+    public <T> List<T> list(PreparedQuery<T> query, Object... args) {
+        return mysql.list(query, args);
+    }
+
+    /**
+     * Runs {@code work} behind a savepoint. If it fails, only its changes are rolled back and the
+     * exception is rethrown; the caller may catch it and go on with the transaction. Savepoints
+     * can be nested.
+     *
+     * <p>Deadlocks roll back the whole transaction on the server, so they are rethrown without
+     * rolling back to the savepoint and the transaction is retried as a whole.
+     */
+    public <T> T savepoint(TransactionWork<T> work) {
+        Connection connection = mysql.getConnection();
+        Savepoint savepoint;
+        try {
+            savepoint = connection.setSavepoint("fk_savepoint_" + (++savepoints));
+        } catch (SQLException e) {
+            throw DatabaseException.wrap(e);
+        }
+        try {
+            T result = work.run(this);
+            connection.releaseSavepoint(savepoint);
+            return result;
+        } catch (Exception e) {
+            if (!DatabaseException.isDeadlock(e)) {
+                try {
+                    connection.rollback(savepoint);
+                } catch (SQLException rollbackFailure) {
+                    e.addSuppressed(rollbackFailure);
+                }
+            }
+            throw e instanceof RuntimeException runtime ? runtime : DatabaseException.wrap(e);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package de.marcandreher.fusionkit.core.database;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of {@link Database#inTransaction(Isolation, TransactionWork)}, since the start of the
+ * application.
+ */
+public final class TransactionMetrics {
+    private final LongAdder committed = new LongAdder();
+    private final LongAdder rolledBack = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder deadlocks = new LongAdder();
+    private final LongAdder lockWaitTimeouts = new LongAdder();
+    private final LongAdder exhausted = new LongAdder();
+
+    TransactionMetrics() { }
+
+    public long getCommitted() {
+        return committed.sum();
+    }
+
+    /**
+     * Attempts that were rolled back, including the ones retried afterwards.
+     */
+    public long getRolledBack() {
+        return rolledBack.sum();
+    }
+
+    public long getRetries() {
+        return retries.sum();
+    }
+
+    public long getDeadlocks() {
+        return deadlocks.sum();
+    }
+
+    public long getLockWaitTimeouts() {
+        return lockWaitTimeouts.sum();
+    }
+
+    /**
+     * Transactions that failed because they kept deadlocking or timing out until the last attempt.
+     */
+    public long getExhausted() {
+        return exhausted.sum();
+    }
+
+    void committed() {
+        committed.increment();
+    }
+
+    void rolledBack(Throwable cause) {
+        rolledBack.increment();
+        if (DatabaseException.isDeadlock(cause)) {
+            deadlocks.increment();
+        } else if (DatabaseException.isLockWaitTimeout(cause)) {
+            lockWaitTimeouts.increment();
+        }
+    }
+
+    void retried() {
+        retries.increment();
+    }
+
+    void exhausted() {
+        exhausted.increment();
+    }
+
+    @Override
+    public String toString() {
+        return getCommitted() + " committed, " + getRolledBack() + " rolled back, " + getRetries() + " retries ("
+                + getDeadlocks() + " deadlocks, " + getLockWaitTimeouts() + " lock wait timeouts), "
+                + getExhausted() + " gave up";
+    }
+}
@@ -0,0 +1,14 @@
+package de.marcandreher.fusionkit.core.database;
+
+/**
+ * The body of a transaction. It may run more than once when the transaction is retried, so it
+ * should not have side effects outside the database.
+ */
+@FunctionalInterface
+public interface TransactionWork<T> {
+
+    /**
+     * @return The result of the transaction, {@code null} if there is none
+     */
+    T run(Transaction tx) throws Exception;
+}
@@ -0,0 +1,234 @@
+package de.marcandreher.fusionkit.core.database;
+
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalAccessor;
+import java.util.Iterator;
+
+/**
+ * Encodes rows as the tab separated text {@code LOAD DATA} reads with
+ * {@code FIELDS TERMINATED BY '\t' ESCAPED BY '\\' LINES TERMINATED BY '\n'}, in UTF-8.
+ * Rows are encoded on demand into one reused buffer, so the whole input is never in memory.
+ *
+ * <p>{@code null} is written as {@code \N}; tabs, newlines, backslashes and NUL are escaped.
+ * Numbers, booleans (as 1/0), temporals, UUIDs and enums (by name) are supported, anything else
+ * is written with {@code toString()}. Instants are written in UTC.
+ *
+ * <p>A row that cannot be encoded ends the stream early instead of failing the read, so a
+ * driver in the middle of a transfer can finish the protocol. Check {@link #getFailure()} after
+ * the load.
+ * @see MySQL#bulkLoad(String, String[], java.util.stream.Stream)
+ */
+public final class TsvInputStream extends InputStream {
+    private static final int CHUNK_SIZE = 64 * 1024;
+    private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSSSSS");
+
+    private final Iterator<Object[]> rows;
+    private final int columns;
+    private byte[] buffer = new byte[CHUNK_SIZE * 2];
+    private int position;
+    private int limit;
+    private long rowCount;
+    private RuntimeException failure;
+
+    /**
+     * @param columns Number of values every row must have
+     */
+    public TsvInputStream(Iterator<Object[]> rows, int columns) {
+        this.rows = rows;
+        this.columns = columns;
+    }
+
+    /**
+     * Returns how many rows were encoded so far.
+     */
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Returns why the stream ended before the last row, or {@code null}.
+     */
+    public RuntimeException getFailure() {
+        return failure;
+    }
+
+    @Override
+    public int read() {
+        if (position >= limit && !fill()) {
+            return -1;
+        }
+        return buffer[position++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) {
+        if (len == 0) {
+            return 0;
+        }
+        if (position >= limit && !fill()) {
+            return -1;
+        }
+        int count = Math.min(len, limit - position);
+        System.arraycopy(buffer, position, b, off, count);
+        position += count;
+        return count;
+    }
+
+    @Override
+    public int available() {
+        return limit - position;
+    }
+
+    private boolean fill() {
+        position = 0;
+        limit = 0;
+        if (failure != null) {
+            return false;
+        }
+        try {
+            while (limit < CHUNK_SIZE && rows.hasNext()) {
+                int rowStart = limit;
+                try {
+                    writeRow(rows.next());
+                } catch (RuntimeException e) {
+                    // Only whole rows are sent
+                    limit = rowStart;
+                    throw e;
+                }
+                rowCount++;
+            }
+        } catch (RuntimeException e) {
+            failure = e;
+        }
+        return limit > 0;
+    }
+
+    private void writeRow(Object[] row) {
+        if (row == null || row.length != columns) {
+            throw new IllegalArgumentException(String.format("Row %d has %d values, expected %d",
+                    rowCount + 1, row == null ? 0 : row.length, columns));
+        }
+        for (int i = 0; i < row.length; i++) {
+            if (i > 0) {
+                writeByte('\t');
+            }
+            writeValue(row[i], i);
+        }
+        writeByte('\n');
+    }
+
+    private void writeValue(Object value, int column) {
+        switch (value) {
+            case null -> writeAscii("\\N");
+            case String s -> writeEscaped(s);
+            case Long l -> writeLong(l);
+            case Integer i -> writeLong(i);
+            case Short s -> writeLong(s);
+            case Byte b -> writeLong(b);
+            case Boolean b -> writeByte(b ? '1' : '0');
+            case BigDecimal d -> writeAscii(d.toPlainString());
+            case Double d -> writeAscii(d.toString());
+            case Float f -> writeAscii(f.toString());
+            case LocalDateTime t -> writeTemporal(t);
+            case Timestamp t -> writeTemporal(t.toLocalDateTime());
+            case Instant t -> writeTemporal(LocalDateTime.ofInstant(t, ZoneOffset.UTC));
+            case byte[] _ -> throw new IllegalArgumentException(String.format(
+                    "Row %d column %d: binary values are not supported by bulk loads", rowCount + 1, column + 1));
+            case Enum<?> e -> writeEscaped(e.name());
+            default -> writeEscaped(value.toString());
+        }
+    }
+
+    private void writeTemporal(TemporalAccessor temporal) {
+        writeAscii(DATE_TIME.format(temporal));
+    }
+
+    private void writeLong(long value) {
+        if (value == Long.MIN_VALUE) {
+            writeAscii(Long.toString(value));
+            return;
+        }
+        ensure(20);
+        if (value < 0) {
+            buffer[limit++] = '-';
+            value = -value;
+        }
+        int start = limit;
+        do {
+            buffer[limit++] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value != 0);
+        // Digits were written backwards
+        for (int i = start, j = limit - 1; i < j; i++, j--) {
+            byte digit = buffer[i];
+            buffer[i] = buffer[j];
+            buffer[j] = digit;
+        }
+    }
+
+    private void writeAscii(String value) {
+        ensure(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            buffer[limit++] = (byte) value.charAt(i);
+        }
+    }
+
+    private void writeEscaped(String value) {
+        // Three bytes per char covers escapes, BMP chars and surrogate pairs
+        ensure(value.length() * 3);
+        byte[] out = buffer;
+        int pos = limit;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\' -> { out[pos++] = '\\'; out[pos++] = '\\'; }
+                case '\t' -> { out[pos++] = '\\'; out[pos++] = 't'; }
+                case '\n' -> { out[pos++] = '\\'; out[pos++] = 'n'; }
+                case '\r' -> { out[pos++] = '\\'; out[pos++] = 'r'; }
+                case '\0' -> { out[pos++] = '\\'; out[pos++] = '0'; }
+                default -> {
+                    if (c < 0x80) {
+                        out[pos++] = (byte) c;
+                    } else if (c < 0x800) {
+                        out[pos++] = (byte) (0xC0 | c >> 6);
+                        out[pos++] = (byte) (0x80 | c & 0x3F);
+                    } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                            && Character.isLowSurrogate(value.charAt(i + 1))) {
+                        int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                        out[pos++] = (byte) (0xF0 | codePoint >> 18);
+                        out[pos++] = (byte) (0x80 | codePoint >> 12 & 0x3F);
+                        out[pos++] = (byte) (0x80 | codePoint >> 6 & 0x3F);
+                        out[pos++] = (byte) (0x80 | codePoint & 0x3F);
+                    } else if (Character.isSurrogate(c)) {
+                        out[pos++] = '?';
+                    } else {
+                        out[pos++] = (byte) (0xE0 | c >> 12);
+                        out[pos++] = (byte) (0x80 | c >> 6 & 0x3F);
+                        out[pos++] = (byte) (0x80 | c & 0x3F);
+                    }
+                }
+            }
+        }
+        limit = pos;
+    }
+
+    private void writeByte(char c) {
+        ensure(1);
+        buffer[limit++] = (byte) c;
+    }
+
+    private void ensure(int bytes) {
+        if (limit + bytes > buffer.length) {
+            // Rows larger than the free space of a chunk
+            byte[] grown = new byte[Math.max(buffer.length * 2, limit + bytes)];
+            System.arraycopy(buffer, 0, grown, 0, limit);
+            buffer = grown;
+        }
+    }
+}
@@ -5,7 +5,8 @@ import java.time.OffsetDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.TimeUnit;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
 
 import org.slf4j.Logger;
 
@@ -13,6 +14,7 @@ import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
 
 import de.marcandreher.fusionkit.core.FusionKit;
+import de.marcandreher.fusionkit.core.http.FusionHttp;
 import okhttp3.MediaType;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
@@ -40,11 +42,7 @@ public class DiscordWebhook {
     private final boolean tts;
 
     private DiscordWebhook(Builder builder) {
-        this.client = new OkHttpClient.Builder()
-                .connectTimeout(10, TimeUnit.SECONDS)
-                .writeTimeout(10, TimeUnit.SECONDS)
-                .readTimeout(30, TimeUnit.SECONDS)
-                .build();
+        this.client = FusionHttp.getClient(FusionHttp.WEBHOOK);
         this.webhookUrl = builder.webhookUrl;
         this.content = builder.content;
         this.username = builder.username;
@@ -82,11 +80,58 @@ public class DiscordWebhook {
             logger.debug("Discord webhook sent successfully in <{}ms>", System.currentTimeMillis() - startTime);
         }
     }
+
+    /**
+     * Queues the webhook message on the default {@link DiscordWebhookDispatcher} and returns immediately.
+     * @return A future that completes once Discord accepted the message
+     * @throws IllegalStateException if the webhook has no content or embeds
+     */
+    public CompletableFuture<Void> sendAsync() {
+        return DiscordWebhookDispatcher.getDefault().submit(this);
+    }
+
+    String getWebhookUrl() {
+        return webhookUrl;
+    }
+
+    /**
+     * Combines this message with a later one into a single message, or returns null if the
+     * two differ in username, avatar or TTS, or the result would exceed Discord's limits.
+     */
+    DiscordWebhook mergeWith(DiscordWebhook next) {
+        if (tts || next.tts || !webhookUrl.equals(next.webhookUrl)
+                || !Objects.equals(username, next.username) || !Objects.equals(avatarUrl, next.avatarUrl)) {
+            return null;
+        }
+        if (embeds.size() + next.embeds.size() > MAX_EMBEDS_PER_MESSAGE) {
+            return null;
+        }
+
+        String mergedContent;
+        if (content == null || content.trim().isEmpty()) {
+            mergedContent = next.content;
+        } else if (next.content == null || next.content.trim().isEmpty()) {
+            mergedContent = content;
+        } else {
+            mergedContent = content.trim() + "\n" + next.content.trim();
+        }
+        if (mergedContent != null && mergedContent.length() > MAX_CONTENT_LENGTH) {
+            return null;
+        }
+
+        Builder builder = new Builder(webhookUrl)
+                .setContent(mergedContent)
+                .setUsername(username)
+                .setAvatarUrl(avatarUrl);
+        builder.embeds.addAll(embeds);
+        builder.embeds.addAll(next.embeds);
+        return builder.build();
+    }
     
     /**
      * Validates the message content and structure.
      */
-    private void validateMessage() {
+    void validateMessage() {
         if ((content == null || content.trim().isEmpty()) && embeds.isEmpty()) {
             throw new IllegalStateException("Webhook must have either content or embeds");
         }
@@ -103,7 +148,7 @@ public class DiscordWebhook {
     /**
      * Creates the JSON payload for the webhook request.
      */
-    private JsonObject createPayload() {
+    JsonObject createPayload() {
         JsonObject payload = new JsonObject();
 
         if (content != null && !content.trim().isEmpty()) {
@@ -0,0 +1,490 @@
+package de.marcandreher.fusionkit.core.externals;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import de.marcandreher.fusionkit.core.FusionKit;
+import de.marcandreher.fusionkit.core.http.FusionHttp;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.HttpUrl;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+
+/**
+ * Sends {@link DiscordWebhook} messages in the background without blocking the caller.
+ *
+ * <p>Every webhook URL gets its own bounded queue that is drained one request at a time
+ * through OkHttp's asynchronous {@code enqueue}. The {@code X-RateLimit-*} headers of each
+ * response decide when the next request may go out; a {@code 429} pauses the webhook (or
+ * all webhooks for a global limit) for the advertised {@code retry_after}. Server errors and
+ * network failures are retried with exponential backoff.
+ *
+ * <p>Messages that arrive within {@code coalesceWindowMillis} of each other are merged into
+ * one request as long as the result stays within Discord's content and embed limits, so a
+ * burst of alerts costs a handful of requests instead of one per message.
+ */
+public class DiscordWebhookDispatcher {
+    private static final Logger logger = FusionKit.getLogger(DiscordWebhookDispatcher.class);
+    private static final MediaType JSON = MediaType.get("application/json; charset=utf-8");
+    private static final long MAX_BACKOFF_MILLIS = 30_000;
+
+    private static DiscordWebhookDispatcher defaultDispatcher;
+
+    private final OkHttpClient client;
+    private final ScheduledExecutorService scheduler;
+    private final Map<String, Lane> lanes = new ConcurrentHashMap<>();
+    private final int queueCapacity;
+    private final long coalesceWindowMillis;
+    private final int maxRetries;
+    private final long baseBackoffMillis;
+    private volatile long globalResetAt = 0;
+    private volatile boolean closed = false;
+
+    private DiscordWebhookDispatcher(Builder builder) {
+        this.client = builder.client != null ? builder.client : FusionHttp.getClient(FusionHttp.WEBHOOK);
+        this.queueCapacity = builder.queueCapacity;
+        this.coalesceWindowMillis = builder.coalesceWindowMillis;
+        this.maxRetries = builder.maxRetries;
+        this.baseBackoffMillis = builder.baseBackoffMillis;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "FK-Webhook-Dispatcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Returns the shared dispatcher used by {@link DiscordWebhook#sendAsync()}.
+     */
+    public static synchronized DiscordWebhookDispatcher getDefault() {
+        if (defaultDispatcher == null) {
+            defaultDispatcher = new Builder().build();
+        }
+        return defaultDispatcher;
+    }
+
+    /**
+     * Flushes and closes the shared dispatcher if it was ever used.
+     * @param timeoutMillis How long to wait for queued messages to be sent
+     */
+    public static synchronized void closeDefault(long timeoutMillis) {
+        if (defaultDispatcher != null) {
+            defaultDispatcher.close(timeoutMillis);
+            defaultDispatcher = null;
+        }
+    }
+
+    /**
+     * Queues a message for sending.
+     * @param webhook The message to send
+     * @return A future that completes once Discord accepted the message, or exceptionally if
+     *         the queue for this webhook is full or the message could not be delivered
+     * @throws IllegalStateException if the webhook has no content or embeds
+     * @throws IllegalArgumentException if the webhook URL is not a valid HTTP(S) URL
+     */
+    public CompletableFuture<Void> submit(DiscordWebhook webhook) {
+        webhook.validateMessage();
+        if (webhook.getWebhookUrl() == null || HttpUrl.parse(webhook.getWebhookUrl()) == null) {
+            throw new IllegalArgumentException("Invalid Discord webhook URL: " + webhook.getWebhookUrl());
+        }
+
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        if (closed) {
+            future.completeExceptionally(new RejectedExecutionException("Discord webhook dispatcher is closed"));
+            return future;
+        }
+
+        Lane lane = lanes.computeIfAbsent(webhook.getWebhookUrl(), Lane::new);
+        synchronized (lane) {
+            if (lane.queue.size() >= queueCapacity) {
+                lane.dropped++;
+                logger.warn("Discord webhook queue for <{}> is full, dropping message ({} dropped so far)",
+                        lane.id, lane.dropped);
+                future.completeExceptionally(new RejectedExecutionException(
+                        "Discord webhook queue is full (" + queueCapacity + " messages)"));
+                return future;
+            }
+            lane.queue.addLast(new Pending(webhook, future, System.currentTimeMillis()));
+        }
+        schedule(lane, 0);
+        return future;
+    }
+
+    /**
+     * Returns the number of messages waiting to be sent across all webhooks.
+     */
+    public int getQueuedMessages() {
+        int queued = 0;
+        for (Lane lane : lanes.values()) {
+            synchronized (lane) {
+                queued += lane.queue.size();
+            }
+        }
+        return queued;
+    }
+
+    /**
+     * Stops accepting messages and waits for the queues to drain.
+     * @param timeoutMillis How long to wait before failing the remaining messages
+     */
+    public void close(long timeoutMillis) {
+        closed = true;
+        for (Lane lane : lanes.values()) {
+            schedule(lane, 0);
+        }
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (System.currentTimeMillis() < deadline && hasPendingWork()) {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        scheduler.shutdownNow();
+
+        int abandoned = 0;
+        for (Lane lane : lanes.values()) {
+            synchronized (lane) {
+                for (Pending pending : lane.queue) {
+                    pending.future.completeExceptionally(new RejectedExecutionException("Discord webhook dispatcher was closed"));
+                    abandoned++;
+                }
+                lane.queue.clear();
+            }
+        }
+        if (abandoned > 0) {
+            logger.warn("Discord webhook dispatcher closed with {} unsent messages", abandoned);
+        }
+    }
+
+    private boolean hasPendingWork() {
+        for (Lane lane : lanes.values()) {
+            synchronized (lane) {
+                if (lane.inFlight || !lane.queue.isEmpty()) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private void schedule(Lane lane, long delayMillis) {
+        try {
+            scheduler.schedule(() -> drain(lane), Math.max(0, delayMillis), TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // Dispatcher is closed, close() fails whatever is left in the queue
+        }
+    }
+
+    private void drain(Lane lane) {
+        List<Pending> batch;
+        DiscordWebhook message;
+        synchronized (lane) {
+            if (lane.inFlight || lane.queue.isEmpty()) {
+                return;
+            }
+
+            long now = System.currentTimeMillis();
+            long notBefore = Math.max(globalResetAt, lane.retryAt);
+            if (lane.remaining == 0) {
+                notBefore = Math.max(notBefore, lane.resetAt);
+            }
+            // Give a burst a moment to build up so it can go out as one message, unless closing
+            if (!closed) {
+                notBefore = Math.max(notBefore, lane.queue.peekFirst().enqueuedAt + coalesceWindowMillis);
+            }
+            if (notBefore > now) {
+                if (lane.wakeAt <= now || notBefore < lane.wakeAt) {
+                    lane.wakeAt = notBefore;
+                    schedule(lane, notBefore - now);
+                }
+                return;
+            }
+
+            batch = new ArrayList<>();
+            Pending first = lane.queue.pollFirst();
+            batch.add(first);
+            message = first.webhook;
+            while (!lane.queue.isEmpty()) {
+                DiscordWebhook merged = message.mergeWith(lane.queue.peekFirst().webhook);
+                if (merged == null) {
+                    break;
+                }
+                message = merged;
+                batch.add(lane.queue.pollFirst());
+            }
+            lane.inFlight = true;
+        }
+
+        Request request;
+        try {
+            request = new Request.Builder()
+                    .url(lane.url)
+                    .post(RequestBody.create(message.createPayload().toString(), JSON))
+                    .addHeader("User-Agent", "FusionKit-DiscordWebhook/1.0")
+                    .build();
+        } catch (RuntimeException e) {
+            // Retrying cannot fix the payload, fail the batch and carry on with the queue
+            logger.error("Discord webhook <{}> could not build a request for {} message(s)", lane.id, batch.size(), e);
+            finish(lane, batch, e);
+            return;
+        }
+
+        long startTime = System.currentTimeMillis();
+        client.newCall(request).enqueue(new Callback() {
+            @Override
+            public void onResponse(Call call, Response response) {
+                try (response) {
+                    handleResponse(lane, batch, response, startTime);
+                }
+            }
+
+            @Override
+            public void onFailure(Call call, IOException e) {
+                retryOrFail(lane, batch, e);
+            }
+        });
+    }
+
+    private void handleResponse(Lane lane, List<Pending> batch, Response response, long startTime) {
+        long now = System.currentTimeMillis();
+        synchronized (lane) {
+            String remaining = response.header("X-RateLimit-Remaining");
+            String resetAfter = response.header("X-RateLimit-Reset-After");
+            if (remaining != null && resetAfter != null) {
+                try {
+                    lane.remaining = Integer.parseInt(remaining);
+                    lane.resetAt = now + (long) Math.ceil(Double.parseDouble(resetAfter) * 1000);
+                } catch (NumberFormatException e) {
+                    logger.debug("Ignoring malformed Discord rate limit headers: {} / {}", remaining, resetAfter);
+                }
+            }
+        }
+
+        if (response.isSuccessful()) {
+            finish(lane, batch, null);
+            logger.debug("Discord webhook <{}> sent {} message(s) in <{}ms>", lane.id, batch.size(), now - startTime);
+            return;
+        }
+
+        String body = readBody(response);
+        if (response.code() == 429) {
+            long retryAfter = retryAfterMillis(response, body);
+            boolean global = "true".equalsIgnoreCase(response.header("X-RateLimit-Global"))
+                    || "global".equalsIgnoreCase(response.header("X-RateLimit-Scope"));
+            if (global) {
+                globalResetAt = now + retryAfter;
+            }
+            logger.warn("Discord webhook <{}> rate limited{}, retrying in {}ms", lane.id, global ? " globally" : "", retryAfter);
+            requeue(lane, batch, now + retryAfter);
+            return;
+        }
+
+        IOException error = new IOException("Discord webhook request failed: " + response.code() + " "
+                + response.message() + " - " + body);
+        if (response.code() >= 500) {
+            retryOrFail(lane, batch, error);
+        } else {
+            logger.error("Discord webhook <{}> rejected {} message(s): {} {} - {}", lane.id, batch.size(),
+                    response.code(), response.message(), body);
+            finish(lane, batch, error);
+        }
+    }
+
+    private void retryOrFail(Lane lane, List<Pending> batch, IOException error) {
+        int attempt = ++batch.get(0).attempts;
+        if (attempt > maxRetries) {
+            logger.error("Discord webhook <{}> failed after {} attempts: {}", lane.id, attempt, error.getMessage());
+            finish(lane, batch, error);
+            return;
+        }
+
+        long backoff = Math.min(MAX_BACKOFF_MILLIS, baseBackoffMillis << Math.min(attempt - 1, 16));
+        backoff += ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+        logger.warn("Discord webhook <{}> failed (attempt {}/{}), retrying in {}ms: {}", lane.id, attempt,
+                maxRetries, backoff, error.getMessage());
+        requeue(lane, batch, System.currentTimeMillis() + backoff);
+    }
+
+    private void requeue(Lane lane, List<Pending> batch, long retryAt) {
+        synchronized (lane) {
+            int attempts = batch.get(0).attempts;
+            for (int i = batch.size() - 1; i >= 0; i--) {
+                Pending pending = batch.get(i);
+                pending.attempts = attempts;
+                lane.queue.addFirst(pending);
+            }
+            lane.retryAt = retryAt;
+            lane.inFlight = false;
+        }
+        schedule(lane, 0);
+    }
+
+    private void finish(Lane lane, List<Pending> batch, Exception error) {
+        synchronized (lane) {
+            lane.inFlight = false;
+            lane.retryAt = 0;
+        }
+        for (Pending pending : batch) {
+            if (error == null) {
+                pending.future.complete(null);
+            } else {
+                pending.future.completeExceptionally(error);
+            }
+        }
+        schedule(lane, 0);
+    }
+
+    private static long retryAfterMillis(Response response, String body) {
+        try {
+            JsonObject json = JsonParser.parseString(body).getAsJsonObject();
+            if (json.has("retry_after")) {
+                return (long) Math.ceil(json.get("retry_after").getAsDouble() * 1000);
+            }
+        } catch (Exception e) {
+            // Fall back to the header
+        }
+        String header = response.header("Retry-After");
+        if (header != null) {
+            try {
+                return (long) Math.ceil(Double.parseDouble(header) * 1000);
+            } catch (NumberFormatException e) {
+                // Fall through to the default
+            }
+        }
+        return 1000;
+    }
+
+    private static String readBody(Response response) {
+        try {
+            return response.body() != null ? response.body().string() : "";
+        } catch (IOException e) {
+            return "";
+        }
+    }
+
+    private static final class Pending {
+        private final DiscordWebhook webhook;
+        private final CompletableFuture<Void> future;
+        private final long enqueuedAt;
+        private int attempts = 0;
+
+        private Pending(DiscordWebhook webhook, CompletableFuture<Void> future, long enqueuedAt) {
+            this.webhook = webhook;
+            this.future = future;
+            this.enqueuedAt = enqueuedAt;
+        }
+    }
+
+    /**
+     * Queue and rate limit state of a single webhook URL.
+     */
+    private static final class Lane {
+        private final String url;
+        private final String id;
+        private final Deque<Pending> queue = new ArrayDeque<>();
+        private boolean inFlight = false;
+        private int remaining = -1;
+        private long resetAt = 0;
+        private long retryAt = 0;
+        private long wakeAt = 0;
+        private long dropped = 0;
+
+        private Lane(String url) {
+            this.url = url;
+            String[] parts = url.split("/");
+            this.id = parts.length > 5 ? parts[5] : url;
+        }
+    }
+
+    /**
+     * Builder class for creating dispatchers with custom queueing and retry settings.
+     */
+    public static class Builder {
+        private OkHttpClient client;
+        private int queueCapacity = 100;
+        private long coalesceWindowMillis = 250;
+        private int maxRetries = 5;
+        private long baseBackoffMillis = 500;
+
+        /**
+         * Sets the HTTP client used for sending, e.g. one with a proxy.
+         * @param client The client, null for the shared {@link FusionHttp#WEBHOOK} client
+         * @return This builder instance
+         */
+        public Builder setClient(OkHttpClient client) {
+            this.client = client;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of queued messages per webhook URL.
+         * @param queueCapacity The queue capacity
+         * @return This builder instance
+         */
+        public Builder setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+            return this;
+        }
+
+        /**
+         * Sets how long a message waits for followers to be merged with.
+         * @param coalesceWindowMillis The window in milliseconds, 0 disables the delay
+         * @return This builder instance
+         */
+        public Builder setCoalesceWindowMillis(long coalesceWindowMillis) {
+            this.coalesceWindowMillis = coalesceWindowMillis;
+            return this;
+        }
+
+        /**
+         * Sets how often a message is retried after server errors or network failures.
+         * Rate limited requests are always retried.
+         * @param maxRetries The maximum number of retries
+         * @return This builder instance
+         */
+        public Builder setMaxRetries(int maxRetries) {
+            this.maxRetries = maxRetries;
+            return this;
+        }
+
+        /**
+         * Sets the delay before the first retry, doubled for every further attempt.
+         * @param baseBackoffMillis The initial backoff in milliseconds
+         * @return This builder instance
+         */
+        public Builder setBaseBackoffMillis(long baseBackoffMillis) {
+            this.baseBackoffMillis = baseBackoffMillis;
+            return this;
+        }
+
+        /**
+         * Builds and returns a new dispatcher.
+         * @return The configured DiscordWebhookDispatcher
+         */
+        public DiscordWebhookDispatcher build() {
+            return new DiscordWebhookDispatcher(this);
+        }
+    }
+}
@@ -1,105 +1,242 @@
 package de.marcandreher.fusionkit.core.externals;
 
 import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 
 import org.slf4j.Logger;
 
-import com.google.gson.JsonArray;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 
 import de.marcandreher.fusionkit.core.FusionKit;
+import de.marcandreher.fusionkit.core.http.FusionHttp;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.Response;
-import com.github.benmanes.caffeine.cache.Cache;
-import com.github.benmanes.caffeine.cache.Caffeine;
 
+/**
+ * Total download counts of all releases of a GitHub repository.
+ *
+ * <p>Totals are cached per repository and refreshed in the background 30 minutes after they
+ * were fetched; callers keep getting the cached value while the refresh runs. Refreshes send
+ * the {@code ETag} of every page as {@code If-None-Match}, so unchanged pages are answered with
+ * {@code 304} and don't count against the rate limit. If a refresh fails the old total is kept.
+ * If the first fetch fails, 0 is cached and retried in the background after a minute.
+ */
 public class GitHubReleaseDownloads {
-    private static final OkHttpClient client = new OkHttpClient();
+    private static final OkHttpClient client = FusionHttp.getClient(FusionHttp.GITHUB);
+    private static Logger logger = FusionKit.getLogger(GitHubReleaseDownloads.class);
+
+    public static final String DEFAULT_API_URL = "https://api.github.com";
+    private static final int PAGE_SIZE = 100;
+    private static final int MAX_PAGES = 50;
+    private static final long FAILURE_RETRY_MILLIS = 60_000;
 
-    // Simple in-memory cache keyed by "owner/repo" storing total downloads for latest release.
-    private static final Cache<String, Long> cache = Caffeine.newBuilder()
-            .expireAfterWrite(30, TimeUnit.MINUTES)
+    // Keyed by the releases URL
+    private static final LoadingCache<String, Releases> cache = Caffeine.newBuilder()
+            .refreshAfterWrite(30, TimeUnit.MINUTES)
             .maximumSize(500)
-            .build();
+            .build(new CacheLoader<>() {
+                @Override
+                public Releases load(String url) {
+                    try {
+                        return fetch(url, null);
+                    } catch (IOException e) {
+                        // Cache the failure so callers don't each wait for GitHub while it is unreachable
+                        logger.error("Failed to fetch releases from {}, retrying in {}ms: {}", url, FAILURE_RETRY_MILLIS,
+                                e.getMessage());
+                        return Releases.failed();
+                    }
+                }
 
-    private static Logger logger = FusionKit.getLogger(GitHubReleaseDownloads.class);
+                @Override
+                public Releases reload(String url, Releases previous) {
+                    try {
+                        return fetch(url, previous);
+                    } catch (IOException e) {
+                        if (previous.isFailed()) {
+                            logger.warn("Failed to fetch releases from {} again, retrying in {}ms: {}", url,
+                                    FAILURE_RETRY_MILLIS, e.getMessage());
+                            return Releases.failed();
+                        }
+                        logger.warn("Failed to refresh releases from {}, keeping the previous total: {}", url, e.getMessage());
+                        return previous;
+                    }
+                }
+            });
 
     private final String OWNER;
     private final String REPO;
     private final String ALL_RELEASES_API_URL;
 
     public GitHubReleaseDownloads(String owner, String repo) {
+        this(owner, repo, DEFAULT_API_URL);
+    }
+
+    /**
+     * @param apiUrl Base URL of the GitHub API, e.g. for GitHub Enterprise
+     */
+    public GitHubReleaseDownloads(String owner, String repo, String apiUrl) {
         this.OWNER = owner;
         this.REPO = repo;
-        this.ALL_RELEASES_API_URL = "https://api.github.com/repos/" + OWNER + "/" + REPO + "/releases";
+        this.ALL_RELEASES_API_URL = apiUrl + "/repos/" + OWNER + "/" + REPO + "/releases";
     }
 
-
     /**
      * Returns the total download count for all releases of the repository.
+     * Only the first call per repository waits for GitHub.
+     * @return The total, or 0 if it was never fetched successfully
      */
     public long getTotalDownloadsForRelease() {
-        final String key = OWNER + "/" + REPO;
         try {
-            return cache.get(key, k -> {
-                Request request = new Request.Builder()
-                        .url(ALL_RELEASES_API_URL)
-                        .header("Accept", "application/vnd.github+json")
-                        .build();
-                try (Response response = client.newCall(request).execute()) {
-                    if (response.isSuccessful()) {
-                        String json = response.body().string();
-                        return extractDownloadCountAllReleases(json);
+            Releases releases = cache.get(ALL_RELEASES_API_URL);
+            if (releases.isFailed() && releases.retryAt() <= System.currentTimeMillis()) {
+                cache.refresh(ALL_RELEASES_API_URL);
+            }
+            return releases.total();
+        } catch (RuntimeException e) {
+            logger.error("Failed to fetch releases data for {}/{}: {}", OWNER, REPO, e.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * Refreshes the total in the background, the current total stays available meanwhile.
+     * @return The refreshed total
+     */
+    public CompletableFuture<Long> refresh() {
+        return cache.refresh(ALL_RELEASES_API_URL).thenApply(Releases::total);
+    }
+
+    /**
+     * Fetches all pages of releases, reusing pages GitHub reports as unchanged.
+     */
+    private static Releases fetch(String releasesUrl, Releases previous) throws IOException {
+        List<Page> pages = new ArrayList<>();
+        String pageUrl = releasesUrl + "?per_page=" + PAGE_SIZE;
+
+        while (pageUrl != null) {
+            if (pages.size() == MAX_PAGES) {
+                logger.warn("Stopped reading releases of {} after {} pages", releasesUrl, MAX_PAGES);
+                break;
+            }
+            Page cached = previous != null && pages.size() < previous.pages().size() ? previous.pages().get(pages.size()) : null;
+            if (cached != null && !cached.url().equals(pageUrl)) {
+                cached = null;
+            }
+
+            Request.Builder request = new Request.Builder()
+                    .url(pageUrl)
+                    .header("Accept", "application/vnd.github+json");
+            if (cached != null && cached.etag() != null) {
+                request.header("If-None-Match", cached.etag());
+            }
+
+            Page page;
+            try (Response response = client.newCall(request.build()).execute()) {
+                if (response.code() == 304 && cached != null) {
+                    page = cached;
+                } else if (response.isSuccessful()) {
+                    long total = sumDownloads(response.body().charStream());
+                    page = new Page(pageUrl, response.header("ETag"), total, nextLink(response.header("Link")));
+                } else {
+                    throw new IOException("GitHub responded with " + response.code() + " " + response.message());
+                }
+            }
+            pages.add(page);
+            pageUrl = page.next();
+        }
+        return new Releases(List.copyOf(pages), 0);
+    }
+
+    /**
+     * Sums {@code assets[].download_count} over a page of releases without building a JSON tree.
+     */
+    private static long sumDownloads(Reader body) throws IOException {
+        long total = 0;
+        try (JsonReader reader = new JsonReader(body)) {
+            reader.beginArray();
+            while (reader.hasNext()) {
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    if (reader.nextName().equals("assets") && reader.peek() == JsonToken.BEGIN_ARRAY) {
+                        total += sumAssets(reader);
                     } else {
-                        logger.error("Failed to fetch releases data for {}: {}", key, response.message());
-                        return 0L;
+                        reader.skipValue();
                     }
-                } catch (IOException e) {
-                    logger.error("IOException occurred while fetching releases data for {}: {}", key, e.getMessage());
-                    return 0L;
                 }
-            });
-        } catch (RuntimeException e) {
-            e.printStackTrace();
-            // fallback: direct fetch
-            Request request = new Request.Builder()
-                    .url(ALL_RELEASES_API_URL)
-                    .header("Accept", "application/vnd.github+json")
-                    .build();
-            try (Response response = client.newCall(request).execute()) {
-                if (response.isSuccessful()) {
-                    String json = response.body().string();
-                    return extractDownloadCountAllReleases(json);
+                reader.endObject();
+            }
+            reader.endArray();
+        }
+        return total;
+    }
+
+    private static long sumAssets(JsonReader reader) throws IOException {
+        long total = 0;
+        reader.beginArray();
+        while (reader.hasNext()) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if (reader.nextName().equals("download_count") && reader.peek() == JsonToken.NUMBER) {
+                    total += reader.nextLong();
                 } else {
-                    logger.error("Failed to fetch releases data for {}: {}", key, response.message());
-                    return 0;
+                    reader.skipValue();
                 }
-            } catch (IOException ex) {
-                logger.error("IOException occurred while fetching releases data for {}: {}", key, ex.getMessage());
-                return 0;
             }
+            reader.endObject();
         }
+        reader.endArray();
+        return total;
     }
 
-    // For all releases
-    private long extractDownloadCountAllReleases(String jsonInput) {
-        long totalDownloads = 0;
-        JsonArray releases = JsonParser.parseString(jsonInput).getAsJsonArray();
-        for (JsonElement releaseElem : releases) {
-            JsonObject release = releaseElem.getAsJsonObject();
-            JsonArray assets = release.getAsJsonArray("assets");
-            if (assets != null) {
-                for (JsonElement assetElem : assets) {
-                    JsonObject asset = assetElem.getAsJsonObject();
-                    int count = asset.get("download_count").getAsInt();
-                    totalDownloads += count;
+    /**
+     * Extracts the {@code rel="next"} URL from a GitHub {@code Link} header.
+     */
+    static String nextLink(String header) {
+        if (header == null) {
+            return null;
+        }
+        for (String link : header.split(",")) {
+            if (link.contains("rel=\"next\"")) {
+                int start = link.indexOf('<');
+                int end = link.indexOf('>');
+                if (start >= 0 && end > start) {
+                    return link.substring(start + 1, end);
                 }
             }
         }
-        return totalDownloads;
+        return null;
+    }
+
+    private record Page(String url, String etag, long total, String next) { }
+
+    /**
+     * @param retryAt When a failed first fetch may be retried, 0 for fetched releases
+     */
+    private record Releases(List<Page> pages, long retryAt) {
+
+        static Releases failed() {
+            return new Releases(List.of(), System.currentTimeMillis() + FAILURE_RETRY_MILLIS);
+        }
+
+        boolean isFailed() {
+            return retryAt > 0;
+        }
+
+        long total() {
+            long total = 0;
+            for (Page page : pages) {
+                total += page.total();
+            }
+            return total;
+        }
     }
 }
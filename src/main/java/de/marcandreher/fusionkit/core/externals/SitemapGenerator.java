@@ -1,97 +1,80 @@
 package de.marcandreher.fusionkit.core.externals;
 
-import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.MalformedURLException;
 import java.net.URI;
-import java.net.URISyntaxException;
-import java.util.Calendar;
+import java.nio.file.Path;
+import java.time.Instant;
 
 import org.slf4j.Logger;
 
-import com.redfin.sitemapgenerator.GoogleCodeSitemapUrl.Options;
-
 import de.marcandreher.fusionkit.core.FusionKit;
 
-import com.redfin.sitemapgenerator.WebSitemapGenerator;
-
+/**
+ * Simple sitemap generator on top of {@link SitemapWriter}. URLs are streamed to disk as they
+ * are added; {@link #write()} finishes the files.
+ */
 public class SitemapGenerator {
     private static final Logger logger = FusionKit.getLogger(SitemapGenerator.class);
 
-    private long startTime = System.currentTimeMillis();
-    private WebSitemapGenerator wsg = null;
-    private String domain;
-    private int urlCount = 0;
-    private static final double MAX_PRIORITY = 1.0;
-    private static final double MIN_PRIORITY = 0.1;
-
+    private final SitemapWriter writer;
 
     public SitemapGenerator(String domain, String directoryPath) throws MalformedURLException {
-        File sitemapDirectory = new File(directoryPath);
-        
+        this(domain, directoryPath, false);
+    }
+
+    /**
+     * @param incremental Only rewrite the shards that changed since the last {@link #write()},
+     *                    see {@link SitemapWriter.Builder#setIncremental(boolean)}
+     */
+    public SitemapGenerator(String domain, String directoryPath, boolean incremental) throws MalformedURLException {
         try {
-            wsg = new WebSitemapGenerator(domain, sitemapDirectory);
-            this.domain = domain;
-        } catch (Exception e) {
-            logger.error("Failed to create WebSitemapGenerator: {}", e.getMessage(), e);
-            throw e;
+            URI.create(domain).toURL();
+            writer = new SitemapWriter.Builder(domain, Path.of(directoryPath)).setIncremental(incremental).build();
+        } catch (IllegalArgumentException e) {
+            throw new MalformedURLException("Invalid sitemap domain: " + domain);
+        } catch (IOException e) {
+            logger.error("Failed to create sitemap directory: {}", e.getMessage(), e);
+            throw new UncheckedIOException(e);
         }
     }
 
+    /**
+     * Adds a URL without priority, crawlers treat it as the default of 0.5.
+     */
     public void addUrl(String url) {
-        urlCount++;
-        double priority = calculatePriority();
-        addSitemapUrl(priority, url);
+        writer.addUrl(url);
     }
-    
-    private double calculatePriority() {
-        // First URL gets max priority (1.0), subsequent URLs get decreasing priority
-        // Minimum priority is 0.1
-        double priority = MAX_PRIORITY - ((urlCount - 1) * 0.1);
-        return Math.max(priority, MIN_PRIORITY);
+
+    /**
+     * Adds a URL with an explicit last modification time and priority.
+     * @param lastMod Last modification time, or null to omit it
+     * @param priority Priority between 0.0 and 1.0
+     */
+    public void addUrl(String url, Instant lastMod, double priority) {
+        writer.addUrl(url, lastMod, priority);
     }
 
     public void addSitemapUrl(String url) {
-        urlCount++;
-        double priority = calculatePriority();
-        addSitemapUrlWithPriority(priority, url);
+        writer.addUrl(url);
     }
-    
+
     public void addSitemapUrl(double priority, String url) {
-        addSitemapUrlWithPriority(priority, url);
-    }
-    
-    private void addSitemapUrlWithPriority(double priority, String url) {
-        try {
-            String fullUrlString = domain + url;
-            
-            URI fullUri = new URI(fullUrlString);
-            
-            Options options = new Options(fullUri.toURL(), "xml");
-            
-            options.priority(priority);
-            
-            Calendar cal = Calendar.getInstance();
-            cal.set(Calendar.DAY_OF_MONTH, cal.getFirstDayOfWeek());
-            options.lastMod(cal.getTime());
-            
-            wsg.addUrl(options.build());
-        } catch (URISyntaxException e) {
-            logger.error("URI syntax error for URL: {} - {}", url, e.getMessage(), e);
-        } catch (MalformedURLException e) {
-            logger.error("Malformed URL error for URL: {} - {}", url, e.getMessage(), e);
-        } catch (Exception e) {
-            logger.error("Unexpected error adding sitemap URL: {} - {}", url, e.getMessage(), e);
-        }
+        writer.addUrl(url, null, priority);
     }
 
+    /**
+     * Finishes the sitemap files.
+     * @return The milliseconds spent since the generator was created
+     */
     public long write() {
         try {
-            wsg.write();
-            logger.debug("Sitemap written with {} URLs in <{}ms>", urlCount, System.currentTimeMillis() - startTime);
-            return System.currentTimeMillis() - startTime;
-        } catch (Exception e) {
+            writer.close();
+            return writer.getElapsedMillis();
+        } catch (IOException e) {
             logger.error("Error writing sitemap: {}", e.getMessage(), e);
-            throw e;
+            throw new UncheckedIOException(e);
         }
     }
 }
@@ -0,0 +1,77 @@
+package de.marcandreher.fusionkit.core.externals;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.slf4j.Logger;
+
+import de.marcandreher.fusionkit.core.FusionKit;
+
+/**
+ * On-disk record of the shards written by an incremental {@link SitemapWriter}: one line with
+ * URL count, content digest and last change per shard, so a 5M URL sitemap needs ~100 lines.
+ */
+final class SitemapManifest {
+    private static final Logger logger = FusionKit.getLogger(SitemapManifest.class);
+
+    private static final String HEADER = "fusionkit-sitemap-manifest 1";
+
+    /**
+     * A shard as recorded in the manifest.
+     * @param urls Number of URLs in the shard
+     * @param digest SHA-256 of the shard's entries, hex encoded
+     * @param lastModified Epoch seconds of the last time the shard content changed
+     */
+    record Shard(int urls, String digest, long lastModified) { }
+
+    private SitemapManifest() { }
+
+    /**
+     * Loads the shards recorded for the given settings.
+     * @return The shards in order, empty if there is no manifest or it was written with other settings
+     */
+    static List<Shard> load(Path file, boolean gzip) {
+        List<Shard> shards = new ArrayList<>();
+        if (!Files.exists(file)) {
+            return shards;
+        }
+
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            if (!header(gzip).equals(reader.readLine())) {
+                return shards;
+            }
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] parts = line.split(" ");
+                shards.add(new Shard(Integer.parseInt(parts[0]), parts[1], Long.parseLong(parts[2])));
+            }
+            return shards;
+        } catch (Exception e) {
+            logger.warn("Ignoring unreadable sitemap manifest {}: {}", file, e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    static void save(Path file, boolean gzip, List<Shard> shards) throws IOException {
+        Path temp = file.resolveSibling("." + file.getFileName() + ".tmp");
+        try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            writer.write(header(gzip));
+            writer.write('\n');
+            for (Shard shard : shards) {
+                writer.write(shard.urls() + " " + shard.digest() + " " + shard.lastModified() + "\n");
+            }
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static String header(boolean gzip) {
+        return HEADER + " gzip=" + gzip;
+    }
+}
@@ -0,0 +1,473 @@
+package de.marcandreher.fusionkit.core.externals;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import org.slf4j.Logger;
+
+import de.marcandreher.fusionkit.core.FusionKit;
+
+/**
+ * Streams sitemap entries straight to disk, so memory use stays constant no matter how many
+ * URLs are written.
+ *
+ * <p>Entries go into shards of at most 50,000 URLs (and 50 MB), named {@code sitemap1.xml},
+ * {@code sitemap2.xml}, ... . When more than one shard is written, {@code sitemap_index.xml}
+ * lists them all. A single shard is written as {@code sitemap.xml} without an index. Each file
+ * is written to a temporary file first and moved into place once complete.
+ *
+ * <p>In incremental mode each shard is kept in memory until it is full and only written if its
+ * content differs from the previous run, as recorded in {@code sitemap.manifest}. The index is
+ * only rewritten if a shard changed and keeps the old lastmod of unchanged shards. Feed URLs in
+ * a stable order (e.g. {@code ORDER BY id}) so unchanged URLs land in the same shard, e.g. from
+ * an hourly {@code FusionCron} task.
+ *
+ * <pre>
+ * try (SitemapWriter writer = new SitemapWriter.Builder("https://example.com", Path.of("public")).setGzip(true).build();
+ *      MySQL mysql = FusionKit.database.getConnection();
+ *      Stream&lt;Page&gt; pages = mysql.stream("SELECT slug, updated_at FROM pages", Page::from)) {
+ *     pages.forEach(page -&gt; writer.addUrl("/" + page.slug(), page.updatedAt(), 0.5));
+ * }
+ * </pre>
+ */
+public class SitemapWriter implements AutoCloseable {
+    private static final Logger logger = FusionKit.getLogger(SitemapWriter.class);
+
+    public static final int MAX_URLS_PER_SHARD = 50_000;
+    public static final long MAX_BYTES_PER_SHARD = 50L * 1024 * 1024;
+
+    private static final String XML_HEADER = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n";
+    private static final String URLSET_OPEN = "<urlset xmlns=\"http://www.sitemaps.org/schemas/sitemap/0.9\">\n";
+    private static final String URLSET_CLOSE = "</urlset>\n";
+    private static final String INDEX_OPEN = "<sitemapindex xmlns=\"http://www.sitemaps.org/schemas/sitemap/0.9\">\n";
+    private static final String INDEX_CLOSE = "</sitemapindex>\n";
+
+    private final String baseUrl;
+    private final Path directory;
+    private final String fileName;
+    private final boolean gzip;
+    private final int maxUrlsPerShard;
+    private final boolean incremental;
+    private final List<SitemapManifest.Shard> previousShards;
+
+    private final long startTime = System.currentTimeMillis();
+    private final List<SitemapManifest.Shard> shards = new ArrayList<>();
+    private boolean shardOpen = false;
+    private Writer shardWriter;
+    private Path shardTempFile;
+    private StringBuilder shardBuffer;
+    private int shardUrls = 0;
+    private long shardBytes = 0;
+    private long urlCount = 0;
+    private int changedShards = 0;
+    private boolean closed = false;
+    private final List<Path> writtenFiles = new ArrayList<>();
+
+    private SitemapWriter(Builder builder) throws IOException {
+        this.baseUrl = builder.baseUrl.endsWith("/") ? builder.baseUrl.substring(0, builder.baseUrl.length() - 1) : builder.baseUrl;
+        this.directory = builder.directory;
+        this.fileName = builder.fileName;
+        this.gzip = builder.gzip;
+        this.maxUrlsPerShard = builder.maxUrlsPerShard;
+        this.incremental = builder.incremental;
+        Files.createDirectories(directory);
+        this.previousShards = incremental ? SitemapManifest.load(manifestFile(), gzip) : List.of();
+    }
+
+    /**
+     * Adds a URL without lastmod and priority.
+     * @param url Absolute URL, or a path relative to the base URL
+     */
+    public void addUrl(String url) {
+        addUrl(url, null, Double.NaN);
+    }
+
+    /**
+     * Adds a URL without priority.
+     * @param url Absolute URL, or a path relative to the base URL
+     * @param lastMod Last modification time, or null to omit it
+     */
+    public void addUrl(String url, Instant lastMod) {
+        addUrl(url, lastMod, Double.NaN);
+    }
+
+    /**
+     * Adds a URL to the current shard, starting a new shard when the current one is full.
+     * @param url Absolute URL, or a path relative to the base URL
+     * @param lastMod Last modification time, or null to omit it
+     * @param priority Priority between 0.0 and 1.0, or {@link Double#NaN} to omit it
+     * @throws UncheckedIOException If the shard can't be written
+     */
+    public void addUrl(String url, Instant lastMod, double priority) {
+        if (closed) {
+            throw new IllegalStateException("SitemapWriter is already closed");
+        }
+        if (priority < 0.0 || priority > 1.0) {
+            throw new IllegalArgumentException("Priority must be between 0.0 and 1.0: " + priority);
+        }
+
+        StringBuilder entry = new StringBuilder(128);
+        entry.append("<url><loc>");
+        if (!url.startsWith("http://") && !url.startsWith("https://")) {
+            escape(baseUrl, entry);
+            if (!url.startsWith("/")) {
+                entry.append('/');
+            }
+        }
+        escape(url, entry);
+        entry.append("</loc>");
+        if (lastMod != null) {
+            entry.append("<lastmod>").append(lastMod.truncatedTo(ChronoUnit.SECONDS)).append("</lastmod>");
+        }
+        if (!Double.isNaN(priority)) {
+            entry.append("<priority>");
+            appendPriority(priority, entry);
+            entry.append("</priority>");
+        }
+        entry.append("</url>\n");
+
+        // The size limit applies to the UTF-8 file, so non-ASCII URLs count with their encoded size
+        long entryBytes = utf8Length(entry);
+        try {
+            if (!shardOpen || shardUrls >= maxUrlsPerShard
+                    || shardBytes + entryBytes + URLSET_CLOSE.length() > MAX_BYTES_PER_SHARD) {
+                startShard();
+            }
+            if (incremental) {
+                shardBuffer.append(entry);
+            } else {
+                shardWriter.append(entry);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write sitemap shard " + (shards.size() + 1), e);
+        }
+        shardUrls++;
+        shardBytes += entryBytes;
+        urlCount++;
+    }
+
+    /**
+     * Finishes the last shard, writes the index if there is more than one shard and
+     * removes shards of a previous, larger run.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        if (!shardOpen) {
+            startShard();
+        }
+        finishShard(true);
+
+        Path index = directory.resolve(fileName + "_index.xml");
+        if (shards.size() == 1) {
+            Files.deleteIfExists(index);
+        } else {
+            if (changedShards > 0 || shards.size() != previousShards.size() || !Files.exists(index)) {
+                writeIndex(index);
+                writtenFiles.add(index);
+            }
+            Files.deleteIfExists(directory.resolve(fileName + extension()));
+        }
+        deleteStaleShards(shards.size() == 1 ? 1 : shards.size() + 1);
+
+        if (incremental) {
+            SitemapManifest.save(manifestFile(), gzip, shards);
+        } else {
+            // The files no longer match what the manifest recorded
+            Files.deleteIfExists(manifestFile());
+        }
+
+        logger.debug("Sitemap written with {} URLs, {}/{} shard(s) changed in <{}ms>", urlCount, changedShards,
+                shards.size(), System.currentTimeMillis() - startTime);
+    }
+
+    public long getUrlCount() {
+        return urlCount;
+    }
+
+    public int getShardCount() {
+        return shards.size();
+    }
+
+    /**
+     * Returns how many shards were actually written, in incremental mode only those that changed.
+     */
+    public int getChangedShardCount() {
+        return changedShards;
+    }
+
+    /**
+     * Returns the files written by this writer, the index last.
+     */
+    public List<Path> getWrittenFiles() {
+        return Collections.unmodifiableList(writtenFiles);
+    }
+
+    /**
+     * Returns the milliseconds since this writer was created.
+     */
+    public long getElapsedMillis() {
+        return System.currentTimeMillis() - startTime;
+    }
+
+    private void startShard() throws IOException {
+        if (shardOpen) {
+            finishShard(false);
+        }
+        shardOpen = true;
+        shardUrls = 0;
+        shardBytes = XML_HEADER.length() + URLSET_OPEN.length();
+        if (incremental) {
+            shardBuffer = new StringBuilder(64 * 1024);
+            return;
+        }
+        shardTempFile = directory.resolve("." + fileName + (shards.size() + 1) + extension() + ".tmp");
+        shardWriter = openShard(shardTempFile);
+    }
+
+    /**
+     * Completes the open shard and moves it into place.
+     * @param last Whether no shard follows, a lone shard is then written as {@code sitemap.xml}
+     */
+    private void finishShard(boolean last) throws IOException {
+        shardOpen = false;
+        int number = shards.size() + 1;
+        Path target = directory.resolve(last && number == 1 ? fileName + extension() : fileName + number + extension());
+        long now = Instant.now().getEpochSecond();
+
+        if (!incremental) {
+            shardWriter.write(URLSET_CLOSE);
+            shardWriter.close();
+            shardWriter = null;
+            moveIntoPlace(shardTempFile, target);
+            shards.add(new SitemapManifest.Shard(shardUrls, "", now));
+            writtenFiles.add(target);
+            changedShards++;
+            return;
+        }
+
+        String content = shardBuffer.toString();
+        shardBuffer = null;
+        String digest = sha256(content);
+        SitemapManifest.Shard previous = number <= previousShards.size() ? previousShards.get(number - 1) : null;
+        if (previous != null && previous.digest().equals(digest) && Files.exists(target)) {
+            shards.add(previous);
+            return;
+        }
+
+        Path temp = directory.resolve("." + fileName + number + extension() + ".tmp");
+        try (Writer writer = openShard(temp)) {
+            writer.write(content);
+            writer.write(URLSET_CLOSE);
+        }
+        moveIntoPlace(temp, target);
+        shards.add(new SitemapManifest.Shard(shardUrls, digest, now));
+        writtenFiles.add(target);
+        changedShards++;
+    }
+
+    /**
+     * Opens a shard file and writes the urlset header.
+     */
+    private Writer openShard(Path file) throws IOException {
+        OutputStream out = Files.newOutputStream(file);
+        if (gzip) {
+            out = new GZIPOutputStream(out, 64 * 1024);
+        }
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        writer.write(XML_HEADER);
+        writer.write(URLSET_OPEN);
+        return writer;
+    }
+
+    private void writeIndex(Path index) throws IOException {
+        Path temp = directory.resolve("." + fileName + "_index.xml.tmp");
+
+        try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            writer.write(XML_HEADER);
+            writer.write(INDEX_OPEN);
+            for (int i = 1; i <= shards.size(); i++) {
+                StringBuilder entry = new StringBuilder("<sitemap><loc>");
+                escape(baseUrl + "/" + fileName + i + extension(), entry);
+                entry.append("</loc><lastmod>").append(Instant.ofEpochSecond(shards.get(i - 1).lastModified()))
+                        .append("</lastmod></sitemap>\n");
+                writer.append(entry);
+            }
+            writer.write(INDEX_CLOSE);
+        }
+        moveIntoPlace(temp, index);
+    }
+
+    private void deleteStaleShards(int from) throws IOException {
+        // Shards with the other extension are left over from a run with different gzip setting
+        String otherExtension = gzip ? ".xml" : ".xml.gz";
+        Files.deleteIfExists(directory.resolve(fileName + otherExtension));
+        for (int i = 1; i < from; i++) {
+            Files.deleteIfExists(directory.resolve(fileName + i + otherExtension));
+        }
+        for (int i = from; ; i++) {
+            boolean deleted = Files.deleteIfExists(directory.resolve(fileName + i + ".xml"));
+            deleted |= Files.deleteIfExists(directory.resolve(fileName + i + ".xml.gz"));
+            if (!deleted) {
+                return;
+            }
+        }
+    }
+
+    private Path manifestFile() {
+        return directory.resolve(fileName + ".manifest");
+    }
+
+    private String extension() {
+        return gzip ? ".xml.gz" : ".xml";
+    }
+
+    private static void moveIntoPlace(Path source, Path target) throws IOException {
+        Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static String sha256(String content) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(content.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static void appendPriority(double priority, StringBuilder out) {
+        int hundredths = (int) Math.round(priority * 100);
+        out.append(hundredths / 100).append('.');
+        int fraction = hundredths % 100;
+        if (fraction % 10 == 0) {
+            out.append(fraction / 10);
+        } else {
+            out.append(fraction / 10).append(fraction % 10);
+        }
+    }
+
+    /**
+     * Counts the bytes of a text encoded as UTF-8 without encoding it.
+     */
+    private static long utf8Length(CharSequence value) {
+        long bytes = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                bytes++;
+            } else if (c < 0x800) {
+                bytes += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length() && Character.isLowSurrogate(value.charAt(i + 1))) {
+                bytes += 4;
+                i++;
+            } else {
+                bytes += 3;
+            }
+        }
+        return bytes;
+    }
+
+    private static void escape(String value, StringBuilder out) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '&' -> out.append("&amp;");
+                case '<' -> out.append("&lt;");
+                case '>' -> out.append("&gt;");
+                case '"' -> out.append("&quot;");
+                case '\'' -> out.append("&apos;");
+                default -> out.append(c);
+            }
+        }
+    }
+
+    /**
+     * Builder class for creating sitemap writers.
+     */
+    public static class Builder {
+        private final String baseUrl;
+        private final Path directory;
+        private String fileName = "sitemap";
+        private boolean gzip = false;
+        private int maxUrlsPerShard = MAX_URLS_PER_SHARD;
+        private boolean incremental = false;
+
+        /**
+         * @param baseUrl Base URL relative paths are resolved against, e.g. {@code https://example.com}
+         * @param directory Directory the sitemap files are written to
+         */
+        public Builder(String baseUrl, Path directory) {
+            this.baseUrl = baseUrl;
+            this.directory = directory;
+        }
+
+        /**
+         * Sets the base file name, {@code sitemap} by default.
+         * @param fileName The file name without extension
+         * @return This builder instance
+         */
+        public Builder setFileName(String fileName) {
+            this.fileName = fileName;
+            return this;
+        }
+
+        /**
+         * Enables gzip compression of the shards. The index stays uncompressed.
+         * @param gzip Whether to gzip the shards
+         * @return This builder instance
+         */
+        public Builder setGzip(boolean gzip) {
+            this.gzip = gzip;
+            return this;
+        }
+
+        /**
+         * Sets the number of URLs per shard, capped at {@value SitemapWriter#MAX_URLS_PER_SHARD}.
+         * @param maxUrlsPerShard The maximum URLs per shard
+         * @return This builder instance
+         */
+        public Builder setMaxUrlsPerShard(int maxUrlsPerShard) {
+            if (maxUrlsPerShard < 1) {
+                throw new IllegalArgumentException("maxUrlsPerShard must be positive");
+            }
+            this.maxUrlsPerShard = Math.min(maxUrlsPerShard, MAX_URLS_PER_SHARD);
+            return this;
+        }
+
+        /**
+         * Enables incremental mode, which only rewrites shards whose content changed since the
+         * last run. Costs one shard of memory while writing.
+         * @param incremental Whether to skip unchanged shards
+         * @return This builder instance
+         */
+        public Builder setIncremental(boolean incremental) {
+            this.incremental = incremental;
+            return this;
+        }
+
+        public SitemapWriter build() throws IOException {
+            return new SitemapWriter(this);
+        }
+    }
+}
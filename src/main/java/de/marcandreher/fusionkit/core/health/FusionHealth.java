@@ -0,0 +1,215 @@
+package de.marcandreher.fusionkit.core.health;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.slf4j.Logger;
+
+import de.marcandreher.fusionkit.core.FusionKit;
+import de.marcandreher.fusionkit.core.app.Shutdown;
+import de.marcandreher.fusionkit.core.database.Database;
+
+/**
+ * Liveness and readiness of the application, served by {@code /health/live} and
+ * {@code /health/ready}.
+ *
+ * <p>Checks run in the background every {@link #setInterval(long) interval} and the endpoints
+ * only return the last result, so probing them is as cheap as a static response. Readiness fails
+ * right away once the shutdown started.
+ *
+ * <p>By default readiness checks the database pool and the outbound HTTP queue, liveness the
+ * cron scheduler. More checks can be added:
+ * <pre>
+ * FusionHealth.register(FusionHealth.Probe.READINESS, "redis", () -&gt; redis.ping()
+ *         ? HealthCheck.Result.up("ok") : HealthCheck.Result.down("no pong"));
+ * </pre>
+ */
+public final class FusionHealth {
+    private static final Logger logger = FusionKit.getLogger(FusionHealth.class);
+
+    public static final long CHECK_TIMEOUT_MILLIS = 2_000;
+    public static final int DEFAULT_MAX_QUEUED_HTTP_CALLS = 100;
+
+    public enum Probe {
+        LIVENESS, READINESS
+    }
+
+    private static final Map<String, HealthCheck> livenessChecks = new ConcurrentHashMap<>();
+    private static final Map<String, HealthCheck> readinessChecks = new ConcurrentHashMap<>();
+    private static final ExecutorService checkExecutor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("FK-Health-Check-", 1).factory());
+
+    private static final Report STARTING = Report.of(false, Map.of("startup", HealthCheck.Result.down("checks not evaluated yet")));
+    private static final Report SHUTTING_DOWN = Report.of(false, Map.of("shutdown", HealthCheck.Result.down("shutting down")));
+
+    private static volatile Report liveness = Report.of(true, Map.of());
+    private static volatile Report readiness = STARTING;
+
+    private static long intervalMillis = 5_000;
+    private static ScheduledExecutorService scheduler;
+
+    private FusionHealth() { }
+
+    /**
+     * Adds or replaces a check. It is evaluated from the next interval on.
+     */
+    public static void register(Probe probe, String name, HealthCheck check) {
+        (probe == Probe.LIVENESS ? livenessChecks : readinessChecks).put(name, check);
+    }
+
+    public static void unregister(String name) {
+        livenessChecks.remove(name);
+        readinessChecks.remove(name);
+    }
+
+    /**
+     * Sets how often the checks run. Takes effect on the next {@link #start()}.
+     */
+    public static synchronized void setInterval(long intervalMillis) {
+        FusionHealth.intervalMillis = intervalMillis;
+    }
+
+    /**
+     * Registers the default checks that were not replaced and starts evaluating in the background.
+     * Does nothing if already started.
+     */
+    public static synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+        readinessChecks.putIfAbsent("database", FusionHealth::checkDatabases);
+        readinessChecks.putIfAbsent("http", HealthChecks.httpQueue(DEFAULT_MAX_QUEUED_HTTP_CALLS));
+        livenessChecks.putIfAbsent("cron", HealthChecks.cronScheduler(FusionKit.getCron()));
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().daemon().name("FK-Health").factory());
+        scheduler.scheduleWithFixedDelay(FusionHealth::evaluate, 0, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public static synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    public static Report getLiveness() {
+        return liveness;
+    }
+
+    public static Report getReadiness() {
+        return Shutdown.isShuttingDown() ? SHUTTING_DOWN : readiness;
+    }
+
+    /**
+     * Runs all checks now and publishes the results.
+     */
+    public static void evaluate() {
+        try {
+            Report live = run(livenessChecks);
+            Report ready = run(readinessChecks);
+            // Not ready while not alive
+            if (!live.healthy() && ready.healthy()) {
+                Map<String, HealthCheck.Result> checks = new LinkedHashMap<>(ready.checks());
+                checks.put("liveness", HealthCheck.Result.down("liveness failing"));
+                ready = Report.of(false, checks);
+            }
+            logChanges(liveness, live, "Liveness");
+            logChanges(readiness, ready, "Readiness");
+            liveness = live;
+            readiness = ready;
+        } catch (RuntimeException e) {
+            logger.error("Failed to evaluate health checks", e);
+        }
+    }
+
+    private static HealthCheck.Result checkDatabases() throws Exception {
+        List<Database> databases = FusionKit.getDatabases();
+        if (databases.isEmpty()) {
+            return HealthCheck.Result.up("not configured");
+        }
+        boolean healthy = true;
+        StringBuilder detail = new StringBuilder();
+        for (Database database : databases) {
+            HealthCheck.Result result = HealthChecks.databasePool(database).check();
+            healthy &= result.healthy();
+            if (!detail.isEmpty()) {
+                detail.append("; ");
+            }
+            detail.append(database.getName()).append(": ").append(result.detail());
+        }
+        return new HealthCheck.Result(healthy, detail.toString());
+    }
+
+    private static Report run(Map<String, HealthCheck> checks) {
+        Map<String, Future<HealthCheck.Result>> running = new LinkedHashMap<>();
+        for (Map.Entry<String, HealthCheck> entry : checks.entrySet()) {
+            running.put(entry.getKey(), checkExecutor.submit(entry.getValue()::check));
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(CHECK_TIMEOUT_MILLIS);
+        Map<String, HealthCheck.Result> results = new LinkedHashMap<>();
+        boolean healthy = true;
+        for (Map.Entry<String, Future<HealthCheck.Result>> entry : running.entrySet()) {
+            HealthCheck.Result result;
+            try {
+                result = entry.getValue().get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                if (result == null) {
+                    result = HealthCheck.Result.down("no result");
+                }
+            } catch (TimeoutException e) {
+                entry.getValue().cancel(true);
+                result = HealthCheck.Result.down("timed out after " + CHECK_TIMEOUT_MILLIS + " ms");
+            } catch (ExecutionException e) {
+                result = HealthCheck.Result.down(String.valueOf(e.getCause().getMessage()));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                result = HealthCheck.Result.down("interrupted");
+            }
+            healthy &= result.healthy();
+            results.put(entry.getKey(), result);
+        }
+        return Report.of(healthy, results);
+    }
+
+    private static void logChanges(Report previous, Report current, String probe) {
+        for (Map.Entry<String, HealthCheck.Result> entry : current.checks().entrySet()) {
+            HealthCheck.Result before = previous.checks().get(entry.getKey());
+            if (before != null && before.healthy() && !entry.getValue().healthy()) {
+                logger.warn("{} check '{}' failing: {}", probe, entry.getKey(), entry.getValue().detail());
+            } else if (before != null && !before.healthy() && entry.getValue().healthy()) {
+                logger.info("{} check '{}' recovered: {}", probe, entry.getKey(), entry.getValue().detail());
+            }
+        }
+    }
+
+    /**
+     * The result of one evaluation, with the response body rendered up front.
+     */
+    public record Report(boolean healthy, Map<String, HealthCheck.Result> checks, Instant evaluatedAt, String json) {
+
+        static Report of(boolean healthy, Map<String, HealthCheck.Result> checks) {
+            Instant now = Instant.now();
+            Map<String, Object> body = new LinkedHashMap<>();
+            body.put("status", healthy ? "UP" : "DOWN");
+            body.put("evaluatedAt", now.toString());
+            Map<String, Object> details = new LinkedHashMap<>();
+            for (Map.Entry<String, HealthCheck.Result> entry : checks.entrySet()) {
+                details.put(entry.getKey(), Map.of(
+                        "status", entry.getValue().healthy() ? "UP" : "DOWN",
+                        "detail", String.valueOf(entry.getValue().detail())));
+            }
+            body.put("checks", details);
+            return new Report(healthy, Map.copyOf(checks), now, FusionKit.getGson().toJson(body));
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package de.marcandreher.fusionkit.core.health;
+
+/**
+ * A probe evaluated by {@link FusionHealth} in the background. Checks run on virtual threads and
+ * may block, but should finish well within {@link FusionHealth#CHECK_TIMEOUT_MILLIS}.
+ */
+@FunctionalInterface
+public interface HealthCheck {
+
+    /**
+     * @return The result; exceptions count as {@link Result#down(String) down}
+     */
+    Result check() throws Exception;
+
+    /**
+     * @param healthy Whether the checked component can serve traffic
+     * @param detail Short description of the measured state
+     */
+    record Result(boolean healthy, String detail) {
+
+        public static Result up(String detail) {
+            return new Result(true, detail);
+        }
+
+        public static Result down(String detail) {
+            return new Result(false, detail);
+        }
+    }
+}
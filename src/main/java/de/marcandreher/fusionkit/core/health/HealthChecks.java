@@ -0,0 +1,64 @@
+package de.marcandreher.fusionkit.core.health;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+
+import de.marcandreher.fusionkit.core.cron.FusionCron;
+import de.marcandreher.fusionkit.core.database.Database;
+import de.marcandreher.fusionkit.core.http.FusionHttp;
+
+/**
+ * The checks {@link FusionHealth} registers by default.
+ */
+public final class HealthChecks {
+
+    private HealthChecks() { }
+
+    /**
+     * Fails while the pool is exhausted: no idle connection and threads waiting for one.
+     */
+    public static HealthCheck databasePool(Database database) {
+        return () -> {
+            HikariDataSource dataSource = database.getDataSource();
+            if (dataSource == null || dataSource.isClosed()) {
+                return HealthCheck.Result.down("pool not running");
+            }
+            HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+            if (pool == null) {
+                return HealthCheck.Result.down("pool not started");
+            }
+            int active = pool.getActiveConnections();
+            int idle = pool.getIdleConnections();
+            int waiting = pool.getThreadsAwaitingConnection();
+            int max = dataSource.getHikariConfigMXBean().getMaximumPoolSize();
+            String detail = active + "/" + max + " active, " + idle + " idle, " + waiting + " waiting";
+            return idle == 0 && waiting > 0 ? HealthCheck.Result.down(detail) : HealthCheck.Result.up(detail);
+        };
+    }
+
+    /**
+     * Fails if tasks are registered but the scheduler stopped.
+     */
+    public static HealthCheck cronScheduler(FusionCron cron) {
+        return () -> {
+            int tasks = cron.getTasks().size();
+            if (tasks == 0) {
+                return HealthCheck.Result.up("no tasks");
+            }
+            return cron.isRunning()
+                    ? HealthCheck.Result.up(tasks + " tasks scheduled")
+                    : HealthCheck.Result.down("scheduler stopped with " + tasks + " tasks");
+        };
+    }
+
+    /**
+     * Fails if more than {@code maxQueued} outbound calls wait for a dispatcher slot.
+     */
+    public static HealthCheck httpQueue(int maxQueued) {
+        return () -> {
+            int queued = FusionHttp.getQueuedCalls();
+            String detail = queued + " queued, " + FusionHttp.getRunningCalls() + " running";
+            return queued > maxQueued ? HealthCheck.Result.down(detail) : HealthCheck.Result.up(detail);
+        };
+    }
+}
@@ -0,0 +1,275 @@
+package de.marcandreher.fusionkit.core.http;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+
+import de.marcandreher.fusionkit.core.FusionKit;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.Connection;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.EventListener;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Central outbound HTTP subsystem. Every client handed out here is derived from one base
+ * {@link OkHttpClient}, so they share a single {@link ConnectionPool} (TLS connections are
+ * reused across callers) and a single {@link Dispatcher} with daemon threads.
+ *
+ * <p>Clients are configured through named {@link HttpClientProfile}s:
+ * <pre>
+ * FusionHttp.registerProfile("payments", profile -&gt; profile.setReadTimeoutMillis(5_000));
+ * OkHttpClient client = FusionHttp.getClient("payments");
+ * </pre>
+ */
+public final class FusionHttp {
+
+    public static final String DEFAULT = "default";
+    public static final String AUTH = "auth";
+    public static final String WEBHOOK = "webhook";
+    public static final String GITHUB = "github";
+
+    private static final int MAX_IDLE_CONNECTIONS = 32;
+    private static final long KEEP_ALIVE_MINUTES = 5;
+    private static final int MAX_REQUESTS = 128;
+    private static final int MAX_REQUESTS_PER_HOST = 16;
+
+    private static final Logger logger = FusionKit.getLogger(FusionHttp.class);
+    private static final ConnectionPool connectionPool = new ConnectionPool(MAX_IDLE_CONNECTIONS, KEEP_ALIVE_MINUTES, TimeUnit.MINUTES);
+    private static final Dispatcher dispatcher = createDispatcher();
+    private static final Map<String, HostMetrics> hostMetrics = new ConcurrentHashMap<>();
+    private static final Map<String, HttpClientProfile> profiles = new ConcurrentHashMap<>();
+    private static final Map<String, OkHttpClient> clients = new ConcurrentHashMap<>();
+
+    private static final OkHttpClient baseClient = new OkHttpClient.Builder()
+            .connectionPool(connectionPool)
+            .dispatcher(dispatcher)
+            .eventListenerFactory(call -> new MetricsListener())
+            .build();
+
+    static {
+        registerProfile(DEFAULT, profile -> { });
+        registerProfile(AUTH, profile -> {
+            profile.setConnectTimeoutMillis(5_000);
+            profile.setReadTimeoutMillis(15_000);
+            profile.setCallTimeoutMillis(20_000);
+        });
+        registerProfile(WEBHOOK, profile -> {
+            profile.setConnectTimeoutMillis(10_000);
+            profile.setWriteTimeoutMillis(10_000);
+            profile.setReadTimeoutMillis(30_000);
+        });
+        registerProfile(GITHUB, profile -> {
+            profile.setConnectTimeoutMillis(5_000);
+            profile.setReadTimeoutMillis(20_000);
+        });
+    }
+
+    private FusionHttp() {
+    }
+
+    /**
+     * Registers (or replaces) a named client profile.
+     */
+    public static void registerProfile(String name, Consumer<HttpClientProfile> configurer) {
+        HttpClientProfile profile = new HttpClientProfile(name);
+        configurer.accept(profile);
+        profiles.put(name, profile);
+        clients.remove(name);
+        logger.debug("Registered HTTP client profile: {}", profile);
+    }
+
+    /**
+     * Returns the client for the default profile.
+     */
+    public static OkHttpClient getClient() {
+        return getClient(DEFAULT);
+    }
+
+    /**
+     * Returns the client for the given profile, falling back to the default profile
+     * if no profile with that name was registered.
+     */
+    public static OkHttpClient getClient(String profileName) {
+        return clients.computeIfAbsent(profiles.containsKey(profileName) ? profileName : DEFAULT,
+                name -> buildClient(profiles.get(name)));
+    }
+
+    public static HttpClientProfile getProfile(String profileName) {
+        return profiles.get(profileName);
+    }
+
+    public static Map<String, HttpClientProfile> getProfiles() {
+        return Collections.unmodifiableMap(profiles);
+    }
+
+    public static Map<String, HostMetrics> getHostMetrics() {
+        return Collections.unmodifiableMap(hostMetrics);
+    }
+
+    public static ConnectionPool getConnectionPool() {
+        return connectionPool;
+    }
+
+    public static Dispatcher getDispatcher() {
+        return dispatcher;
+    }
+
+    /**
+     * Number of calls waiting for a dispatcher slot.
+     */
+    public static int getQueuedCalls() {
+        return dispatcher.queuedCallsCount();
+    }
+
+    public static int getRunningCalls() {
+        return dispatcher.runningCallsCount();
+    }
+
+    /**
+     * Runs a call asynchronously on the shared dispatcher instead of blocking the calling thread.
+     * The handler runs on a dispatcher thread and the response is closed after it returns.
+     * Cancelling the returned future cancels the call.
+     */
+    public static <T> CompletableFuture<T> enqueue(OkHttpClient client, Request request, ResponseHandler<T> handler) {
+        Call call = client.newCall(request);
+        CompletableFuture<T> future = new CompletableFuture<>();
+        future.whenComplete((result, error) -> {
+            if (future.isCancelled()) {
+                call.cancel();
+            }
+        });
+
+        call.enqueue(new Callback() {
+            @Override
+            public void onFailure(@NotNull Call call, @NotNull IOException e) {
+                future.completeExceptionally(e);
+            }
+
+            @Override
+            public void onResponse(@NotNull Call call, @NotNull Response response) {
+                try (response) {
+                    future.complete(handler.handle(response));
+                } catch (Exception e) {
+                    future.completeExceptionally(e);
+                }
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Cancels queued calls, stops the dispatcher threads and closes idle connections.
+     */
+    public static void shutdown() {
+        dispatcher.cancelAll();
+        dispatcher.executorService().shutdown();
+        connectionPool.evictAll();
+    }
+
+    private static OkHttpClient buildClient(HttpClientProfile profile) {
+        return baseClient.newBuilder()
+                .connectTimeout(profile.getConnectTimeoutMillis(), TimeUnit.MILLISECONDS)
+                .readTimeout(profile.getReadTimeoutMillis(), TimeUnit.MILLISECONDS)
+                .writeTimeout(profile.getWriteTimeoutMillis(), TimeUnit.MILLISECONDS)
+                .callTimeout(profile.getCallTimeoutMillis(), TimeUnit.MILLISECONDS)
+                .followRedirects(profile.isFollowRedirects())
+                .retryOnConnectionFailure(profile.isRetryOnConnectionFailure())
+                .protocols(profile.isHttp2() ? List.of(Protocol.HTTP_2, Protocol.HTTP_1_1) : List.of(Protocol.HTTP_1_1))
+                .build();
+    }
+
+    private static Dispatcher createDispatcher() {
+        AtomicInteger threadNumber = new AtomicInteger(1);
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(0, Integer.MAX_VALUE, 60, TimeUnit.SECONDS,
+                new SynchronousQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "FK-Http-" + threadNumber.getAndIncrement());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        Dispatcher dispatcher = new Dispatcher(executor);
+        dispatcher.setMaxRequests(MAX_REQUESTS);
+        dispatcher.setMaxRequestsPerHost(MAX_REQUESTS_PER_HOST);
+        return dispatcher;
+    }
+
+    private static HostMetrics metricsFor(Call call) {
+        return hostMetrics.computeIfAbsent(call.request().url().host(), HostMetrics::new);
+    }
+
+    /**
+     * Reads the response of an {@link #enqueue} call.
+     */
+    @FunctionalInterface
+    public interface ResponseHandler<T> {
+        T handle(Response response) throws IOException;
+    }
+
+    /**
+     * Per-call listener feeding {@link HostMetrics}.
+     */
+    private static final class MetricsListener extends EventListener {
+        private long startNanos;
+
+        @Override
+        public void callStart(@NotNull Call call) {
+            startNanos = System.nanoTime();
+            metricsFor(call).inFlight.incrementAndGet();
+        }
+
+        @Override
+        public void connectStart(@NotNull Call call, @NotNull InetSocketAddress inetSocketAddress, @NotNull Proxy proxy) {
+            metricsFor(call).connectionsOpened.increment();
+        }
+
+        @Override
+        public void connectionAcquired(@NotNull Call call, @NotNull Connection connection) {
+            HostMetrics metrics = metricsFor(call);
+            metrics.connectionsAcquired.increment();
+            metrics.connectionsInUse.incrementAndGet();
+        }
+
+        @Override
+        public void connectionReleased(@NotNull Call call, @NotNull Connection connection) {
+            metricsFor(call).connectionsInUse.decrementAndGet();
+        }
+
+        @Override
+        public void callEnd(@NotNull Call call) {
+            finish(call, false);
+        }
+
+        @Override
+        public void callFailed(@NotNull Call call, @NotNull IOException ioe) {
+            finish(call, true);
+        }
+
+        private void finish(Call call, boolean failed) {
+            HostMetrics metrics = metricsFor(call);
+            metrics.inFlight.decrementAndGet();
+            metrics.calls.increment();
+            metrics.totalCallMillis.add(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+            if (failed) {
+                metrics.failures.increment();
+            }
+        }
+    }
+}
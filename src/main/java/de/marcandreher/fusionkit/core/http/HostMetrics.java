@@ -0,0 +1,64 @@
+package de.marcandreher.fusionkit.core.http;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Outbound HTTP counters for one host, collected by {@link FusionHttp}.
+ */
+public class HostMetrics {
+    private final String host;
+    final LongAdder calls = new LongAdder();
+    final LongAdder failures = new LongAdder();
+    final LongAdder connectionsOpened = new LongAdder();
+    final LongAdder connectionsAcquired = new LongAdder();
+    final LongAdder totalCallMillis = new LongAdder();
+    final AtomicInteger inFlight = new AtomicInteger();
+    final AtomicInteger connectionsInUse = new AtomicInteger();
+
+    HostMetrics(String host) {
+        this.host = host;
+    }
+
+    public String getHost() {
+        return host;
+    }
+
+    public long getCalls() {
+        return calls.sum();
+    }
+
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * Connections to this host currently carrying a call.
+     */
+    public int getConnectionsInUse() {
+        return connectionsInUse.get();
+    }
+
+    /**
+     * Number of new TCP (and TLS) connections opened to this host.
+     */
+    public long getConnectionsOpened() {
+        return connectionsOpened.sum();
+    }
+
+    /**
+     * Number of times a pooled connection was reused instead of opening a new one.
+     */
+    public long getConnectionsReused() {
+        return Math.max(0, connectionsAcquired.sum() - connectionsOpened.sum());
+    }
+
+    public double getAverageCallMillis() {
+        long count = calls.sum();
+        return count == 0 ? 0 : (double) totalCallMillis.sum() / count;
+    }
+}
@@ -0,0 +1,19 @@
+package de.marcandreher.fusionkit.core.http;
+
+import lombok.Data;
+
+/**
+ * Settings for one named outbound HTTP client. All profiles share the connection
+ * pool and dispatcher of {@link FusionHttp}, only timeouts and protocol differ.
+ */
+@Data
+public class HttpClientProfile {
+    private final String name;
+    private long connectTimeoutMillis = 10_000;
+    private long readTimeoutMillis = 30_000;
+    private long writeTimeoutMillis = 10_000;
+    private long callTimeoutMillis = 0; // no overall limit
+    private boolean http2 = true;
+    private boolean followRedirects = true;
+    private boolean retryOnConnectionFailure = true;
+}
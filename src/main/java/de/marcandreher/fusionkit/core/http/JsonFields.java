@@ -0,0 +1,223 @@
+package de.marcandreher.fusionkit.core.http;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import okhttp3.ResponseBody;
+
+/**
+ * Pulls a few scalar fields out of a JSON document while streaming it with a {@link JsonReader},
+ * without building a tree. Everything that is not on the way to a requested field is skipped.
+ *
+ * <p>Fields are addressed by dot paths, array elements by their index:
+ * <pre>
+ * Map&lt;String, String&gt; player = JsonFields.extract(body, "response.players.0.personaname", "response.players.0.avatarfull");
+ * </pre>
+ * Values are returned as strings (numbers in their JSON notation, booleans as {@code "true"} /
+ * {@code "false"}). Missing fields, {@code null} values and objects or arrays at a requested
+ * path have no entry in the result.
+ */
+public final class JsonFields {
+    private static final int[] NONE = new int[0];
+
+    private JsonFields() { }
+
+    /**
+     * Extracts the given fields from a response body. Reading stops as soon as all fields were found.
+     */
+    public static Map<String, String> extract(ResponseBody body, String... paths) throws IOException {
+        return extract(body.charStream(), paths);
+    }
+
+    /**
+     * Extracts the given fields from a JSON document. Reading stops as soon as all fields were found.
+     */
+    public static Map<String, String> extract(Reader reader, String... paths) throws IOException {
+        Map<String, String> result = new HashMap<>();
+        try (JsonReader json = new JsonReader(reader)) {
+            new Extraction(paths, result, true).read(json, all(paths.length), 0);
+        }
+        return result;
+    }
+
+    /**
+     * Extracts the given fields from every element of an array of objects.
+     * @param arrayPath Dot path of the array, empty for a top-level array
+     * @param fields Dot paths relative to each element
+     * @return One map per array element, empty if there is no array at {@code arrayPath}
+     */
+    public static List<Map<String, String>> extractEach(ResponseBody body, String arrayPath, String... fields) throws IOException {
+        return extractEach(body.charStream(), arrayPath, fields);
+    }
+
+    /**
+     * Extracts the given fields from every element of an array of objects.
+     * @param arrayPath Dot path of the array, empty for a top-level array
+     * @param fields Dot paths relative to each element
+     * @return One map per array element, empty if there is no array at {@code arrayPath}
+     */
+    public static List<Map<String, String>> extractEach(Reader reader, String arrayPath, String... fields) throws IOException {
+        List<Map<String, String>> result = new ArrayList<>();
+        String[] segments = arrayPath.isEmpty() ? new String[0] : arrayPath.split("\\.");
+        try (JsonReader json = new JsonReader(reader)) {
+            readEach(json, segments, 0, fields, result);
+        }
+        return result;
+    }
+
+    private static void readEach(JsonReader json, String[] segments, int depth, String[] fields,
+            List<Map<String, String>> result) throws IOException {
+        JsonToken token = json.peek();
+        if (depth == segments.length) {
+            if (token != JsonToken.BEGIN_ARRAY) {
+                json.skipValue();
+                return;
+            }
+            json.beginArray();
+            while (json.hasNext()) {
+                Map<String, String> element = new HashMap<>();
+                new Extraction(fields, element, false).read(json, all(fields.length), 0);
+                result.add(element);
+            }
+            json.endArray();
+        } else if (token == JsonToken.BEGIN_OBJECT) {
+            json.beginObject();
+            while (json.hasNext()) {
+                if (json.nextName().equals(segments[depth])) {
+                    readEach(json, segments, depth + 1, fields, result);
+                } else {
+                    json.skipValue();
+                }
+            }
+            json.endObject();
+        } else if (token == JsonToken.BEGIN_ARRAY) {
+            json.beginArray();
+            int index = 0;
+            while (json.hasNext()) {
+                if (Integer.toString(index++).equals(segments[depth])) {
+                    readEach(json, segments, depth + 1, fields, result);
+                } else {
+                    json.skipValue();
+                }
+            }
+            json.endArray();
+        } else {
+            json.skipValue();
+        }
+    }
+
+    private static int[] all(int count) {
+        int[] candidates = new int[count];
+        for (int i = 0; i < count; i++) {
+            candidates[i] = i;
+        }
+        return candidates;
+    }
+
+    /**
+     * One pass over a value, tracking which requested paths are still reachable from the current position.
+     */
+    private static final class Extraction {
+        private final String[] paths;
+        private final String[][] segments;
+        private final Map<String, String> result;
+        private final boolean stopWhenComplete;
+
+        private Extraction(String[] paths, Map<String, String> result, boolean stopWhenComplete) {
+            this.paths = paths;
+            this.segments = new String[paths.length][];
+            for (int i = 0; i < paths.length; i++) {
+                segments[i] = paths[i].split("\\.");
+            }
+            this.result = result;
+            this.stopWhenComplete = stopWhenComplete;
+        }
+
+        private boolean complete() {
+            return stopWhenComplete && result.size() == paths.length;
+        }
+
+        /**
+         * Reads the next value. Returns early, leaving the reader mid-document, once all fields were found
+         * and {@code stopWhenComplete} is set.
+         */
+        private void read(JsonReader json, int[] candidates, int depth) throws IOException {
+            switch (json.peek()) {
+                case BEGIN_OBJECT -> {
+                    json.beginObject();
+                    while (json.hasNext()) {
+                        int[] matched = match(candidates, depth, json.nextName());
+                        if (matched.length == 0) {
+                            json.skipValue();
+                        } else {
+                            read(json, matched, depth + 1);
+                        }
+                        if (complete()) {
+                            return;
+                        }
+                    }
+                    json.endObject();
+                }
+                case BEGIN_ARRAY -> {
+                    json.beginArray();
+                    int index = 0;
+                    while (json.hasNext()) {
+                        int[] matched = match(candidates, depth, Integer.toString(index++));
+                        if (matched.length == 0) {
+                            json.skipValue();
+                        } else {
+                            read(json, matched, depth + 1);
+                        }
+                        if (complete()) {
+                            return;
+                        }
+                    }
+                    json.endArray();
+                }
+                case STRING, NUMBER -> record(candidates, depth, json.nextString());
+                case BOOLEAN -> record(candidates, depth, Boolean.toString(json.nextBoolean()));
+                default -> json.skipValue();
+            }
+        }
+
+        private void record(int[] candidates, int depth, String value) {
+            for (int candidate : candidates) {
+                if (segments[candidate].length == depth) {
+                    result.put(paths[candidate], value);
+                }
+            }
+        }
+
+        private int[] match(int[] candidates, int depth, String name) {
+            int count = 0;
+            for (int candidate : candidates) {
+                if (matches(candidate, depth, name)) {
+                    count++;
+                }
+            }
+            if (count == 0) {
+                return NONE;
+            }
+            int[] matched = new int[count];
+            int i = 0;
+            for (int candidate : candidates) {
+                if (matches(candidate, depth, name)) {
+                    matched[i++] = candidate;
+                }
+            }
+            return matched;
+        }
+
+        private boolean matches(int candidate, int depth, String name) {
+            String[] path = segments[candidate];
+            return path.length > depth && path[depth].equals(name);
+        }
+    }
+}
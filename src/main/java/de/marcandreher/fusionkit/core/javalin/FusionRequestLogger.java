@@ -19,6 +19,9 @@ public class FusionRequestLogger implements RequestLogger {
 
     @Override
     public void handle(@NotNull Context ctx, @NotNull Float executionTimeMs) throws Exception {
+        if (config.health.isProbe(ctx.path())) {
+            return;
+        }
         String logMessage = config.logging.getLogFormat()
                 .replace("{method}", ctx.method().toString().toUpperCase())
                 .replace("{host}", ctx.host())
@@ -5,12 +5,15 @@ import java.lang.management.RuntimeMXBean;
 import java.time.Instant;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
+import java.util.List;
 
 import org.jetbrains.annotations.NotNull;
 
 import de.marcandreher.fusionkit.core.FusionKit;
 import de.marcandreher.fusionkit.core.WebAppConfig;
 import de.marcandreher.fusionkit.core.app.VersionInfo;
+import de.marcandreher.fusionkit.core.cron.CronTaskMeta;
+import de.marcandreher.fusionkit.core.cron.CronTaskStats;
 import io.javalin.http.Context;
 import io.javalin.http.Handler;
 
@@ -56,6 +59,7 @@ public class FusionInfoHandler implements Handler {
             .append(buildDependencyInfo())
             .append(buildConfigInfo())
             .append(buildRuntimeInfo())
+            .append(buildCronInfo())
             .append("</body>")
             .append("</html>");
             
@@ -413,6 +417,72 @@ public class FusionInfoHandler implements Handler {
         );
     }
     
+    private String buildCronInfo() {
+        List<CronTaskMeta> metas = FusionKit.getCron().getTaskMetas();
+        if (metas.isEmpty()) {
+            return "";
+        }
+
+        StringBuilder rows = new StringBuilder();
+        for (CronTaskMeta meta : metas) {
+            CronTaskStats stats = meta.getStats();
+            rows.append("""
+                    <tr>
+                        <td><span class="label">%s</span></td>
+                        <td><span class="value">%s</span></td>
+                        <td><span class="value">%s</span></td>
+                        <td><span class="value">%s</span></td>
+                        <td><span class="value">%s</span></td>
+                        <td><span class="value">%s / %s</span></td>
+                        <td><span class="value %s">%d / %d / %d / %d</span></td>
+                    </tr>
+            """.formatted(
+                escapeHtml(meta.getName()) + (stats.getRunning() > 0 ? " <span class='status-true'>(running)</span>" : ""),
+                escapeHtml(meta.getScheduleDescription()),
+                meta.getConcurrencyPolicy(),
+                stats.getNextFireMillis() < 0 ? "-" : formatTimestamp(stats.getNextFireMillis()),
+                stats.getLastStartMillis() < 0 ? "-" : formatTimestamp(stats.getLastStartMillis()),
+                formatDuration(stats.getP50Millis()),
+                formatDuration(stats.getP99Millis()),
+                stats.getFailures() > 0 || stats.getTimeouts() > 0 ? "status-false" : "",
+                stats.getRuns(),
+                stats.getFailures(),
+                stats.getTimeouts(),
+                stats.getSkipped()
+            ));
+        }
+
+        return """
+            <table>
+                <thead>
+                    <tr class="section-header">
+                        <td colspan="7">Cron Tasks</td>
+                    </tr>
+                    <tr>
+                        <td>Task</td>
+                        <td>Schedule</td>
+                        <td>Concurrency</td>
+                        <td>Next Fire</td>
+                        <td>Last Start</td>
+                        <td>p50 / p99</td>
+                        <td>Runs / Failed / Timed Out / Skipped</td>
+                    </tr>
+                </thead>
+                <tbody>
+                    %s
+                </tbody>
+            </table>
+        """.formatted(rows);
+    }
+
+    private String formatDuration(long millis) {
+        return millis < 0 ? "-" : millis + "ms";
+    }
+
+    private String escapeHtml(String text) {
+        return text == null ? "" : text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+    }
+
     private String formatBytes(long bytes) {
         String[] units = {"B", "KB", "MB", "GB"};
         double size = bytes;
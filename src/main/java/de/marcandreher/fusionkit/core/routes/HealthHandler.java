@@ -0,0 +1,31 @@
+package de.marcandreher.fusionkit.core.routes;
+
+import org.jetbrains.annotations.NotNull;
+
+import de.marcandreher.fusionkit.core.health.FusionHealth;
+import io.javalin.http.Context;
+import io.javalin.http.Handler;
+
+/**
+ * Serves the last {@link FusionHealth} report, 200 if healthy and 503 otherwise.
+ */
+public class HealthHandler implements Handler {
+
+    private final FusionHealth.Probe probe;
+
+    public HealthHandler(FusionHealth.Probe probe) {
+        this.probe = probe;
+    }
+
+    @Override
+    public void handle(@NotNull Context ctx) throws Exception {
+        FusionHealth.Report report = probe == FusionHealth.Probe.LIVENESS
+                ? FusionHealth.getLiveness()
+                : FusionHealth.getReadiness();
+
+        ctx.status(report.healthy() ? 200 : 503);
+        ctx.header("Cache-Control", "no-store");
+        ctx.contentType("application/json");
+        ctx.result(report.json());
+    }
+}
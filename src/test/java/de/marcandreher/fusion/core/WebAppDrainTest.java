@@ -0,0 +1,112 @@
+package de.marcandreher.fusion.core;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.marcandreher.fusionkit.core.WebApp;
+import de.marcandreher.fusionkit.core.WebAppConfig;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+public class WebAppDrainTest {
+
+    private final CountDownLatch entered = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final OkHttpClient client = new OkHttpClient.Builder().readTimeout(10, TimeUnit.SECONDS).build();
+    private WebApp app;
+    private int port;
+
+    @Before
+    public void setUp() throws IOException {
+        try (ServerSocket probe = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            port = probe.getLocalPort();
+        }
+        WebAppConfig config = new WebAppConfig();
+        config.setName("DrainTest");
+        config.setDomain("http://localhost");
+        config.setPort(port);
+        config.routes(router -> {
+            router.get("/fast", ctx -> ctx.result("fast"));
+            router.get("/slow", ctx -> {
+                entered.countDown();
+                release.await(10, TimeUnit.SECONDS);
+                ctx.result("slow");
+            });
+        });
+        app = new WebApp(config, config.getRouter());
+    }
+
+    @After
+    public void tearDown() {
+        release.countDown();
+        app.stop();
+    }
+
+    private CompletableFuture<Response> get(String path) {
+        CompletableFuture<Response> future = new CompletableFuture<>();
+        client.newCall(new Request.Builder().url("http://localhost:" + port + path).build()).enqueue(new Callback() {
+            @Override
+            public void onResponse(Call call, Response response) {
+                future.complete(response);
+            }
+
+            @Override
+            public void onFailure(Call call, IOException e) {
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
+
+    @Test
+    public void testFinishedRequestsAreNotInFlight() throws Exception {
+        try (Response response = get("/fast").get(10, TimeUnit.SECONDS)) {
+            assertEquals("fast", response.body().string());
+        }
+        assertEquals(0, app.awaitDrained(System.currentTimeMillis() + 1000));
+    }
+
+    @Test
+    public void testAwaitDrainedStopsAtDeadline() throws Exception {
+        CompletableFuture<Response> slow = get("/slow");
+        assertTrue(entered.await(10, TimeUnit.SECONDS));
+        assertEquals(1, app.getInFlightRequests());
+
+        long start = System.currentTimeMillis();
+        assertEquals(1, app.awaitDrained(start + 200));
+        assertTrue(System.currentTimeMillis() - start >= 200);
+
+        release.countDown();
+        try (Response response = slow.get(10, TimeUnit.SECONDS)) {
+            assertEquals("slow", response.body().string());
+        }
+    }
+
+    @Test
+    public void testInFlightRequestFinishesAfterStopAccepting() throws Exception {
+        CompletableFuture<Response> slow = get("/slow");
+        assertTrue(entered.await(10, TimeUnit.SECONDS));
+
+        app.stopAccepting();
+        release.countDown();
+
+        assertEquals(0, app.awaitDrained(System.currentTimeMillis() + 5000));
+        try (Response response = slow.get(10, TimeUnit.SECONDS)) {
+            assertEquals(200, response.code());
+            assertEquals("slow", response.body().string());
+        }
+    }
+}
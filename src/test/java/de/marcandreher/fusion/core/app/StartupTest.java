@@ -0,0 +1,123 @@
+package de.marcandreher.fusion.core.app;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import de.marcandreher.fusionkit.core.app.Startup;
+
+public class StartupTest {
+
+    private final List<String> ran = new CopyOnWriteArrayList<>();
+
+    private Runnable record(String name) {
+        return () -> ran.add(name);
+    }
+
+    @Test
+    public void testDependenciesRunFirst() {
+        Startup.Report report = new Startup()
+                .phase("web", record("web"), "cache", "schema")
+                .phase("cache", record("cache"), "schema")
+                .phase("schema", record("schema"))
+                .run();
+
+        assertEquals(List.of("schema", "cache", "web"), ran);
+        assertEquals(3, report.timings().size());
+        assertTrue(report.timings().stream().noneMatch(Startup.Timing::failed));
+    }
+
+    @Test
+    public void testIndependentPhasesRunConcurrently() {
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        Runnable awaitOther = () -> {
+            bothStarted.countDown();
+            try {
+                assertTrue("Phases should overlap", bothStarted.await(5, TimeUnit.SECONDS));
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        };
+
+        new Startup()
+                .phase("a", awaitOther)
+                .phase("b", awaitOther)
+                .run();
+
+        assertEquals(0, bothStarted.getCount());
+    }
+
+    @Test
+    public void testCycleIsRejectedBeforeAnyPhaseRuns() {
+        Startup startup = new Startup()
+                .phase("a", record("a"), "b")
+                .phase("b", record("b"), "c")
+                .phase("c", record("c"), "a");
+
+        try {
+            startup.run();
+            fail("Cycles should be rejected");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("cycle"));
+            assertTrue(e.getMessage(), e.getMessage().contains("a -> b -> c -> a"));
+        }
+        assertTrue(ran.isEmpty());
+    }
+
+    @Test
+    public void testSelfDependencyIsACycle() {
+        try {
+            new Startup().phase("a", record("a"), "a").run();
+            fail("A phase depending on itself should be rejected");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("cycle"));
+        }
+        assertTrue(ran.isEmpty());
+    }
+
+    @Test
+    public void testUnknownDependencyIsRejected() {
+        Startup startup = new Startup()
+                .phase("a", record("a"))
+                .phase("b", record("b"), "missing");
+
+        try {
+            startup.run();
+            fail("Unknown dependencies should be rejected");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("'missing'"));
+        }
+        assertTrue(ran.isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDuplicatePhaseIsRejected() {
+        new Startup()
+                .phase("a", record("a"))
+                .phase("a", record("a"));
+    }
+
+    @Test
+    public void testFailedPhaseSkipsDependents() {
+        Startup startup = new Startup()
+                .phase("broken", () -> {
+                    throw new IllegalStateException("boom");
+                })
+                .phase("dependent", record("dependent"), "broken")
+                .phase("independent", record("independent"));
+
+        try {
+            startup.run();
+            fail("A failed phase should fail the startup");
+        } catch (IllegalStateException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("'broken'"));
+            assertEquals("boom", e.getCause().getMessage());
+        }
+        assertEquals(List.of("independent"), ran);
+    }
+}
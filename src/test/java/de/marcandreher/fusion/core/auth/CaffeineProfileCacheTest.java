@@ -0,0 +1,73 @@
+package de.marcandreher.fusion.core.auth;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import de.marcandreher.fusionkit.core.auth.CaffeineProfileCache;
+import de.marcandreher.fusionkit.core.auth.User;
+
+public class CaffeineProfileCacheTest {
+
+    private static User user(String id, String username) {
+        User user = new User();
+        user.setId(id);
+        user.setUsername(username);
+        user.setAvatar("https://avatars/" + id);
+        user.setEmail(id + "@example.com");
+        user.getData().put("role", "admin");
+        return user;
+    }
+
+    @Test
+    public void testHandsOutCopies() {
+        CaffeineProfileCache cache = new CaffeineProfileCache();
+        User original = user("1", "gabe");
+        cache.put("steam", original);
+
+        original.setUsername("changed after put");
+        User first = cache.get("steam", "1");
+        Assert.assertEquals("gabe", first.getUsername());
+        Assert.assertEquals("https://avatars/1", first.getAvatar());
+        Assert.assertEquals("1@example.com", first.getEmail());
+        Assert.assertTrue("Session data is not cached", first.getData().isEmpty());
+
+        first.setUsername("changed after get");
+        User second = cache.get("steam", "1");
+        Assert.assertNotSame(first, second);
+        Assert.assertEquals("gabe", second.getUsername());
+    }
+
+    @Test
+    public void testKeysByProvider() {
+        CaffeineProfileCache cache = new CaffeineProfileCache();
+        cache.put("steam", user("1", "steam user"));
+        cache.put("github", user("1", "github user"));
+
+        Assert.assertEquals("steam user", cache.get("steam", "1").getUsername());
+        Assert.assertEquals("github user", cache.get("github", "1").getUsername());
+
+        cache.invalidate("steam", "1");
+        Assert.assertNull(cache.get("steam", "1"));
+        Assert.assertNotNull(cache.get("github", "1"));
+    }
+
+    @Test
+    public void testIgnoresUsersWithoutId() {
+        CaffeineProfileCache cache = new CaffeineProfileCache();
+        cache.put("steam", null);
+        cache.put("steam", user(null, "anonymous"));
+
+        Assert.assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testEntriesExpireAfterTtl() throws InterruptedException {
+        CaffeineProfileCache cache = new CaffeineProfileCache(100, 10);
+        cache.put("steam", user("1", "gabe"));
+        Assert.assertNotNull(cache.get("steam", "1"));
+
+        Thread.sleep(250);
+
+        Assert.assertNull(cache.get("steam", "1"));
+    }
+}
@@ -0,0 +1,150 @@
+package de.marcandreher.fusion.core.auth;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import de.marcandreher.fusionkit.core.auth.CaffeineProfileCache;
+import de.marcandreher.fusionkit.core.auth.User;
+import de.marcandreher.fusionkit.core.auth.config.SteamConfig;
+import de.marcandreher.fusionkit.core.auth.handlers.SteamProfiles;
+
+public class SteamProfilesTest {
+
+    private static final String UNKNOWN_ID = "76561190000000000";
+
+    private HttpServer server;
+    private String apiUrl;
+    private final List<List<String>> calls = new CopyOnWriteArrayList<>();
+    private final CaffeineProfileCache cache = new CaffeineProfileCache();
+    private SteamProfiles profiles;
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        apiUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+        server.createContext("/ISteamUser/GetPlayerSummaries/v2/", this::handle);
+        server.start();
+
+        SteamConfig config = new SteamConfig();
+        config.setApiKey("test-key");
+        profiles = new SteamProfiles(config, cache, apiUrl);
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String steamIds = null;
+        for (String param : exchange.getRequestURI().getRawQuery().split("&")) {
+            if (param.startsWith("steamids=")) {
+                steamIds = URLDecoder.decode(param.substring("steamids=".length()), StandardCharsets.UTF_8);
+            }
+        }
+        List<String> ids = List.of(steamIds.split(","));
+        calls.add(ids);
+
+        StringBuilder json = new StringBuilder("{\"response\":{\"players\":[");
+        for (String id : ids) {
+            if (id.equals(UNKNOWN_ID)) {
+                continue;
+            }
+            if (json.charAt(json.length() - 1) == '}') {
+                json.append(',');
+            }
+            json.append("{\"steamid\":\"").append(id).append("\",\"personaname\":\"name-").append(id)
+                    .append("\",\"avatarfull\":\"https://avatars/").append(id).append(".jpg\"}");
+        }
+        byte[] body = json.append("]}}").toString().getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+        exchange.close();
+    }
+
+    private static String steamId(int i) {
+        return String.valueOf(76561198000000000L + i);
+    }
+
+    @Test
+    public void testFetchAllBatchesAndDeduplicates() {
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 250; i++) {
+            ids.add(steamId(i));
+        }
+        // Duplicates spread over what would otherwise be several batches
+        for (int i = 0; i < 250; i += 10) {
+            ids.add(steamId(i));
+        }
+
+        Map<String, User> users = profiles.fetchAll(ids).join();
+
+        Assert.assertEquals(3, calls.size());
+        Set<String> requested = new HashSet<>();
+        for (List<String> call : calls) {
+            Assert.assertTrue("At most 100 IDs per call, got " + call.size(), call.size() <= SteamProfiles.MAX_IDS_PER_CALL);
+            for (String id : call) {
+                Assert.assertTrue("Requested twice: " + id, requested.add(id));
+            }
+        }
+        Assert.assertEquals(250, requested.size());
+        Assert.assertEquals(250, users.size());
+        Assert.assertEquals("name-" + steamId(42), users.get(steamId(42)).getUsername());
+        Assert.assertEquals("https://avatars/" + steamId(249) + ".jpg", users.get(steamId(249)).getAvatar());
+    }
+
+    @Test
+    public void testFetchAllRefreshesCache() {
+        User stale = new User();
+        stale.setId(steamId(1));
+        stale.setUsername("old name");
+        cache.put(SteamProfiles.PROVIDER, stale);
+
+        Map<String, User> users = profiles.fetchAll(List.of(steamId(1), UNKNOWN_ID)).join();
+
+        Assert.assertEquals(1, calls.size());
+        Assert.assertFalse(users.containsKey(UNKNOWN_ID));
+        Assert.assertEquals("name-" + steamId(1), profiles.getCached(steamId(1)).getUsername());
+        Assert.assertNull(profiles.getCached(UNKNOWN_ID));
+    }
+
+    @Test
+    public void testGetUsesCacheAndFallsBack() {
+        Assert.assertEquals("name-" + steamId(7), profiles.get(steamId(7)).join().getUsername());
+        Assert.assertEquals("name-" + steamId(7), profiles.get(steamId(7)).join().getUsername());
+        Assert.assertEquals("Second lookup should be served from the cache", 1, calls.size());
+
+        User unknown = profiles.get(UNKNOWN_ID).join();
+        Assert.assertEquals(UNKNOWN_ID, unknown.getId());
+        Assert.assertNull(unknown.getUsername());
+    }
+
+    @Test
+    public void testDisabledWithoutApiKey() {
+        SteamProfiles disabled = new SteamProfiles(new SteamConfig(), cache, apiUrl);
+
+        Assert.assertFalse(disabled.isEnabled());
+        Assert.assertNull(disabled.fetch(steamId(1)).join());
+        Assert.assertTrue(disabled.fetchAll(List.of(steamId(1))).isCompletedExceptionally());
+        Assert.assertEquals(0, calls.size());
+    }
+}
@@ -0,0 +1,201 @@
+package de.marcandreher.fusion.core.auth.handlers;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import de.marcandreher.fusionkit.core.WebApp;
+import de.marcandreher.fusionkit.core.WebAppConfig;
+import de.marcandreher.fusionkit.core.auth.AuthProcessor;
+import de.marcandreher.fusionkit.core.auth.AuthProvider;
+import de.marcandreher.fusionkit.core.auth.AuthProviderRegistry;
+import de.marcandreher.fusionkit.core.auth.CaffeineProfileCache;
+import de.marcandreher.fusionkit.core.auth.User;
+import de.marcandreher.fusionkit.core.auth.config.DiscordConfig;
+import de.marcandreher.fusionkit.core.auth.handlers.DiscordLoginHandler;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+public class OAuth2LoginHandlerTest {
+
+    private final OkHttpClient client = new OkHttpClient.Builder().followRedirects(false).build();
+    private final CaffeineProfileCache cache = new CaffeineProfileCache();
+    private final List<User> loggedIn = new CopyOnWriteArrayList<>();
+    private final AtomicInteger tokenStatus = new AtomicInteger(200);
+    private volatile AuthProcessor processor = (user, ctx) -> loggedIn.add(user);
+    private volatile String userUrl;
+    private HttpServer provider;
+    private WebApp app;
+    private int port;
+
+    /**
+     * Discord handler talking to the local provider stub.
+     */
+    private class StubbedDiscordLoginHandler extends DiscordLoginHandler {
+        private final String providerUrl;
+
+        StubbedDiscordLoginHandler(WebApp app, String providerUrl) {
+            super(app, discordConfig());
+            this.providerUrl = providerUrl;
+        }
+
+        @Override
+        protected String getTokenUrl() {
+            return providerUrl + "/oauth2/token";
+        }
+
+        @Override
+        protected String getUserUrl() {
+            return userUrl;
+        }
+    }
+
+    private static DiscordConfig discordConfig() {
+        DiscordConfig config = new DiscordConfig();
+        config.setClientId("client");
+        config.setClientSecret("secret");
+        return config;
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        provider = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        String providerUrl = "http://127.0.0.1:" + provider.getAddress().getPort();
+        userUrl = providerUrl + "/users/@me";
+        provider.createContext("/oauth2/token", this::token);
+        provider.createContext("/users/@me", this::user);
+        provider.start();
+
+        try (ServerSocket probe = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            port = probe.getLocalPort();
+        }
+        AuthProviderRegistry.register(AuthProvider.DISCORD, webApp -> new StubbedDiscordLoginHandler(webApp, providerUrl));
+
+        WebAppConfig config = new WebAppConfig();
+        config.setName("OAuth2LoginTest");
+        config.setDomain("http://localhost");
+        config.setPort(port);
+        config.auth.setEnabled(true);
+        config.auth.setEnabledProviders(Set.of(AuthProvider.DISCORD));
+        config.auth.setProfileCache(cache);
+        config.auth.setAuthProcessor((user, ctx) -> processor.handle(user, ctx));
+        config.setJavalinConfigurator(javalinConfig -> javalinConfig.routes.exception(IllegalStateException.class,
+                (e, ctx) -> ctx.status(418).result("Handled: " + e.getMessage())));
+        app = new WebApp(config, config.getRouter());
+    }
+
+    @After
+    public void tearDown() {
+        app.stop();
+        provider.stop(0);
+        AuthProviderRegistry.register(AuthProvider.DISCORD, webApp -> new DiscordLoginHandler(webApp, DiscordConfig.loadConfig()));
+    }
+
+    private void token(HttpExchange exchange) throws IOException {
+        String form = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+        if (tokenStatus.get() != 200 || !form.contains("code=the-code")) {
+            exchange.sendResponseHeaders(tokenStatus.get() != 200 ? tokenStatus.get() : 400, -1);
+            exchange.close();
+            return;
+        }
+        respond(exchange, "{\"access_token\":\"token-1\",\"token_type\":\"Bearer\"}");
+    }
+
+    private void user(HttpExchange exchange) throws IOException {
+        if (!"Bearer token-1".equals(exchange.getRequestHeaders().getFirst("Authorization"))) {
+            exchange.sendResponseHeaders(401, -1);
+            exchange.close();
+            return;
+        }
+        respond(exchange, "{\"id\":\"42\",\"username\":\"wumpus\",\"avatar\":\"abc\",\"email\":\"wumpus@example.com\"}");
+    }
+
+    private static void respond(HttpExchange exchange, String text) throws IOException {
+        byte[] body = text.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+        exchange.close();
+    }
+
+    private Response callback(String query) throws IOException {
+        return client.newCall(new Request.Builder()
+                .url("http://localhost:" + port + "/auth/discord/callback" + query)
+                .build()).execute();
+    }
+
+    @Test
+    public void testLoginCachesProfile() throws IOException {
+        try (Response response = callback("?code=the-code")) {
+            assertEquals(302, response.code());
+            assertEquals("/", response.header("Location"));
+        }
+
+        assertEquals(1, loggedIn.size());
+        assertEquals("wumpus", loggedIn.get(0).getUsername());
+        assertEquals("wumpus@example.com", loggedIn.get(0).getEmail());
+        assertEquals("wumpus", cache.get("discord", "42").getUsername());
+    }
+
+    @Test
+    public void testMissingCode() throws IOException {
+        try (Response response = callback("")) {
+            assertEquals("Missing code", response.body().string());
+        }
+    }
+
+    @Test
+    public void testRejectedTokenRequest() throws IOException {
+        tokenStatus.set(500);
+
+        try (Response response = callback("?code=the-code")) {
+            assertEquals(200, response.code());
+            assertEquals("Failed to get access token", response.body().string());
+        }
+        assertTrue(loggedIn.isEmpty());
+    }
+
+    @Test
+    public void testIOExceptionEndsInCallbackFailed() throws IOException {
+        try (ServerSocket closed = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            userUrl = "http://127.0.0.1:" + closed.getLocalPort() + "/users/@me";
+        }
+
+        try (Response response = callback("?code=the-code")) {
+            assertEquals(200, response.code());
+            assertEquals("OAuth2 callback failed", response.body().string());
+        }
+        assertTrue(loggedIn.isEmpty());
+        assertNull(cache.get("discord", "42"));
+    }
+
+    @Test
+    public void testOtherErrorsReachJavalinExceptionHandler() throws IOException {
+        processor = (user, ctx) -> {
+            throw new IllegalStateException("processor rejected " + user.getUsername());
+        };
+
+        try (Response response = callback("?code=the-code")) {
+            assertEquals(418, response.code());
+            assertEquals("Handled: processor rejected wumpus", response.body().string());
+        }
+    }
+}
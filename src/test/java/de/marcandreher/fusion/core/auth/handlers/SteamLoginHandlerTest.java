@@ -0,0 +1,179 @@
+package de.marcandreher.fusion.core.auth.handlers;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import de.marcandreher.fusionkit.core.WebApp;
+import de.marcandreher.fusionkit.core.WebAppConfig;
+import de.marcandreher.fusionkit.core.auth.AuthProvider;
+import de.marcandreher.fusionkit.core.auth.AuthProviderRegistry;
+import de.marcandreher.fusionkit.core.auth.CaffeineProfileCache;
+import de.marcandreher.fusionkit.core.auth.User;
+import de.marcandreher.fusionkit.core.auth.config.SteamConfig;
+import de.marcandreher.fusionkit.core.auth.handlers.SteamLoginHandler;
+import de.marcandreher.fusionkit.core.auth.handlers.SteamProfiles;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+public class SteamLoginHandlerTest {
+
+    private static final String STEAM_ID = "76561198000000001";
+
+    private final OkHttpClient client = new OkHttpClient.Builder().followRedirects(false).build();
+    private final CaffeineProfileCache cache = new CaffeineProfileCache();
+    private final List<User> loggedIn = new CopyOnWriteArrayList<>();
+    private final List<String> verifications = new CopyOnWriteArrayList<>();
+    private final AtomicInteger summaryCalls = new AtomicInteger();
+    private final AtomicBoolean valid = new AtomicBoolean(true);
+    private HttpServer steam;
+    private WebApp app;
+    private int port;
+
+    @Before
+    public void setUp() throws IOException {
+        steam = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        String steamUrl = "http://127.0.0.1:" + steam.getAddress().getPort();
+        steam.createContext("/openid/login", this::verify);
+        steam.createContext("/ISteamUser/GetPlayerSummaries/v2/", this::summaries);
+        steam.start();
+
+        try (ServerSocket probe = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            port = probe.getLocalPort();
+        }
+        SteamConfig steamConfig = new SteamConfig();
+        steamConfig.setApiKey("test-key");
+        AuthProviderRegistry.register(AuthProvider.STEAM,
+                webApp -> new SteamLoginHandler(webApp, steamConfig, steamUrl + "/openid/login", steamUrl));
+
+        WebAppConfig config = new WebAppConfig();
+        config.setName("SteamLoginTest");
+        config.setDomain("http://localhost");
+        config.setPort(port);
+        config.auth.setEnabled(true);
+        config.auth.setEnabledProviders(Set.of(AuthProvider.STEAM));
+        config.auth.setProfileCache(cache);
+        config.auth.setAuthProcessor((user, ctx) -> loggedIn.add(user));
+        app = new WebApp(config, config.getRouter());
+    }
+
+    @After
+    public void tearDown() {
+        app.stop();
+        steam.stop(0);
+        AuthProviderRegistry.register(AuthProvider.STEAM, webApp -> new SteamLoginHandler(webApp, SteamConfig.loadConfig()));
+    }
+
+    private void verify(HttpExchange exchange) throws IOException {
+        verifications.add(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+        respond(exchange, "ns:http://specs.openid.net/auth/2.0\nis_valid:" + valid.get() + "\n");
+    }
+
+    private void summaries(HttpExchange exchange) throws IOException {
+        summaryCalls.incrementAndGet();
+        respond(exchange, "{\"response\":{\"players\":[{\"steamid\":\"" + STEAM_ID + "\",\"personaname\":\"gabe\","
+                + "\"avatarfull\":\"https://avatars/gabe.jpg\"}]}}");
+    }
+
+    private static void respond(HttpExchange exchange, String text) throws IOException {
+        byte[] body = text.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+        exchange.close();
+    }
+
+    private Response callback(String query) throws IOException {
+        return client.newCall(new Request.Builder()
+                .url("http://localhost:" + port + "/auth/steam/callback" + query)
+                .build()).execute();
+    }
+
+    private Response callback() throws IOException {
+        String claimedId = URLEncoder.encode("https://steamcommunity.com/openid/id/" + STEAM_ID, StandardCharsets.UTF_8);
+        return callback("?openid.ns=" + URLEncoder.encode("http://specs.openid.net/auth/2.0", StandardCharsets.UTF_8)
+                + "&openid.claimed_id=" + claimedId + "&openid.identity=" + claimedId + "&openid.sig=c2ln");
+    }
+
+    @Test
+    public void testVerifiedLoginCachesProfile() throws IOException {
+        try (Response response = callback()) {
+            assertEquals(302, response.code());
+            assertEquals("/", response.header("Location"));
+        }
+
+        assertEquals(1, loggedIn.size());
+        assertEquals("gabe", loggedIn.get(0).getUsername());
+        assertEquals("https://avatars/gabe.jpg", loggedIn.get(0).getAvatar());
+        assertEquals("gabe", cache.get(SteamProfiles.PROVIDER, STEAM_ID).getUsername());
+        assertEquals(1, verifications.size());
+        assertTrue(verifications.get(0).contains("openid.mode=check_authentication"));
+        assertTrue(verifications.get(0).contains("openid.sig=c2ln"));
+    }
+
+    @Test
+    public void testFailedVerificationDoesNotCache() throws Exception {
+        valid.set(false);
+
+        try (Response response = callback()) {
+            assertEquals(200, response.code());
+            assertEquals("Steam OpenID verification failed", response.body().string());
+        }
+
+        // The summary is fetched alongside the verification, let it land before checking the cache
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (summaryCalls.get() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Thread.sleep(100);
+        assertNull("Forged callbacks must not fill the cache", cache.get(SteamProfiles.PROVIDER, STEAM_ID));
+        assertTrue(loggedIn.isEmpty());
+    }
+
+    @Test
+    public void testCachedProfileSkipsSummaryCall() throws IOException {
+        User cached = new User();
+        cached.setId(STEAM_ID);
+        cached.setUsername("cached gabe");
+        cache.put(SteamProfiles.PROVIDER, cached);
+
+        try (Response response = callback()) {
+            assertEquals(302, response.code());
+        }
+
+        assertEquals(0, summaryCalls.get());
+        assertEquals("cached gabe", loggedIn.get(0).getUsername());
+    }
+
+    @Test
+    public void testRejectsMissingOrInvalidClaimedId() throws IOException {
+        try (Response response = callback("")) {
+            assertEquals("Missing Steam OpenID claimed_id", response.body().string());
+        }
+        try (Response response = callback("?openid.claimed_id=" + URLEncoder.encode("https://steamcommunity.com/openid/id/", StandardCharsets.UTF_8))) {
+            assertEquals("Invalid Steam OpenID claimed_id", response.body().string());
+        }
+        assertTrue(verifications.isEmpty());
+        assertEquals(0, summaryCalls.get());
+    }
+}
@@ -0,0 +1,121 @@
+package de.marcandreher.fusion.core.auth.store;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import de.marcandreher.fusionkit.core.WebAppConfig;
+import de.marcandreher.fusionkit.core.auth.User;
+import de.marcandreher.fusionkit.core.auth.store.CookieAuthSessionStore;
+
+public class CookieAuthSessionStoreTest {
+
+    private static final String OLD_SECRET = "old-secret-old-secret-old-secret-0";
+    private static final String NEW_SECRET = "new-secret-new-secret-new-secret-1";
+
+    private static User createUser() {
+        User user = new User();
+        user.setId("1234");
+        user.setUsername("marc");
+        user.setAvatar("https://example.com/avatar.png");
+        user.getData().put("admin", true);
+        user.getData().put("level", 42);
+        return user;
+    }
+
+    @Test
+    public void testRoundTrip() {
+        CookieAuthSessionStore store = new CookieAuthSessionStore.Builder().addKey(1, NEW_SECRET).build();
+
+        User decoded = store.decode(store.encode(createUser()));
+
+        assertNotNull("Cookie should decode", decoded);
+        assertEquals("1234", decoded.getId());
+        assertEquals("marc", decoded.getUsername());
+        assertNull("Missing email should stay null", decoded.getEmail());
+        assertEquals(true, decoded.getData().get("admin"));
+        assertEquals(42, decoded.getData().get("level"));
+    }
+
+    @Test
+    public void testEncryptedRoundTrip() {
+        CookieAuthSessionStore store = new CookieAuthSessionStore.Builder()
+                .addKey(1, NEW_SECRET)
+                .setEncrypt(true)
+                .build();
+
+        String token = store.encode(createUser());
+        User decoded = store.decode(token);
+
+        assertNotNull("Encrypted cookie should decode", decoded);
+        assertEquals("marc", decoded.getUsername());
+    }
+
+    @Test
+    public void testTamperedCookieIsRejected() {
+        CookieAuthSessionStore store = new CookieAuthSessionStore.Builder().addKey(1, NEW_SECRET).build();
+        String token = store.encode(createUser());
+
+        char[] chars = token.toCharArray();
+        int index = chars.length / 2;
+        chars[index] = chars[index] == 'A' ? 'B' : 'A';
+
+        assertNull("Tampered cookie should be rejected", store.decode(new String(chars)));
+        assertNull("Garbage should be rejected", store.decode("not a cookie"));
+    }
+
+    @Test
+    public void testExpiredCookieIsRejected() {
+        CookieAuthSessionStore store = new CookieAuthSessionStore.Builder()
+                .addKey(1, NEW_SECRET)
+                .setAuthSessionInterval(60_000)
+                .build();
+
+        String expired = store.encode(createUser(), System.currentTimeMillis() - 120_000);
+
+        assertNull("Expired cookie should be rejected", store.decode(expired));
+    }
+
+    @Test
+    public void testBuilderIntervalWinsOverAppConfig() {
+        CookieAuthSessionStore store = new CookieAuthSessionStore.Builder()
+                .addKey(1, NEW_SECRET)
+                .setAuthSessionInterval(60_000)
+                .build();
+        WebAppConfig config = new WebAppConfig();
+        config.auth.setAuthSessionInterval(7 * 24 * 60 * 60 * 1000L);
+        store.initialize(config);
+
+        String expired = store.encode(createUser(), System.currentTimeMillis() - 120_000);
+
+        assertNull("The interval set on the builder should be kept", store.decode(expired));
+    }
+
+    @Test
+    public void testAppConfigIntervalAppliesByDefault() {
+        CookieAuthSessionStore store = new CookieAuthSessionStore.Builder().addKey(1, NEW_SECRET).build();
+        WebAppConfig config = new WebAppConfig();
+        config.auth.setAuthSessionInterval(60_000);
+        store.initialize(config);
+
+        String expired = store.encode(createUser(), System.currentTimeMillis() - 120_000);
+
+        assertNull("The app's interval should apply when the builder sets none", store.decode(expired));
+    }
+
+    @Test
+    public void testKeyRotation() {
+        CookieAuthSessionStore oldStore = new CookieAuthSessionStore.Builder().addKey(1, OLD_SECRET).build();
+        CookieAuthSessionStore rotatedStore = new CookieAuthSessionStore.Builder()
+                .addKey(2, NEW_SECRET)
+                .addKey(1, OLD_SECRET)
+                .build();
+        CookieAuthSessionStore newOnlyStore = new CookieAuthSessionStore.Builder().addKey(2, NEW_SECRET).build();
+
+        String oldToken = oldStore.encode(createUser());
+
+        assertNotNull("Old cookies should still verify after rotation", rotatedStore.decode(oldToken));
+        assertNull("Retired keys should no longer verify", newOnlyStore.decode(oldToken));
+        assertNotNull("New cookies are signed with the new key", newOnlyStore.decode(rotatedStore.encode(createUser())));
+    }
+}
@@ -0,0 +1,256 @@
+package de.marcandreher.fusion.core.auth.store;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.marcandreher.fusionkit.core.WebAppConfig;
+import de.marcandreher.fusionkit.core.app.FileStructureManager;
+import de.marcandreher.fusionkit.core.auth.User;
+import de.marcandreher.fusionkit.core.auth.store.FileAuthSessionStore;
+
+public class FileAuthSessionStoreTest {
+
+    private String name;
+    private Path directory;
+    private Path log;
+    private final List<FileAuthSessionStore> stores = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        name = "test-sessions-" + UUID.randomUUID();
+        directory = new File(FileStructureManager.DirectoryType.DATA.getDirectoryName(), name).toPath();
+        log = directory.resolve("sessions.log");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        stores.forEach(FileAuthSessionStore::close);
+        if (!Files.exists(directory)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    private FileAuthSessionStore open() {
+        return open(100_000);
+    }
+
+    private FileAuthSessionStore open(int maxSessions) {
+        FileAuthSessionStore store = new FileAuthSessionStore(new File(name), maxSessions);
+        stores.add(store);
+        return store;
+    }
+
+    private FileAuthSessionStore reopen(FileAuthSessionStore store) {
+        store.close();
+        return open();
+    }
+
+    private static User createUser(String username) {
+        User user = new User();
+        user.setId("1234");
+        user.setUsername(username);
+        return user;
+    }
+
+    @Test
+    public void testRoundTripAcrossReopen() {
+        FileAuthSessionStore store = open();
+        store.setUser("a", createUser("first"));
+        store.setUser("b", createUser("marc"));
+        store.setUser("a", createUser("second"));
+        store.clear("b");
+
+        store = reopen(store);
+
+        assertEquals(1, store.size());
+        assertEquals("second", store.getUser("a").getUsername());
+        assertNull("Deleted sessions stay deleted", store.getUser("b"));
+    }
+
+    @Test
+    public void testDropsTornTail() throws IOException {
+        FileAuthSessionStore store = open();
+        store.setUser("a", createUser("marc"));
+        long valid = Files.size(log);
+        store.setUser("b", createUser("torn"));
+        store.close();
+
+        try (var channel = Files.newByteChannel(log, StandardOpenOption.WRITE)) {
+            channel.truncate(Files.size(log) - 5);
+        }
+        store = open();
+
+        assertEquals("marc", store.getUser("a").getUsername());
+        assertNull(store.getUser("b"));
+        assertEquals(valid, Files.size(log));
+    }
+
+    @Test
+    public void testDropsCorruptTail() throws IOException {
+        FileAuthSessionStore store = open();
+        store.setUser("a", createUser("marc"));
+        long valid = Files.size(log);
+        store.setUser("b", createUser("corrupt"));
+        store.close();
+
+        byte[] bytes = Files.readAllBytes(log);
+        bytes[bytes.length - 2] ^= 0x7f;
+        Files.write(log, bytes);
+        store = open();
+
+        assertEquals("marc", store.getUser("a").getUsername());
+        assertNull("A record failing its checksum is dropped", store.getUser("b"));
+        assertEquals(valid, Files.size(log));
+    }
+
+    @Test
+    public void testDropsOversizedLengthHeader() throws IOException {
+        FileAuthSessionStore store = open();
+        store.setUser("a", createUser("marc"));
+        long valid = Files.size(log);
+        store.close();
+
+        // The two lengths overflow an int when added up
+        ByteBuffer header = ByteBuffer.allocate(4 + 1 + 4 + 4 + 8)
+                .putInt(0)
+                .put((byte) 1)
+                .putInt(Integer.MAX_VALUE)
+                .putInt(Integer.MAX_VALUE);
+        Files.write(log, header.array(), StandardOpenOption.APPEND);
+        store = open();
+
+        assertEquals("marc", store.getUser("a").getUsername());
+        assertEquals(valid, Files.size(log));
+    }
+
+    @Test
+    public void testCompactionKeepsOnlyLiveSessions() throws IOException {
+        FileAuthSessionStore store = open();
+        store.setUser("a", createUser("first"));
+        store.setUser("b", createUser("marc"));
+        store.setUser("c", createUser("marc"));
+        for (int i = 0; i < 10; i++) {
+            store.setUser("a", createUser("update-" + i));
+        }
+        store.clear("b");
+        long before = Files.size(log);
+
+        store.compact();
+
+        assertTrue("The log should shrink", Files.size(log) < before);
+        assertFalse(Files.exists(directory.resolve("sessions.log.compact")));
+        store.setUser("d", createUser("after"));
+
+        store = reopen(store);
+
+        assertEquals(3, store.size());
+        assertEquals("update-9", store.getUser("a").getUsername());
+        assertNull(store.getUser("b"));
+        assertEquals("marc", store.getUser("c").getUsername());
+        assertEquals("Writes after a compaction go to the new log", "after", store.getUser("d").getUsername());
+    }
+
+    @Test
+    public void testCompactionAfterCloseDoesNothing() throws IOException {
+        FileAuthSessionStore store = open();
+        store.setUser("a", createUser("marc"));
+        store.close();
+        long size = Files.size(log);
+
+        store.compact();
+
+        assertEquals(size, Files.size(log));
+    }
+
+    @Test
+    public void testCompactsInBackground() throws Exception {
+        FileAuthSessionStore store = open();
+        User user = createUser("marc");
+        user.getData().put("padding", "x".repeat(1000));
+        // Rewriting one session over and over leaves the log mostly dead
+        for (int i = 0; i < 1500; i++) {
+            store.setUser("a", user);
+        }
+
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (Files.size(log) > 1024 * 1024 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue("The log should have been compacted", Files.size(log) < 1024 * 1024);
+
+        store = reopen(store);
+        assertEquals(1, store.size());
+        assertEquals("marc", store.getUser("a").getUsername());
+    }
+
+    @Test
+    public void testExpiredSessionsAreDropped() throws InterruptedException {
+        FileAuthSessionStore store = open();
+        WebAppConfig config = new WebAppConfig();
+        config.auth.setAuthSessionInterval(50);
+        store.initialize(config);
+        store.setUser("a", createUser("marc"));
+        store.setUser("b", createUser("marc"));
+        assertNotNull(store.getUser("a"));
+
+        Thread.sleep(100);
+
+        assertNull(store.getUser("a"));
+        store = reopen(store);
+        assertEquals("Expired sessions are not loaded", 0, store.size());
+    }
+
+    @Test
+    public void testEvictsSessionsClosestToExpiry() throws InterruptedException {
+        FileAuthSessionStore store = open(10);
+        for (int i = 0; i <= 10; i++) {
+            store.setUser("session-" + i, createUser("user-" + i));
+            Thread.sleep(2);
+        }
+
+        // Evicts a batch of 10% below the limit
+        assertEquals(9, store.size());
+        assertNull(store.getUser("session-0"));
+        assertNull(store.getUser("session-1"));
+        assertNotNull(store.getUser("session-10"));
+
+        store = reopen(store);
+        assertEquals("Evictions are persisted", 9, store.size());
+    }
+
+    @Test
+    public void testMigratesLegacyTomlFiles() throws IOException {
+        Files.createDirectories(directory);
+        Path legacy = directory.resolve("legacy-session.toml");
+        Files.writeString(legacy, "id = \"1234\"\nusername = \"marc\"\n", StandardCharsets.UTF_8);
+
+        FileAuthSessionStore store = open();
+
+        assertEquals("marc", store.getUser("legacy-session").getUsername());
+        assertFalse("Migrated files are removed", Files.exists(legacy));
+
+        store = reopen(store);
+        assertEquals("marc", store.getUser("legacy-session").getUsername());
+    }
+}
@@ -0,0 +1,136 @@
+package de.marcandreher.fusion.core.auth.store;
+
+import static org.junit.Assert.*;
+
+import java.net.InetAddress;
+import java.net.ServerSocket;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.marcandreher.fusionkit.core.auth.User;
+import de.marcandreher.fusionkit.core.auth.store.RemoteAuthSessionStore;
+import de.marcandreher.fusionkit.core.auth.store.RespClient;
+
+public class RemoteAuthSessionStoreTest {
+
+    private RespTestServer server;
+    private RemoteAuthSessionStore nodeA;
+    private RemoteAuthSessionStore nodeB;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new RespTestServer();
+        nodeA = createStore(server.getPort());
+        nodeB = createStore(server.getPort());
+        awaitSubscribed(nodeA);
+        awaitSubscribed(nodeB);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        nodeA.close();
+        nodeB.close();
+        server.close();
+    }
+
+    private static RemoteAuthSessionStore createStore(int port) {
+        return new RemoteAuthSessionStore.Builder()
+                .setHost("127.0.0.1")
+                .setPort(port)
+                .setPoolSize(2)
+                .build();
+    }
+
+    private static void awaitSubscribed(RemoteAuthSessionStore store) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!store.isSubscribed() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue("Store should subscribe to invalidations", store.isSubscribed());
+    }
+
+    private static User createUser(String name) {
+        User user = new User();
+        user.setId("42");
+        user.setUsername(name);
+        return user;
+    }
+
+    @Test
+    public void testSessionIsSharedBetweenNodes() {
+        nodeA.setUser("session-1", createUser("marc"));
+
+        User user = nodeB.getUser("session-1");
+
+        assertNotNull("Session written on node A should be visible on node B", user);
+        assertEquals("marc", user.getUsername());
+        assertEquals(1, nodeB.getNearCacheSize());
+    }
+
+    @Test
+    public void testClearInvalidatesOtherNearCaches() throws InterruptedException {
+        nodeA.setUser("session-2", createUser("marc"));
+        assertNotNull(nodeB.getUser("session-2"));
+
+        nodeA.clear("session-2");
+
+        long deadline = System.currentTimeMillis() + 2000;
+        while (nodeB.getUser("session-2") != null && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertNull("Logout on node A should evict the session on node B", nodeB.getUser("session-2"));
+    }
+
+    @Test
+    public void testUpdateInvalidatesOtherNearCaches() throws InterruptedException {
+        nodeA.setUser("session-3", createUser("before"));
+        assertEquals("before", nodeB.getUser("session-3").getUsername());
+
+        nodeA.setUser("session-3", createUser("after"));
+
+        long deadline = System.currentTimeMillis() + 2000;
+        while (!"after".equals(nodeB.getUser("session-3").getUsername()) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals("after", nodeB.getUser("session-3").getUsername());
+    }
+
+    @Test
+    public void testSubscribesOnceServerIsReachable() throws Exception {
+        int port;
+        try (ServerSocket probe = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            port = probe.getLocalPort();
+        }
+
+        RemoteAuthSessionStore store = createStore(port);
+        try {
+            assertFalse(store.isSubscribed());
+            try (RespTestServer lateServer = new RespTestServer(port)) {
+                awaitSubscribed(store);
+            }
+        } finally {
+            store.close();
+        }
+    }
+
+    @Test
+    public void testPipelineAndErrors() throws Exception {
+        try (RespClient client = new RespClient("127.0.0.1", server.getPort(), null, 0, 1, 2000)) {
+            assertEquals("PONG", client.execute("PING"));
+            assertNull(client.execute("GET", "missing"));
+
+            try {
+                client.execute("FLUSHALL");
+                fail("Should surface error replies");
+            } catch (RespClient.RespException e) {
+                assertTrue(e.getMessage().contains("unknown command"));
+            }
+
+            // The connection stays usable after an error reply
+            assertEquals("PONG", client.execute("PING"));
+            assertEquals(1, client.getOpenConnections());
+        }
+    }
+}
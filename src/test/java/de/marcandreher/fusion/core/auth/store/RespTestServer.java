@@ -0,0 +1,169 @@
+package de.marcandreher.fusion.core.auth.store;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Tiny in-process stand-in for a Redis server. Understands just enough RESP
+ * (PING, AUTH, SELECT, GET, SET, DEL, PUBLISH, SUBSCRIBE) to test the session stores.
+ */
+public class RespTestServer implements Closeable {
+
+    private final ServerSocket serverSocket;
+    private final Map<String, String> values = new ConcurrentHashMap<>();
+    private final Map<String, List<OutputStream>> subscribers = new ConcurrentHashMap<>();
+    private final List<Socket> clients = new CopyOnWriteArrayList<>();
+
+    public RespTestServer() throws IOException {
+        this(0);
+    }
+
+    public RespTestServer(int port) throws IOException {
+        serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        Thread acceptor = new Thread(this::acceptLoop, "RespTestServer");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    public Map<String, String> getValues() {
+        return values;
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        for (Socket client : clients) {
+            client.close();
+        }
+    }
+
+    private void acceptLoop() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                clients.add(socket);
+                Thread handler = new Thread(() -> handle(socket), "RespTestServer-Client");
+                handler.setDaemon(true);
+                handler.start();
+            } catch (IOException e) {
+                return;
+            }
+        }
+    }
+
+    private void handle(Socket socket) {
+        try (socket) {
+            InputStream in = new BufferedInputStream(socket.getInputStream());
+            OutputStream out = socket.getOutputStream();
+            List<String> command;
+            while ((command = readCommand(in)) != null) {
+                synchronized (out) {
+                    execute(command, out);
+                    out.flush();
+                }
+            }
+        } catch (IOException e) {
+            // Client went away
+        }
+    }
+
+    private void execute(List<String> command, OutputStream out) throws IOException {
+        String name = command.get(0).toUpperCase();
+        switch (name) {
+            case "PING" -> writeSimple(out, "PONG");
+            case "AUTH", "SELECT" -> writeSimple(out, "OK");
+            case "GET" -> writeBulk(out, values.get(command.get(1)));
+            case "SET" -> {
+                values.put(command.get(1), command.get(2));
+                writeSimple(out, "OK");
+            }
+            case "DEL" -> writeInteger(out, values.remove(command.get(1)) != null ? 1 : 0);
+            case "PUBLISH" -> {
+                List<OutputStream> targets = subscribers.getOrDefault(command.get(1), List.of());
+                for (OutputStream target : targets) {
+                    synchronized (target) {
+                        target.write(("*3\r\n").getBytes(StandardCharsets.UTF_8));
+                        writeBulk(target, "message");
+                        writeBulk(target, command.get(1));
+                        writeBulk(target, command.get(2));
+                        target.flush();
+                    }
+                }
+                writeInteger(out, targets.size());
+            }
+            case "SUBSCRIBE" -> {
+                subscribers.computeIfAbsent(command.get(1), k -> new CopyOnWriteArrayList<>()).add(out);
+                out.write(("*3\r\n").getBytes(StandardCharsets.UTF_8));
+                writeBulk(out, "subscribe");
+                writeBulk(out, command.get(1));
+                writeInteger(out, 1);
+            }
+            default -> out.write(("-ERR unknown command '" + name + "'\r\n").getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private static List<String> readCommand(InputStream in) throws IOException {
+        String header = readLine(in);
+        if (header == null) {
+            return null;
+        }
+        int count = Integer.parseInt(header.substring(1));
+        List<String> command = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int length = Integer.parseInt(readLine(in).substring(1));
+            byte[] bytes = in.readNBytes(length);
+            in.readNBytes(2);
+            command.add(new String(bytes, StandardCharsets.UTF_8));
+        }
+        return command;
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int b;
+        while ((b = in.read()) != -1) {
+            if (b == '\r') {
+                in.read();
+                return line.toString(StandardCharsets.UTF_8);
+            }
+            line.write(b);
+        }
+        return null;
+    }
+
+    private static void writeSimple(OutputStream out, String value) throws IOException {
+        out.write(("+" + value + "\r\n").getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void writeInteger(OutputStream out, long value) throws IOException {
+        out.write((":" + value + "\r\n").getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void writeBulk(OutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.write("$-1\r\n".getBytes(StandardCharsets.UTF_8));
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.write(("$" + bytes.length + "\r\n").getBytes(StandardCharsets.UTF_8));
+        out.write(bytes);
+        out.write("\r\n".getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,105 @@
+package de.marcandreher.fusion.core.config;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.marcandreher.fusionkit.core.config.ConfigFile;
+import de.marcandreher.fusionkit.core.config.ConfigService;
+
+public class ConfigFileTest {
+
+    public static class TestConfig {
+        private String name = "default";
+        private Long port = 8080L;
+    }
+
+    private String directory;
+    private ConfigFile<TestConfig> file;
+    private final List<TestConfig> changes = new ArrayList<>();
+
+    @Before
+    public void setUp() throws IOException {
+        directory = "test-" + UUID.randomUUID();
+        file = ConfigService.file(directory + "/app.toml", TestConfig.class, TestConfig::new);
+        // Reloads are triggered by the tests, not by the watcher
+        ConfigService.shutdown();
+        file.onChange((previous, current) -> changes.add(current));
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(file.getPath().getParent())) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    private void write(String toml) throws IOException {
+        Files.writeString(file.getPath(), toml, StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testCreatesDefaults() {
+        assertTrue(Files.exists(file.getPath()));
+        assertEquals("default", file.get().name);
+        assertEquals(Long.valueOf(8080), file.get().port);
+    }
+
+    @Test
+    public void testReloadPublishesNewSnapshot() throws IOException {
+        TestConfig before = file.get();
+        write("name = \"changed\"\nport = 9090\n");
+
+        assertTrue(file.reload());
+
+        assertEquals("changed", file.get().name);
+        assertEquals(Long.valueOf(9090), file.get().port);
+        assertEquals("default", before.name);
+        assertEquals(1, changes.size());
+        assertSame(file.get(), changes.get(0));
+    }
+
+    @Test
+    public void testReloadOfUnchangedFileKeepsSnapshot() {
+        TestConfig before = file.get();
+
+        assertFalse(file.reload());
+
+        assertSame(before, file.get());
+        assertTrue(changes.isEmpty());
+    }
+
+    @Test
+    public void testInvalidTomlKeepsCurrentValues() throws IOException {
+        write("name = \"valid\"\nport = 9090\n");
+        assertTrue(file.reload());
+        TestConfig valid = file.get();
+
+        write("name = \"broken\nport = = 1\n");
+
+        assertFalse(file.reload());
+        assertSame(valid, file.get());
+        assertEquals("valid", file.get().name);
+        assertEquals(1, changes.size());
+
+        // Once the file is fixed it is picked up again
+        write("name = \"fixed\"\nport = 9090\n");
+        assertTrue(file.reload());
+        assertEquals("fixed", file.get().name);
+        assertEquals(2, changes.size());
+    }
+}
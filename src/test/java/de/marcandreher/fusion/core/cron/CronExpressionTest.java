@@ -0,0 +1,97 @@
+package de.marcandreher.fusion.core.cron;
+
+import static org.junit.Assert.*;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+
+import org.junit.Test;
+
+import de.marcandreher.fusionkit.core.cron.CronExpression;
+
+public class CronExpressionTest {
+
+    private static final ZoneId UTC = ZoneId.of("UTC");
+    private static final ZoneId NEW_YORK = ZoneId.of("America/New_York");
+
+    private static ZonedDateTime at(String localDateTime, ZoneId zone) {
+        return LocalDateTime.parse(localDateTime).atZone(zone);
+    }
+
+    @Test
+    public void testSecondsField() {
+        CronExpression expression = CronExpression.parse("*/15 * * * * *");
+        ZonedDateTime next = expression.next(at("2026-01-01T00:00:00", UTC));
+        assertEquals(at("2026-01-01T00:00:15", UTC), next);
+        assertEquals(at("2026-01-01T00:00:30", UTC), expression.next(next));
+    }
+
+    @Test
+    public void testFiveFieldsFireAtSecondZero() {
+        CronExpression expression = CronExpression.parse("30 9 * * MON-FRI");
+        // 2026-10-17 is a Saturday
+        assertEquals(at("2026-10-19T09:30:00", UTC), expression.next(at("2026-10-17T12:00:00", UTC)));
+    }
+
+    @Test
+    public void testMacros() {
+        assertEquals(at("2026-01-01T01:00:00", UTC), CronExpression.parse("@hourly").next(at("2026-01-01T00:00:00", UTC)));
+        assertEquals(at("2026-02-01T00:00:00", UTC), CronExpression.parse("@monthly").next(at("2026-01-01T00:00:00", UTC)));
+    }
+
+    @Test
+    public void testDayOfMonthOrDayOfWeek() {
+        // Fridays and the 13th of every month
+        CronExpression expression = CronExpression.parse("0 0 0 13 * FRI");
+        assertEquals(at("2026-01-02T00:00:00", UTC), expression.next(at("2026-01-01T00:00:00", UTC)));
+        assertEquals(at("2026-01-13T00:00:00", UTC), expression.next(at("2026-01-09T00:00:00", UTC)));
+    }
+
+    @Test
+    public void testDaylightSavingGapFiresAfterGap() {
+        // 2026-03-08 02:30 does not exist in New York, the clocks jump from 02:00 to 03:00
+        CronExpression expression = CronExpression.parse("0 30 2 * * *");
+        ZonedDateTime next = expression.next(at("2026-03-07T12:00:00", NEW_YORK));
+        assertEquals(at("2026-03-08T03:30:00", NEW_YORK), next);
+        assertEquals(at("2026-03-09T02:30:00", NEW_YORK), expression.next(next));
+    }
+
+    @Test
+    public void testDaylightSavingOverlapFiresOnce() {
+        // 2026-11-01 01:30 happens twice in New York
+        CronExpression expression = CronExpression.parse("0 30 1 * * *");
+        ZonedDateTime first = expression.next(at("2026-10-31T12:00:00", NEW_YORK));
+        assertEquals(-4 * 3600, first.getOffset().getTotalSeconds());
+        ZonedDateTime second = expression.next(first);
+        assertEquals(at("2026-11-02T01:30:00", NEW_YORK), second);
+    }
+
+    @Test
+    public void testDailyScheduleKeepsWallClockAcrossDst() {
+        CronExpression expression = CronExpression.parse("0 0 3 * * *");
+        ZonedDateTime time = at("2026-03-07T12:00:00", NEW_YORK);
+        for (int i = 0; i < 3; i++) {
+            time = expression.next(time);
+            assertEquals(3, time.getHour());
+        }
+    }
+
+    @Test
+    public void testNeverMatchingExpression() {
+        assertNull(CronExpression.parse("0 0 0 30 2 *").next(at("2026-01-01T00:00:00", UTC)));
+    }
+
+    @Test
+    public void testInvalidExpressions() {
+        String[] invalid = { "", "* * * *", "60 * * * * *", "* * 24 * * *", "* * * * 13 *", "*/0 * * * * *", "a * * * * *" };
+        for (String expression : invalid) {
+            try {
+                CronExpression.parse(expression);
+                fail("Should reject cron expression: " + expression);
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        }
+    }
+}
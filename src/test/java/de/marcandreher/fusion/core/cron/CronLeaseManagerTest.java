@@ -0,0 +1,130 @@
+package de.marcandreher.fusion.core.cron;
+
+import static org.junit.Assert.*;
+
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import de.marcandreher.fusion.core.database.FakeJdbc;
+import de.marcandreher.fusionkit.core.cron.CronLeaseManager;
+import de.marcandreher.fusionkit.core.database.Database;
+
+public class CronLeaseManagerTest {
+
+    private static final long LEASE_MILLIS = 60_000;
+    private static final long GAP_MILLIS = 1_000;
+
+    /**
+     * The lease table, answering the statements of {@link CronLeaseManager} the way MySQL would.
+     * {@code NOW(3)} is {@link #now}.
+     */
+    private static final class LeaseTable implements FakeJdbc.Handler {
+        private final Map<String, Row> rows = new HashMap<>();
+        private long now = 1_000_000;
+        private boolean reachable = true;
+
+        private record Row(String owner, long fireTime, long expiresAt) { }
+
+        @Override
+        public FakeJdbc.Table execute(String sql, Map<Integer, Object> p) throws SQLException {
+            if (!reachable) {
+                throw new SQLException("Communications link failure");
+            }
+            FakeJdbc.Table result = FakeJdbc.Table.of("Tables");
+            if (sql.equals(FakeJdbc.SHOW_TABLES)) {
+                return result.row(p.get(1));
+            }
+            if (sql.startsWith("INSERT IGNORE")) {
+                String task = (String) p.get(1);
+                if (!rows.containsKey(task)) {
+                    rows.put(task, new Row((String) p.get(2), (Long) p.get(3), now + (Long) p.get(4) / 1000));
+                    result.row(task);
+                }
+            } else if (sql.contains("SET owner = ?")) {
+                String task = (String) p.get(4);
+                Row row = rows.get(task);
+                if (row.fireTime() <= (Long) p.get(5) && row.expiresAt() < now) {
+                    rows.put(task, new Row((String) p.get(1), (Long) p.get(2), now + (Long) p.get(3) / 1000));
+                    result.row(task);
+                }
+            } else if (sql.contains("INTERVAL ? MICROSECOND")) {
+                String task = (String) p.get(2);
+                Row row = rows.get(task);
+                if (row != null && row.owner().equals(p.get(3)) && row.fireTime() == (Long) p.get(4)) {
+                    rows.put(task, new Row(row.owner(), row.fireTime(), now + (Long) p.get(1) / 1000));
+                    result.row(task);
+                }
+            } else if (sql.contains("SET expires_at = NOW(3)")) {
+                String task = (String) p.get(1);
+                Row row = rows.get(task);
+                if (row != null && row.owner().equals(p.get(2)) && row.fireTime() == (Long) p.get(3)) {
+                    rows.put(task, new Row(row.owner(), row.fireTime(), now));
+                    result.row(task);
+                }
+            }
+            return result;
+        }
+    }
+
+    private final LeaseTable table = new LeaseTable();
+    private final Database database = new FakeJdbc(table).database();
+    private final CronLeaseManager nodeA = new CronLeaseManager(database, LEASE_MILLIS);
+    private final CronLeaseManager nodeB = new CronLeaseManager(database, LEASE_MILLIS);
+
+    @Test
+    public void testOnlyOneNodeTakesAFire() {
+        CronLeaseManager.Lease lease = nodeA.tryAcquire("report", 60_000, GAP_MILLIS);
+        assertNotNull(lease);
+        assertEquals(nodeA.getNodeId(), table.rows.get("report").owner());
+
+        assertNull("The fire is taken", nodeB.tryAcquire("report", 60_000, GAP_MILLIS));
+
+        lease.release();
+        table.now++;
+        assertNull("A released fire is not run again", nodeB.tryAcquire("report", 60_000, GAP_MILLIS));
+        assertNull("Fires closer than the gap count as the same fire", nodeB.tryAcquire("report", 60_500, GAP_MILLIS));
+        assertNotNull("The next fire is free", nodeB.tryAcquire("report", 120_000, GAP_MILLIS));
+        assertEquals(nodeB.getNodeId(), table.rows.get("report").owner());
+    }
+
+    @Test
+    public void testExpiredLeaseIsTakenOver() {
+        CronLeaseManager.Lease lease = nodeA.tryAcquire("report", 60_000, GAP_MILLIS);
+        assertNotNull(lease);
+
+        assertNull("The lease still runs", nodeB.tryAcquire("report", 120_000, GAP_MILLIS));
+        table.now += LEASE_MILLIS + 1;
+        assertNotNull(nodeB.tryAcquire("report", 120_000, GAP_MILLIS));
+
+        assertFalse("A lease taken over cannot be renewed", lease.renew());
+        lease.release();
+        assertEquals("Releasing a lost lease leaves the new owner alone", nodeB.getNodeId(), table.rows.get("report").owner());
+    }
+
+    @Test
+    public void testRenewExtendsLease() {
+        CronLeaseManager.Lease lease = nodeA.tryAcquire("report", 60_000, GAP_MILLIS);
+
+        table.now += LEASE_MILLIS - 10_000;
+        assertTrue(lease.renew());
+        table.now += 20_000;
+
+        assertNull("The renewed lease has not expired", nodeB.tryAcquire("report", 120_000, GAP_MILLIS));
+    }
+
+    @Test
+    public void testUnreachableDatabaseSkipsFire() {
+        table.reachable = false;
+
+        assertNull(nodeA.tryAcquire("report", 60_000, GAP_MILLIS));
+    }
+
+    @Test
+    public void testTasksHaveSeparateLeases() {
+        assertNotNull(nodeA.tryAcquire("report", 60_000, GAP_MILLIS));
+        assertNotNull(nodeB.tryAcquire("cleanup", 60_000, GAP_MILLIS));
+    }
+}
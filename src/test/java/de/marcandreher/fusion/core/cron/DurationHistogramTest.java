@@ -0,0 +1,73 @@
+package de.marcandreher.fusion.core.cron;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import de.marcandreher.fusionkit.core.cron.CronTaskStats;
+import de.marcandreher.fusionkit.core.cron.DurationHistogram;
+
+public class DurationHistogramTest {
+
+    @Test
+    public void testEmptyHistogram() {
+        assertEquals(-1, new DurationHistogram().getPercentileMillis(50));
+        assertEquals(-1, new CronTaskStats().getP99Millis());
+    }
+
+    @Test
+    public void testSmallDurationsAreExact() {
+        DurationHistogram histogram = new DurationHistogram();
+        for (int i = 1; i <= 10; i++) {
+            histogram.record(i);
+        }
+
+        assertEquals(1, histogram.getPercentileMillis(0));
+        assertEquals(5, histogram.getPercentileMillis(50));
+        assertEquals(9, histogram.getPercentileMillis(90));
+        assertEquals(10, histogram.getPercentileMillis(100));
+    }
+
+    @Test
+    public void testLargeDurationsStayWithinBucketError() {
+        DurationHistogram histogram = new DurationHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 100L);
+        }
+
+        assertWithin(50_000, histogram.getPercentileMillis(50));
+        assertWithin(99_000, histogram.getPercentileMillis(99));
+        assertWithin(100_000, histogram.getPercentileMillis(100));
+    }
+
+    @Test
+    public void testOutliersOnlyMoveTheTail() {
+        DurationHistogram histogram = new DurationHistogram();
+        for (int i = 0; i < 99; i++) {
+            histogram.record(10);
+        }
+        histogram.record(60_000);
+
+        assertEquals(10, histogram.getPercentileMillis(50));
+        assertEquals(10, histogram.getPercentileMillis(99));
+        assertWithin(60_000, histogram.getPercentileMillis(100));
+    }
+
+    @Test
+    public void testExtremeValues() {
+        DurationHistogram histogram = new DurationHistogram();
+        histogram.record(-5);
+        histogram.record(Long.MAX_VALUE);
+
+        assertEquals("Negative durations count as 0", 0, histogram.getPercentileMillis(50));
+        assertEquals(Long.MAX_VALUE, histogram.getPercentileMillis(100));
+        assertEquals(2, histogram.getCount());
+    }
+
+    /**
+     * Percentiles are rounded up to the end of their bucket, at most 1/8 above the value.
+     */
+    private static void assertWithin(long expected, long actual) {
+        assertTrue("Expected " + expected + " but was " + actual, actual >= expected && actual <= expected + expected / 8);
+    }
+}
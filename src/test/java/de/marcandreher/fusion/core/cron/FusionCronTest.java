@@ -0,0 +1,88 @@
+package de.marcandreher.fusion.core.cron;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.After;
+import org.junit.Test;
+
+import de.marcandreher.fusionkit.core.cron.CronTaskStats;
+import de.marcandreher.fusionkit.core.cron.FusionCron;
+import de.marcandreher.fusionkit.core.cron.RunnableCronTask;
+
+public class FusionCronTest {
+
+    private final FusionCron cron = new FusionCron();
+
+    @After
+    public void tearDown() throws InterruptedException {
+        cron.shutdown();
+        cron.awaitTermination(5_000);
+    }
+
+    private static void awaitRuns(CronTaskStats stats, long runs) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (stats.getRuns() < runs && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue("Expected " + runs + " finished runs", stats.getRuns() >= runs);
+    }
+
+    @Test
+    public void testTimeoutInterruptsRun() throws InterruptedException {
+        CountDownLatch interrupted = new CountDownLatch(1);
+        cron.registerCronTask("* * * * * *", new RunnableCronTask() {
+            @Override
+            public void run() {
+                try {
+                    Thread.sleep(10_000);
+                } catch (InterruptedException e) {
+                    interrupted.countDown();
+                }
+            }
+
+            @Override
+            public String getName() {
+                return "SlowTask";
+            }
+        }, options -> options.setTimeoutMillis(200));
+
+        assertTrue("The run should be interrupted", interrupted.await(5, TimeUnit.SECONDS));
+        CronTaskStats stats = cron.getTaskMetas().get(0).getStats();
+        awaitRuns(stats, 1);
+        assertTrue(stats.getTimeouts() >= 1);
+        assertTrue("Interrupted runs end early", stats.getLastDurationMillis() < 5_000);
+    }
+
+    @Test
+    public void testRunWithinTimeoutIsNotInterrupted() throws InterruptedException {
+        AtomicBoolean interrupted = new AtomicBoolean();
+        cron.registerCronTask("* * * * * *", new RunnableCronTask() {
+            @Override
+            public void run() {
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException e) {
+                    interrupted.set(true);
+                }
+            }
+
+            @Override
+            public String getName() {
+                return "QuickTask";
+            }
+        }, options -> options.setTimeoutMillis(1_000));
+
+        CronTaskStats stats = cron.getTaskMetas().get(0).getStats();
+        awaitRuns(stats, 1);
+        // The watchdog of the finished run must not fire later
+        Thread.sleep(1_200);
+
+        assertFalse(interrupted.get());
+        assertEquals(0, stats.getTimeouts());
+        assertEquals(0, stats.getFailures());
+    }
+}
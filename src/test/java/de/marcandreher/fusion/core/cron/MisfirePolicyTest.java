@@ -0,0 +1,73 @@
+package de.marcandreher.fusion.core.cron;
+
+import static org.junit.Assert.*;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import de.marcandreher.fusionkit.core.cron.CronExpression;
+import de.marcandreher.fusionkit.core.cron.MisfirePolicy;
+
+public class MisfirePolicyTest {
+
+    private static final ZoneId UTC = ZoneId.of("UTC");
+    private static final CronExpression EVERY_SECOND = CronExpression.parse("* * * * * *");
+    private static final long T0 = Instant.parse("2026-01-01T00:00:00Z").toEpochMilli();
+    private static final long THRESHOLD_MILLIS = 500;
+
+    private static long nextFireAfter(long millis) {
+        return EVERY_SECOND.next(Instant.ofEpochMilli(millis).atZone(UTC)).toInstant().toEpochMilli();
+    }
+
+    /**
+     * Replays what FusionCron does when its dispatcher wakes up at {@code nowMillis} after a
+     * stall, with a fire due every second since {@link #T0}.
+     * @return The fire times that run
+     */
+    private static List<Long> runsAfterStall(MisfirePolicy policy, long nowMillis) {
+        List<Long> runs = new ArrayList<>();
+        long fireAt = T0;
+        while (fireAt <= nowMillis) {
+            boolean missed = nowMillis - fireAt > THRESHOLD_MILLIS;
+            if (!missed || policy.runsMissedFire()) {
+                runs.add(fireAt);
+            }
+            fireAt = nextFireAfter(missed ? policy.nextFireBase(fireAt, nowMillis) : fireAt);
+        }
+        return runs;
+    }
+
+    @Test
+    public void testFireAllRunsEveryMissedFire() {
+        assertEquals(List.of(T0, T0 + 1000, T0 + 2000, T0 + 3000), runsAfterStall(MisfirePolicy.FIRE_ALL, T0 + 3_400));
+    }
+
+    @Test
+    public void testFireOnceNowRunsOnce() {
+        assertEquals(List.of(T0), runsAfterStall(MisfirePolicy.FIRE_ONCE_NOW, T0 + 3_400));
+    }
+
+    @Test
+    public void testSkipDropsMissedFires() {
+        assertEquals(List.of(), runsAfterStall(MisfirePolicy.SKIP, T0 + 3_700));
+    }
+
+    @Test
+    public void testFiresWithinThresholdRunForEveryPolicy() {
+        for (MisfirePolicy policy : MisfirePolicy.values()) {
+            assertEquals(policy.name(), List.of(T0), runsAfterStall(policy, T0 + THRESHOLD_MILLIS));
+        }
+    }
+
+    @Test
+    public void testNextFireBase() {
+        assertEquals(T0, MisfirePolicy.FIRE_ALL.nextFireBase(T0, T0 + 10_000));
+        assertEquals(T0 + 10_000, MisfirePolicy.FIRE_ONCE_NOW.nextFireBase(T0, T0 + 10_000));
+        assertEquals(T0 + 10_000, MisfirePolicy.SKIP.nextFireBase(T0, T0 + 10_000));
+        assertFalse(MisfirePolicy.SKIP.runsMissedFire());
+    }
+}
@@ -0,0 +1,245 @@
+package de.marcandreher.fusion.core.cron;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.Test;
+
+import de.marcandreher.fusion.core.database.FakeJdbc;
+import de.marcandreher.fusionkit.core.cron.PartitionedCronTask;
+import de.marcandreher.fusionkit.core.database.Database;
+import de.marcandreher.fusionkit.core.database.MySQL;
+
+public class PartitionedCronTaskTest {
+
+    /**
+     * The run and chunk tables plus the key range of the partitioned table, answering the
+     * statements of {@link PartitionedCronTask}.
+     */
+    private static final class Tables implements FakeJdbc.Handler {
+        private Long minKey;
+        private Long maxKey;
+        private long[] run;
+        private boolean finished;
+        private final Set<Integer> chunks = new TreeSet<>();
+
+        @Override
+        public synchronized FakeJdbc.Table execute(String sql, Map<Integer, Object> p) {
+            if (sql.equals(FakeJdbc.SHOW_TABLES)) {
+                return FakeJdbc.Table.of("Tables").row(p.get(1));
+            }
+            if (sql.startsWith("SELECT range_min")) {
+                FakeJdbc.Table result = FakeJdbc.Table.of("range_min", "range_max", "chunk_size");
+                return run != null && !finished ? result.row(run[0], run[1], run[2]) : result;
+            }
+            if (sql.startsWith("SELECT MIN(")) {
+                return FakeJdbc.Table.of("min", "max").row(minKey, maxKey);
+            }
+            if (sql.startsWith("SELECT chunk_index")) {
+                FakeJdbc.Table result = FakeJdbc.Table.of("chunk_index");
+                chunks.forEach(result::row);
+                return result;
+            }
+            if (sql.startsWith("REPLACE INTO")) {
+                run = new long[] { (Long) p.get(2), (Long) p.get(3), (Long) p.get(4) };
+                finished = false;
+            } else if (sql.startsWith("INSERT IGNORE INTO")) {
+                chunks.add((Integer) p.get(2));
+            } else if (sql.startsWith("DELETE FROM")) {
+                chunks.clear();
+            } else if (sql.startsWith("UPDATE")) {
+                finished = true;
+            }
+            return FakeJdbc.Table.of("updated").row(1);
+        }
+    }
+
+    private static final class RecordingTask extends PartitionedCronTask {
+        private final Database database;
+        private final long chunkSize;
+        private final Map<Long, Long> processed = new ConcurrentHashMap<>();
+        private final Set<Long> failing = ConcurrentHashMap.newKeySet();
+
+        private RecordingTask(Tables tables, long chunkSize) {
+            this.database = new FakeJdbc(tables).database();
+            this.chunkSize = chunkSize;
+        }
+
+        @Override
+        protected String getTable() {
+            return "scores";
+        }
+
+        @Override
+        protected String getKeyColumn() {
+            return "id";
+        }
+
+        @Override
+        protected long getChunkSize() {
+            return chunkSize;
+        }
+
+        @Override
+        protected Database getDatabase() {
+            return database;
+        }
+
+        @Override
+        protected long processChunk(MySQL mysql, long fromKey, long toKey) {
+            if (failing.contains(fromKey)) {
+                throw new IllegalStateException("chunk failed");
+            }
+            processed.put(fromKey, toKey);
+            return toKey - fromKey;
+        }
+
+        @Override
+        public String getName() {
+            return "RecordingTask";
+        }
+
+        private List<long[]> chunks() {
+            List<long[]> chunks = new ArrayList<>();
+            processed.forEach((from, to) -> chunks.add(new long[] { from, to }));
+            chunks.sort(Comparator.comparingLong(chunk -> chunk[0]));
+            return chunks;
+        }
+    }
+
+    private static Tables range(long minKey, long maxKey) {
+        Tables tables = new Tables();
+        tables.minKey = minKey;
+        tables.maxKey = maxKey;
+        return tables;
+    }
+
+    private static void assertChunks(RecordingTask task, long[]... expected) {
+        List<long[]> chunks = task.chunks();
+        assertEquals(expected.length, chunks.size());
+        for (int i = 0; i < expected.length; i++) {
+            assertArrayEquals(expected[i], chunks.get(i));
+        }
+    }
+
+    @Test
+    public void testSplitsRangeIntoChunks() {
+        Tables tables = range(1, 25);
+        RecordingTask task = new RecordingTask(tables, 10);
+
+        task.run();
+
+        assertChunks(task, new long[] { 1, 11 }, new long[] { 11, 21 }, new long[] { 21, 26 });
+        assertEquals(3, task.getProgress().getTotalChunks());
+        assertEquals(100, task.getProgress().getPercent());
+        assertEquals(25, task.getProgress().getProcessedRows());
+        assertTrue("A finished run is marked as such", tables.finished);
+        assertTrue("Checkpoints of a finished run are removed", tables.chunks.isEmpty());
+    }
+
+    @Test
+    public void testSingleKeyRange() {
+        RecordingTask task = new RecordingTask(range(7, 7), 10);
+
+        task.run();
+
+        assertChunks(task, new long[] { 7, 8 });
+    }
+
+    @Test
+    public void testLastChunkNearLongMaxValue() {
+        long max = Long.MAX_VALUE;
+        // fromKey + chunkSize of the last chunk overflows
+        RecordingTask task = new RecordingTask(range(max - 24, max - 3), 10);
+
+        task.run();
+
+        assertChunks(task, new long[] { max - 24, max - 14 }, new long[] { max - 14, max - 4 },
+                new long[] { max - 4, max - 2 });
+    }
+
+    @Test
+    public void testRangeEndingAtLongMaxValue() {
+        long max = Long.MAX_VALUE;
+        RecordingTask task = new RecordingTask(range(max - 15, max), 10);
+
+        task.run();
+
+        assertChunks(task, new long[] { max - 15, max - 5 }, new long[] { max - 5, max });
+    }
+
+    @Test
+    public void testRangeWithTooManyChunksIsRejected() {
+        RecordingTask task = new RecordingTask(range(Long.MIN_VALUE, Long.MAX_VALUE), 10);
+
+        assertThrows(IllegalStateException.class, task::run);
+        assertTrue(task.processed.isEmpty());
+    }
+
+    @Test
+    public void testEmptyTableDoesNothing() {
+        Tables tables = new Tables();
+        RecordingTask task = new RecordingTask(tables, 10);
+
+        task.run();
+
+        assertTrue(task.processed.isEmpty());
+        assertNull("No run is recorded for an empty table", tables.run);
+    }
+
+    @Test
+    public void testResumesUnfinishedRun() {
+        // The table grew since the interrupted run, which keeps its recorded range
+        Tables tables = range(0, 99);
+        tables.run = new long[] { 0, 39, 10 };
+        tables.chunks.addAll(Set.of(0, 2));
+        RecordingTask task = new RecordingTask(tables, 10);
+
+        task.run();
+
+        assertChunks(task, new long[] { 10, 20 }, new long[] { 30, 40 });
+        assertEquals(4, task.getProgress().getCompletedChunks());
+        assertEquals("Resumed chunks are not counted as processed rows", 20, task.getProgress().getProcessedRows());
+        assertTrue(tables.finished);
+    }
+
+    @Test
+    public void testChangedChunkSizeStartsOver() {
+        Tables tables = range(0, 19);
+        tables.run = new long[] { 0, 39, 5 };
+        tables.chunks.add(0);
+        RecordingTask task = new RecordingTask(tables, 10);
+
+        task.run();
+
+        assertChunks(task, new long[] { 0, 10 }, new long[] { 10, 20 });
+        assertArrayEquals(new long[] { 0, 19, 10 }, tables.run);
+    }
+
+    @Test
+    public void testFailingChunkFailsRunAndIsRetried() {
+        Tables tables = range(0, 29);
+        RecordingTask task = new RecordingTask(tables, 10);
+        task.failing.add(10L);
+
+        IllegalStateException failure = assertThrows(IllegalStateException.class, task::run);
+        assertTrue(failure.getMessage(), failure.getMessage().startsWith("1 of 3 chunks"));
+        assertEquals(1, task.getProgress().getFailedChunks());
+        assertFalse("A failed run stays unfinished", tables.finished);
+        assertEquals(Set.of(0, 2), tables.chunks);
+
+        task.failing.clear();
+        task.processed.clear();
+        task.run();
+
+        assertChunks(task, new long[] { 10, 20 });
+        assertTrue(tables.finished);
+    }
+}
@@ -0,0 +1,95 @@
+package de.marcandreher.fusion.core.cron;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Test;
+
+import de.marcandreher.fusionkit.core.cron.ConcurrencyPolicy;
+import de.marcandreher.fusionkit.core.cron.CronTaskStats;
+import de.marcandreher.fusionkit.core.cron.RunGate;
+
+public class RunGateTest {
+
+    private final CronTaskStats stats = new CronTaskStats();
+
+    @Test
+    public void testSkipIfRunning() {
+        RunGate gate = new RunGate(ConcurrencyPolicy.SKIP_IF_RUNNING, stats);
+
+        assertTrue(gate.tryStartRun());
+        assertFalse(gate.tryStartRun());
+        assertFalse(gate.tryStartRun());
+        assertEquals(2, stats.getSkipped());
+
+        assertFalse("Skipped fires are not run later", gate.finishRun());
+        assertEquals(0, gate.getRunning());
+        assertTrue(gate.tryStartRun());
+    }
+
+    @Test
+    public void testAllowParallel() {
+        RunGate gate = new RunGate(ConcurrencyPolicy.ALLOW_PARALLEL, stats);
+
+        assertTrue(gate.tryStartRun());
+        assertTrue(gate.tryStartRun());
+        assertEquals(2, gate.getRunning());
+
+        assertFalse(gate.finishRun());
+        assertFalse(gate.finishRun());
+        assertEquals(0, gate.getRunning());
+        assertEquals(0, stats.getSkipped());
+    }
+
+    @Test
+    public void testQueueOneKeepsOneFire() {
+        RunGate gate = new RunGate(ConcurrencyPolicy.QUEUE_ONE, stats);
+
+        assertTrue(gate.tryStartRun());
+        assertFalse("Queued while running", gate.tryStartRun());
+        assertTrue(gate.isQueued());
+        assertFalse("Only one fire is queued", gate.tryStartRun());
+        assertEquals(1, stats.getSkipped());
+
+        assertTrue("The queued fire runs next", gate.finishRun());
+        assertEquals("The task stays marked as running", 1, gate.getRunning());
+        assertFalse(gate.isQueued());
+
+        assertFalse(gate.finishRun());
+        assertEquals(0, gate.getRunning());
+    }
+
+    /**
+     * A fire racing the end of a run must run exactly once: either the fire starts it
+     * itself or the finishing run picks it up from the queue.
+     */
+    @Test
+    public void testQueueOneFireRacingFinishRunsOnce() throws Exception {
+        RunGate gate = new RunGate(ConcurrencyPolicy.QUEUE_ONE, stats);
+        assertTrue(gate.tryStartRun());
+
+        CyclicBarrier barrier = new CyclicBarrier(2);
+        AtomicBoolean finished = new AtomicBoolean();
+        for (int i = 0; i < 20_000; i++) {
+            Thread finisher = new Thread(() -> {
+                try {
+                    barrier.await();
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+                finished.set(gate.finishRun());
+            });
+            finisher.start();
+            barrier.await();
+            boolean started = gate.tryStartRun();
+            finisher.join();
+
+            assertTrue("Iteration " + i + ": the fire was lost or ran twice", started ^ finished.get());
+            assertEquals(1, gate.getRunning());
+            assertFalse(gate.isQueued());
+        }
+        assertEquals(0, stats.getSkipped());
+    }
+}
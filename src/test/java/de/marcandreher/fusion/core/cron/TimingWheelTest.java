@@ -0,0 +1,123 @@
+package de.marcandreher.fusion.core.cron;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.After;
+import org.junit.Test;
+
+import de.marcandreher.fusionkit.core.cron.TimingWheel;
+
+public class TimingWheelTest {
+
+    private static final long TICK_MILLIS = 10;
+
+    // 4 buckets of 10ms, so one revolution is 40ms
+    private final TimingWheel wheel = new TimingWheel("FK-Test-Wheel", TICK_MILLIS, 4);
+
+    @After
+    public void tearDown() {
+        wheel.stop();
+    }
+
+    @Test
+    public void testDelayLongerThanOneRevolution() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 155;
+        AtomicLong firedAt = new AtomicLong();
+        CountDownLatch fired = new CountDownLatch(1);
+        wheel.schedule(deadline, () -> {
+            firedAt.set(System.currentTimeMillis());
+            fired.countDown();
+        });
+
+        assertTrue(fired.await(2, TimeUnit.SECONDS));
+        assertTrue("Fired " + (deadline - firedAt.get()) + "ms early", firedAt.get() >= deadline);
+        assertTrue("Fired " + (firedAt.get() - deadline) + "ms late", firedAt.get() - deadline < 100);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    public void testEntriesFireInDeadlineOrderAcrossRounds() throws InterruptedException {
+        long now = System.currentTimeMillis();
+        List<Long> fired = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(4);
+        // Same bucket, different rounds, scheduled out of order
+        for (long delay : new long[] { 250, 50, 170, 90 }) {
+            wheel.schedule(now + delay, () -> {
+                fired.add(delay);
+                done.countDown();
+            });
+        }
+
+        assertTrue(done.await(2, TimeUnit.SECONDS));
+        assertEquals(List.of(50L, 90L, 170L, 250L), fired);
+    }
+
+    @Test
+    public void testCancelledEntryDoesNotFire() throws InterruptedException {
+        CountDownLatch fired = new CountDownLatch(1);
+        TimingWheel.Entry cancelled = wheel.schedule(System.currentTimeMillis() + 50, fired::countDown);
+        CountDownLatch later = new CountDownLatch(1);
+        wheel.schedule(System.currentTimeMillis() + 150, later::countDown);
+        assertEquals(2, wheel.size());
+
+        cancelled.cancel();
+        cancelled.cancel();
+
+        assertEquals("Cancelling twice counts once", 1, wheel.size());
+        assertTrue(later.await(2, TimeUnit.SECONDS));
+        assertEquals(1, fired.getCount());
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    public void testCancelAfterFiringKeepsSize() throws InterruptedException {
+        CountDownLatch fired = new CountDownLatch(1);
+        TimingWheel.Entry entry = wheel.schedule(System.currentTimeMillis(), fired::countDown);
+        assertTrue(fired.await(2, TimeUnit.SECONDS));
+
+        entry.cancel();
+
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    public void testPastDeadlineFiresOnNextTick() throws InterruptedException {
+        CountDownLatch fired = new CountDownLatch(1);
+        long start = System.currentTimeMillis();
+        wheel.schedule(start - 60_000, fired::countDown);
+
+        assertTrue(fired.await(2, TimeUnit.SECONDS));
+        assertTrue(System.currentTimeMillis() - start < 200);
+    }
+
+    @Test
+    public void testEntriesDueDuringStallFireAfterIt() throws InterruptedException {
+        long now = System.currentTimeMillis();
+        List<Long> fired = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(3);
+        // A slow action blocks the wheel thread for several revolutions
+        wheel.schedule(now + 20, () -> {
+            try {
+                Thread.sleep(300);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        for (long delay : new long[] { 60, 110, 200 }) {
+            wheel.schedule(now + delay, () -> {
+                fired.add(delay);
+                done.countDown();
+            });
+        }
+
+        assertTrue("Nothing due during the stall is lost", done.await(2, TimeUnit.SECONDS));
+        assertEquals(List.of(60L, 110L, 200L), fired);
+        assertTrue("Entries fire after the stall", System.currentTimeMillis() - now >= 320);
+    }
+}
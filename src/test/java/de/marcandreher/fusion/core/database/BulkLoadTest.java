@@ -0,0 +1,79 @@
+package de.marcandreher.fusion.core.database;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+
+import de.marcandreher.fusionkit.core.database.Database;
+import de.marcandreher.fusionkit.core.database.MySQL;
+import de.marcandreher.fusionkit.core.database.TsvInputStream;
+
+public class BulkLoadTest {
+
+    private static String encode(List<Object[]> rows, int columns) throws IOException {
+        try (TsvInputStream in = new TsvInputStream(rows.iterator(), columns)) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    @Test
+    public void testEncodesEscapesNullsAndTypes() throws IOException {
+        String tsv = encode(List.of(
+                new Object[] {1L, "tab\there\nline\\slash", null},
+                new Object[] {-7, "ümläut 😀", true},
+                new Object[] {0, "x", LocalDateTime.of(2026, 1, 2, 3, 4, 5)}), 3);
+
+        Assert.assertEquals("1\ttab\\there\\nline\\\\slash\t\\N\n"
+                + "-7\tümläut 😀\t1\n"
+                + "0\tx\t2026-01-02 03:04:05.000000\n", tsv);
+    }
+
+    @Test
+    public void testBadRowEndsStreamAfterWholeRows() throws IOException {
+        List<Object[]> rows = List.of(new Object[] {1, "a"}, new Object[] {2});
+        try (TsvInputStream in = new TsvInputStream(rows.iterator(), 2)) {
+            Assert.assertEquals("1\ta\n", new String(in.readAllBytes(), StandardCharsets.UTF_8));
+            Assert.assertEquals(1, in.getRowCount());
+            Assert.assertTrue(in.getFailure() instanceof IllegalArgumentException);
+        }
+    }
+
+    /**
+     * Runs against a MySQL server with local_infile=ON, for example a container started with
+     * {@code docker run -e MYSQL_ROOT_PASSWORD=password -e MYSQL_DATABASE=fusionkit -p 3306:3306 mysql:8 --local-infile=1}
+     * and {@code mvn test -Dfusionkit.test.mysql.host=127.0.0.1}.
+     */
+    @Test
+    public void testLoadsRowsIntoMySQL() {
+        String host = System.getProperty("fusionkit.test.mysql.host");
+        Assume.assumeNotNull(host);
+
+        Database database = new Database(db -> {
+            db.setName("bulk-load-test");
+            db.setHost(host);
+            db.setPassword(System.getProperty("fusionkit.test.mysql.password", "password"));
+            db.setAllowLoadLocalInfile(true);
+        });
+        database.connect();
+        try (MySQL mysql = database.getConnection()) {
+            mysql.exec("CREATE TEMPORARY TABLE fk_bulk_load (id BIGINT PRIMARY KEY, name VARCHAR(64), active BOOLEAN)");
+
+            Stream<Object[]> rows = LongStream.range(0, 10_000)
+                    .mapToObj(id -> new Object[] {id, "item\t" + id, id % 2 == 0});
+            long loaded = mysql.bulkLoad("fk_bulk_load", new String[] {"id", "name", "active"}, rows);
+
+            Assert.assertEquals(10_000, loaded);
+            Assert.assertEquals("item\t42", mysql.first("SELECT name FROM fk_bulk_load WHERE id = ?", rs -> rs.getString(1), 42L).orElseThrow());
+            Assert.assertEquals(5_000, (long) mysql.first("SELECT COUNT(*) FROM fk_bulk_load WHERE active", rs -> rs.getLong(1)).orElseThrow());
+        } finally {
+            database.shutdown();
+        }
+    }
+}
@@ -0,0 +1,312 @@
+package de.marcandreher.fusion.core.database;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import de.marcandreher.fusionkit.core.config.DatabaseConfiguration;
+import de.marcandreher.fusionkit.core.database.Database;
+
+/**
+ * In-memory JDBC stand-ins built from {@link Proxy proxies}, enough to run {@code MySQL},
+ * {@code Query} and the row mappers without a server. Queries are answered by a {@link Handler}.
+ *
+ * <p>Like a real driver, executing a statement again closes the ResultSet it returned before,
+ * and a closed ResultSet throws on {@code next()}.
+ */
+public class FakeJdbc {
+
+    /**
+     * Answers a statement with a table, given its SQL and bound parameters by index.
+     */
+    @FunctionalInterface
+    public interface Handler {
+        Table execute(String sql, Map<Integer, Object> parameters) throws SQLException;
+    }
+
+    /**
+     * Rows returned for a query.
+     */
+    public record Table(List<String> columns, List<Object[]> rows) {
+
+        public static Table of(String... columns) {
+            return new Table(List.of(columns), new ArrayList<>());
+        }
+
+        public Table row(Object... values) {
+            rows.add(values);
+            return this;
+        }
+    }
+
+    public static final String SHOW_TABLES = "SHOW TABLES LIKE ?";
+
+    private final Handler handler;
+    private final List<String> prepared = new CopyOnWriteArrayList<>();
+    private final List<Map<Integer, Object>> executed = new CopyOnWriteArrayList<>();
+
+    public FakeJdbc(Handler handler) {
+        this.handler = handler;
+    }
+
+    /**
+     * Returns the SQL of every statement prepared so far.
+     */
+    public List<String> getPrepared() {
+        return prepared;
+    }
+
+    /**
+     * Returns the bound parameters of every executed statement.
+     */
+    public List<Map<Integer, Object>> getExecuted() {
+        return executed;
+    }
+
+    /**
+     * Creates a database whose pool hands out connections of this fake.
+     */
+    public Database database() {
+        Database database = new Database(db -> db.setName("fake-" + UUID.randomUUID()));
+        database.config = new DatabaseConfiguration();
+        database.dataSource = new HikariDataSource() {
+            @Override
+            public Connection getConnection() {
+                return connection();
+            }
+        };
+        return database;
+    }
+
+    public Connection connection() {
+        return proxy(Connection.class, (proxy, method, args) -> switch (method.getName()) {
+            case "prepareStatement" -> statement((String) args[0]);
+            case "getMetaData" -> metaData();
+            case "getTransactionIsolation" -> Connection.TRANSACTION_REPEATABLE_READ;
+            case "getAutoCommit", "isValid" -> true;
+            default -> defaultValue(proxy, method, args);
+        });
+    }
+
+    /**
+     * Answers {@code getTables} by asking the handler for {@code SHOW TABLES LIKE ?}.
+     */
+    private DatabaseMetaData metaData() {
+        return proxy(DatabaseMetaData.class, (proxy, method, args) -> method.getName().equals("getTables")
+                ? resultSet(handler.execute(SHOW_TABLES, new HashMap<>(Map.of(1, args[2]))))
+                : defaultValue(proxy, method, args));
+    }
+
+    public PreparedStatement statement(String sql) {
+        prepared.add(sql);
+        Map<Integer, Object> parameters = new HashMap<>();
+        ResultSet[] open = new ResultSet[1];
+        boolean[] closed = new boolean[1];
+        return proxy(PreparedStatement.class, (proxy, method, args) -> {
+            String name = method.getName();
+            if (name.equals("close")) {
+                closed[0] = true;
+                if (open[0] != null) {
+                    open[0].close();
+                }
+                return null;
+            }
+            if (name.equals("isClosed")) {
+                return closed[0];
+            }
+            if (closed[0] && name.startsWith("execute")) {
+                throw new SQLException("Statement is closed");
+            }
+            switch (name) {
+                case "clearParameters" -> parameters.clear();
+                case "setNull" -> parameters.put((Integer) args[0], null);
+                case "executeQuery" -> {
+                    if (open[0] != null) {
+                        open[0].close();
+                    }
+                    executed.add(Map.copyOf(nonNull(parameters)));
+                    open[0] = resultSet(handler.execute(sql, new HashMap<>(parameters)));
+                    return open[0];
+                }
+                case "executeUpdate" -> {
+                    executed.add(Map.copyOf(nonNull(parameters)));
+                    return handler.execute(sql, new HashMap<>(parameters)).rows().size();
+                }
+                case "execute" -> {
+                    executed.add(Map.copyOf(nonNull(parameters)));
+                    handler.execute(sql, new HashMap<>(parameters));
+                    return false;
+                }
+                default -> {
+                    if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index) {
+                        parameters.put(index, args[1]);
+                        return null;
+                    }
+                    return defaultValue(proxy, method, args);
+                }
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Bound parameters with SQL NULL left out, since {@link Map#copyOf} rejects null values.
+     */
+    private static Map<Integer, Object> nonNull(Map<Integer, Object> parameters) {
+        Map<Integer, Object> values = new HashMap<>();
+        parameters.forEach((index, value) -> {
+            if (value != null) {
+                values.put(index, value);
+            }
+        });
+        return values;
+    }
+
+    public static ResultSet resultSet(Table table) {
+        int[] row = { 0 };
+        boolean[] closed = new boolean[1];
+        boolean[] wasNull = new boolean[1];
+        ResultSetMetaData metaData = proxy(ResultSetMetaData.class, (proxy, method, args) -> switch (method.getName()) {
+            case "getColumnCount" -> table.columns().size();
+            case "getColumnLabel", "getColumnName" -> table.columns().get((Integer) args[0] - 1);
+            default -> defaultValue(proxy, method, args);
+        });
+        return proxy(ResultSet.class, (proxy, method, args) -> {
+            String name = method.getName();
+            switch (name) {
+                case "close" -> {
+                    closed[0] = true;
+                    return null;
+                }
+                case "isClosed" -> {
+                    return closed[0];
+                }
+                case "getMetaData" -> {
+                    return metaData;
+                }
+                case "wasNull" -> {
+                    return wasNull[0];
+                }
+                default -> { }
+            }
+            if (closed[0]) {
+                throw new SQLException("ResultSet is closed");
+            }
+            if (name.equals("next")) {
+                return ++row[0] <= table.rows().size();
+            }
+            if (name.equals("findColumn")) {
+                return index(table, args[0]);
+            }
+            if (name.startsWith("get") && args != null && args.length >= 1) {
+                Object value = table.rows().get(row[0] - 1)[index(table, args[0]) - 1];
+                wasNull[0] = value == null;
+                Class<?> type = args.length == 2 && args[1] instanceof Class<?> requested ? requested : method.getReturnType();
+                return convert(value, type);
+            }
+            return defaultValue(proxy, method, args);
+        });
+    }
+
+    private static int index(Table table, Object column) throws SQLException {
+        if (column instanceof Integer index) {
+            return index;
+        }
+        for (int i = 0; i < table.columns().size(); i++) {
+            if (table.columns().get(i).equalsIgnoreCase((String) column)) {
+                return i + 1;
+            }
+        }
+        throw new SQLException("Column '" + column + "' not found");
+    }
+
+    private static Object convert(Object value, Class<?> type) {
+        if (value == null) {
+            return type.isPrimitive() ? defaultValue(type) : null;
+        }
+        if (value instanceof Number number) {
+            if (type == int.class || type == Integer.class) {
+                return number.intValue();
+            }
+            if (type == long.class || type == Long.class) {
+                return number.longValue();
+            }
+            if (type == short.class || type == Short.class) {
+                return number.shortValue();
+            }
+            if (type == byte.class || type == Byte.class) {
+                return number.byteValue();
+            }
+            if (type == double.class || type == Double.class) {
+                return number.doubleValue();
+            }
+            if (type == float.class || type == Float.class) {
+                return number.floatValue();
+            }
+            if (type == BigDecimal.class) {
+                return new BigDecimal(number.toString());
+            }
+        }
+        if (type == String.class) {
+            return value.toString();
+        }
+        return value;
+    }
+
+    private static Object defaultValue(Object proxy, Method method, Object[] args) {
+        return switch (method.getName()) {
+            case "toString" -> method.getDeclaringClass().getSimpleName() + "@" + System.identityHashCode(proxy);
+            case "hashCode" -> System.identityHashCode(proxy);
+            case "equals" -> proxy == args[0];
+            default -> defaultValue(method.getReturnType());
+        };
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (type == boolean.class) {
+            return false;
+        }
+        if (type == void.class || !type.isPrimitive()) {
+            return null;
+        }
+        if (type == char.class) {
+            return '\0';
+        }
+        if (type == long.class) {
+            return 0L;
+        }
+        if (type == double.class) {
+            return 0d;
+        }
+        if (type == float.class) {
+            return 0f;
+        }
+        if (type == short.class) {
+            return (short) 0;
+        }
+        if (type == byte.class) {
+            return (byte) 0;
+        }
+        return 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(FakeJdbc.class.getClassLoader(), new Class<?>[] { type }, handler);
+    }
+}
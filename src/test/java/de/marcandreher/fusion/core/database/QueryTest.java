@@ -0,0 +1,168 @@
+package de.marcandreher.fusion.core.database;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import de.marcandreher.fusionkit.core.database.Column;
+import de.marcandreher.fusionkit.core.database.Database;
+import de.marcandreher.fusionkit.core.database.DatabaseException;
+import de.marcandreher.fusionkit.core.database.MySQL;
+import de.marcandreher.fusionkit.core.database.PreparedQuery;
+import de.marcandreher.fusionkit.core.database.Query;
+
+public class QueryTest {
+
+    public static class User {
+        @Column("id")
+        private long id;
+        @Column("name")
+        private String name;
+    }
+
+    public record Page(long id, @Column("page_slug") String slug) { }
+
+    public enum Status { ACTIVE }
+
+    @Test
+    public void testPlaceholdersInQuotesAndCommentsAreIgnored() {
+        Query query = Query.of("SELECT * FROM users WHERE id = ? AND note = '?' /* ? */ AND name = ? -- ?\n",
+                long.class, String.class);
+
+        Assert.assertEquals(List.of(long.class, String.class), query.getParameterTypes());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTypeCountMustMatchPlaceholders() {
+        Query.of("SELECT * FROM users WHERE id = ?", Long.class, String.class);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnsupportedParameterTypeFailsAtDeclaration() {
+        Query.of("SELECT * FROM users WHERE id = ?", Thread.class);
+    }
+
+    private static final FakeJdbc.Table USERS = FakeJdbc.Table.of("id", "name", "page_slug")
+            .row(1L, "marc", "home")
+            .row(2L, null, "about");
+
+    private static FakeJdbc users() {
+        return new FakeJdbc((sql, parameters) -> USERS);
+    }
+
+    @Test
+    public void testMapsToColumnClasses() {
+        try (MySQL mysql = users().database().getConnection()) {
+            List<User> users = mysql.list(Query.of("SELECT * FROM users").mapTo(User.class));
+
+            Assert.assertEquals(2, users.size());
+            Assert.assertEquals(1L, users.get(0).id);
+            Assert.assertEquals("marc", users.get(0).name);
+            Assert.assertEquals(2L, users.get(1).id);
+            Assert.assertNull(users.get(1).name);
+        }
+    }
+
+    @Test
+    public void testMapsToRecords() {
+        try (MySQL mysql = users().database().getConnection()) {
+            List<Page> pages = mysql.list(Query.of("SELECT * FROM pages").mapTo(Page.class));
+
+            Assert.assertEquals(List.of(new Page(1, "home"), new Page(2, "about")), pages);
+        }
+    }
+
+    @Test
+    public void testMapsToScalars() {
+        FakeJdbc jdbc = new FakeJdbc((sql, parameters) -> FakeJdbc.Table.of("value", "ignored").row(sql.contains("status") ? "ACTIVE" : 5L, "x"));
+        try (MySQL mysql = jdbc.database().getConnection()) {
+            Assert.assertEquals(Optional.of(5L), mysql.first(Query.of("SELECT count").mapTo(Long.class)));
+            Assert.assertEquals(List.of(5), mysql.list(Query.of("SELECT count").mapTo(int.class)));
+            Assert.assertEquals(Optional.of("5"), mysql.first(Query.of("SELECT count").mapTo(String.class)));
+            Assert.assertEquals(Optional.of(Status.ACTIVE), mysql.first(Query.of("SELECT status").mapTo(Status.class)));
+        }
+    }
+
+    @Test
+    public void testMissingObjectColumnStaysNull() {
+        FakeJdbc jdbc = new FakeJdbc((sql, parameters) -> FakeJdbc.Table.of("id").row(7L));
+        try (MySQL mysql = jdbc.database().getConnection()) {
+            Assert.assertEquals(Optional.of(new Page(7, null)), mysql.first(Query.of("SELECT id FROM pages").mapTo(Page.class)));
+            User user = mysql.first(Query.of("SELECT id FROM users").mapTo(User.class)).orElseThrow();
+            Assert.assertEquals(7L, user.id);
+            Assert.assertNull(user.name);
+        }
+    }
+
+    @Test
+    public void testMissingPrimitiveColumnFails() {
+        FakeJdbc jdbc = new FakeJdbc((sql, parameters) -> FakeJdbc.Table.of("name").row("marc"));
+        Database database = jdbc.database();
+        PreparedQuery<User> query = Query.of("SELECT name FROM users").mapTo(User.class);
+
+        DatabaseException e = Assert.assertThrows(DatabaseException.class,
+                () -> database.inTransaction(tx -> tx.getMySQL().list(query)));
+
+        Assert.assertTrue(e.getCause() instanceof IllegalStateException);
+        Assert.assertTrue(e.getMessage(), e.getMessage().contains("Required column 'id'"));
+        try (MySQL mysql = database.getConnection()) {
+            Assert.assertEquals("Outside a transaction the error is logged", List.of(), mysql.list(query));
+        }
+    }
+
+    @Test
+    public void testNullIntoPrimitiveFails() {
+        FakeJdbc jdbc = new FakeJdbc((sql, parameters) -> FakeJdbc.Table.of("id", "page_slug").row(null, "home"));
+        Database database = jdbc.database();
+
+        for (PreparedQuery<?> query : List.of(Query.of("SELECT * FROM users").mapTo(User.class),
+                Query.of("SELECT * FROM pages").mapTo(Page.class),
+                Query.of("SELECT id FROM pages").mapTo(long.class))) {
+            DatabaseException e = Assert.assertThrows(query.getSql(), DatabaseException.class,
+                    () -> database.inTransaction(tx -> tx.getMySQL().first(query)));
+            Assert.assertTrue(e.getMessage(), e.getMessage().contains("is NULL but the target is primitive type long"));
+        }
+    }
+
+    @Test
+    public void testBindsDeclaredTypes() {
+        FakeJdbc jdbc = users();
+        UUID token = UUID.randomUUID();
+        Query query = Query.of("SELECT * FROM users WHERE id = ? AND name = ? AND status = ? AND token = ? AND note = ?",
+                long.class, String.class, Status.class, UUID.class, String.class);
+
+        try (MySQL mysql = jdbc.database().getConnection()) {
+            mysql.list(query.mapTo(User.class), 42L, "marc", Status.ACTIVE, token, null);
+        }
+
+        Assert.assertEquals(Map.of(1, 42L, 2, "marc", 3, "ACTIVE", 4, token.toString()), jdbc.getExecuted().get(0));
+    }
+
+    @Test
+    public void testWrongArgumentTypeFails() {
+        FakeJdbc jdbc = users();
+        PreparedQuery<User> query = Query.of("SELECT * FROM users WHERE id = ? AND name = ?", Long.class, String.class)
+                .mapTo(User.class);
+
+        try (MySQL mysql = jdbc.database().getConnection()) {
+            IllegalArgumentException e = Assert.assertThrows(IllegalArgumentException.class,
+                    () -> mysql.list(query, "42", "marc"));
+            Assert.assertTrue(e.getMessage(), e.getMessage().startsWith("Parameter 1 must be Long but was java.lang.String"));
+
+            Assert.assertThrows(IllegalArgumentException.class, () -> mysql.first(query, 42L));
+            Assert.assertTrue("Nothing runs with wrong arguments", jdbc.getExecuted().isEmpty());
+
+            // The statement stays usable
+            Assert.assertEquals(2, mysql.list(query, 42L, "marc").size());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnmappableTypeFailsAtDeclaration() {
+        Query.of("SELECT 1").mapTo(Thread.class);
+    }
+}
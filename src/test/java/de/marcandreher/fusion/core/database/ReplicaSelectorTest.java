@@ -0,0 +1,93 @@
+package de.marcandreher.fusion.core.database;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Test;
+
+import de.marcandreher.fusionkit.core.database.ReplicaSelector;
+import de.marcandreher.fusionkit.core.database.ReplicatedDatabase.Strategy;
+
+public class ReplicaSelectorTest {
+
+    private final Set<String> unhealthy = new HashSet<>();
+    private final Map<String, Integer> active = new HashMap<>();
+
+    private ReplicaSelector<String> selector(Strategy strategy, String... replicas) {
+        return new ReplicaSelector<>(List.of(replicas), strategy,
+                replica -> !unhealthy.contains(replica), replica -> active.getOrDefault(replica, 0));
+    }
+
+    private static List<String> select(ReplicaSelector<String> selector, int reads) {
+        List<String> selected = new ArrayList<>();
+        for (int i = 0; i < reads; i++) {
+            selected.add(selector.select());
+        }
+        return selected;
+    }
+
+    @Test
+    public void testRoundRobinTakesTurns() {
+        ReplicaSelector<String> selector = selector(Strategy.ROUND_ROBIN, "a", "b", "c");
+
+        assertEquals(List.of("a", "b", "c", "a", "b", "c"), select(selector, 6));
+    }
+
+    @Test
+    public void testRoundRobinSkipsUnhealthyReplicas() {
+        ReplicaSelector<String> selector = selector(Strategy.ROUND_ROBIN, "a", "b", "c");
+        unhealthy.add("b");
+
+        List<String> selected = select(selector, 6);
+
+        assertFalse(selected.contains("b"));
+        assertTrue(selected.containsAll(List.of("a", "c")));
+    }
+
+    @Test
+    public void testRoundRobinUsesRecoveredReplicaAgain() {
+        ReplicaSelector<String> selector = selector(Strategy.ROUND_ROBIN, "a", "b");
+        unhealthy.add("a");
+        assertEquals(List.of("b", "b"), select(selector, 2));
+
+        unhealthy.clear();
+
+        assertTrue(select(selector, 2).containsAll(List.of("a", "b")));
+    }
+
+    @Test
+    public void testLeastActivePicksFewestConnections() {
+        ReplicaSelector<String> selector = selector(Strategy.LEAST_ACTIVE, "a", "b", "c");
+        active.put("a", 5);
+        active.put("b", 1);
+        active.put("c", 3);
+
+        assertEquals("b", selector.select());
+    }
+
+    @Test
+    public void testLeastActiveSkipsUnhealthyReplicas() {
+        ReplicaSelector<String> selector = selector(Strategy.LEAST_ACTIVE, "a", "b", "c");
+        active.put("a", 5);
+        active.put("b", 0);
+        active.put("c", 3);
+        unhealthy.add("b");
+
+        assertEquals("c", selector.select());
+    }
+
+    @Test
+    public void testNoHealthyReplica() {
+        unhealthy.addAll(List.of("a", "b"));
+
+        assertNull(selector(Strategy.ROUND_ROBIN, "a", "b").select());
+        assertNull(selector(Strategy.LEAST_ACTIVE, "a", "b").select());
+        assertNull(selector(Strategy.ROUND_ROBIN).select());
+    }
+}
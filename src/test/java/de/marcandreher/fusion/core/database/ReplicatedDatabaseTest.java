@@ -0,0 +1,88 @@
+package de.marcandreher.fusion.core.database;
+
+import static org.junit.Assert.*;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.Test;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import de.marcandreher.fusionkit.core.database.Database;
+import de.marcandreher.fusionkit.core.database.ReplicatedDatabase;
+
+public class ReplicatedDatabaseTest {
+
+    private static FakeJdbc answering(String source) {
+        return new FakeJdbc((sql, parameters) -> FakeJdbc.Table.of("source").row(source));
+    }
+
+    private static ReplicatedDatabase replicated(Database primary, Database... replicas) {
+        ReplicatedDatabase.Builder builder = new ReplicatedDatabase.Builder(primary).setCheckIntervalMillis(0);
+        for (Database replica : replicas) {
+            builder.addReplica(replica);
+        }
+        return builder.build();
+    }
+
+    @Test
+    public void testQueryResultReadsFromReplicaAndReleasesOnClose() throws SQLException {
+        Database primary = answering("primary").database();
+        Database replica = answering("replica").database();
+
+        try (ReplicatedDatabase db = replicated(primary, replica)) {
+            Optional<ResultSet> result = db.queryResult("SELECT source FROM servers");
+            assertTrue(result.isPresent());
+            assertEquals(1, replica.currentConnections);
+
+            try (ResultSet rs = result.get()) {
+                assertTrue(rs.next());
+                assertEquals("replica", rs.getString("source"));
+            }
+
+            assertEquals("Closing the ResultSet returns the lease", 0, replica.currentConnections);
+            assertEquals(0, primary.currentConnections);
+        }
+    }
+
+    @Test
+    public void testFailedReplicaLeaseIsReleased() {
+        Database primary = answering("primary").database();
+        Database replica = answering("replica").database();
+        replica.dataSource = new HikariDataSource() {
+            @Override
+            public Connection getConnection() throws SQLException {
+                throw new SQLException("pool exhausted");
+            }
+        };
+
+        try (ReplicatedDatabase db = replicated(primary, replica)) {
+            List<String> sources = db.list("SELECT source FROM servers", rs -> rs.getString("source"));
+
+            assertEquals("Reads fall back to the primary", List.of("primary"), sources);
+            assertEquals(0, replica.currentConnections);
+            assertEquals(0, primary.currentConnections);
+            assertEquals(0, db.getHealthyReplicaCount());
+        }
+    }
+
+    @Test
+    public void testTransactionsRunOnPrimary() {
+        FakeJdbc primaryJdbc = answering("primary");
+        FakeJdbc replicaJdbc = answering("replica");
+        Database primary = primaryJdbc.database();
+
+        try (ReplicatedDatabase db = replicated(primary, replicaJdbc.database())) {
+            List<String> sources = db.inTransaction(tx -> tx.getMySQL().list("SELECT source FROM servers",
+                    rs -> rs.getString("source")));
+
+            assertEquals(List.of("primary"), sources);
+            assertTrue(replicaJdbc.getPrepared().isEmpty());
+            assertEquals(0, primary.currentConnections);
+        }
+    }
+}
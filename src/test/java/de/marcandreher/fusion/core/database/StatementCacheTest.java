@@ -0,0 +1,180 @@
+package de.marcandreher.fusion.core.database;
+
+import static org.junit.Assert.*;
+
+import java.lang.reflect.Proxy;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Test;
+
+import de.marcandreher.fusionkit.core.database.MySQL;
+import de.marcandreher.fusionkit.core.database.StatementCache;
+
+public class StatementCacheTest {
+
+    private final List<PreparedStatement> prepared = new ArrayList<>();
+    private final Set<PreparedStatement> closed = new HashSet<>();
+
+    private PreparedStatement statement(String sql) {
+        PreparedStatement stmt = (PreparedStatement) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] { PreparedStatement.class }, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "close" -> closed.add((PreparedStatement) proxy);
+                        case "toString" -> {
+                            return sql;
+                        }
+                        case "hashCode" -> {
+                            return System.identityHashCode(proxy);
+                        }
+                        case "equals" -> {
+                            return proxy == args[0];
+                        }
+                        default -> { }
+                    }
+                    return null;
+                });
+        prepared.add(stmt);
+        return stmt;
+    }
+
+    private StatementCache cache(int maxSize) {
+        return new StatementCache(maxSize, this::statement);
+    }
+
+    private static PreparedStatement use(StatementCache cache, String sql) throws SQLException {
+        PreparedStatement stmt = cache.borrow(sql);
+        cache.release(sql, stmt, true);
+        return stmt;
+    }
+
+    @Test
+    public void testReusesReleasedStatement() throws SQLException {
+        StatementCache cache = cache(2);
+
+        PreparedStatement first = use(cache, "a");
+        PreparedStatement second = use(cache, "a");
+
+        assertSame(first, second);
+        assertEquals(1, prepared.size());
+        assertTrue(closed.isEmpty());
+    }
+
+    @Test
+    public void testBusyStatementIsNotHandedOutTwice() throws SQLException {
+        StatementCache cache = cache(2);
+        PreparedStatement outer = cache.borrow("a");
+
+        // e.g. a row mapper running the same query while the outer ResultSet is read
+        PreparedStatement inner = cache.borrow("a");
+
+        assertNotSame(outer, inner);
+        cache.release("a", inner, true);
+        assertTrue("Uncached statements are closed on release", closed.contains(inner));
+        assertFalse(closed.contains(outer));
+
+        cache.release("a", outer, true);
+        assertSame(outer, use(cache, "a"));
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void testEvictsLeastRecentlyUsed() throws SQLException {
+        StatementCache cache = cache(2);
+        PreparedStatement a = use(cache, "a");
+        PreparedStatement b = use(cache, "b");
+        // Using "a" makes "b" the least recently used one
+        use(cache, "a");
+
+        use(cache, "c");
+
+        assertEquals(2, cache.size());
+        assertEquals(Set.of(b), closed);
+        assertSame(a, use(cache, "a"));
+    }
+
+    @Test
+    public void testBusyStatementIsNeverEvicted() throws SQLException {
+        StatementCache cache = cache(2);
+        PreparedStatement outer = cache.borrow("outer");
+
+        PreparedStatement b = use(cache, "b");
+        PreparedStatement c = use(cache, "c");
+        use(cache, "d");
+
+        // "outer" is the least recently used one, but idle statements go first
+        assertEquals(Set.of(b, c), closed);
+        cache.release("outer", outer, true);
+        assertEquals(2, cache.size());
+        assertSame(outer, use(cache, "outer"));
+    }
+
+    @Test
+    public void testUnhealthyReleaseClosesStatement() throws SQLException {
+        StatementCache cache = cache(2);
+        PreparedStatement failed = cache.borrow("a");
+
+        cache.release("a", failed, false);
+
+        assertEquals(Set.of(failed), closed);
+        assertEquals(0, cache.size());
+        assertNotSame(failed, use(cache, "a"));
+    }
+
+    @Test
+    public void testReleaseOfFailedBorrowIsIgnored() {
+        cache(2).release("a", null, false);
+        assertTrue(closed.isEmpty());
+    }
+
+    @Test
+    public void testCloseAllClosesEverything() throws SQLException {
+        StatementCache cache = cache(4);
+        PreparedStatement a = use(cache, "a");
+        PreparedStatement busy = cache.borrow("b");
+
+        cache.closeAll();
+
+        assertEquals(Set.of(a, busy), closed);
+        assertEquals(0, cache.size());
+    }
+
+    private record Node(long id, List<Node> children) { }
+
+    private static final String CHILDREN = "SELECT id FROM nodes WHERE parent = ?";
+
+    private static List<Node> children(MySQL mysql, long parent) {
+        return mysql.list(CHILDREN, rs -> new Node(rs.getLong("id"), children(mysql, rs.getLong("id"))), parent);
+    }
+
+    @Test
+    public void testMapperMayRunTheSameQueryAgain() {
+        Map<Long, List<Long>> tree = Map.of(0L, List.of(1L), 1L, List.of(2L, 3L), 2L, List.of(4L));
+        FakeJdbc jdbc = new FakeJdbc((sql, parameters) -> {
+            FakeJdbc.Table table = FakeJdbc.Table.of("id");
+            for (long child : tree.getOrDefault((Long) parameters.get(1), List.of())) {
+                table.row(child);
+            }
+            return table;
+        });
+
+        try (MySQL mysql = jdbc.database().getConnection()) {
+            List<Node> roots = children(mysql, 0);
+
+            Node expected = new Node(1, List.of(
+                    new Node(2, List.of(new Node(4, List.of()))),
+                    new Node(3, List.of())));
+            assertEquals(List.of(expected), roots);
+
+            // Nested calls prepare statements of their own, the outermost call reuses the cached one
+            int prepared = jdbc.getPrepared().size();
+            assertEquals(List.of(expected), children(mysql, 0));
+            assertEquals(prepared - 1, jdbc.getPrepared().size() - prepared);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package de.marcandreher.fusion.core.database;
+
+import static org.junit.Assert.*;
+
+import java.sql.SQLException;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Test;
+
+import de.marcandreher.fusionkit.core.config.DatabaseConfiguration;
+import de.marcandreher.fusionkit.core.database.DatabaseException;
+
+public class TransactionRetryTest {
+
+    private static DatabaseException failure(SQLException cause) {
+        return new DatabaseException("failed", new RuntimeException("wrapped", cause));
+    }
+
+    @Test
+    public void testDeadlockIsRetryable() {
+        DatabaseException e = failure(new SQLException("Deadlock found", "40001", DatabaseException.DEADLOCK));
+
+        assertTrue(e.isDeadlock());
+        assertTrue(e.isRetryable());
+    }
+
+    @Test
+    public void testSerializationFailureIsRetryable() {
+        assertTrue(failure(new SQLException("Serialization failure", DatabaseException.SERIALIZATION_FAILURE)).isRetryable());
+    }
+
+    @Test
+    public void testLockWaitTimeoutIsRetryable() {
+        DatabaseException e = failure(new SQLException("Lock wait timeout exceeded", "HY000", DatabaseException.LOCK_WAIT_TIMEOUT));
+
+        assertTrue(e.isLockWaitTimeout());
+        assertFalse(e.isDeadlock());
+        assertTrue(e.isRetryable());
+    }
+
+    @Test
+    public void testOtherErrorsAreNotRetryable() {
+        assertFalse(failure(new SQLException("Duplicate entry", "23000", 1062)).isRetryable());
+        assertFalse(new DatabaseException("No connection available for transaction").isRetryable());
+        assertNull(new DatabaseException("no cause").getSQLException());
+    }
+
+    @Test
+    public void testWrapKeepsDatabaseExceptions() {
+        DatabaseException e = new DatabaseException("failed");
+        SQLException sql = new SQLException("Deadlock found", "40001", DatabaseException.DEADLOCK);
+
+        assertSame(e, DatabaseException.wrap(e));
+        assertSame(sql, DatabaseException.wrap(sql).getSQLException());
+    }
+
+    @Test
+    public void testRetryDelayStaysWithinBackoff() {
+        DatabaseConfiguration settings = new DatabaseConfiguration();
+        settings.setTransactionRetryDelay(20);
+        settings.setTransactionMaxRetryDelay(1000);
+
+        for (int i = 0; i < 1000; i++) {
+            assertBetween(0, 20, settings.retryDelay(1));
+            assertBetween(0, 40, settings.retryDelay(2));
+            assertBetween(0, 160, settings.retryDelay(4));
+            assertBetween(0, 1000, settings.retryDelay(7));
+        }
+    }
+
+    @Test
+    public void testRetryDelayIsCappedForLargeAttempts() {
+        DatabaseConfiguration settings = new DatabaseConfiguration();
+        settings.setTransactionRetryDelay(Long.MAX_VALUE / 4);
+        settings.setTransactionMaxRetryDelay(1000);
+
+        for (int attempt = 1; attempt <= 100; attempt++) {
+            assertBetween(0, 1000, settings.retryDelay(attempt));
+        }
+    }
+
+    @Test
+    public void testRetryDelayIsJittered() {
+        DatabaseConfiguration settings = new DatabaseConfiguration();
+        Set<Long> delays = new HashSet<>();
+        for (int i = 0; i < 100; i++) {
+            delays.add(settings.retryDelay(5));
+        }
+        assertTrue("Delays should vary, got " + delays, delays.size() > 1);
+    }
+
+    @Test
+    public void testZeroRetryDelayStillWaitsAtMostOneMillisecond() {
+        DatabaseConfiguration settings = new DatabaseConfiguration();
+        settings.setTransactionRetryDelay(0);
+
+        for (int i = 0; i < 100; i++) {
+            assertBetween(0, 1, settings.retryDelay(3));
+        }
+    }
+
+    private static void assertBetween(long min, long max, long value) {
+        assertTrue(value + " should be between " + min + " and " + max, value >= min && value <= max);
+    }
+}
@@ -0,0 +1,149 @@
+package de.marcandreher.fusion.core.externals;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import de.marcandreher.fusionkit.core.externals.DiscordWebhook;
+import de.marcandreher.fusionkit.core.externals.DiscordWebhookDispatcher;
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+
+public class DiscordWebhookDispatcherTest {
+
+    private static final String WEBHOOK_URL = "https://discord.com/api/webhooks/123456789/test-webhook-token";
+
+    private HttpServer server;
+    private OkHttpClient client;
+    private final List<String> bodies = new CopyOnWriteArrayList<>();
+    private final List<Long> receivedAt = new CopyOnWriteArrayList<>();
+    private final AtomicInteger rateLimitedResponses = new AtomicInteger();
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/api/webhooks/", this::handle);
+        server.start();
+
+        // Sends the Discord URLs to the local server instead
+        int port = server.getAddress().getPort();
+        client = new OkHttpClient.Builder()
+                .addInterceptor(chain -> {
+                    HttpUrl local = chain.request().url().newBuilder()
+                            .scheme("http")
+                            .host("127.0.0.1")
+                            .port(port)
+                            .build();
+                    return chain.proceed(chain.request().newBuilder().url(local).build());
+                })
+                .build();
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+        client.dispatcher().executorService().shutdown();
+        client.connectionPool().evictAll();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            bodies.add(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        receivedAt.add(System.currentTimeMillis());
+
+        if (rateLimitedResponses.getAndDecrement() > 0) {
+            byte[] body = "{\"message\":\"You are being rate limited.\",\"retry_after\":0.3,\"global\":false}"
+                    .getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(429, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } else {
+            exchange.getResponseHeaders().add("X-RateLimit-Remaining", "4");
+            exchange.getResponseHeaders().add("X-RateLimit-Reset-After", "1");
+            exchange.sendResponseHeaders(204, -1);
+        }
+        exchange.close();
+    }
+
+    private static DiscordWebhook message(String content) {
+        return new DiscordWebhook.Builder(WEBHOOK_URL).setContent(content).build();
+    }
+
+    @Test
+    public void testBurstIsMergedIntoOneRequest() throws Exception {
+        DiscordWebhookDispatcher dispatcher = new DiscordWebhookDispatcher.Builder()
+                .setClient(client)
+                .setCoalesceWindowMillis(200)
+                .build();
+
+        CompletableFuture<Void> first = dispatcher.submit(message("first"));
+        CompletableFuture<Void> second = dispatcher.submit(message("second"));
+        CompletableFuture<Void> third = dispatcher.submit(message("third"));
+        CompletableFuture.allOf(first, second, third).get(5, TimeUnit.SECONDS);
+
+        Assert.assertEquals(1, bodies.size());
+        Assert.assertTrue(bodies.get(0), bodies.get(0).contains("first\\nsecond\\nthird"));
+        dispatcher.close(1_000);
+    }
+
+    @Test
+    public void testRateLimitedRequestIsRetriedAfterRetryAfter() throws Exception {
+        rateLimitedResponses.set(1);
+        DiscordWebhookDispatcher dispatcher = new DiscordWebhookDispatcher.Builder()
+                .setClient(client)
+                .setCoalesceWindowMillis(0)
+                .build();
+
+        dispatcher.submit(message("limited")).get(5, TimeUnit.SECONDS);
+
+        Assert.assertEquals(2, bodies.size());
+        Assert.assertEquals(bodies.get(0), bodies.get(1));
+        long waited = receivedAt.get(1) - receivedAt.get(0);
+        Assert.assertTrue("Retried after " + waited + "ms", waited >= 300);
+        dispatcher.close(1_000);
+    }
+
+    @Test
+    public void testCloseFlushesQueuedMessages() throws Exception {
+        DiscordWebhookDispatcher dispatcher = new DiscordWebhookDispatcher.Builder()
+                .setClient(client)
+                .setCoalesceWindowMillis(60_000)
+                .build();
+
+        CompletableFuture<Void> future = dispatcher.submit(message("pending"));
+        Assert.assertEquals(1, dispatcher.getQueuedMessages());
+
+        dispatcher.close(5_000);
+
+        future.get(1, TimeUnit.SECONDS);
+        Assert.assertEquals(1, bodies.size());
+        Assert.assertEquals(0, dispatcher.getQueuedMessages());
+    }
+
+    @Test
+    public void testSubmitAfterCloseIsRejected() {
+        DiscordWebhookDispatcher dispatcher = new DiscordWebhookDispatcher.Builder().setClient(client).build();
+        dispatcher.close(0);
+
+        Assert.assertTrue(dispatcher.submit(message("late")).isCompletedExceptionally());
+        Assert.assertTrue(bodies.isEmpty());
+    }
+}
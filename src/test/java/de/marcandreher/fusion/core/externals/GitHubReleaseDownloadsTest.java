@@ -0,0 +1,125 @@
+package de.marcandreher.fusion.core.externals;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import de.marcandreher.fusionkit.core.externals.GitHubReleaseDownloads;
+
+public class GitHubReleaseDownloadsTest {
+
+    private static final String PAGE_1 = "[{\"name\":\"v2\",\"assets\":[{\"name\":\"a.jar\",\"download_count\":10},"
+            + "{\"name\":\"b.jar\",\"uploader\":{\"id\":1},\"download_count\":5}]},{\"name\":\"v1\",\"assets\":[]}]";
+    private static final String PAGE_2 = "[{\"name\":\"v0\",\"assets\":[{\"download_count\":100}]}]";
+
+    private HttpServer server;
+    private String apiUrl;
+    private final AtomicInteger status = new AtomicInteger(200);
+    private final List<String> ifNoneMatch = new CopyOnWriteArrayList<>();
+    private final AtomicInteger requests = new AtomicInteger();
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        apiUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+        server.createContext("/repos/", this::handle);
+        server.start();
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        boolean secondPage = exchange.getRequestURI().getQuery().contains("page=2");
+        String etag = secondPage ? "\"page-2\"" : "\"page-1\"";
+        String sentTag = exchange.getRequestHeaders().getFirst("If-None-Match");
+        if (sentTag != null) {
+            ifNoneMatch.add(sentTag);
+        }
+
+        if (status.get() != 200) {
+            exchange.sendResponseHeaders(status.get(), -1);
+        } else if (etag.equals(sentTag)) {
+            exchange.sendResponseHeaders(304, -1);
+        } else {
+            byte[] body = (secondPage ? PAGE_2 : PAGE_1).getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("ETag", etag);
+            if (!secondPage) {
+                String path = exchange.getRequestURI().getPath();
+                exchange.getResponseHeaders().add("Link", "<" + apiUrl + path + "?per_page=100&page=2>; rel=\"next\", "
+                        + "<" + apiUrl + path + "?per_page=100&page=2>; rel=\"last\"");
+            }
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+        exchange.close();
+    }
+
+    @Test
+    public void testSumsAllPagesAndCaches() {
+        GitHubReleaseDownloads downloads = new GitHubReleaseDownloads("owner", "paged", apiUrl);
+
+        Assert.assertEquals(115, downloads.getTotalDownloadsForRelease());
+        Assert.assertEquals(2, requests.get());
+
+        Assert.assertEquals(115, downloads.getTotalDownloadsForRelease());
+        Assert.assertEquals("Second call should be served from the cache", 2, requests.get());
+    }
+
+    @Test
+    public void testRefreshSendsETags() {
+        GitHubReleaseDownloads downloads = new GitHubReleaseDownloads("owner", "etag", apiUrl);
+        downloads.getTotalDownloadsForRelease();
+
+        Assert.assertEquals(Long.valueOf(115), downloads.refresh().join());
+        Assert.assertEquals(List.of("\"page-1\"", "\"page-2\""), ifNoneMatch);
+    }
+
+    @Test
+    public void testKeepsStaleTotalWhenRefreshFails() {
+        GitHubReleaseDownloads downloads = new GitHubReleaseDownloads("owner", "stale", apiUrl);
+        downloads.getTotalDownloadsForRelease();
+
+        status.set(502);
+        Assert.assertEquals(Long.valueOf(115), downloads.refresh().join());
+        Assert.assertEquals(115, downloads.getTotalDownloadsForRelease());
+    }
+
+    @Test
+    public void testInitialFailureReturnsZero() {
+        status.set(500);
+        GitHubReleaseDownloads downloads = new GitHubReleaseDownloads("owner", "down", apiUrl);
+
+        Assert.assertEquals(0, downloads.getTotalDownloadsForRelease());
+    }
+
+    @Test
+    public void testInitialFailureIsCached() {
+        status.set(500);
+        GitHubReleaseDownloads downloads = new GitHubReleaseDownloads("owner", "unreachable", apiUrl);
+
+        Assert.assertEquals(0, downloads.getTotalDownloadsForRelease());
+        int afterFirstCall = requests.get();
+
+        status.set(200);
+        Assert.assertEquals(0, downloads.getTotalDownloadsForRelease());
+        Assert.assertEquals("Failure should be cached until the retry is due", afterFirstCall, requests.get());
+    }
+}
@@ -0,0 +1,140 @@
+package de.marcandreher.fusion.core.externals;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.marcandreher.fusionkit.core.externals.SitemapWriter;
+
+public class SitemapWriterTest {
+
+    private static final String TEST_DOMAIN = "https://example.com";
+    private Path testDataPath;
+
+    @Before
+    public void setUp() throws IOException {
+        testDataPath = Paths.get("test-data-sitemap-writer");
+        Files.createDirectories(testDataPath);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        if (Files.exists(testDataPath)) {
+            Files.walk(testDataPath)
+                .sorted(Comparator.reverseOrder())
+                .map(Path::toFile)
+                .forEach(File::delete);
+        }
+    }
+
+    @Test
+    public void testShardsAndIndex() throws IOException {
+        try (SitemapWriter writer = new SitemapWriter.Builder(TEST_DOMAIN, testDataPath).setMaxUrlsPerShard(2).build()) {
+            for (int i = 0; i < 5; i++) {
+                writer.addUrl("/page" + i);
+            }
+        }
+
+        Assert.assertTrue(Files.exists(testDataPath.resolve("sitemap1.xml")));
+        Assert.assertTrue(Files.exists(testDataPath.resolve("sitemap2.xml")));
+        Assert.assertTrue(Files.exists(testDataPath.resolve("sitemap3.xml")));
+        Assert.assertFalse(Files.exists(testDataPath.resolve("sitemap4.xml")));
+
+        String index = Files.readString(testDataPath.resolve("sitemap_index.xml"));
+        Assert.assertTrue(index.contains("<sitemapindex"));
+        Assert.assertTrue(index.contains("<loc>" + TEST_DOMAIN + "/sitemap3.xml</loc>"));
+
+        String lastShard = Files.readString(testDataPath.resolve("sitemap3.xml"));
+        Assert.assertTrue(lastShard.contains("<loc>" + TEST_DOMAIN + "/page4</loc>"));
+        Assert.assertTrue(lastShard.endsWith("</urlset>\n"));
+    }
+
+    @Test
+    public void testSingleShardHasNoIndexAndRemovesStaleShards() throws IOException {
+        try (SitemapWriter writer = new SitemapWriter.Builder(TEST_DOMAIN, testDataPath).setMaxUrlsPerShard(1).build()) {
+            writer.addUrl("/a");
+            writer.addUrl("/b");
+        }
+        try (SitemapWriter writer = new SitemapWriter.Builder(TEST_DOMAIN, testDataPath).build()) {
+            writer.addUrl("/a");
+        }
+
+        Assert.assertTrue(Files.exists(testDataPath.resolve("sitemap.xml")));
+        Assert.assertFalse(Files.exists(testDataPath.resolve("sitemap_index.xml")));
+        Assert.assertFalse(Files.exists(testDataPath.resolve("sitemap1.xml")));
+        Assert.assertFalse(Files.exists(testDataPath.resolve("sitemap2.xml")));
+    }
+
+    @Test
+    public void testExplicitLastModPriorityAndEscaping() throws IOException {
+        try (SitemapWriter writer = new SitemapWriter.Builder(TEST_DOMAIN, testDataPath).build()) {
+            writer.addUrl("/search?q=a&page=2", Instant.parse("2024-03-01T10:15:30.123Z"), 0.85);
+            writer.addUrl("/home", null, 1.0);
+        }
+
+        String content = Files.readString(testDataPath.resolve("sitemap.xml"));
+        Assert.assertTrue(content.contains("<loc>" + TEST_DOMAIN + "/search?q=a&amp;page=2</loc>"));
+        Assert.assertTrue(content.contains("<lastmod>2024-03-01T10:15:30Z</lastmod>"));
+        Assert.assertTrue(content.contains("<priority>0.85</priority>"));
+        Assert.assertTrue(content.contains("<priority>1.0</priority>"));
+    }
+
+    @Test
+    public void testIncrementalOnlyRewritesChangedShards() throws IOException {
+        writeIncremental("/changed-later");
+        String indexBefore = Files.readString(testDataPath.resolve("sitemap_index.xml"));
+
+        SitemapWriter writer = writeIncremental("/changed-later");
+        Assert.assertEquals(0, writer.getChangedShardCount());
+        Assert.assertTrue(writer.getWrittenFiles().isEmpty());
+
+        writer = writeIncremental("/changed-now");
+        Assert.assertEquals(1, writer.getChangedShardCount());
+        Assert.assertEquals(testDataPath.resolve("sitemap2.xml"), writer.getWrittenFiles().get(0));
+        Assert.assertTrue(Files.readString(testDataPath.resolve("sitemap2.xml")).contains("/changed-now"));
+        Assert.assertTrue(indexBefore.contains("sitemap3.xml"));
+    }
+
+    private SitemapWriter writeIncremental(String changingUrl) throws IOException {
+        try (SitemapWriter writer = new SitemapWriter.Builder(TEST_DOMAIN, testDataPath)
+                .setMaxUrlsPerShard(2).setIncremental(true).build()) {
+            writer.addUrl("/a");
+            writer.addUrl("/b");
+            writer.addUrl(changingUrl);
+            writer.addUrl("/d");
+            writer.addUrl("/e");
+            return writer;
+        }
+    }
+
+    @Test
+    public void testGzip() throws IOException {
+        try (SitemapWriter writer = new SitemapWriter.Builder(TEST_DOMAIN, testDataPath).setGzip(true).build()) {
+            writer.addUrl("/zipped");
+        }
+
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(testDataPath.resolve("sitemap.xml.gz")))) {
+            String content = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            Assert.assertTrue(content.contains("<loc>" + TEST_DOMAIN + "/zipped</loc>"));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsInvalidPriority() throws IOException {
+        try (SitemapWriter writer = new SitemapWriter.Builder(TEST_DOMAIN, testDataPath).build()) {
+            writer.addUrl("/page", null, 1.5);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package de.marcandreher.fusion.core.health;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+
+import de.marcandreher.fusionkit.core.health.FusionHealth;
+import de.marcandreher.fusionkit.core.health.HealthCheck;
+
+public class FusionHealthTest {
+
+    @After
+    public void tearDown() {
+        for (String name : new String[] { "fast", "slow-1", "slow-2", "broken", "dead" }) {
+            FusionHealth.unregister(name);
+        }
+    }
+
+    private static HealthCheck sleeping(CountDownLatch interrupted) {
+        return () -> {
+            try {
+                Thread.sleep(FusionHealth.CHECK_TIMEOUT_MILLIS * 10);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+                throw e;
+            }
+            return HealthCheck.Result.up("finished");
+        };
+    }
+
+    @Test
+    public void testSlowChecksTimeOutTogether() throws InterruptedException {
+        CountDownLatch interrupted = new CountDownLatch(2);
+        FusionHealth.register(FusionHealth.Probe.READINESS, "fast", () -> HealthCheck.Result.up("ok"));
+        FusionHealth.register(FusionHealth.Probe.READINESS, "slow-1", sleeping(interrupted));
+        FusionHealth.register(FusionHealth.Probe.READINESS, "slow-2", sleeping(interrupted));
+
+        long start = System.currentTimeMillis();
+        FusionHealth.evaluate();
+        long elapsed = System.currentTimeMillis() - start;
+
+        // All checks share one deadline, so two slow checks don't add up
+        assertTrue("Evaluation took " + elapsed + " ms", elapsed < FusionHealth.CHECK_TIMEOUT_MILLIS * 2);
+        FusionHealth.Report readiness = FusionHealth.getReadiness();
+        assertFalse(readiness.healthy());
+        assertTrue(readiness.checks().get("fast").healthy());
+        assertEquals("timed out after " + FusionHealth.CHECK_TIMEOUT_MILLIS + " ms", readiness.checks().get("slow-1").detail());
+        assertFalse(readiness.checks().get("slow-2").healthy());
+        assertTrue("Timed out checks should be interrupted", interrupted.await(5, TimeUnit.SECONDS));
+        assertTrue(readiness.json().contains("\"DOWN\""));
+    }
+
+    @Test
+    public void testFailingCheckIsDown() {
+        FusionHealth.register(FusionHealth.Probe.READINESS, "fast", () -> HealthCheck.Result.up("ok"));
+        FusionHealth.register(FusionHealth.Probe.READINESS, "broken", () -> {
+            throw new IllegalStateException("connection refused");
+        });
+
+        FusionHealth.evaluate();
+
+        FusionHealth.Report readiness = FusionHealth.getReadiness();
+        assertFalse(readiness.healthy());
+        assertEquals("connection refused", readiness.checks().get("broken").detail());
+    }
+
+    @Test
+    public void testHealthyChecksAreUp() {
+        FusionHealth.register(FusionHealth.Probe.READINESS, "fast", () -> HealthCheck.Result.up("ok"));
+
+        FusionHealth.evaluate();
+
+        assertTrue(FusionHealth.getReadiness().healthy());
+        assertTrue(FusionHealth.getLiveness().healthy());
+    }
+
+    @Test
+    public void testNotReadyWhileNotAlive() {
+        FusionHealth.register(FusionHealth.Probe.READINESS, "fast", () -> HealthCheck.Result.up("ok"));
+        FusionHealth.register(FusionHealth.Probe.LIVENESS, "dead", () -> HealthCheck.Result.down("stuck"));
+
+        FusionHealth.evaluate();
+
+        assertFalse(FusionHealth.getLiveness().healthy());
+        FusionHealth.Report readiness = FusionHealth.getReadiness();
+        assertFalse(readiness.healthy());
+        assertFalse(readiness.checks().get("liveness").healthy());
+    }
+}
@@ -0,0 +1,167 @@
+package de.marcandreher.fusion.core.http;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import de.marcandreher.fusionkit.core.http.FusionHttp;
+import de.marcandreher.fusionkit.core.http.HostMetrics;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+public class FusionHttpTest {
+
+    private HttpServer server;
+    private String baseUrl;
+    private final CountDownLatch slowReceived = new CountDownLatch(1);
+    private final CountDownLatch slowRelease = new CountDownLatch(1);
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+        server.createContext("/ok", exchange -> respond(exchange, "ok"));
+        server.createContext("/slow", exchange -> {
+            slowReceived.countDown();
+            try {
+                slowRelease.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            respond(exchange, "late");
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+    }
+
+    @After
+    public void tearDown() {
+        slowRelease.countDown();
+        server.stop(0);
+    }
+
+    private static void respond(HttpExchange exchange, String text) throws IOException {
+        byte[] body = text.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+        exchange.close();
+    }
+
+    private static long calls() {
+        HostMetrics metrics = FusionHttp.getHostMetrics().get("127.0.0.1");
+        return metrics == null ? 0 : metrics.getCalls();
+    }
+
+    private static long failures() {
+        HostMetrics metrics = FusionHttp.getHostMetrics().get("127.0.0.1");
+        return metrics == null ? 0 : metrics.getFailures();
+    }
+
+    @Test
+    public void testUnknownProfileFallsBackToDefault() {
+        Assert.assertSame(FusionHttp.getClient(), FusionHttp.getClient("does-not-exist"));
+        Assert.assertNull(FusionHttp.getProfile("does-not-exist"));
+    }
+
+    @Test
+    public void testRegisterProfileReplacesCachedClient() {
+        FusionHttp.registerProfile("test-replace", profile -> profile.setReadTimeoutMillis(1_000));
+        OkHttpClient first = FusionHttp.getClient("test-replace");
+        Assert.assertSame("Clients are cached per profile", first, FusionHttp.getClient("test-replace"));
+        Assert.assertEquals(1_000, first.readTimeoutMillis());
+
+        FusionHttp.registerProfile("test-replace", profile -> profile.setReadTimeoutMillis(2_000));
+        OkHttpClient second = FusionHttp.getClient("test-replace");
+
+        Assert.assertNotSame(first, second);
+        Assert.assertEquals(2_000, second.readTimeoutMillis());
+        Assert.assertEquals(2_000, FusionHttp.getProfile("test-replace").getReadTimeoutMillis());
+    }
+
+    @Test
+    public void testProfilesShareConnectionPoolAndDispatcher() {
+        FusionHttp.registerProfile("test-shared", profile -> {
+            profile.setHttp2(false);
+            profile.setConnectTimeoutMillis(500);
+        });
+        for (String name : new String[] { FusionHttp.DEFAULT, FusionHttp.AUTH, FusionHttp.WEBHOOK, FusionHttp.GITHUB, "test-shared" }) {
+            OkHttpClient client = FusionHttp.getClient(name);
+            Assert.assertSame(name, FusionHttp.getConnectionPool(), client.connectionPool());
+            Assert.assertSame(name, FusionHttp.getDispatcher(), client.dispatcher());
+        }
+        Assert.assertEquals(20_000, FusionHttp.getClient(FusionHttp.AUTH).callTimeoutMillis());
+    }
+
+    @Test
+    public void testHostMetricsCountCalls() throws IOException {
+        long callsBefore = calls();
+        long failuresBefore = failures();
+        OkHttpClient client = FusionHttp.getClient();
+
+        for (int i = 0; i < 2; i++) {
+            try (Response response = client.newCall(new Request.Builder().url(baseUrl + "/ok").build()).execute()) {
+                Assert.assertEquals("ok", response.body().string());
+            }
+        }
+
+        HostMetrics metrics = FusionHttp.getHostMetrics().get("127.0.0.1");
+        Assert.assertNotNull(metrics);
+        Assert.assertEquals(callsBefore + 2, metrics.getCalls());
+        Assert.assertEquals(failuresBefore, metrics.getFailures());
+        Assert.assertEquals(0, metrics.getInFlight());
+        Assert.assertEquals(0, metrics.getConnectionsInUse());
+        Assert.assertTrue("The second call should reuse the pooled connection", metrics.getConnectionsReused() >= 1);
+    }
+
+    @Test
+    public void testEnqueueRunsHandlerOffThread() throws Exception {
+        CompletableFuture<String> future = FusionHttp.enqueue(FusionHttp.getClient(),
+                new Request.Builder().url(baseUrl + "/ok").build(),
+                response -> Thread.currentThread().getName() + ":" + response.body().string());
+
+        String result = future.get(5, TimeUnit.SECONDS);
+        Assert.assertTrue(result, result.startsWith("FK-Http-"));
+        Assert.assertTrue(result.endsWith(":ok"));
+    }
+
+    @Test
+    public void testCancellingFutureCancelsCall() throws Exception {
+        long failuresBefore = failures();
+        AtomicBoolean handled = new AtomicBoolean();
+        CompletableFuture<String> future = FusionHttp.enqueue(FusionHttp.getClient(),
+                new Request.Builder().url(baseUrl + "/slow").build(),
+                response -> {
+                    handled.set(true);
+                    return response.body().string();
+                });
+        Assert.assertTrue(slowReceived.await(5, TimeUnit.SECONDS));
+
+        Assert.assertTrue(future.cancel(true));
+
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (failures() == failuresBefore && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Assert.assertEquals("The cancelled call should fail", failuresBefore + 1, failures());
+        slowRelease.countDown();
+        Thread.sleep(100);
+        Assert.assertFalse("The handler must not run for a cancelled call", handled.get());
+    }
+}
@@ -0,0 +1,60 @@
+package de.marcandreher.fusion.core.http;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import de.marcandreher.fusionkit.core.http.JsonFields;
+
+public class JsonFieldsTest {
+
+    @Test
+    public void testExtractsNestedFieldsAndSkipsTheRest() throws IOException {
+        String json = "{\"response\":{\"meta\":{\"x\":[1,2,{\"y\":null}]},\"players\":["
+                + "{\"personaname\":\"gabe\",\"avatarfull\":\"https://a/b.jpg\",\"level\":12,\"vac\":false},"
+                + "{\"personaname\":\"other\"}]}}";
+
+        Map<String, String> fields = JsonFields.extract(new StringReader(json),
+                "response.players.0.personaname", "response.players.0.level", "response.players.0.vac", "response.missing");
+
+        Assert.assertEquals("gabe", fields.get("response.players.0.personaname"));
+        Assert.assertEquals("12", fields.get("response.players.0.level"));
+        Assert.assertEquals("false", fields.get("response.players.0.vac"));
+        Assert.assertFalse(fields.containsKey("response.missing"));
+    }
+
+    @Test
+    public void testNullAndObjectValuesAreAbsent() throws IOException {
+        Map<String, String> fields = JsonFields.extract(new StringReader("{\"email\":null,\"user\":{\"id\":7}}"),
+                "email", "user", "user.id");
+
+        Assert.assertFalse(fields.containsKey("email"));
+        Assert.assertFalse(fields.containsKey("user"));
+        Assert.assertEquals("7", fields.get("user.id"));
+    }
+
+    @Test
+    public void testStopsReadingOnceAllFieldsAreFound() throws IOException {
+        // The trailing garbage would fail the parse if it was read
+        Map<String, String> fields = JsonFields.extract(new StringReader("{\"access_token\":\"abc\",\"scope\":!!!"),
+                "access_token");
+
+        Assert.assertEquals("abc", fields.get("access_token"));
+    }
+
+    @Test
+    public void testExtractEach() throws IOException {
+        String json = "[{\"email\":\"a@x\",\"primary\":false,\"verified\":true},"
+                + "{\"email\":\"b@x\",\"primary\":true,\"verified\":true,\"visibility\":{\"k\":1}}]";
+
+        List<Map<String, String>> emails = JsonFields.extractEach(new StringReader(json), "", "email", "primary");
+
+        Assert.assertEquals(2, emails.size());
+        Assert.assertEquals("a@x", emails.get(0).get("email"));
+        Assert.assertEquals("true", emails.get(1).get("primary"));
+    }
+}